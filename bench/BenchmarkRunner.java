@@ -0,0 +1,385 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Uruchamia benchmarki z {@link TicketBenchmarks} i zapisuje wyniki w pliku JSON.
+ * <p>
+ * Każda para (benchmark, rozmiar magazynu) - a dla benchmarków wielowątkowych także każda liczba wątków -
+ * wykonywana jest w osobnej JVM, w nowym katalogu
+ * tymczasowym - system zgłoszeń zapisuje pliki w katalogu roboczym, a osobny proces nie dziedziczy
+ * stanu JIT ani sterty po poprzednim pomiarze. Po iteracjach rozgrzewkowych wykonywane są
+ * iteracje pomiarowe; wynik to średnia z odchyleniem standardowym.
+ * <p>
+ * Uruchomienie przez Maven: {@code mvn -Pbench package exec:exec -Dbench.args="--sizes 1000,10000"}.
+ * Opcje:
+ * <pre>
+ *   --sizes 1000,10000,100000,1000000   rozmiary magazynu (liczba zgłoszeń)
+ *   --threads 1,2,4,8,16,32             liczby wątków benchmarków wielowątkowych
+ *   --include REGEX                     tylko benchmarki o pasującej nazwie
+ *   --warmup N                          liczba iteracji rozgrzewkowych (domyślnie 3)
+ *   --iterations N                      liczba iteracji pomiarowych (domyślnie 5)
+ *   --time-ms N                         czas iteracji w trybie THROUGHPUT (domyślnie 1000)
+ *   --jvm-args "..."                    opcje JVM procesów pomiarowych (domyślnie -Xmx3g
+ *                                       -Dsun.net.httpserver.nodelay=true, jak serwer API uruchamiany z Main)
+ *   --out PLIK                          plik wyników (domyślnie bench-results/results-DATA.json)
+ *   --compare PLIK                      porównanie z wynikami wcześniejszego uruchomienia
+ *   --list                              lista benchmarków
+ * </pre>
+ */
+public final class BenchmarkRunner {
+    private static final String FORK_FLAG = "--fork";
+    private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private List<Integer> sizes = List.of(1_000, 10_000, 100_000, 1_000_000);
+    private List<Integer> threadCounts = List.of(1, 2, 4, 8, 16, 32);
+    private Pattern include = Pattern.compile(".*");
+    private int warmup = 3;
+    private int iterations = 5;
+    private long iterationMillis = 1000;
+    private List<String> jvmArgs = List.of("-Xmx3g", "-Dsun.net.httpserver.nodelay=true");
+    private Path out;
+    private Path compare;
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(FORK_FLAG)) {
+            runFork(args);
+            return;
+        }
+        BenchmarkRunner runner = new BenchmarkRunner();
+        if (!runner.parseArguments(args)) {
+            return;
+        }
+        System.exit(runner.runAll() ? 0 : 1);
+    }
+
+    private boolean parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--list")) {
+                for (TicketBenchmarks.Definition definition : TicketBenchmarks.ALL) {
+                    System.out.println(definition.name() + " (" + definition.mode()
+                            + (definition.sized() ? ", zależny od rozmiaru" : "")
+                            + (definition.threaded() ? ", wielowątkowy)" : ")"));
+                }
+                return false;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Brak wartości opcji " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--sizes" -> sizes = Stream.of(value.split(",")).map(String::trim).map(Integer::valueOf).toList();
+                case "--threads" -> threadCounts = Stream.of(value.split(",")).map(String::trim)
+                        .map(Integer::valueOf).toList();
+                case "--include" -> include = Pattern.compile(value);
+                case "--warmup" -> warmup = Integer.parseInt(value);
+                case "--iterations" -> iterations = Integer.parseInt(value);
+                case "--time-ms" -> iterationMillis = Long.parseLong(value);
+                case "--jvm-args" -> jvmArgs = value.isBlank() ? List.of() : List.of(value.trim().split("\\s+"));
+                case "--out" -> out = Path.of(value);
+                case "--compare" -> compare = Path.of(value);
+                default -> throw new IllegalArgumentException("Nieznana opcja: " + option);
+            }
+        }
+        if (warmup < 0 || iterations <= 0 || iterationMillis <= 0 || sizes.stream().anyMatch(size -> size <= 0)
+                || threadCounts.stream().anyMatch(threads -> threads <= 0)) {
+            throw new IllegalArgumentException("Liczba iteracji, czas iteracji, rozmiary i liczby wątków muszą być dodatnie");
+        }
+        return true;
+    }
+
+    // ---------------------------------------------------------------- proces nadrzędny
+
+    private boolean runAll() throws IOException, InterruptedException {
+        if (out == null) {
+            out = Path.of("bench-results", "results-" + LocalDateTime.now().format(FILE_DATE_FORMATTER) + ".json");
+        }
+        List<String> results = new ArrayList<>();
+        boolean allPassed = true;
+        for (TicketBenchmarks.Definition definition : TicketBenchmarks.ALL) {
+            if (!include.matcher(definition.name()).find()) {
+                continue;
+            }
+            for (int size : definition.sized() ? sizes : List.of(0)) {
+                for (int threads : definition.threaded() ? threadCounts : List.of(0)) {
+                    System.out.println("# " + definition.name() + (size > 0 ? " [" + size + "]" : "")
+                            + (threads > 0 ? " x" + threads : ""));
+                    String result = fork(definition, size, threads);
+                    if (result == null) {
+                        allPassed = false;
+                    } else {
+                        results.add(result);
+                    }
+                }
+            }
+        }
+        writeResults(results);
+        System.out.println("Wyniki zapisano w pliku: " + out.toAbsolutePath());
+        if (compare != null) {
+            printComparison(readScores(compare), readScores(out));
+        }
+        return allPassed;
+    }
+
+    /**
+     * Wykonuje jeden benchmark w osobnej JVM.
+     *
+     * @return wynik jako obiekt JSON lub null, jeśli pomiar się nie powiódł
+     */
+    private String fork(TicketBenchmarks.Definition definition, int size, int threads)
+            throws IOException, InterruptedException {
+        Path workDir = Files.createTempDirectory("ticket-bench-");
+        Path resultFile = workDir.resolve("result.json");
+        try {
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("--enable-preview");
+            command.addAll(jvmArgs);
+            command.add("-cp");
+            command.add(absoluteClassPath());
+            command.add(BenchmarkRunner.class.getName());
+            command.addAll(List.of(FORK_FLAG, definition.name(), Integer.toString(size), Integer.toString(threads),
+                    Integer.toString(warmup),
+                    Integer.toString(iterations), Long.toString(iterationMillis), resultFile.toString()));
+            Process process = new ProcessBuilder(command).directory(workDir.toFile()).inheritIO().start();
+            int exitCode = process.waitFor();
+            if (exitCode != 0 || !Files.exists(resultFile)) {
+                System.err.println("Benchmark " + definition.name() + " zakończył się błędem (kod " + exitCode + ")");
+                return null;
+            }
+            return Files.readString(resultFile, StandardCharsets.UTF_8).trim();
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Ścieżka klas z absolutnymi ścieżkami - proces pomiarowy działa w innym katalogu roboczym.
+     */
+    private static String absoluteClassPath() {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(new File(entry).getAbsolutePath());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private void writeResults(List<String> results) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"createdAt\": ").append(quote(LocalDateTime.now().withNano(0).toString())).append(",\n");
+        json.append("  \"javaVersion\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+        json.append("  \"jvmArgs\": ").append(quote(String.join(" ", jvmArgs))).append(",\n");
+        json.append("  \"availableProcessors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"warmupIterations\": ").append(warmup).append(",\n");
+        json.append("  \"measurementIterations\": ").append(iterations).append(",\n");
+        json.append("  \"iterationMillis\": ").append(iterationMillis).append(",\n");
+        json.append("  \"results\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            json.append("    ").append(results.get(i)).append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("  ]\n");
+        json.append("}\n");
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, json, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Wynik pomiaru odczytany z pliku wyników.
+     */
+    private record Score(double score, double error, String unit) {
+    }
+
+    /**
+     * Wczytuje wyniki z pliku, kluczem jest nazwa benchmarku z rozmiarem magazynu i liczbą wątków.
+     */
+    private static Map<String, Score> readScores(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("results")) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Map<String, String> fields = new HashMap<>();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        JsonReader.Token token = reader.peek();
+                        if (token == JsonReader.Token.STRING) {
+                            fields.put(name, reader.nextString());
+                        } else if (token == JsonReader.Token.LITERAL) {
+                            fields.put(name, reader.nextLiteral());
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    String threads = fields.getOrDefault("threads", "0");
+                    scores.put(fields.get("benchmark") + " [" + fields.get("size") + "]"
+                                    + (threads.equals("0") ? "" : " x" + threads),
+                            new Score(Double.parseDouble(fields.get("score")),
+                                    Double.parseDouble(fields.get("error")), fields.get("unit")));
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+        return scores;
+    }
+
+    private void printComparison(Map<String, Score> before, Map<String, Score> after) {
+        System.out.println();
+        System.out.println("Porównanie z " + compare + ":");
+        System.out.printf(Locale.ROOT, "%-42s %16s %16s %9s%n", "benchmark", "poprzednio", "teraz", "zmiana");
+        for (Map.Entry<String, Score> entry : after.entrySet()) {
+            Score current = entry.getValue();
+            Score previous = before.get(entry.getKey());
+            if (previous == null || !previous.unit().equals(current.unit())) {
+                System.out.printf(Locale.ROOT, "%-42s %16s %16s %9s%n", entry.getKey(), "-",
+                        format(current), "nowy");
+                continue;
+            }
+            // Dodatnia zmiana zawsze oznacza poprawę: więcej ops/s albo mniej us/op
+            boolean higherIsBetter = current.unit().equals(TicketBenchmarks.Mode.THROUGHPUT.getUnit());
+            double change = (current.score() - previous.score()) / previous.score() * 100;
+            if (!higherIsBetter) {
+                change = -change;
+            }
+            // Zmiany mniejsze niż suma odchyleń obu pomiarów uznawane są za szum
+            boolean significant = Math.abs(current.score() - previous.score()) > current.error() + previous.error();
+            System.out.printf(Locale.ROOT, "%-42s %16s %16s %+8.1f%%%s%n", entry.getKey(), format(previous),
+                    format(current), change, significant ? "" : " (szum)");
+        }
+    }
+
+    private static String format(Score score) {
+        return String.format(Locale.ROOT, "%.2f %s", score.score(), score.unit());
+    }
+
+    // ---------------------------------------------------------------- proces pomiarowy
+
+    private static void runFork(String[] args) throws Exception {
+        TicketBenchmarks.Definition definition = TicketBenchmarks.find(args[1]);
+        int size = Integer.parseInt(args[2]);
+        int threads = Integer.parseInt(args[3]);
+        int warmup = Integer.parseInt(args[4]);
+        int iterations = Integer.parseInt(args[5]);
+        long iterationNanos = Long.parseLong(args[6]) * 1_000_000L;
+        Path resultFile = Path.of(args[7]);
+
+        TicketBenchmarks.Benchmark benchmark = definition.factory().get();
+        if (threads > 0) {
+            benchmark.setThreads(threads);
+        }
+        benchmark.setUp(size);
+        TicketBenchmarks.Mode mode = definition.mode();
+        double[] scores = new double[iterations];
+        for (int i = 0; i < warmup + iterations; i++) {
+            benchmark.setUpIteration();
+            long operations = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            if (mode == TicketBenchmarks.Mode.SINGLE_SHOT) {
+                operations = benchmark.run();
+                elapsed = System.nanoTime() - start;
+            } else {
+                do {
+                    operations += benchmark.run();
+                    elapsed = System.nanoTime() - start;
+                } while (elapsed < iterationNanos);
+            }
+            benchmark.tearDownIteration();
+            double score = mode == TicketBenchmarks.Mode.SINGLE_SHOT
+                    ? elapsed / 1000.0 / Math.max(1, operations)
+                    : operations * 1e9 / elapsed;
+            boolean measured = i >= warmup;
+            System.out.printf(Locale.ROOT, "%s %d: %.3f %s%n", measured ? "Iteracja" : "Rozgrzewka",
+                    measured ? i - warmup + 1 : i + 1, score, mode.getUnit());
+            if (measured) {
+                scores[i - warmup] = score;
+            }
+        }
+        Files.writeString(resultFile, resultJson(definition, size, threads, scores, benchmark.counters()),
+                StandardCharsets.UTF_8);
+        // Wątki systemu zgłoszeń (dziennik, dzierżawy) nie mogą przedłużać procesu pomiarowego
+        System.exit(0);
+    }
+
+    private static String resultJson(TicketBenchmarks.Definition definition, int size, int threads, double[] scores,
+                                     Map<String, Long> counters) {
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double error = scores.length > 1 ? Math.sqrt(variance / (scores.length - 1)) : 0;
+
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"benchmark\": ").append(quote(definition.name()));
+        json.append(", \"size\": ").append(size);
+        json.append(", \"threads\": ").append(threads);
+        json.append(", \"mode\": ").append(quote(definition.mode().name()));
+        json.append(", \"unit\": ").append(quote(definition.mode().getUnit()));
+        json.append(", \"score\": ").append(number(mean));
+        json.append(", \"error\": ").append(number(error));
+        json.append(", \"min\": ").append(number(Arrays.stream(scores).min().orElse(0)));
+        json.append(", \"max\": ").append(number(Arrays.stream(scores).max().orElse(0)));
+        json.append(", \"iterations\": [");
+        for (int i = 0; i < scores.length; i++) {
+            json.append(i > 0 ? ", " : "").append(number(scores[i]));
+        }
+        json.append("], \"counters\": {");
+        int i = 0;
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            json.append(i++ > 0 ? ", " : "").append(quote(counter.getKey())).append(": ").append(counter.getValue());
+        }
+        json.append("}}");
+        return json.toString();
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generator syntetycznych danych do benchmarków: techników, zgłoszeń i gotowych magazynów
+ * zapisanych w bieżącym katalogu. Dane są deterministyczne dla danego ziarna, więc kolejne
+ * uruchomienia mierzą dokładnie ten sam zbiór.
+ * <p>
+ * Rozkład zgłoszeń odpowiada typowemu systemowi: połowa zamkniętych, jedna czwarta w trakcie,
+ * reszta nowych i nieprzypisanych; daty utworzenia z ostatnich 20 dni, więc żadne zgłoszenie
+ * nie kwalifikuje się jeszcze do archiwum.
+ */
+public final class SyntheticData {
+    public static final long DEFAULT_SEED = 67193L;
+    public static final long FIRST_TICKET_NUMBER = 100_000;
+
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Piotr", "Katarzyna", "Tomasz", "Magdalena", "Paweł", "Agnieszka", "Michał",
+            "Joanna", "Krzysztof", "Ewa", "Łukasz", "Małgorzata", "Jakub", "Zofia", "Grzegorz"
+    };
+    private static final String[] LAST_NAMES = {
+            "Kowalska", "Nowak", "Wiśniewska", "Wójcik", "Kowalczyk", "Kamiński", "Lewandowska",
+            "Zieliński", "Szymańska", "Woźniak", "Dąbrowski", "Kozłowska", "Jankowski", "Mazur"
+    };
+    private static final String[] DEVICES = {
+            "drukarka", "serwer", "laptop", "monitor", "router", "skaner", "telefon", "projektor",
+            "klawiatura", "switch", "dysk sieciowy", "stacja dokująca", "VPN", "poczta", "ERP"
+    };
+    private static final String[] PROBLEMS = {
+            "nie działa", "nie uruchamia się", "zwraca błąd 500", "działa bardzo wolno",
+            "traci połączenie", "wymaga aktualizacji", "zgłasza brak licencji", "przegrzewa się",
+            "nie drukuje", "nie łączy się z siecią", "wyświetla niebieski ekran", "odrzuca hasło"
+    };
+    private static final String[] DETAILS = {
+            "Problem występuje od rana", "Użytkownik prosi o pilną pomoc",
+            "Restart urządzenia nie pomógł", "Dotyczy całego działu księgowości",
+            "Błąd pojawia się po zalogowaniu", "Sprawdzono okablowanie", "Komunikat w załączniku",
+            "Występuje tylko w sieci firmowej", "Po ostatniej aktualizacji systemu", "Awaria w sali konferencyjnej"
+    };
+    private static final Ticket.Priority[] PRIORITIES = Ticket.Priority.values();
+    private static final int TICKETS_PER_TECHNICIAN = 100;
+    private static final int MIN_TECHNICIANS = 10;
+    private static final long CREATED_WINDOW_SECONDS = 20L * 24 * 3600;
+
+    private final SplittableRandom random;
+    private final LocalDateTime now;
+
+    public SyntheticData(long seed) {
+        this.random = new SplittableRandom(seed);
+        this.now = LocalDateTime.now().withNano(0);
+    }
+
+    /**
+     * Liczba techników dla magazynu o danej liczbie zgłoszeń - około 100 zgłoszeń na technika.
+     */
+    public static int technicianCountFor(int ticketCount) {
+        return Math.max(MIN_TECHNICIANS, ticketCount / TICKETS_PER_TECHNICIAN);
+    }
+
+    public List<String> technicians(int count) {
+        List<String> technicians = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            technicians.add("Technik " + FIRST_NAMES[i % FIRST_NAMES.length] + " "
+                    + LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length] + " " + (i + 1));
+        }
+        return technicians;
+    }
+
+    /**
+     * Zgłoszenia o kolejnych numerach, zaczynając od {@code firstNumber}.
+     */
+    public List<Ticket> tickets(int count, long firstNumber, List<String> technicians) {
+        List<Ticket> tickets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tickets.add(ticket(TicketIdAllocator.formatId(firstNumber + i), technicians));
+        }
+        return tickets;
+    }
+
+    /**
+     * Pojedyncze zgłoszenie o losowym stanie zgodnym z rozkładem opisanym w klasie.
+     */
+    public Ticket ticket(String ticketId, List<String> technicians) {
+        int roll = random.nextInt(4);
+        Ticket.Status status = roll < 2 ? Ticket.Status.ZAMKNIETE
+                : roll == 2 ? Ticket.Status.W_TRAKCIE : Ticket.Status.NOWE;
+        String technician = status == Ticket.Status.NOWE ? null
+                : technicians.get(random.nextInt(technicians.size()));
+        return new Ticket(ticketId, title(), description(), reporterName(), reporterEmail(), priority(),
+                status, technician, createdAt());
+    }
+
+    /**
+     * Nowe, nieprzypisane zgłoszenie - tak jak tworzy je użytkownik.
+     */
+    public Ticket newTicket(String ticketId) {
+        return new Ticket(ticketId, title(), description(), reporterName(), reporterEmail(), priority(),
+                Ticket.Status.NOWE, null, createdAt());
+    }
+
+    public TicketDraft newDraft() {
+        return new TicketDraft(title(), description(), reporterName(), reporterEmail(), priority());
+    }
+
+    public String title() {
+        return capitalize(pick(DEVICES)) + " " + pick(PROBLEMS);
+    }
+
+    public String description() {
+        return pick(DETAILS) + ". " + capitalize(pick(DEVICES)) + " " + pick(PROBLEMS)
+                + " (pokój " + (100 + random.nextInt(400)) + ").";
+    }
+
+    public String reporterName() {
+        return pick(FIRST_NAMES) + " " + pick(LAST_NAMES);
+    }
+
+    public String reporterEmail() {
+        return "user" + random.nextInt(5000) + "@firma.pl";
+    }
+
+    public Ticket.Priority priority() {
+        return PRIORITIES[random.nextInt(PRIORITIES.length)];
+    }
+
+    public LocalDateTime createdAt() {
+        return now.minusSeconds(random.nextLong(CREATED_WINDOW_SECONDS));
+    }
+
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    public <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Zapisuje w bieżącym katalogu snapshot magazynu o podanej liczbie zgłoszeń,
+     * który {@link TicketSystem} wczyta przy starcie.
+     *
+     * @return zapisani technicy
+     */
+    public List<String> writeStore(int ticketCount) {
+        List<String> technicians = technicians(technicianCountFor(ticketCount));
+        if (!new BinarySnapshot().save(tickets(ticketCount, FIRST_TICKET_NUMBER, technicians), technicians)) {
+            throw new IllegalStateException("Nie udało się zapisać snapshotu danych testowych");
+        }
+        return technicians;
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
@@ -0,0 +1,1443 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarki ścieżek krytycznych: zapisu i odczytu plików JSON, tworzenia zgłoszeń,
+ * operacji {@link TicketSystem} z zapisem do dziennika, przeglądów według technika i statusu,
+ * zajętości sterty, importu zbiorczego, przydziału identyfikatorów, wyszukiwania i zapytań, narzutu metryk, obciążenia API HTTP, terminów SLA,
+ * odczytu strumienia zmian oraz startu systemu.
+ * <p>
+ * Każdy benchmark działa w osobnej JVM uruchomionej przez {@link BenchmarkRunner}
+ * w pustym katalogu roboczym, więc pliki danych z jednego pomiaru nie wpływają na kolejny.
+ */
+public final class TicketBenchmarks {
+
+    /**
+     * Sposób pomiaru iteracji.
+     */
+    public enum Mode {
+        /** Porcje operacji powtarzane przez zadany czas; wynik w operacjach na sekundę. */
+        THROUGHPUT("ops/s"),
+        /** Jedno wywołanie na iterację, z przygotowaniem poza pomiarem; wynik w mikrosekundach na operację. */
+        SINGLE_SHOT("us/op");
+
+        private final String unit;
+        Mode(String unit) { this.unit = unit; }
+        public String getUnit() { return unit; }
+    }
+
+    /**
+     * Mierzony kod. Metody przygotowania i sprzątania nie wliczają się do pomiaru.
+     */
+    public interface Benchmark {
+        /**
+         * @param size liczba zgłoszeń w magazynie (0 dla benchmarków niezależnych od rozmiaru)
+         */
+        default void setUp(int size) throws Exception {
+        }
+
+        /**
+         * Liczba wątków wykonujących operacje; wywoływane przed {@link #setUp(int)} tylko
+         * dla benchmarków wielowątkowych ({@link Definition#threaded()}).
+         */
+        default void setThreads(int threads) {
+        }
+
+        default void setUpIteration() throws Exception {
+        }
+
+        /**
+         * Wykonuje porcję mierzonych operacji.
+         *
+         * @return liczba wykonanych operacji
+         */
+        int run() throws Exception;
+
+        default void tearDownIteration() throws Exception {
+        }
+
+        /**
+         * Dodatkowe liczniki zapisywane w wynikach, np. liczba kolizji identyfikatorów.
+         */
+        default Map<String, Long> counters() {
+            return Map.of();
+        }
+    }
+
+    /**
+     * @param sized    czy benchmark jest powtarzany dla każdego rozmiaru magazynu
+     * @param threaded czy benchmark jest powtarzany dla każdej liczby wątków (opcja --threads)
+     */
+    public record Definition(String name, Mode mode, boolean sized, boolean threaded, Supplier<Benchmark> factory) {
+
+        public Definition(String name, Mode mode, boolean sized, Supplier<Benchmark> factory) {
+            this(name, mode, sized, false, factory);
+        }
+    }
+
+    public static final List<Definition> ALL = List.of(
+            new Definition("json.saveTickets", Mode.SINGLE_SHOT, true, SaveTickets::new),
+            new Definition("json.loadTickets", Mode.SINGLE_SHOT, true, LoadTickets::new),
+            new Definition("json.loadTechnicians", Mode.THROUGHPUT, true, LoadTechnicians::new),
+            new Definition("ticket.create", Mode.THROUGHPUT, false, CreateTicket::new),
+            new Definition("ticket.rejectInvalid", Mode.THROUGHPUT, false, RejectInvalidTicket::new),
+            new Definition("ticket.contention.cas", Mode.THROUGHPUT, false, true, () -> new StateContention(false)),
+            new Definition("ticket.contention.synchronized", Mode.THROUGHPUT, false, true,
+                    () -> new StateContention(true)),
+            new Definition("system.addTicket", Mode.THROUGHPUT, true,
+                    () -> new AddTicket(Journal.Durability.PERIODIC)),
+            new Definition("system.addTicket.sync", Mode.THROUGHPUT, true,
+                    () -> new AddTicket(Journal.Durability.SYNC)),
+            new Definition("sharded.addTicket.1", Mode.THROUGHPUT, false, () -> new ShardedAddTicket(1)),
+            new Definition("sharded.addTicket.4", Mode.THROUGHPUT, false, () -> new ShardedAddTicket(4)),
+            new Definition("system.addTicket.slowSubscriber", Mode.THROUGHPUT, true, AddTicketSlowSubscriber::new),
+            new Definition("system.assignTicket", Mode.THROUGHPUT, true, AssignTicket::new),
+            new Definition("system.closeTicket", Mode.SINGLE_SHOT, true, CloseTicket::new),
+            new Definition("concurrent.mixed", Mode.THROUGHPUT, true, true, ConcurrentMixed::new),
+            new Definition("scan.getTicketsAssignedTo", Mode.THROUGHPUT, true, TicketsAssignedTo::new),
+            new Definition("scan.getActiveTickets", Mode.THROUGHPUT, true, ActiveTickets::new),
+            new Definition("scan.getUnassignedTickets", Mode.THROUGHPUT, true, UnassignedTickets::new),
+            new Definition("memory.plainTickets", Mode.SINGLE_SHOT, true, () -> new HeapFootprint(Layout.PLAIN)),
+            new Definition("memory.tickets", Mode.SINGLE_SHOT, true, () -> new HeapFootprint(Layout.COMPACT)),
+            new Definition("memory.system", Mode.SINGLE_SHOT, true, () -> new HeapFootprint(Layout.SYSTEM)),
+            new Definition("ingest.stream", Mode.SINGLE_SHOT, true, () -> new Ingest(0)),
+            new Definition("ingest.sharded.4", Mode.SINGLE_SHOT, true, () -> new Ingest(4)),
+            new Definition("id.nextTicketId", Mode.SINGLE_SHOT, true, NextTicketId::new),
+            new Definition("id.addDuplicateId", Mode.THROUGHPUT, true, AddDuplicateId::new),
+            new Definition("search.searchTickets", Mode.THROUGHPUT, true, SearchTickets::new),
+            new Definition("query.activeByTechnician", Mode.THROUGHPUT, true, QueryActiveByTechnician::new),
+            new Definition("listing.firstPage", Mode.THROUGHPUT, true, FirstPage::new),
+            new Definition("metrics.histogramRecord", Mode.THROUGHPUT, false, HistogramRecord::new),
+            new Definition("metrics.operationOverhead", Mode.THROUGHPUT, false, OperationOverhead::new),
+            new Definition("http.mixedLoad", Mode.SINGLE_SHOT, true, HttpMixedLoad::new),
+            new Definition("sla.rebuild", Mode.SINGLE_SHOT, true, SlaRebuild::new),
+            new Definition("sla.timingWheel", Mode.THROUGHPUT, true, TimingWheelChurn::new),
+            new Definition("changes.catchUp", Mode.SINGLE_SHOT, true, ChangesCatchUp::new),
+            new Definition("replication.catchUp", Mode.SINGLE_SHOT, true, ReplicationCatchUp::new),
+            new Definition("startup.full", Mode.SINGLE_SHOT, true, () -> new Startup(false)),
+            new Definition("startup.lazy", Mode.SINGLE_SHOT, true, () -> new Startup(true))
+    );
+
+    private static final int BATCH = 100;
+
+    /** Zbiera wyniki mierzonych wywołań, żeby kompilator JIT nie mógł ich pominąć. */
+    private static volatile long sink;
+
+    private TicketBenchmarks() {
+    }
+
+    public static Definition find(String name) {
+        for (Definition definition : ALL) {
+            if (definition.name().equals(name)) {
+                return definition;
+            }
+        }
+        throw new IllegalArgumentException("Nieznany benchmark: " + name);
+    }
+
+    static void consume(long value) {
+        sink += value;
+    }
+
+    /**
+     * Benchmark działający na magazynie syntetycznych zgłoszeń wczytanym przez {@link TicketSystem}.
+     */
+    private abstract static class SystemBenchmark implements Benchmark {
+        final SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+        TicketSystem system;
+        List<String> technicians;
+
+        @Override
+        public void setUp(int size) {
+            technicians = data.writeStore(size);
+            system = createSystem();
+        }
+
+        TicketSystem createSystem() {
+            return new TicketSystem();
+        }
+    }
+
+    // ---------------------------------------------------------------- JSON
+
+    private static final class SaveTickets implements Benchmark {
+        private final Json json = new Json();
+        private List<Ticket> tickets;
+
+        @Override
+        public void setUp(int size) {
+            SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+            tickets = data.tickets(size, SyntheticData.FIRST_TICKET_NUMBER,
+                    data.technicians(SyntheticData.technicianCountFor(size)));
+        }
+
+        @Override
+        public int run() {
+            if (!json.saveTickets(tickets)) {
+                throw new IllegalStateException("Zapis zgłoszeń nie powiódł się");
+            }
+            return 1;
+        }
+    }
+
+    private static final class LoadTickets implements Benchmark {
+        private final Json json = new Json();
+        private int size;
+
+        @Override
+        public void setUp(int size) {
+            SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+            json.saveTickets(data.tickets(size, SyntheticData.FIRST_TICKET_NUMBER,
+                    data.technicians(SyntheticData.technicianCountFor(size))));
+            this.size = size;
+        }
+
+        @Override
+        public int run() {
+            List<Ticket> loaded = json.loadTickets();
+            if (loaded.size() != size) {
+                throw new IllegalStateException("Wczytano " + loaded.size() + " zgłoszeń zamiast " + size);
+            }
+            consume(loaded.size());
+            return 1;
+        }
+    }
+
+    private static final class LoadTechnicians implements Benchmark {
+        private final Json json = new Json();
+
+        @Override
+        public void setUp(int size) {
+            json.saveTechnicians(new SyntheticData(SyntheticData.DEFAULT_SEED)
+                    .technicians(SyntheticData.technicianCountFor(size)));
+        }
+
+        @Override
+        public int run() {
+            consume(json.loadTechnicians().size());
+            return 1;
+        }
+    }
+
+    // ---------------------------------------------------------------- Ticket
+
+    /**
+     * Konstrukcja z pełną walidacją; pola są przygotowane wcześniej, więc mierzony jest tylko konstruktor.
+     */
+    private static final class CreateTicket implements Benchmark {
+        private static final int VARIANTS = 1024;
+        private final String[][] fields = new String[VARIANTS][];
+        private final Ticket.Priority[] priorities = new Ticket.Priority[VARIANTS];
+        private final LocalDateTime[] createdAt = new LocalDateTime[VARIANTS];
+
+        @Override
+        public void setUp(int size) {
+            SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+            for (int i = 0; i < VARIANTS; i++) {
+                fields[i] = new String[]{TicketIdAllocator.formatId(SyntheticData.FIRST_TICKET_NUMBER + i),
+                        data.title(), data.description(), data.reporterName(), data.reporterEmail()};
+                priorities[i] = data.priority();
+                createdAt[i] = data.createdAt();
+            }
+        }
+
+        @Override
+        public int run() {
+            for (int i = 0; i < VARIANTS; i++) {
+                String[] f = fields[i];
+                Ticket ticket = new Ticket(f[0], f[1], f[2], f[3], f[4], priorities[i],
+                        Ticket.Status.NOWE, null, createdAt[i]);
+                consume(ticket.getCreatedAtEpochNanos());
+            }
+            return VARIANTS;
+        }
+    }
+
+    /**
+     * Stan zgłoszenia w wersji z blokadą - punkt odniesienia dla {@link Ticket.State} zmienianego
+     * przez compare-and-set. Te same przejścia warunkowe, ale każde pod monitorem obiektu.
+     */
+    private static final class SynchronizedTicketState {
+        private Ticket.Status status = Ticket.Status.NOWE;
+        private String assignedTechnicianName;
+
+        synchronized boolean assignIfNew(String technicianName) {
+            if (status != Ticket.Status.NOWE || assignedTechnicianName != null) {
+                return false;
+            }
+            status = Ticket.Status.W_TRAKCIE;
+            assignedTechnicianName = technicianName;
+            return true;
+        }
+
+        synchronized boolean closeIfAssignedTo(String technicianName) {
+            if (status == Ticket.Status.ZAMKNIETE || !Objects.equals(assignedTechnicianName, technicianName)) {
+                return false;
+            }
+            status = Ticket.Status.ZAMKNIETE;
+            return true;
+        }
+
+        synchronized void reopen() {
+            status = Ticket.Status.NOWE;
+            assignedTechnicianName = null;
+        }
+
+        synchronized Ticket.State getState() {
+            return new Ticket.State(status, assignedTechnicianName);
+        }
+    }
+
+    /**
+     * Wiele wątków walczy o kilka "gorących" zgłoszeń: 75% odczytów stanu, reszta to przypisanie
+     * warunkowe, zamknięcie przez zwycięzcę i ponowne otwarcie. Porównanie {@link Ticket} (CAS na
+     * {@link Ticket.State}) z {@link SynchronizedTicketState} przy tej samej liczbie wątków.
+     */
+    private static final class StateContention implements Benchmark {
+        private static final int HOT_TICKETS = 8;
+        private static final Ticket.State REOPENED = new Ticket.State(Ticket.Status.NOWE, null);
+
+        private final boolean synchronizedState;
+        private final Ticket[] tickets = new Ticket[HOT_TICKETS];
+        private final SynchronizedTicketState[] lockedStates = new SynchronizedTicketState[HOT_TICKETS];
+        private final LongAdder wins = new LongAdder();
+        private int threads = 1;
+        private Workers workers;
+        private String[] technicianNames;
+
+        StateContention(boolean synchronizedState) {
+            this.synchronizedState = synchronizedState;
+        }
+
+        @Override
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        @Override
+        public void setUp(int size) {
+            for (int i = 0; i < HOT_TICKETS; i++) {
+                tickets[i] = new Ticket(TicketIdAllocator.formatId(SyntheticData.FIRST_TICKET_NUMBER + i),
+                        "Gorące zgłoszenie", "Opis", "Zgłaszający", "z@firma.pl", Ticket.Priority.WYSOKI);
+                lockedStates[i] = new SynchronizedTicketState();
+            }
+            technicianNames = new String[threads];
+            for (int t = 0; t < threads; t++) {
+                technicianNames[t] = "Technik " + t;
+            }
+            workers = new Workers(threads);
+        }
+
+        @Override
+        public int run() throws Exception {
+            return workers.run(thread -> {
+                String technician = technicianNames[thread];
+                // Xorshift zamiast wspólnego generatora, żeby mierzyć tylko rywalizację o stan zgłoszeń
+                int random = 0x9E3779B9 * (thread + 1);
+                int won = 0;
+                for (int i = 0; i < BATCH * 10; i++) {
+                    random ^= random << 13;
+                    random ^= random >>> 17;
+                    random ^= random << 5;
+                    int slot = (random >>> 8) % HOT_TICKETS;
+                    boolean write = (random & 3) == 0;
+                    if (synchronizedState) {
+                        SynchronizedTicketState state = lockedStates[slot];
+                        if (!write) {
+                            consume(state.getState().status().ordinal());
+                        } else if (state.assignIfNew(technician)) {
+                            won++;
+                            state.closeIfAssignedTo(technician);
+                            state.reopen();
+                        }
+                    } else {
+                        Ticket ticket = tickets[slot];
+                        if (!write) {
+                            consume(ticket.getState().status().ordinal());
+                        } else if (ticket.assignIfNew(technician)) {
+                            won++;
+                            ticket.closeIfAssignedTo(technician);
+                            ticket.compareAndSetState(ticket.getState(), REOPENED);
+                        }
+                    }
+                }
+                wins.add(won);
+                return BATCH * 10;
+            });
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            return Map.of("threads", (long) threads, "wins", wins.sum());
+        }
+    }
+
+    /**
+     * Odrzucanie niepoprawnych danych - każda z reguł walidacji po kolei.
+     */
+    private static final class RejectInvalidTicket implements Benchmark {
+        private static final String[][] INVALID = {
+                {"TKT-12", "Tytuł", "Opis", "Jan Nowak", "jan@firma.pl"},
+                {"ABC-12345", "Tytuł", "Opis", "Jan Nowak", "jan@firma.pl"},
+                {"TKT-12345", " ", "Opis", "Jan Nowak", "jan@firma.pl"},
+                {"TKT-12345", "Tytuł", "", "Jan Nowak", "jan@firma.pl"},
+                {"TKT-12345", "Tytuł", "Opis", " ", "jan@firma.pl"},
+                {"TKT-12345", "Tytuł", "Opis", "Jan Nowak", "jan.firma.pl"}
+        };
+
+        @Override
+        public int run() {
+            for (String[] f : INVALID) {
+                try {
+                    new Ticket(f[0], f[1], f[2], f[3], f[4], Ticket.Priority.SREDNI);
+                    throw new IllegalStateException("Niepoprawne zgłoszenie zostało przyjęte: " + f[0]);
+                } catch (IllegalArgumentException e) {
+                    consume(e.getMessage().length());
+                }
+            }
+            return INVALID.length;
+        }
+    }
+
+    // ---------------------------------------------------------------- TicketSystem
+
+    /**
+     * Dodanie zgłoszenia tak jak w {@link TicketService}: nowy identyfikator, utworzenie
+     * zgłoszenia i zapis do dziennika wraz z okresowym kompaktowaniem do snapshotu.
+     */
+    private static final class AddTicket extends SystemBenchmark {
+        private final Journal.Durability durability;
+
+        AddTicket(Journal.Durability durability) {
+            this.durability = durability;
+        }
+
+        @Override
+        TicketSystem createSystem() {
+            return durability == Journal.Durability.PERIODIC
+                    ? new TicketSystem() : new TicketSystem(durability, 100, 1000);
+        }
+
+        @Override
+        public int run() {
+            for (int i = 0; i < BATCH; i++) {
+                system.addTicket(data.newTicket(system.nextTicketId()));
+            }
+            return BATCH;
+        }
+    }
+
+    /**
+     * Dodawanie zgłoszeń przy subskrybencie zdarzeń, który obsługuje każdą paczkę 10 ms. Wynik
+     * powinien być bliski {@code system.addTicket} - publikacja nie czeka na subskrybentów,
+     * a zdarzenia nad pojemność kolejki są pomijane.
+     */
+    private static final class AddTicketSlowSubscriber extends SystemBenchmark {
+        private TicketEventBus.Subscription subscription;
+
+        @Override
+        public void setUp(int size) {
+            super.setUp(size);
+            subscription = system.getEventBus().subscribe("wolny", event -> true, TicketEventBus.DEFAULT_CAPACITY,
+                    Duration.ZERO, events -> {
+                        try {
+                            Thread.sleep(10);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+        }
+
+        @Override
+        public int run() {
+            for (int i = 0; i < BATCH; i++) {
+                system.addTicket(data.newTicket(system.nextTicketId()));
+            }
+            return BATCH;
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            return Map.of("dropped", subscription.getDroppedCount());
+        }
+    }
+
+    /**
+     * Przypisywanie kolejnych aktywnych zgłoszeń losowym technikom; przepisanie zgłoszenia
+     * w trakcie na innego technika też jest pełną zmianą stanu z wpisem do dziennika.
+     */
+    private static final class AssignTicket extends SystemBenchmark {
+        private List<String> activeIds;
+        private int next;
+
+        @Override
+        public void setUp(int size) {
+            super.setUp(size);
+            activeIds = system.getActiveTickets().stream().map(Ticket::getTicketId).toList();
+        }
+
+        @Override
+        public int run() {
+            for (int i = 0; i < BATCH; i++) {
+                String ticketId = activeIds.get(next++ % activeIds.size());
+                system.assignTicket(ticketId, technicians.get(data.nextInt(technicians.size())));
+            }
+            return BATCH;
+        }
+    }
+
+    /**
+     * Zamykanie zgłoszeń. Zamknięcie jest nieodwracalne, więc przed każdą iteracją
+     * (poza pomiarem) importowana jest świeża porcja aktywnych zgłoszeń.
+     */
+    private static final class CloseTicket extends SystemBenchmark {
+        private static final int TICKETS_PER_ITERATION = 1000;
+        private final List<String> toClose = new ArrayList<>(TICKETS_PER_ITERATION);
+
+        @Override
+        public void setUpIteration() {
+            toClose.clear();
+            List<TicketDraft> drafts = new ArrayList<>(TICKETS_PER_ITERATION);
+            for (int i = 0; i < TICKETS_PER_ITERATION; i++) {
+                drafts.add(data.newDraft());
+            }
+            for (IngestResult result : system.ingestTickets(drafts)) {
+                if (result.isAdded()) {
+                    toClose.add(result.ticketId());
+                }
+            }
+        }
+
+        @Override
+        public int run() {
+            for (String ticketId : toClose) {
+                system.closeTicket(ticketId);
+            }
+            return toClose.size();
+        }
+    }
+
+    /**
+     * Stała pula wątków benchmarku wielowątkowego. Każde wywołanie {@link #run} wykonuje zadanie
+     * raz w każdym wątku i czeka na wszystkie; wątki tworzone są raz, poza pomiarem.
+     */
+    private static final class Workers {
+        private final ExecutorService executor;
+        private final int threads;
+
+        Workers(int threads) {
+            this.threads = threads;
+            this.executor = Executors.newFixedThreadPool(threads);
+        }
+
+        /**
+         * @param task zadanie wątku o podanym numerze, zwraca liczbę wykonanych operacji
+         * @return łączna liczba operacji
+         */
+        int run(IntUnaryOperator task) throws Exception {
+            List<Callable<Integer>> tasks = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                tasks.add(() -> task.applyAsInt(thread));
+            }
+            int operations = 0;
+            for (Future<Integer> result : executor.invokeAll(tasks)) {
+                operations += result.get();
+            }
+            return operations;
+        }
+    }
+
+    /**
+     * Mieszane obciążenie z wielu wątków jednocześnie: 10% dodań, 25% przypisań losowych zgłoszeń,
+     * 5% zamknięć zgłoszeń dodanych przez ten sam wątek i 60% odczytów po ID i licznikach technika.
+     * Zapisy różnych zgłoszeń biorą różne pasy blokad, więc skalują się aż do dziennika zapisu.
+     */
+    private static final class ConcurrentMixed extends SystemBenchmark {
+        private int threads = 1;
+        private Workers workers;
+        private SyntheticData[] generators;
+        private List<List<String>> addedByThread;
+        private List<String> activeIds;
+        private final LongAdder rejected = new LongAdder();
+
+        @Override
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        @Override
+        public void setUp(int size) {
+            super.setUp(size);
+            activeIds = system.getActiveTickets().stream().map(Ticket::getTicketId).toList();
+            workers = new Workers(threads);
+            // Osobny generator dla każdego wątku - generator nie jest bezpieczny wielowątkowo
+            generators = new SyntheticData[threads];
+            addedByThread = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                generators[t] = new SyntheticData(SyntheticData.DEFAULT_SEED + t + 1);
+                addedByThread.add(new ArrayList<>());
+            }
+        }
+
+        @Override
+        public int run() throws Exception {
+            return workers.run(thread -> {
+                SyntheticData generator = generators[thread];
+                List<String> added = addedByThread.get(thread);
+                for (int i = 0; i < BATCH; i++) {
+                    int operation = generator.nextInt(100);
+                    String ticketId = activeIds.get(generator.nextInt(activeIds.size()));
+                    String technician = technicians.get(generator.nextInt(technicians.size()));
+                    if (operation < 10) {
+                        String newId = system.nextTicketId();
+                        system.addTicket(generator.newTicket(newId));
+                        added.add(newId);
+                    } else if (operation < 35) {
+                        try {
+                            system.assignTicket(ticketId, technician);
+                        } catch (IllegalStateException e) {
+                            rejected.increment();
+                        }
+                    } else if (operation < 40 && !added.isEmpty()) {
+                        system.closeTicket(added.remove(added.size() - 1));
+                    } else {
+                        consume(system.findTicketById(ticketId).map(Ticket::getPriority).map(Enum::ordinal).orElse(0)
+                                + system.getActiveTicketCountFor(technician));
+                    }
+                }
+                return BATCH;
+            });
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            return Map.of("threads", (long) threads, "rejected", rejected.sum());
+        }
+    }
+
+    // ---------------------------------------------------------------- przeglądy
+
+    private static final class TicketsAssignedTo extends SystemBenchmark {
+        private int next;
+
+        @Override
+        public int run() {
+            consume(system.getTicketsAssignedTo(technicians.get(next++ % technicians.size())).size());
+            return 1;
+        }
+    }
+
+    private static final class ActiveTickets extends SystemBenchmark {
+        @Override
+        public int run() {
+            consume(system.getActiveTickets().size());
+            return 1;
+        }
+    }
+
+    private static final class UnassignedTickets extends SystemBenchmark {
+        @Override
+        public int run() {
+            consume(system.getUnassignedTickets().size());
+            return 1;
+        }
+    }
+
+    // ---------------------------------------------------------------- partycje
+
+    /**
+     * Dodawanie zgłoszeń z kilku wątków do systemu podzielonego na partycje, z fsync po każdym zapisie.
+     * Każda partycja ma własny dziennik i wątek zapisu, więc przy kilku partycjach zapisy i fsync
+     * różnych zgłoszeń idą równolegle; jedna partycja odpowiada pojedynczemu systemowi.
+     */
+    private static final class ShardedAddTicket implements Benchmark {
+        private static final int THREADS = 4;
+        private final SyntheticData[] generators = new SyntheticData[THREADS];
+        private final int shardCount;
+        private ShardedTicketSystem system;
+
+        ShardedAddTicket(int shardCount) {
+            this.shardCount = shardCount;
+            // Osobny generator dla każdego wątku - generator nie jest bezpieczny wielowątkowo
+            for (int t = 0; t < THREADS; t++) {
+                generators[t] = new SyntheticData(SyntheticData.DEFAULT_SEED + t);
+            }
+        }
+
+        @Override
+        public void setUp(int size) {
+            system = new ShardedTicketSystem(new File("shards"), shardCount, Journal.Durability.SYNC, 100, 1000);
+        }
+
+        @Override
+        public int run() throws InterruptedException {
+            Thread[] threads = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                SyntheticData generator = generators[t];
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < BATCH; i++) {
+                        system.addTicket(generator.newTicket(system.nextTicketId()));
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            return THREADS * BATCH;
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            return Map.of("shards", (long) shardCount);
+        }
+    }
+
+    // ---------------------------------------------------------------- pamięć
+
+    /**
+     * Zgłoszenie w układzie sprzed zwartej reprezentacji: pięć osobnych tekstów, osobny technik
+     * i obiekt daty, każdy jako własna kopia - tak jak po wczytaniu z JSON.
+     */
+    private record PlainTicket(String ticketId, String title, String description, String reporterName,
+                               String reporterEmail, Ticket.Priority priority, Ticket.Status status,
+                               String assignedTechnicianName, LocalDateTime createdAt) {
+    }
+
+    private enum Layout {
+        /** Zgłoszenia w układzie {@link PlainTicket}. */
+        PLAIN,
+        /** Zgłoszenia {@link Ticket} (UTF-8, słownik tekstów, data jako long). */
+        COMPACT,
+        /** Cały {@link TicketSystem} wczytany ze snapshotu, razem z indeksami. */
+        SYSTEM
+    }
+
+    /**
+     * Zajętość sterty przez {@code size} zgłoszeń w danym układzie: różnica zajętej sterty po pełnym GC
+     * przed zbudowaniem danych i po nim. Liczniki "heapBytes" i "heapMBPerMillion" dotyczą ostatniej
+     * iteracji; czas iteracji to czas zbudowania danych. Porównanie PLAIN z COMPACT uzasadnia zwartą
+     * reprezentację {@link Ticket} bez przenoszenia danych do tablic kolumnowych lub pamięci poza stertą.
+     */
+    private static final class HeapFootprint implements Benchmark {
+        private final Layout layout;
+        private int size;
+        private List<String> technicians;
+        private long heapBefore;
+        private long heapBytes;
+        private Object retained;
+
+        HeapFootprint(Layout layout) {
+            this.layout = layout;
+        }
+
+        @Override
+        public void setUp(int size) {
+            this.size = size;
+            SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+            technicians = layout == Layout.SYSTEM
+                    ? data.writeStore(size)
+                    : data.technicians(SyntheticData.technicianCountFor(size));
+        }
+
+        @Override
+        public void setUpIteration() {
+            retained = null;
+            heapBefore = usedHeapAfterGc();
+        }
+
+        @Override
+        public int run() {
+            SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+            retained = switch (layout) {
+                case PLAIN -> {
+                    List<PlainTicket> tickets = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        Ticket ticket = data.ticket(TicketIdAllocator.formatId(SyntheticData.FIRST_TICKET_NUMBER + i),
+                                technicians);
+                        String technician = ticket.getAssignedTechnicianName();
+                        tickets.add(new PlainTicket(new String(ticket.getTicketId()), ticket.getTitle(),
+                                ticket.getDescription(), new String(ticket.getReporterName()),
+                                new String(ticket.getReporterEmail()), ticket.getPriority(), ticket.getStatus(),
+                                technician == null ? null : new String(technician), ticket.getCreatedAt()));
+                    }
+                    yield tickets;
+                }
+                case COMPACT -> data.tickets(size, SyntheticData.FIRST_TICKET_NUMBER, technicians);
+                case SYSTEM -> new TicketSystem();
+            };
+            return size;
+        }
+
+        @Override
+        public void tearDownIteration() {
+            heapBytes = usedHeapAfterGc() - heapBefore;
+            consume(retained.hashCode());
+            if (retained instanceof TicketSystem system) {
+                system.close();
+            }
+            retained = null;
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            return Map.of("heapBytes", heapBytes,
+                    "heapMBPerMillion", Math.round(heapBytes * (1_000_000.0 / Math.max(1, size)) / (1 << 20)));
+        }
+
+        private static long usedHeapAfterGc() {
+            Runtime runtime = Runtime.getRuntime();
+            long used = Long.MAX_VALUE;
+            // Kilka cykli, aż zajętość przestanie spadać - pojedynczy System.gc() bywa niepełny
+            for (int i = 0; i < 10; i++) {
+                System.gc();
+                long now = runtime.totalMemory() - runtime.freeMemory();
+                if (now >= used) {
+                    break;
+                }
+                used = now;
+            }
+            return used;
+        }
+    }
+
+    // ---------------------------------------------------------------- import zbiorczy
+
+    /**
+     * Import zbiorczy {@code size} zgłoszeń bez ID ze strumienia do pustego systemu (lub systemu
+     * z {@code shards} partycjami), łącznie z trwałym zapisem paczki. Wynik w mikrosekundach
+     * na zgłoszenie; licznik "ticketsPerSecond" podaje przepustowość ostatniej iteracji.
+     * Strumień powtarza pulę gotowych szkiców, więc mierzony jest import, a nie generator danych.
+     */
+    private static final class Ingest implements Benchmark {
+        private static final int DRAFT_POOL = 1024;
+        private final int shards;
+        private final TicketDraft[] pool = new TicketDraft[DRAFT_POOL];
+        private int size;
+        private int iteration;
+        private TicketStore system;
+        private long ticketsPerSecond;
+
+        Ingest(int shards) {
+            this.shards = shards;
+        }
+
+        @Override
+        public void setUp(int size) {
+            this.size = size;
+            SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+            for (int i = 0; i < DRAFT_POOL; i++) {
+                pool[i] = data.newDraft();
+            }
+        }
+
+        @Override
+        public void setUpIteration() {
+            File directory = new File("ingest-" + iteration++);
+            if (!directory.mkdirs()) {
+                throw new UncheckedIOException(new IOException("Nie można utworzyć katalogu " + directory));
+            }
+            system = shards > 0
+                    ? new ShardedTicketSystem(directory, shards)
+                    : TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        }
+
+        @Override
+        public int run() {
+            long start = System.nanoTime();
+            List<IngestResult> results = system.ingestTickets(
+                    IntStream.range(0, size).mapToObj(i -> pool[i % DRAFT_POOL]));
+            ticketsPerSecond = Math.round(size * 1e9 / (System.nanoTime() - start));
+            if (!results.get(size - 1).isAdded()) {
+                throw new IllegalStateException("Import nie dodał zgłoszenia: " + results.get(size - 1));
+            }
+            return size;
+        }
+
+        @Override
+        public void tearDownIteration() {
+            system.close();
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            return Map.of("ticketsPerSecond", ticketsPerSecond, "shards", (long) shards);
+        }
+    }
+
+    // ---------------------------------------------------------------- identyfikatory
+
+    /**
+     * Przydział identyfikatorów z kilku wątków naraz. Po każdej iteracji (poza pomiarem)
+     * sprawdzane są kolizje - między wydanymi identyfikatorami i ze zgłoszeniami w magazynie.
+     */
+    private static final class NextTicketId extends SystemBenchmark {
+        private static final int THREADS = 4;
+        private static final int IDS_PER_THREAD = 25_000;
+        private final String[][] issued = new String[THREADS][IDS_PER_THREAD];
+        private final Set<String> allIssued = new HashSet<>();
+        private long collisions;
+
+        @Override
+        public int run() throws InterruptedException {
+            Thread[] threads = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                String[] target = issued[t];
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        target[i] = system.nextTicketId();
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            return THREADS * IDS_PER_THREAD;
+        }
+
+        @Override
+        public void tearDownIteration() {
+            for (String[] ids : issued) {
+                for (String id : ids) {
+                    if (!allIssued.add(id) || system.findTicketById(id).isPresent()) {
+                        collisions++;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            counters.put("issued", (long) allIssued.size());
+            counters.put("collisions", collisions);
+            return counters;
+        }
+    }
+
+    /**
+     * Odrzucenie zgłoszenia o identyfikatorze, który już istnieje w magazynie.
+     */
+    private static final class AddDuplicateId extends SystemBenchmark {
+        private final List<Ticket> duplicates = new ArrayList<>();
+        private int next;
+        private long rejected;
+
+        @Override
+        public void setUp(int size) {
+            super.setUp(size);
+            for (int i = 0; i < Math.min(size, 1024); i++) {
+                duplicates.add(data.newTicket(TicketIdAllocator.formatId(SyntheticData.FIRST_TICKET_NUMBER + i)));
+            }
+        }
+
+        @Override
+        public int run() {
+            try {
+                system.addTicket(duplicates.get(next++ % duplicates.size()));
+                throw new IllegalStateException("Zduplikowany identyfikator został przyjęty");
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+            return 1;
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            return Map.of("rejected", rejected);
+        }
+    }
+
+    // ---------------------------------------------------------------- wyszukiwanie i zapytania
+
+    private static final class SearchTickets extends SystemBenchmark {
+        private static final String[] QUERIES = {
+                "drukarka", "serwer błąd", "nie działa", "VPN hasło", "drukuje", "monitor przegrzewa",
+                "księgowości", "Kowalska", "sie*", "laptop aktualizacji"
+        };
+        private int next;
+
+        @Override
+        public int run() {
+            consume(system.searchTickets(QUERIES[next++ % QUERIES.length], 20).size());
+            return 1;
+        }
+    }
+
+    private static final class QueryActiveByTechnician extends SystemBenchmark {
+        private int next;
+
+        @Override
+        public int run() {
+            TicketQuery query = TicketQuery.builder()
+                    .technicians(technicians.get(next++ % technicians.size()))
+                    .status(Ticket.Status.W_TRAKCIE)
+                    .minPriority(Ticket.Priority.WYSOKI)
+                    .limit(20)
+                    .build();
+            consume(system.query(query).tickets().size());
+            return 1;
+        }
+    }
+
+    private static final class FirstPage extends SystemBenchmark {
+        private static final TicketSort[] SORTS = TicketSort.values();
+        private int next;
+
+        @Override
+        public int run() {
+            consume(system.getTicketPage(SORTS[next++ % SORTS.length], true, null, 10).tickets().size());
+            return 1;
+        }
+    }
+
+    // ---------------------------------------------------------------- metryki
+
+    private static final class HistogramRecord implements Benchmark {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long value = 1;
+
+        @Override
+        public int run() {
+            for (int i = 0; i < BATCH; i++) {
+                // Wartości z całego zakresu histogramu, od nanosekund do sekund
+                value = value * 6364136223846793005L + 1442695040888963407L;
+                histogram.record(value >>> 34);
+            }
+            return BATCH;
+        }
+    }
+
+    /**
+     * Narzut pomiaru operacji w {@link TicketService}: to samo wywołanie na przemian przez usługę
+     * i bezpośrednio na {@link TicketSystem}. Benchmark kończy się błędem, jeśli narzut w ostatniej
+     * iteracji przekroczy dopuszczalną granicę.
+     */
+    private static final class OperationOverhead extends SystemBenchmark {
+        private static final long OVERHEAD_LIMIT_NANOS = 250;
+        private TicketService service;
+        private long directNanos;
+        private long instrumentedNanos;
+        private long calls;
+
+        @Override
+        public void setUp(int size) {
+            super.setUp(1000);
+            service = new TicketService(system);
+        }
+
+        @Override
+        public void setUpIteration() {
+            directNanos = 0;
+            instrumentedNanos = 0;
+            calls = 0;
+        }
+
+        @Override
+        public int run() {
+            long start = System.nanoTime();
+            for (int i = 0; i < BATCH; i++) {
+                consume(system.getTechnicianCount());
+            }
+            long middle = System.nanoTime();
+            for (int i = 0; i < BATCH; i++) {
+                consume(service.getTechnicianCount());
+            }
+            long end = System.nanoTime();
+            directNanos += middle - start;
+            instrumentedNanos += end - middle;
+            calls += BATCH;
+            return BATCH;
+        }
+
+        @Override
+        public void tearDownIteration() {
+            if (overheadNanos() > OVERHEAD_LIMIT_NANOS) {
+                throw new IllegalStateException("Narzut metryk " + overheadNanos()
+                        + " ns na wywołanie przekracza " + OVERHEAD_LIMIT_NANOS + " ns");
+            }
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            counters.put("overheadNanosPerCall", overheadNanos());
+            counters.put("limitNanos", OVERHEAD_LIMIT_NANOS);
+            return counters;
+        }
+
+        private long overheadNanos() {
+            return calls == 0 ? 0 : (instrumentedNanos - directNanos) / calls;
+        }
+    }
+
+    // ---------------------------------------------------------------- API HTTP
+
+    /**
+     * Test obciążenia {@link TicketHttpServer}: tysiące równoczesnych klientów (każdy w wątku wirtualnym)
+     * wykonuje mieszankę żądań - utworzenie, odczyt, przypisanie i zamknięcie zgłoszenia, zapytanie
+     * z filtrami, strona listy i lista techników. Wynik to czas na żądanie, a percentyle czasu
+     * odpowiedzi z ostatniej iteracji zapisywane są w licznikach - widziane przez klienta oraz
+     * czas obsługi w serwerze ({@code http.request}). Klienci i serwer dzielą procesor, więc przy
+     * małej liczbie rdzeni czas widziany przez klienta obejmuje głównie kolejkowanie.
+     */
+    private static final class HttpMixedLoad extends SystemBenchmark {
+        private static final int CLIENTS = 2000;
+        private static final int REQUESTS_PER_CLIENT = 10;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private TicketHttpServer server;
+        private ExecutorService clientExecutor;
+        private HttpClient client;
+        private String baseUri;
+        private int size;
+
+        @Override
+        public void setUp(int size) {
+            super.setUp(size);
+            this.size = size;
+            try {
+                server = new TicketHttpServer(new TicketService(system), 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            server.start();
+            baseUri = "http://localhost:" + server.getPort();
+            clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+        }
+
+        @Override
+        public void setUpIteration() {
+            latency.reset();
+            errors.reset();
+            Metrics.reset();
+        }
+
+        @Override
+        public int run() throws InterruptedException {
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int c = 0; c < CLIENTS; c++) {
+                    clients.submit(this::client);
+                }
+            }
+            return CLIENTS * REQUESTS_PER_CLIENT;
+        }
+
+        /**
+         * Sesja jednego klienta; liczba żądań musi być równa {@link #REQUESTS_PER_CLIENT}.
+         */
+        private void client() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String technician = technicians.get(random.nextInt(technicians.size()));
+            String location = send(post("/tickets", "{\"title\":\"Test obciążenia API\","
+                    + "\"description\":\"Zgłoszenie utworzone przez benchmark http.mixedLoad\","
+                    + "\"reporterName\":\"Jan Testowy\",\"reporterEmail\":\"jan.testowy@example.com\","
+                    + "\"priority\":\"NISKI\"}"));
+            if (location == null) {
+                location = "/tickets/" + existingTicketId(random);
+            }
+            send(get(location));
+            send(post(location + "/assign", "{\"technician\":\"" + technician + "\"}"));
+            for (int i = 0; i < 3; i++) {
+                send(get("/tickets/" + existingTicketId(random)));
+            }
+            send(get("/tickets?technician=" + URLEncoder.encode(technician, StandardCharsets.UTF_8) + "&status=W_TRAKCIE&limit=20"));
+            send(get("/tickets?active=true&pageSize=20"));
+            send(get("/technicians"));
+            send(post(location + "/close", ""));
+        }
+
+        private String existingTicketId(ThreadLocalRandom random) {
+            return TicketIdAllocator.formatId(SyntheticData.FIRST_TICKET_NUMBER + random.nextInt(size));
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUri + path)).GET().build();
+        }
+
+        private HttpRequest post(String path, String body) {
+            return HttpRequest.newBuilder(URI.create(baseUri + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        /**
+         * Wysyła żądanie i mierzy czas odpowiedzi.
+         *
+         * @return nagłówek Location odpowiedzi lub null
+         */
+        private String send(HttpRequest request) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                latency.record(System.nanoTime() - start);
+                if (response.statusCode() >= 300) {
+                    errors.increment();
+                }
+                consume(response.body().length);
+                return response.headers().firstValue("Location").orElse(null);
+            } catch (Exception e) {
+                latency.record(System.nanoTime() - start);
+                errors.increment();
+                return null;
+            }
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            LatencyHistogram.Snapshot snapshot = latency.snapshot();
+            Map<String, Long> counters = new LinkedHashMap<>();
+            counters.put("clients", (long) CLIENTS);
+            counters.put("requests", snapshot.count());
+            counters.put("errors", errors.sum());
+            counters.put("p50Micros", snapshot.percentile(0.50) / 1000);
+            counters.put("p99Micros", snapshot.percentile(0.99) / 1000);
+            counters.put("maxMicros", snapshot.maxNanos() / 1000);
+            LatencyHistogram.Snapshot server = Metrics.operation("http.request").snapshot();
+            counters.put("serverP50Micros", server.percentile(0.50) / 1000);
+            counters.put("serverP99Micros", server.percentile(0.99) / 1000);
+            return counters;
+        }
+    }
+
+    // ---------------------------------------------------------------- SLA
+
+    /**
+     * Odtworzenie terminów SLA przy starcie: przegląd aktywnych zgłoszeń i rejestracja liczników.
+     */
+    private static final class SlaRebuild extends SystemBenchmark {
+        private final long now = System.currentTimeMillis();
+        private SlaMonitor monitor;
+
+        @Override
+        public void setUpIteration() {
+            if (monitor != null) {
+                monitor.close();
+            }
+        }
+
+        @Override
+        public int run() {
+            monitor = new SlaMonitor(system, SlaPolicy.defaults(), () -> now);
+            return 1;
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            return Map.of("tracked", (long) monitor.getTrackedCount());
+        }
+    }
+
+    /**
+     * Dodanie i anulowanie licznika oraz takt zegara przy stałej liczbie oczekujących liczników
+     * (dwa na zgłoszenie magazynu) - koszt nie powinien zależeć od rozmiaru.
+     */
+    private static final class TimingWheelChurn implements Benchmark {
+        private static final long HORIZON_MILLIS = Duration.ofDays(30).toMillis();
+        private final SplittableRandom random = new SplittableRandom(SyntheticData.DEFAULT_SEED);
+        private final long[] now = {0};
+        private final LongAdder fired = new LongAdder();
+        private TimingWheel<String> wheel;
+        private TimingWheel.Timer<String>[] ring;
+        private int next;
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public void setUp(int size) {
+            wheel = new TimingWheel<>(1000, () -> now[0], payload -> fired.increment());
+            ring = new TimingWheel.Timer[Math.max(BATCH, 2 * size)];
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = wheel.schedule("licznik", now[0] + random.nextLong(HORIZON_MILLIS));
+            }
+            wheel.advance(now[0]);
+        }
+
+        @Override
+        public int run() {
+            for (int i = 0; i < BATCH; i++) {
+                wheel.cancel(ring[next]);
+                ring[next] = wheel.schedule("licznik", now[0] + random.nextLong(HORIZON_MILLIS));
+                next = (next + 1) % ring.length;
+            }
+            now[0] += 1000;
+            wheel.advance(now[0]);
+            return BATCH;
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            counters.put("pending", wheel.getPendingCount());
+            counters.put("fired", fired.sum());
+            return counters;
+        }
+    }
+
+    // ---------------------------------------------------------------- strumień zmian
+
+    /**
+     * Doczytanie przez odbiorcę wszystkich przechowywanych zmian po ponownym uruchomieniu - z plików
+     * segmentów, bo pamięć strumienia jest wtedy pusta. Jedna zmiana na zgłoszenie magazynu.
+     */
+    private static final class ChangesCatchUp implements Benchmark {
+        private static final int READ_BATCH = 1000;
+        private ChangeFeed feed;
+        private long read;
+
+        @Override
+        public void setUp(int size) {
+            try (ChangeFeed writer = new ChangeFeed()) {
+                for (int i = 0; i < Math.max(1, size); i++) {
+                    writer.ticketAssigned("TKT-" + i, "Technik " + (i % 50));
+                }
+            }
+        }
+
+        @Override
+        public void setUpIteration() {
+            feed = new ChangeFeed();
+        }
+
+        @Override
+        public int run() {
+            read = 0;
+            long offset = feed.getFirstRetainedOffset();
+            long end = feed.getNextOffset();
+            while (offset < end) {
+                List<ChangeFeed.Change> batch = feed.read(feed.getEpoch(), offset, READ_BATCH, 0);
+                offset = batch.get(batch.size() - 1).offset() + 1;
+                read += batch.size();
+            }
+            consume(read);
+            return 1;
+        }
+
+        @Override
+        public void tearDownIteration() {
+            feed.close();
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            return Map.of("changes", read);
+        }
+    }
+
+    // ---------------------------------------------------------------- replikacja
+
+    /**
+     * Czas od uruchomienia nowej repliki do zastosowania wszystkich zmian źródła: pobranie pełnego
+     * stanu magazynu przez TCP, a potem zmian dodanych po nim (do 10 000 nowych zgłoszeń).
+     */
+    private static final class ReplicationCatchUp extends SystemBenchmark {
+        private ReplicationLeader leader;
+        private ReplicationFollower follower;
+        private long target;
+
+        @Override
+        public void setUp(int size) {
+            super.setUp(size);
+            try {
+                leader = new ReplicationLeader(system, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            leader.start();
+        }
+
+        @Override
+        public void setUpIteration() {
+            for (int i = 0; i < Math.min(Math.max(1, system.getTotalTicketCount()), 10_000); i++) {
+                system.addTicket(data.newTicket(system.nextTicketId()));
+            }
+            target = system.getChangeFeed().getNextOffset();
+        }
+
+        @Override
+        public int run() throws InterruptedException {
+            follower = ReplicationFollower.start(TicketSystem.openReplica(new File("replica")), "localhost",
+                    leader.getPort());
+            while (follower.getStatus().appliedOffset() < target) {
+                Thread.sleep(1);
+            }
+            return 1;
+        }
+
+        @Override
+        public void tearDownIteration() {
+            follower.close();
+        }
+    }
+
+    // ---------------------------------------------------------------- start systemu
+
+    /**
+     * Czas od utworzenia systemu do odczytu pierwszego zgłoszenia po ID: z pełnym wczytaniem stanu
+     * albo ze startem leniwym, w którym odczyt idzie przez indeks snapshotu, a stan wczytuje się w tle.
+     */
+    private static final class Startup implements Benchmark {
+        private final boolean lazy;
+        private String ticketId;
+        private TicketSystem system;
+
+        Startup(boolean lazy) {
+            this.lazy = lazy;
+        }
+
+        @Override
+        public void setUp(int size) {
+            SyntheticData data = new SyntheticData(SyntheticData.DEFAULT_SEED);
+            data.writeStore(Math.max(1, size));
+            // Pełny zapis tworzy snapshot i jego indeks
+            new TicketSystem().saveDataToFiles();
+            ticketId = TicketIdAllocator.formatId(SyntheticData.FIRST_TICKET_NUMBER + Math.max(1, size) / 2);
+        }
+
+        @Override
+        public int run() {
+            system = lazy ? TicketSystem.openLazily() : new TicketSystem();
+            consume(system.findTicketById(ticketId).orElseThrow().getTitle().length());
+            return 1;
+        }
+
+        @Override
+        public void tearDownIteration() {
+            // Następna iteracja nie może konkurować z wczytywaniem w tle
+            system.whenReady().join();
+        }
+    }
+}
@@ -0,0 +1,494 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binarny zapis pełnego stanu systemu (snapshot), szybszy i mniejszy od plików JSON.
+ * <p>
+ * Układ pliku:
+ * <pre>
+ * magic "TKTS" | wersja | słownik tekstów | technicy | zgłoszenia | CRC32
+ * </pre>
+ * Nazwiska techników, zgłaszających i ich adresy e-mail zapisywane są raz w słowniku,
+ * a w zgłoszeniu tylko jako indeks. Priorytet i status zapisywane są jako numer
+ * porządkowy, data utworzenia jako liczba sekund od epoki, a liczby w kodowaniu
+ * o zmiennej długości (varint).
+ * <p>
+ * Obok snapshotu zapisywany jest indeks {@code tickets.bin.idx} o stałej szerokości pól: pozycje
+ * wpisów słownika i tablica mieszająca ID zgłoszenia → pozycja rekordu. {@link #openIndex()} mapuje
+ * oba pliki do pamięci i pozwala odczytać pojedyncze zgłoszenie bez wczytywania całego snapshotu.
+ * <p>
+ * Zapis nowego snapshotu zachowuje poprzedni jako {@code tickets.bin.prev} ({@link #loadPrevious()}),
+ * na wypadek gdyby bieżący okazał się uszkodzony.
+ */
+public class BinarySnapshot {
+    private static final String SNAPSHOT_FILE = "tickets.bin";
+    private static final int MAGIC = 0x544B5453; // "TKTS"
+    private static final int VERSION = 1;
+    private static final String INDEX_FILE = SNAPSHOT_FILE + ".idx";
+    private static final String PREVIOUS_FILE = SNAPSHOT_FILE + ".prev";
+    private static final int INDEX_MAGIC = 0x544B5449; // "TKTI"
+    private static final int INDEX_VERSION = 1;
+    private static final int INDEX_HEADER_BYTES = 4 + 4 + 8 + 4;
+
+    /**
+     * Stan odczytany ze snapshotu.
+     */
+    public record Snapshot(List<String> technicians, List<Ticket> tickets) {
+    }
+
+    /**
+     * Indeks snapshotu zmapowany do pamięci - odczyt pojedynczych zgłoszeń po ID.
+     * Otwarcie nie zależy od liczby zgłoszeń; wyszukanie to kilka odczytów z mapowanych plików.
+     * Suma kontrolna snapshotu nie jest przy tym sprawdzana - sprawdza ją dopiero {@link #load()}.
+     */
+    public static final class Index {
+        private final ByteBuffer snapshotData;
+        private final ByteBuffer indexData;
+        private final int entryCount;
+        private final int entriesBase;
+        private final List<String> technicians;
+        private final int ticketCount;
+        private final int slotMask;
+        private final int slotsBase;
+
+        private Index(ByteBuffer snapshotData, ByteBuffer indexData) throws IOException {
+            this.snapshotData = snapshotData;
+            this.indexData = indexData;
+            int pos = INDEX_HEADER_BYTES;
+            this.entryCount = indexData.getInt(pos);
+            this.entriesBase = pos + 4;
+            pos = entriesBase + 8 * entryCount;
+            int technicianCount = indexData.getInt(pos);
+            pos += 4;
+            List<String> names = new ArrayList<>(technicianCount);
+            for (int i = 0; i < technicianCount; i++, pos += 4) {
+                names.add(entry(indexData.getInt(pos)));
+            }
+            this.technicians = names;
+            this.ticketCount = indexData.getInt(pos);
+            int slotCount = indexData.getInt(pos + 4);
+            this.slotsBase = pos + 8;
+            this.slotMask = slotCount - 1;
+            if (Integer.bitCount(slotCount) != 1 || indexData.limit() != slotsBase + 8L * slotCount) {
+                throw new IOException("nieprawidłowy rozmiar indeksu");
+            }
+        }
+
+        public int getTicketCount() {
+            return ticketCount;
+        }
+
+        public List<String> getTechnicians() {
+            return new ArrayList<>(technicians);
+        }
+
+        /**
+         * Odczytuje zgłoszenie ze snapshotu.
+         *
+         * @throws IllegalStateException jeśli rekord jest uszkodzony
+         */
+        public Optional<Ticket> find(String ticketId) {
+            try {
+                int slot = ticketId.hashCode() & slotMask;
+                for (int probe = 0; probe <= slotMask; probe++, slot = (slot + 1) & slotMask) {
+                    long position = indexData.getLong(slotsBase + 8 * slot);
+                    if (position == 0) {
+                        return Optional.empty();
+                    }
+                    Input in = new Input(snapshotData, snapshotData.limit() - 4);
+                    in.pos = (int) position;
+                    if (in.readString().equals(ticketId)) {
+                        in.pos = (int) position;
+                        return Optional.of(readTicket(in, this::entry));
+                    }
+                }
+                throw new IOException("brak wolnej przegródki w indeksie");
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalStateException("Uszkodzony rekord snapshotu dla zgłoszenia " + ticketId + ": "
+                        + e.getMessage(), e);
+            }
+        }
+
+        private String entry(int index) {
+            if (index < 0 || index >= entryCount) {
+                throw new IllegalArgumentException("nieprawidłowy indeks słownika " + index);
+            }
+            Input in = new Input(snapshotData, snapshotData.limit() - 4);
+            in.pos = (int) indexData.getLong(entriesBase + 8 * index);
+            try {
+                return in.readString();
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private final File file;
+    private final File indexFile;
+    private final File previousFile;
+
+    public BinarySnapshot() {
+        this(null);
+    }
+
+    /**
+     * @param directory katalog snapshotu; null oznacza katalog bieżący
+     */
+    public BinarySnapshot(File directory) {
+        this.file = new File(directory, SNAPSHOT_FILE);
+        this.indexFile = new File(directory, INDEX_FILE);
+        this.previousFile = new File(directory, PREVIOUS_FILE);
+    }
+
+    /**
+     * Czy istnieje snapshot - bieżący lub poprzedni (np. po awarii w trakcie podmiany plików).
+     */
+    public boolean exists() {
+        return file.exists() || previousFile.exists();
+    }
+
+    /**
+     * Zapisuje stan do pliku tymczasowego i podmienia nim bieżący snapshot, który staje się poprzednim.
+     *
+     * @return true, jeśli zapis się powiódł
+     */
+    public boolean save(List<Ticket> tickets, List<String> technicians) {
+        // Słownik powtarzających się tekstów
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        for (String technician : technicians) {
+            addToDictionary(technician, dictionary, entries);
+        }
+        for (Ticket ticket : tickets) {
+            addToDictionary(ticket.getReporterName(), dictionary, entries);
+            addToDictionary(ticket.getReporterEmail(), dictionary, entries);
+            addToDictionary(ticket.getAssignedTechnicianName(), dictionary, entries);
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        CRC32 crc = new CRC32();
+        IndexLayout indexLayout;
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileOut, 1 << 16), crc);
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            writeVarLong(out, VERSION);
+
+            long[] entryOffsets = new long[entries.size()];
+            writeVarLong(out, entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                entryOffsets[i] = out.size();
+                writeString(out, entries.get(i));
+            }
+
+            writeVarLong(out, technicians.size());
+            for (String technician : technicians) {
+                writeVarLong(out, dictionary.get(technician));
+            }
+
+            long[] slots = new long[Math.max(2, Integer.highestOneBit(Math.max(1, tickets.size())) << 2)];
+            writeVarLong(out, tickets.size());
+            for (Ticket ticket : tickets) {
+                addToSlots(slots, ticket.getTicketId(), out.size());
+                writeString(out, ticket.getTicketId());
+                // Tytuł i opis są już w UTF-8 - zapis bez dekodowania do String i ponownego kodowania
+                writeUtf8(out, ticket.titleUtf8());
+                writeUtf8(out, ticket.descriptionUtf8());
+                writeVarLong(out, dictionary.get(ticket.getReporterName()));
+                writeVarLong(out, dictionary.get(ticket.getReporterEmail()));
+                out.writeByte(ticket.getPriority().ordinal());
+                out.writeByte(ticket.getStatus().ordinal());
+                String technician = ticket.getAssignedTechnicianName();
+                writeVarLong(out, technician == null ? 0 : dictionary.get(technician) + 1);
+                writeVarLong(out, ticket.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+            }
+            out.flush();
+            // Suma kontrolna nie jest wliczana do samej siebie
+            int checksum = (int) crc.getValue();
+            new DataOutputStream(fileOut).writeInt(checksum);
+            fileOut.getFD().sync();
+            indexLayout = new IndexLayout(out.size() + 4L, checksum, entryOffsets, technicians.stream()
+                    .mapToInt(dictionary::get).toArray(), tickets.size(), slots);
+        } catch (IOException e) {
+            System.err.println("Błąd podczas zapisywania snapshotu: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            if (file.exists()) {
+                Files.move(file.toPath(), previousFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Błąd podczas podmiany pliku " + file + ": " + e.getMessage());
+            return false;
+        }
+        // Indeks niezgodny z nowym snapshotem jest rozpoznawany po długości i sumie kontrolnej
+        saveIndex(indexLayout);
+        return true;
+    }
+
+    /**
+     * Otwiera indeks snapshotu do odczytu pojedynczych zgłoszeń.
+     *
+     * @return indeks lub null, jeśli brak snapshotu albo indeksu lub nie pasują do siebie
+     */
+    public Index openIndex() {
+        if (!file.exists() || !indexFile.exists()) {
+            return null;
+        }
+        try (FileChannel snapshotChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             FileChannel indexChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer snapshotData = snapshotChannel.map(FileChannel.MapMode.READ_ONLY, 0, snapshotChannel.size());
+            MappedByteBuffer indexData = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+            if (indexData.limit() < INDEX_HEADER_BYTES + 4 || indexData.getInt(0) != INDEX_MAGIC
+                    || indexData.getInt(4) != INDEX_VERSION) {
+                throw new IOException("nieprawidłowy nagłówek");
+            }
+            int snapshotLength = snapshotData.limit();
+            if (indexData.getLong(8) != snapshotLength || snapshotLength < 8
+                    || indexData.getInt(16) != snapshotData.getInt(snapshotLength - 4)) {
+                // Indeks poprzedniego snapshotu - np. po przerwanym zapisie
+                return null;
+            }
+            return new Index(snapshotData, indexData);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Błąd podczas otwierania indeksu " + indexFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Wczytuje snapshot.
+     *
+     * @return odczytany stan lub null, jeśli pliku brak albo jest uszkodzony
+     */
+    public Snapshot load() {
+        return load(file);
+    }
+
+    /**
+     * Wczytuje snapshot sprzed ostatniego zapisu. Odpowiadają mu oba pokolenia dziennika zmian
+     * ({@link Journal#replayPrevious}, potem {@link Journal#replay}).
+     *
+     * @return odczytany stan lub null, jeśli pliku brak albo jest uszkodzony
+     */
+    public Snapshot loadPrevious() {
+        return load(previousFile);
+    }
+
+    private static Snapshot load(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            if (data.length < 8) {
+                throw new IOException("plik jest za krótki");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, data.length - 4);
+            Input in = new Input(ByteBuffer.wrap(data), data.length - 4);
+            int storedCrc = in.readIntAt(data.length - 4);
+            if ((int) crc.getValue() != storedCrc) {
+                throw new IOException("niezgodna suma kontrolna");
+            }
+            if (in.readIntAt(0) != MAGIC) {
+                throw new IOException("nieprawidłowy nagłówek");
+            }
+            in.pos = 4;
+            int version = (int) in.readVarLong();
+            if (version != VERSION) {
+                throw new IOException("nieobsługiwana wersja " + version);
+            }
+
+            String[] entries = new String[(int) in.readVarLong()];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = in.readString();
+            }
+
+            int technicianCount = (int) in.readVarLong();
+            List<String> technicians = new ArrayList<>(technicianCount);
+            for (int i = 0; i < technicianCount; i++) {
+                technicians.add(entries[(int) in.readVarLong()]);
+            }
+
+            int ticketCount = (int) in.readVarLong();
+            List<Ticket> tickets = new ArrayList<>(ticketCount);
+            for (int i = 0; i < ticketCount; i++) {
+                tickets.add(readTicket(in, index -> entries[index]));
+            }
+
+            System.out.println("Wczytano " + tickets.size() + " zgłoszeń z pliku: " + file);
+            return new Snapshot(technicians, tickets);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Błąd podczas wczytywania snapshotu " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static final Ticket.Priority[] PRIORITIES = Ticket.Priority.values();
+    private static final Ticket.Status[] STATUSES = Ticket.Status.values();
+
+    private static Ticket readTicket(Input in, IntFunction<String> entries) throws IOException {
+        String ticketId = in.readString();
+        String title = in.readString();
+        String description = in.readString();
+        String reporterName = entries.apply((int) in.readVarLong());
+        String reporterEmail = entries.apply((int) in.readVarLong());
+        Ticket.Priority priority = PRIORITIES[in.readByte()];
+        Ticket.Status status = STATUSES[in.readByte()];
+        int technicianIndex = (int) in.readVarLong();
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(in.readVarLong(), 0, ZoneOffset.UTC);
+        return new Ticket(ticketId, title, description, reporterName, reporterEmail, priority,
+                status, technicianIndex == 0 ? null : entries.apply(technicianIndex - 1), createdAt);
+    }
+
+    /**
+     * Zawartość indeksu zebrana podczas zapisu snapshotu.
+     */
+    private record IndexLayout(long snapshotLength, int snapshotCrc, long[] entryOffsets, int[] technicianEntries,
+                               int ticketCount, long[] slots) {
+    }
+
+    /**
+     * Wstawia pozycję rekordu do tablicy mieszającej z adresowaniem otwartym (0 oznacza pustą przegródkę;
+     * rekord nigdy nie zaczyna się na pozycji 0, bo tam jest nagłówek).
+     */
+    private static void addToSlots(long[] slots, String ticketId, long position) {
+        int mask = slots.length - 1;
+        int slot = ticketId.hashCode() & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = position;
+    }
+
+    private void saveIndex(IndexLayout layout) {
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(layout.snapshotLength());
+            out.writeInt(layout.snapshotCrc());
+            out.writeInt(layout.entryOffsets().length);
+            for (long offset : layout.entryOffsets()) {
+                out.writeLong(offset);
+            }
+            out.writeInt(layout.technicianEntries().length);
+            for (int entry : layout.technicianEntries()) {
+                out.writeInt(entry);
+            }
+            out.writeInt(layout.ticketCount());
+            out.writeInt(layout.slots().length);
+            for (long slot : layout.slots()) {
+                out.writeLong(slot);
+            }
+        } catch (IOException e) {
+            System.err.println("Błąd podczas zapisywania indeksu snapshotu: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tempFile.toPath(), indexFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Błąd podczas podmiany pliku " + indexFile + ": " + e.getMessage());
+        }
+    }
+
+    private static void addToDictionary(String value, Map<String, Integer> dictionary, List<String> entries) {
+        if (value != null && !dictionary.containsKey(value)) {
+            dictionary.put(value, entries.size());
+            entries.add(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeUtf8(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeUtf8(DataOutputStream out, byte[] bytes) throws IOException {
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Odczyt z bufora (tablicy bajtów lub zmapowanego pliku) z kontrolą granic.
+     */
+    private static final class Input {
+        private final ByteBuffer data;
+        private final int limit;
+        private int pos;
+
+        Input(ByteBuffer data, int limit) {
+            this.data = data;
+            this.limit = limit;
+        }
+
+        int readIntAt(int offset) {
+            return data.getInt(offset);
+        }
+
+        int readByte() throws IOException {
+            if (pos >= limit) {
+                throw new EOFException("nieoczekiwany koniec pliku");
+            }
+            return data.get(pos++) & 0xFF;
+        }
+
+        long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("nieprawidłowa liczba");
+        }
+
+        String readString() throws IOException {
+            int length = (int) readVarLong();
+            if (length < 0 || pos + length > limit) {
+                throw new EOFException("nieoczekiwany koniec pliku");
+            }
+            String value;
+            if (data.hasArray()) {
+                value = new String(data.array(), data.arrayOffset() + pos, length, StandardCharsets.UTF_8);
+            } else {
+                byte[] bytes = new byte[length];
+                data.get(pos, bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            pos += length;
+            return value;
+        }
+    }
+}
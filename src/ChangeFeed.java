@@ -0,0 +1,929 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Uporządkowany strumień zmian stanu (change data capture) z numerami kolejnymi (offsetami).
+ * <p>
+ * {@link TicketSystem} dopisuje zmianę pod tą samą blokadą, pod którą ją stosuje, więc kolejność
+ * offsetów jest kolejnością zmian. Rekord ma te same pola co rekord {@link Journal}, ale w odróżnieniu
+ * od dziennika strumień nie jest czyszczony przy kompaktowaniu: zmiany trafiają do plików segmentów
+ * {@code changes/changes-<epoka>-<offset>.log} (wiersz: offset, tabulator, rekord), przechowywanych do
+ * {@value #RETAINED_SEGMENTS} ostatnich, a ostatnie {@value #MEMORY_CAPACITY} zmian jest też w pamięci.
+ * <p>
+ * Odbiorca zapamiętuje offset następnej zmiany i po ponownym uruchomieniu wznawia od niego:
+ * {@link #subscribe} doczytuje zaległe zmiany z plików, a potem dostarcza nowe paczkami, gdy tylko
+ * się pojawią. Odbiorca bez stanu zaczyna od {@link TicketSystem#getStateForChangeFeed()}.
+ * Odczyt nie spowalnia zapisu - wolny odbiorca po prostu zostaje w tyle, a gdy jego offset wypadnie
+ * z przechowywanych segmentów, musi ponownie pobrać pełny stan.
+ * <p>
+ * Pliki zapisuje wątek w tle: paczkę zmian dopiero wtedy, gdy są one trwale zapisane w stanie systemu
+ * (dziennik lub snapshot), i z fsync. Odbiorcy dostają tylko zmiany już zapisane w plikach, więc żaden
+ * offset, który widzieli, nie zostanie po awarii użyty ponownie. Zmiany, które przed awarią nie zdążyły
+ * trafić do plików, {@link TicketSystem} przy starcie przekazuje ponownie z dziennika, zanim przyjmie nowe.
+ * <p>
+ * Gdy tego nie da się zrobić (uszkodzony segment, dziennik bez zmian widocznych już w strumieniu),
+ * strumień zaczyna nową epokę ({@link #getEpoch()}). Offset ma znaczenie tylko w swojej epoce: odbiorca
+ * zapamiętuje ją razem z offsetem, a odczyt w innej epoce kończy się {@link IllegalStateException} -
+ * odbiorca musi wtedy ponownie pobrać pełny stan.
+ */
+public final class ChangeFeed implements AutoCloseable {
+    static final String FEED_DIRECTORY = "changes";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("changes-(\\d+)-(\\d{20})\\.log");
+    private static final int SEGMENT_RECORDS = 100_000;
+    private static final int RETAINED_SEGMENTS = 10;
+    private static final int MEMORY_CAPACITY = 1 << 16;
+    /** Co ile rekordów segmentu zapamiętywana jest pozycja w pliku (indeks rzadki). */
+    private static final int INDEX_INTERVAL = 1024;
+    private static final long WRITER_IDLE_MILLIS = 100;
+    private static final Supplier<CompletableFuture<Void>> ALWAYS_DURABLE = () -> CompletableFuture.completedFuture(null);
+
+    private static final LongAdder APPENDED = Metrics.counter("changes.appended");
+    private static final Metrics.Operation READ = Metrics.operation("changes.read");
+
+    /**
+     * Zmiana o danym offsecie. Pola jak w rekordzie {@link Journal}: pierwsze to typ zmiany.
+     */
+    public record Change(long offset, String[] fields) {
+
+        public String type() {
+            return fields[0];
+        }
+
+        /**
+         * ID zgłoszenia lub null dla zmian dotyczących techników.
+         */
+        public String ticketId() {
+            return isTechnicianChange() ? null : fields[1];
+        }
+
+        /**
+         * Technik, którego dotyczy zmiana: dodany, usunięty lub przypisany do zgłoszenia.
+         */
+        public String technicianName() {
+            return switch (type()) {
+                case Journal.TICKET_ASSIGNED -> fields[2];
+                case Journal.TICKET_ADDED -> fields[8];
+                case Journal.TECHNICIAN_ADDED, Journal.TECHNICIAN_REMOVED -> fields[1];
+                default -> null;
+            };
+        }
+
+        /**
+         * Pełne zgłoszenie dla zmiany {@link Journal#TICKET_ADDED}, w pozostałych przypadkach null.
+         */
+        public Ticket ticket() {
+            return type().equals(Journal.TICKET_ADDED) ? Journal.ticketFromRecord(fields) : null;
+        }
+
+        private boolean isTechnicianChange() {
+            return type().equals(Journal.TECHNICIAN_ADDED) || type().equals(Journal.TECHNICIAN_REMOVED);
+        }
+    }
+
+    /**
+     * Pełny stan systemu, epoka strumienia i offset pierwszej zmiany, której ten stan jeszcze nie zawiera.
+     * Zgłoszenia są obiektami bieżącymi, więc mogą już odzwierciedlać część późniejszych zmian -
+     * odbiorca powinien stosować zmiany idempotentnie (np. dodanie jako wstawienie lub zastąpienie).
+     */
+    public record InitialState(List<Ticket> tickets, List<String> technicians, long epoch, long nextOffset) {
+    }
+
+    /**
+     * Plik segmentu z rzadkim indeksem pozycji rekordów.
+     */
+    private static final class Segment {
+        final long baseOffset;
+        final File file;
+        // Pozycje co INDEX_INTERVAL rekordów; dopisywane przez wątek zapisu, odczytywane pod blokadą segmentu
+        long[] indexPositions = new long[16];
+        int indexSize;
+        long records;
+        long length;
+        boolean indexed;
+        // Błędny rekord w środku pliku - dalsza część nie jest częścią strumienia
+        boolean damaged;
+
+        Segment(long baseOffset, File file) {
+            this.baseOffset = baseOffset;
+            this.file = file;
+        }
+
+        synchronized void recordWritten(long position, long newLength) {
+            if (records % INDEX_INTERVAL == 0) {
+                if (indexSize == indexPositions.length) {
+                    indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+                }
+                indexPositions[indexSize++] = position;
+            }
+            records++;
+            length = newLength;
+        }
+
+        /**
+         * Pozycja w pliku, od której należy czytać, by dojść do offsetu.
+         */
+        synchronized long positionBefore(long offset) {
+            int entry = (int) Math.min((offset - baseOffset) / INDEX_INTERVAL, indexSize - 1);
+            return entry < 0 ? 0 : indexPositions[entry];
+        }
+
+        synchronized long getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Subskrypcja strumienia: wątek dostarczający kolejne paczki zmian od zadanego offsetu.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final long epoch;
+        private final int maxBatch;
+        private final Consumer<List<Change>> handler;
+        private final Thread thread;
+        private volatile long offset;
+        private volatile boolean closed;
+        private volatile String failure;
+
+        private Subscription(long epoch, long fromOffset, int maxBatch, Consumer<List<Change>> handler) {
+            this.epoch = epoch;
+            this.offset = fromOffset;
+            this.maxBatch = maxBatch;
+            this.handler = handler;
+            this.thread = Thread.ofVirtual().name("strumien-zmian").start(this::deliverLoop);
+        }
+
+        /**
+         * Offset następnej zmiany do dostarczenia - odbiorca zapisuje go, by wznowić od tego miejsca.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Opis błędu, który zakończył subskrypcję, lub null.
+         */
+        public String getFailure() {
+            return failure;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Kończy subskrypcję i czeka na zakończenie dostarczania bieżącej paczki. Wywołana z obsługi paczki
+         * tylko oznacza subskrypcję jako zamkniętą - wątek dostarczający kończy się po powrocie z obsługi.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            if (Thread.currentThread() == thread) {
+                return;
+            }
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void deliverLoop() {
+            while (!closed) {
+                List<Change> batch;
+                try {
+                    batch = read(epoch, offset, maxBatch, WRITER_IDLE_MILLIS);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    failure = e.getMessage();
+                    closed = true;
+                    System.err.println("Subskrypcja strumienia zmian zakończona: " + e.getMessage());
+                    return;
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                try {
+                    handler.accept(batch);
+                    offset = batch.get(batch.size() - 1).offset() + 1;
+                } catch (RuntimeException e) {
+                    // Paczka zostanie dostarczona ponownie
+                    System.err.println("Błąd podczas obsługi zmian od offsetu " + offset + ": " + e.getMessage());
+                    pause();
+                }
+            }
+        }
+
+        private void pause() {
+            try {
+                Thread.sleep(WRITER_IDLE_MILLIS);
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+        }
+    }
+
+    private final File directory;
+    private final Supplier<CompletableFuture<Void>> stateDurable;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition persisted = lock.newCondition();
+    private final Change[] recent = new Change[MEMORY_CAPACITY];
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final BlockingQueue<Change> toWrite = new LinkedBlockingQueue<>();
+    private long epoch;
+    private long nextOffset;
+    private long persistedOffset;
+    // Pierwsza zmiana dopisana w tym uruchomieniu - wcześniejsze są tylko w plikach
+    private long firstInMemory;
+    private Thread writerThread;
+
+    // Stan używany wyłącznie przez wątek zapisujący
+    private Segment current;
+    private FileOutputStream outputFile;
+    private OutputStream output;
+
+    public ChangeFeed() {
+        this(new File(FEED_DIRECTORY));
+    }
+
+    public ChangeFeed(File directory) {
+        this(directory, ALWAYS_DURABLE);
+    }
+
+    /**
+     * @param stateDurable przyszłość kończąca się, gdy wszystkie dotychczas dopisane zmiany są trwale
+     *                     zapisane w stanie systemu; wątek zapisu czeka na nią przed zapisem każdej paczki
+     */
+    public ChangeFeed(File directory, Supplier<CompletableFuture<Void>> stateDurable) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Katalog strumienia zmian nie może być null");
+        }
+        if (stateDurable == null) {
+            throw new IllegalArgumentException("Bariera trwałości stanu nie może być null");
+        }
+        this.directory = directory;
+        this.stateDurable = stateDurable;
+        openSegments();
+    }
+
+    // ---------------------------------------------------------------- zapis
+
+    /**
+     * @return offset zmiany - zapisywany razem z nią w dzienniku
+     */
+    public long ticketAdded(Ticket ticket) {
+        return append(Journal.ticketAddedRecord(ticket));
+    }
+
+    public long ticketAssigned(String ticketId, String technicianName) {
+        return append(Journal.TICKET_ASSIGNED, ticketId, technicianName);
+    }
+
+    public long ticketClosed(String ticketId) {
+        return append(Journal.TICKET_CLOSED, ticketId);
+    }
+
+    public long ticketArchived(String ticketId) {
+        return append(Journal.TICKET_ARCHIVED, ticketId);
+    }
+
+    public long technicianAdded(String technicianName) {
+        return append(Journal.TECHNICIAN_ADDED, technicianName);
+    }
+
+    public long technicianRemoved(String technicianName) {
+        return append(Journal.TECHNICIAN_REMOVED, technicianName);
+    }
+
+    /**
+     * Dopisuje zmianę odtworzoną z dziennika, która przed awarią nie trafiła do plików strumienia.
+     *
+     * @return offset zmiany
+     */
+    long appendRecovered(String[] fields) {
+        return append(fields);
+    }
+
+    private long append(String... fields) {
+        startWriterIfNeeded();
+        long offset;
+        lock.lock();
+        try {
+            offset = nextOffset++;
+            Change change = new Change(offset, fields);
+            recent[(int) (offset & (MEMORY_CAPACITY - 1))] = change;
+            // Pod blokadą - wątek zapisu dostaje zmiany w kolejności offsetów
+            toWrite.add(change);
+        } finally {
+            lock.unlock();
+        }
+        APPENDED.increment();
+        return offset;
+    }
+
+    /**
+     * Zaczyna nową epokę strumienia: dotychczasowe segmenty są usuwane, a numeracja jest kontynuowana.
+     * Odbiorcy poprzedniej epoki muszą ponownie pobrać pełny stan. Wywoływane przy starcie, przed pierwszą
+     * zmianą - gdy nie da się zagwarantować, że zmiany widziane przez odbiorców są zgodne z odtworzonym stanem.
+     */
+    synchronized void startNewEpoch() {
+        if (writerThread != null) {
+            throw new IllegalStateException("Epokę strumienia zmian można zmienić tylko przed pierwszą zmianą");
+        }
+        lock.lock();
+        try {
+            epoch = Math.max(System.currentTimeMillis(), epoch + 1);
+            List<Segment> previous = new ArrayList<>(segments.values());
+            segments.clear();
+            current = new Segment(nextOffset, segmentFile(epoch, nextOffset));
+            current.indexed = true;
+            segments.put(nextOffset, current);
+            // Pusty segment utrwala epokę, zanim pojawi się pierwsza zmiana
+            try {
+                if (!directory.exists() && !directory.mkdirs()) {
+                    throw new IOException("Nie można utworzyć katalogu " + directory);
+                }
+                new FileOutputStream(current.file).close();
+            } catch (IOException e) {
+                System.err.println("Błąd podczas zapisu epoki strumienia zmian: " + e.getMessage());
+            }
+            for (Segment segment : previous) {
+                if (!segment.file.delete()) {
+                    System.err.println("Nie można usunąć segmentu strumienia zmian: " + segment.file);
+                }
+            }
+            firstInMemory = nextOffset;
+            persistedOffset = nextOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Czy strumień nie ma jeszcze żadnego segmentu - np. przy pierwszym uruchomieniu.
+     */
+    boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    // ---------------------------------------------------------------- odczyt
+
+    /**
+     * Epoka strumienia - offsety z innej epoki nie mają w tym strumieniu znaczenia.
+     */
+    public long getEpoch() {
+        lock.lock();
+        try {
+            return epoch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Offset, który otrzyma następna zmiana.
+     */
+    public long getNextOffset() {
+        lock.lock();
+        try {
+            return nextOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Najstarszy offset, od którego można jeszcze czytać.
+     */
+    public long getFirstRetainedOffset() {
+        Map.Entry<Long, Segment> oldest = segments.firstEntry();
+        long inMemory = oldestInMemory();
+        return oldest != null ? Math.min(oldest.getKey(), inMemory) : inMemory;
+    }
+
+    /**
+     * Liczba zmian czekających na zapis do pliku.
+     */
+    public int getUnpersistedCount() {
+        lock.lock();
+        try {
+            return (int) (nextOffset - persistedOffset);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Czeka, aż zmiany przed podanym offsetem zostaną zapisane w plikach strumienia.
+     *
+     * @return false, jeśli czas oczekiwania minął wcześniej
+     */
+    public boolean awaitPersisted(long offset, long timeoutMillis) {
+        lock.lock();
+        try {
+            awaitNanos(persisted, TimeUnit.MILLISECONDS.toNanos(timeoutMillis), () -> persistedOffset >= offset);
+            return persistedOffset >= offset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Zwraca do {@code maxChanges} kolejnych zmian od podanego offsetu, czekając do {@code waitMillis},
+     * jeśli nowych zmian jeszcze nie ma. Zwracane są tylko zmiany już zapisane w plikach strumienia.
+     *
+     * @param epoch epoka, w której odbiorca otrzymał offset
+     * @throws IllegalStateException    jeśli strumień jest w innej epoce - odbiorca musi pobrać pełny stan
+     * @throws IllegalArgumentException jeśli offset nie jest już przechowywany lub jest większy niż następny offset
+     */
+    public List<Change> read(long epoch, long fromOffset, int maxChanges, long waitMillis) {
+        if (maxChanges <= 0) {
+            throw new IllegalArgumentException("Liczba zmian musi być dodatnia");
+        }
+        return READ.call(() -> {
+            lock.lock();
+            try {
+                checkEpoch(epoch);
+                if (fromOffset > nextOffset) {
+                    throw new IllegalArgumentException("Offset " + fromOffset + " jest większy niż następny offset "
+                            + nextOffset);
+                }
+                if (fromOffset >= persistedOffset && waitMillis > 0) {
+                    awaitNanos(persisted, TimeUnit.MILLISECONDS.toNanos(waitMillis),
+                            () -> fromOffset < persistedOffset);
+                }
+                if (fromOffset >= persistedOffset) {
+                    return List.of();
+                }
+                if (fromOffset >= oldestInMemory()) {
+                    return readRecent(fromOffset, maxChanges);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return readFromSegments(fromOffset, maxChanges);
+        });
+    }
+
+    /**
+     * Subskrybuje zmiany od podanego offsetu: najpierw zaległe, potem bieżące, paczkami do {@code maxBatch}.
+     * Paczka, której obsługa zakończyła się wyjątkiem, jest dostarczana ponownie.
+     *
+     * @throws IllegalStateException jeśli strumień jest w innej epoce niż podana
+     */
+    public Subscription subscribe(long epoch, long fromOffset, int maxBatch, Consumer<List<Change>> handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Obsługa zmian nie może być null");
+        }
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Rozmiar paczki musi być dodatni");
+        }
+        lock.lock();
+        try {
+            checkEpoch(epoch);
+            if (fromOffset < 0 || fromOffset > nextOffset) {
+                throw new IllegalArgumentException("Nieprawidłowy offset początkowy: " + fromOffset);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new Subscription(epoch, fromOffset, maxBatch, handler);
+    }
+
+    private void checkEpoch(long epoch) {
+        if (epoch != this.epoch) {
+            throw new IllegalStateException("Strumień zmian jest w epoce " + this.epoch + ", a nie " + epoch
+                    + " - zmiany od zapamiętanego offsetu mogły zostać utracone; należy pobrać pełny stan");
+        }
+    }
+
+    private long oldestInMemory() {
+        lock.lock();
+        try {
+            return Math.max(firstInMemory, nextOffset - MEMORY_CAPACITY);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Change> readRecent(long fromOffset, int maxChanges) {
+        int count = (int) Math.min(maxChanges, persistedOffset - fromOffset);
+        List<Change> changes = new ArrayList<>(count);
+        for (long offset = fromOffset; offset < fromOffset + count; offset++) {
+            changes.add(recent[(int) (offset & (MEMORY_CAPACITY - 1))]);
+        }
+        return changes;
+    }
+
+    private List<Change> readFromSegments(long fromOffset, int maxChanges) {
+        Map.Entry<Long, Segment> entry = segments.floorEntry(fromOffset);
+        if (entry == null) {
+            throw new IllegalArgumentException("Offset " + fromOffset + " nie jest już przechowywany; najstarszy to "
+                    + getFirstRetainedOffset());
+        }
+        List<Change> changes = new ArrayList<>();
+        long offset = fromOffset;
+        Segment segment = entry.getValue();
+        while (segment != null && changes.size() < maxChanges) {
+            try {
+                offset = readSegment(segment, offset, maxChanges - changes.size(), changes);
+            } catch (IOException e) {
+                throw new IllegalStateException("Błąd podczas odczytu strumienia zmian: " + e.getMessage(), e);
+            }
+            Map.Entry<Long, Segment> next = segments.higherEntry(segment.baseOffset);
+            segment = next != null && next.getKey() == offset ? next.getValue() : null;
+        }
+        if (changes.isEmpty()) {
+            // Segment kończy się przed następnym - zmiany od tego offsetu zostały utracone
+            throw new IllegalArgumentException("Zmiany od offsetu " + fromOffset
+                    + " są niedostępne (uszkodzony segment strumienia zmian); należy pobrać pełny stan");
+        }
+        return changes;
+    }
+
+    /**
+     * Czyta zmiany z segmentu od offsetu, zaczynając od najbliższej pozycji z indeksu.
+     *
+     * @return offset następnej zmiany po ostatniej przeczytanej
+     */
+    private long readSegment(Segment segment, long fromOffset, int maxChanges, List<Change> changes)
+            throws IOException {
+        indexSegment(segment, nextSegmentOffset(segment));
+        long start = segment.positionBefore(fromOffset);
+        long end = segment.getLength();
+        long next = fromOffset;
+        try (FileChannel channel = FileChannel.open(segment.file.toPath(), StandardOpenOption.READ)) {
+            channel.position(start);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new LimitedInputStream(Channels.newInputStream(channel), end - start), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null && maxChanges > 0) {
+                Change change = parse(line);
+                if (change.offset() < fromOffset) {
+                    continue;
+                }
+                changes.add(change);
+                next = change.offset() + 1;
+                maxChanges--;
+            }
+        }
+        return next;
+    }
+
+    // ---------------------------------------------------------------- pliki
+
+    /**
+     * Wymusza zapis oczekujących zmian i zatrzymuje wątek zapisu.
+     */
+    @Override
+    public synchronized void close() {
+        if (writerThread == null) {
+            return;
+        }
+        writerThread.interrupt();
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    private synchronized void startWriterIfNeeded() {
+        if (writerThread == null) {
+            writerThread = new Thread(this::writerLoop, "change-feed-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+
+    private void writerLoop() {
+        List<Change> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                Change first = toWrite.poll(WRITER_IDLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            toWrite.drainTo(batch);
+            if (batch.isEmpty() || writeBatch(batch)) {
+                batch.clear();
+            } else if (running) {
+                // Niezapisana część paczki jest ponawiana razem z kolejnymi zmianami
+                running = pause();
+            }
+        }
+        if (!batch.isEmpty()) {
+            System.err.println("Nie zapisano " + batch.size() + " zmian strumienia od offsetu "
+                    + batch.get(0).offset() + " - przy starcie zostaną przekazane ponownie z dziennika");
+        }
+        closeOutput();
+    }
+
+    /**
+     * Zapisuje paczkę z fsync, segment po segmencie. Offset zapisanych zmian przesuwa się dopiero po fsync;
+     * po błędzie zapisu bieżący segment nie jest już uzupełniany, a zapis jest ponawiany w nowym,
+     * zaczynającym się od pierwszej niezapisanej zmiany.
+     *
+     * @return true, jeśli zapisano całą paczkę; w przeciwnym razie w paczce zostają zmiany niezapisane
+     */
+    private boolean writeBatch(List<Change> batch) {
+        // Strumień nie może wyprzedzić trwałego stanu - po awarii odbiorca miałby zmiany, których stan nie ma
+        try {
+            stateDurable.get().join();
+        } catch (CompletionException e) {
+            System.err.println("Zmiany nie są jeszcze trwale zapisane w stanie - zapis strumienia zmian wstrzymany: "
+                    + e.getCause().getMessage());
+            return false;
+        }
+        int written = 0;
+        try {
+            while (written < batch.size()) {
+                if (output == null || current.records >= SEGMENT_RECORDS) {
+                    openSegment(batch.get(written).offset());
+                }
+                int end = (int) Math.min(batch.size(), written + SEGMENT_RECORDS - current.records);
+                long[] lineEnds = new long[end - written];
+                long position = current.length;
+                for (int i = written; i < end; i++) {
+                    Change change = batch.get(i);
+                    byte[] line = (change.offset() + "\t" + Journal.encode(change.fields()) + "\n")
+                            .getBytes(StandardCharsets.UTF_8);
+                    output.write(line);
+                    position += line.length;
+                    lineEnds[i - written] = position;
+                }
+                output.flush();
+                outputFile.getFD().sync();
+                for (long lineEnd : lineEnds) {
+                    current.recordWritten(current.length, lineEnd);
+                }
+                markPersisted(batch.get(end - 1).offset() + 1);
+                written = end;
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Błąd podczas zapisu strumienia zmian: " + e.getMessage());
+            closeOutput();
+            current = null;
+            batch.subList(0, written).clear();
+            return false;
+        }
+    }
+
+    private void markPersisted(long offset) {
+        lock.lock();
+        try {
+            persistedOffset = offset;
+            persisted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(WRITER_IDLE_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Otwiera do dopisywania bieżący segment lub - gdy jest pełny albo zapis do niego się nie powiódł - nowy,
+     * zaczynający się od podanego offsetu, i usuwa segmenty ponad limit przechowywania.
+     */
+    private void openSegment(long baseOffset) throws IOException {
+        closeOutput();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Nie można utworzyć katalogu " + directory);
+        }
+        boolean created = current == null || current.records >= SEGMENT_RECORDS;
+        if (created) {
+            current = new Segment(baseOffset, segmentFile(epoch, baseOffset));
+            current.indexed = true;
+            segments.put(baseOffset, current);
+        }
+        outputFile = new FileOutputStream(current.file, !created);
+        output = new BufferedOutputStream(outputFile, 1 << 16);
+        while (segments.size() > RETAINED_SEGMENTS) {
+            Segment oldest = segments.pollFirstEntry().getValue();
+            if (!oldest.file.delete()) {
+                System.err.println("Nie można usunąć segmentu strumienia zmian: " + oldest.file);
+            }
+        }
+    }
+
+    private void closeOutput() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.close();
+        } catch (IOException e) {
+            System.err.println("Błąd podczas zamykania strumienia zmian: " + e.getMessage());
+        }
+        output = null;
+        outputFile = null;
+    }
+
+    /**
+     * Odczytuje listę segmentów najnowszej epoki i indeksuje ostatni, do którego trafiają dalsze zapisy
+     * i który wyznacza następny offset. Indeksy starszych segmentów budowane są przy pierwszym odczycie.
+     * Bez segmentów strumień dostaje nową epokę, utrwalaną przez {@link #startNewEpoch()} lub pierwszy zapis.
+     */
+    private void openSegments() {
+        epoch = System.currentTimeMillis();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long latestEpoch = -1;
+        for (File file : files) {
+            Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+            if (matcher.matches()) {
+                latestEpoch = Math.max(latestEpoch, Long.parseLong(matcher.group(1)));
+            }
+        }
+        if (latestEpoch < 0) {
+            return;
+        }
+        epoch = latestEpoch;
+        for (File file : files) {
+            Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+            if (Long.parseLong(matcher.group(1)) != latestEpoch) {
+                // Pozostałość po przerwanej zmianie epoki
+                if (!file.delete()) {
+                    System.err.println("Nie można usunąć segmentu strumienia zmian: " + file);
+                }
+                continue;
+            }
+            long baseOffset = Long.parseLong(matcher.group(2));
+            segments.put(baseOffset, new Segment(baseOffset, file));
+        }
+        current = segments.lastEntry().getValue();
+        try {
+            indexSegment(current, Long.MAX_VALUE);
+        } catch (IOException e) {
+            System.err.println("Błąd podczas odczytu segmentu strumienia zmian " + current.file + ": "
+                    + e.getMessage());
+            current.damaged = true;
+        }
+        nextOffset = current.baseOffset + current.records;
+        persistedOffset = nextOffset;
+        firstInMemory = nextOffset;
+        if (current.damaged) {
+            // Odbiorcy mogli widzieć zmiany zapisane za uszkodzonym rekordem - ich offsety zostałyby użyte ponownie
+            System.err.println("Segment strumienia zmian " + current.file
+                    + " jest uszkodzony - strumień zaczyna nową epokę.");
+            startNewEpoch();
+        }
+    }
+
+    private File segmentFile(long epoch, long baseOffset) {
+        return new File(directory, String.format("changes-%d-%020d.log", epoch, baseOffset));
+    }
+
+    /**
+     * Offset, od którego zaczyna się następny segment - na nim kończy się podany.
+     */
+    private long nextSegmentOffset(Segment segment) {
+        Long next = segments.higherKey(segment.baseOffset);
+        return next != null ? next : Long.MAX_VALUE;
+    }
+
+    /**
+     * Buduje indeks segmentu jednym przejściem po pliku.
+     */
+    private static void indexSegment(Segment segment, long endOffset) throws IOException {
+        synchronized (segment) {
+            if (!segment.indexed) {
+                segment.indexed = true;
+                scanSegment(segment, endOffset);
+            }
+        }
+    }
+
+    /**
+     * Czyta kolejne rekordy segmentu do pierwszego błędnego lub do offsetu, od którego zaczyna się następny
+     * segment (po błędzie zapisu mógł on powtórzyć niezapisane zmiany). Obcinany jest wyłącznie niekompletny
+     * ostatni wiersz ostatniego segmentu po przerwanym zapisie; błędny rekord w środku oznacza segment
+     * jako uszkodzony, a dalsza część pliku zostaje nietknięta.
+     */
+    private static void scanSegment(Segment segment, long endOffset) throws IOException {
+        long position = 0;
+        boolean complete = true;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(segment.file), 1 << 16)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                long expected = segment.baseOffset + segment.records;
+                if (expected >= endOffset) {
+                    break;
+                }
+                long length = line.size() + 1;
+                try {
+                    if (parse(line.toString(StandardCharsets.UTF_8)).offset() != expected) {
+                        segment.damaged = true;
+                        break;
+                    }
+                } catch (RuntimeException e) {
+                    segment.damaged = true;
+                    break;
+                }
+                segment.recordWritten(position, position + length);
+                position += length;
+                line.reset();
+            }
+            complete = line.size() == 0;
+        }
+        if (endOffset == Long.MAX_VALUE && !segment.damaged && !complete) {
+            System.err.println("Obcięto niekompletny koniec segmentu strumienia zmian " + segment.file);
+            try (FileChannel channel = FileChannel.open(segment.file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(position);
+            }
+        }
+    }
+
+    private static Change parse(String line) {
+        int separator = line.indexOf('\t');
+        return new Change(Long.parseLong(line.substring(0, separator)), Journal.decode(line.substring(separator + 1)));
+    }
+
+    private static void awaitNanos(Condition condition, long nanos, BooleanSupplier done) {
+        try {
+            while (!done.getAsBoolean() && nanos > 0) {
+                nanos = condition.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Strumień kończący się po podanej liczbie bajtów - czytelnik nie wchodzi na dopisywany właśnie wiersz.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
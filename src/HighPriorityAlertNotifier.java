@@ -0,0 +1,76 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Alerty o nowych zgłoszeniach o wysokim i krytycznym priorytecie, które nadal nie są przypisane.
+ * <p>
+ * Działa jako subskrybent {@link TicketEventBus}, więc tworzenie zgłoszenia nie czeka na powiadomienie.
+ * Pierwsze zgłoszenie po przerwie daje osobny alert; przy nawale zgłoszeń wysyłane jest jedno
+ * zestawienie na {@link #DIGEST_INTERVAL}, z liczbą alertów pominiętych przy przepełnionej kolejce.
+ */
+public class HighPriorityAlertNotifier implements Consumer<List<TicketEvent>> {
+    public static final Duration DIGEST_INTERVAL = Duration.ofSeconds(5);
+    private static final int QUEUE_CAPACITY = 256;
+    /** Liczba identyfikatorów wymienianych w zestawieniu. */
+    private static final int DIGEST_LISTED = 10;
+
+    private final TicketSystem ticketSystem;
+    /** Ustawiana po rejestracji; pierwsza dostawa może ją wyprzedzić. */
+    private volatile TicketEventBus.Subscription subscription;
+    private long reportedDropped;
+
+    public HighPriorityAlertNotifier(TicketSystem ticketSystem) {
+        if (ticketSystem == null) {
+            throw new IllegalArgumentException("System zgłoszeń nie może być null");
+        }
+        this.ticketSystem = ticketSystem;
+    }
+
+    /**
+     * Rejestruje powiadamianie w szynie zdarzeń systemu.
+     */
+    public static TicketEventBus.Subscription attach(TicketSystem ticketSystem) {
+        HighPriorityAlertNotifier notifier = new HighPriorityAlertNotifier(ticketSystem);
+        notifier.subscription = ticketSystem.getEventBus().subscribe("alerty",
+                event -> event instanceof TicketEvent.TicketCreated created && created.isHighPriority(),
+                QUEUE_CAPACITY, DIGEST_INTERVAL, notifier);
+        return notifier.subscription;
+    }
+
+    @Override
+    public void accept(List<TicketEvent> events) {
+        // Zgłoszenia przypisane, zanim doszło do powiadomienia, nie wymagają już alertu
+        List<TicketEvent.TicketCreated> unassigned = new ArrayList<>();
+        for (TicketEvent event : events) {
+            if (event instanceof TicketEvent.TicketCreated created && isUnassigned(created.ticketId())) {
+                unassigned.add(created);
+            }
+        }
+        long dropped = subscription == null ? 0 : subscription.getDroppedCount() - reportedDropped;
+        reportedDropped += dropped;
+        if (unassigned.size() == 1 && dropped == 0) {
+            TicketEvent.TicketCreated created = unassigned.get(0);
+            System.out.println("ALERT: Nieprzypisane zgłoszenie o wysokim priorytecie - '"
+                    + created.title() + "' (ID: " + created.ticketId() + ")");
+        } else if (unassigned.size() > 1 || dropped > 0) {
+            StringBuilder digest = new StringBuilder("ALERT: ").append(unassigned.size())
+                    .append(" nieprzypisanych zgłoszeń o wysokim priorytecie - ");
+            for (int i = 0; i < Math.min(unassigned.size(), DIGEST_LISTED); i++) {
+                digest.append(i > 0 ? ", " : "").append(unassigned.get(i).ticketId());
+            }
+            if (unassigned.size() > DIGEST_LISTED) {
+                digest.append(" i ").append(unassigned.size() - DIGEST_LISTED).append(" innych");
+            }
+            if (dropped > 0) {
+                digest.append(" (oraz ").append(dropped).append(" pominiętych z powodu przepełnienia kolejki alertów)");
+            }
+            System.out.println(digest);
+        }
+    }
+
+    private boolean isUnassigned(String ticketId) {
+        return ticketSystem.findTicketById(ticketId).map(ticket -> !ticket.isAssigned()).orElse(false);
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * Wynik przetworzenia jednej pozycji importu zbiorczego.
+ *
+ * @param index    pozycja w danych wejściowych (od 0)
+ * @param ticketId identyfikator zgłoszenia (null, jeśli nie został ustalony)
+ * @param outcome  rezultat
+ * @param message  opis błędu; null dla dodanych zgłoszeń
+ */
+public record IngestResult(int index, String ticketId, Outcome outcome, String message) {
+
+    public enum Outcome {
+        ADDED, DUPLICATE, INVALID
+    }
+
+    public boolean isAdded() {
+        return outcome == Outcome.ADDED;
+    }
+}
@@ -0,0 +1,507 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Dziennik zmian (write-ahead log) systemu zgłoszeń.
+ * Każda operacja zmieniająca stan dopisuje jeden wiersz na końcu pliku,
+ * dzięki czemu koszt zapisu nie zależy od liczby zgłoszeń w systemie.
+ * Pola rekordu są rozdzielone tabulatorem.
+ * <p>
+ * Zapis odbywa się w osobnym wątku: rekordy trafiają do kolejki, a wątek dziennika
+ * zapisuje je paczkami, więc wiele operacji dzieli jeden zapis i jeden fsync.
+ * <p>
+ * Po zapisaniu pełnego stanu dziennik nie jest kasowany, tylko przenoszony do {@code tickets.journal.prev}
+ * ({@link #rotate()}) - razem z poprzednim snapshotem ({@link BinarySnapshot#loadPrevious()}) pozwala
+ * odtworzyć stan, gdy bieżący snapshot jest uszkodzony.
+ * <p>
+ * Rekord poprzedza offset tej samej zmiany w {@link ChangeFeed}, a każde pokolenie dziennika zaczyna się
+ * wierszem z samym offsetem - pierwszą zmianą, której zapisany razem z nim snapshot nie zawiera.
+ * Po awarii pozwala to ustalić, które odtworzone zmiany nie zdążyły trafić do strumienia zmian.
+ */
+public class Journal {
+    private static final String JOURNAL_FILE = "tickets.journal";
+    private static final String PREVIOUS_FILE = JOURNAL_FILE + ".prev";
+    static final long DEFAULT_FLUSH_INTERVAL_MS = 100;
+    static final int DEFAULT_FLUSH_EVERY_OPS = 500;
+
+    public static final String TICKET_ADDED = "ADD";
+    public static final String TICKET_ASSIGNED = "ASSIGN";
+    public static final String TICKET_CLOSED = "CLOSE";
+    public static final String TICKET_ARCHIVED = "ARCHIVE";
+    public static final String TECHNICIAN_ADDED = "TECH_ADD";
+    public static final String TECHNICIAN_REMOVED = "TECH_REMOVE";
+
+    /**
+     * Poziom trwałości zapisu dziennika.
+     */
+    public enum Durability {
+        /** Rekord trafia do systemu plików w tle, bez oczekiwania i bez fsync. */
+        FIRE_AND_FORGET,
+        /** Zapis w tle, fsync co określony czas lub liczbę operacji (group commit). */
+        PERIODIC,
+        /** Wywołujący czeka, aż rekord zostanie zapisany i zsynchronizowany z dyskiem. */
+        SYNC
+    }
+
+    /**
+     * Rekord oczekujący na zapis przez wątek dziennika. Rekord bez tekstu jest znacznikiem
+     * wymuszającym fsync, a z ustawionym {@code rotate} - zamykającym bieżący plik jako poprzednie pokolenie;
+     * jego tekst to wtedy pierwszy wiersz nowego pokolenia.
+     */
+    private record PendingRecord(String line, boolean rotate, CompletableFuture<Void> done) {
+    }
+
+    private static final PendingRecord SHUTDOWN = new PendingRecord(null, false, new CompletableFuture<>());
+
+    private final File file;
+    private final File previousFile;
+    private final Durability durability;
+    private final long flushIntervalMillis;
+    private final int flushEveryOps;
+    private final BlockingQueue<PendingRecord> queue;
+    private final AtomicInteger recordCount;
+    private Thread writerThread;
+
+    // Stan używany wyłącznie przez wątek zapisujący
+    private FileOutputStream output;
+    private Writer writer;
+    private final List<CompletableFuture<Void>> awaitingSync = new ArrayList<>();
+    private int unsyncedOps;
+    private long lastSyncNanos;
+
+    public Journal() {
+        this(Durability.PERIODIC, DEFAULT_FLUSH_INTERVAL_MS, DEFAULT_FLUSH_EVERY_OPS);
+    }
+
+    /**
+     * @param durability          poziom trwałości zapisu
+     * @param flushIntervalMillis maksymalny czas między kolejnymi fsync w trybie PERIODIC
+     * @param flushEveryOps       liczba operacji wymuszająca fsync w trybie PERIODIC
+     */
+    public Journal(Durability durability, long flushIntervalMillis, int flushEveryOps) {
+        this(null, durability, flushIntervalMillis, flushEveryOps);
+    }
+
+    /**
+     * @param directory katalog dziennika; null oznacza katalog bieżący
+     */
+    public Journal(File directory, Durability durability, long flushIntervalMillis, int flushEveryOps) {
+        if (durability == null) {
+            throw new IllegalArgumentException("Poziom trwałości nie może być null");
+        }
+        if (flushIntervalMillis <= 0 || flushEveryOps <= 0) {
+            throw new IllegalArgumentException("Parametry zapisu dziennika muszą być dodatnie");
+        }
+        this.file = new File(directory, JOURNAL_FILE);
+        this.previousFile = new File(directory, PREVIOUS_FILE);
+        this.durability = durability;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flushEveryOps = flushEveryOps;
+        this.queue = new LinkedBlockingQueue<>();
+        this.recordCount = new AtomicInteger();
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * @param changeOffset offset tej samej zmiany w {@link ChangeFeed}
+     */
+    public CompletableFuture<Void> logTicketAdded(long changeOffset, Ticket ticket) {
+        return append(changeOffset, ticketAddedRecord(ticket));
+    }
+
+    public CompletableFuture<Void> logTicketAssigned(long changeOffset, String ticketId, String technicianName) {
+        return append(changeOffset, TICKET_ASSIGNED, ticketId, technicianName);
+    }
+
+    public CompletableFuture<Void> logTicketClosed(long changeOffset, String ticketId) {
+        return append(changeOffset, TICKET_CLOSED, ticketId);
+    }
+
+    public CompletableFuture<Void> logTicketArchived(long changeOffset, String ticketId) {
+        return append(changeOffset, TICKET_ARCHIVED, ticketId);
+    }
+
+    public CompletableFuture<Void> logTechnicianAdded(long changeOffset, String technicianName) {
+        return append(changeOffset, TECHNICIAN_ADDED, technicianName);
+    }
+
+    public CompletableFuture<Void> logTechnicianRemoved(long changeOffset, String technicianName) {
+        return append(changeOffset, TECHNICIAN_REMOVED, technicianName);
+    }
+
+    /**
+     * Liczba rekordów zapisanych od ostatniego skrócenia dziennika.
+     */
+    public int getRecordCount() {
+        return recordCount.get();
+    }
+
+    /**
+     * Wymusza zapis i fsync wszystkich dotychczas zgłoszonych rekordów, niezależnie od trybu.
+     *
+     * @return przyszłość zakończona po zsynchronizowaniu dziennika z dyskiem
+     */
+    public CompletableFuture<Void> sync() {
+        return enqueue(new PendingRecord(null, false, new CompletableFuture<>()));
+    }
+
+    /**
+     * Odtwarza rekordy z pliku dziennika w kolejności zapisu.
+     * Uszkodzone rekordy (np. niekompletny ostatni wiersz po awarii) są pomijane.
+     * Wywoływane przed pierwszym zapisem, gdy wątek dziennika jeszcze nie działa.
+     *
+     * @param handler obsługa pojedynczego rekordu (tablica pól, pierwsze pole to typ operacji) i offsetu
+     *                zmiany w {@link ChangeFeed}; -1 dla rekordów zapisanych bez offsetu
+     * @return liczba odtworzonych rekordów
+     */
+    public int replay(ObjLongConsumer<String[]> handler) {
+        int replayed = scan(file, handler);
+        recordCount.set(replayed);
+        return replayed;
+    }
+
+    /**
+     * Odczytuje rekordy dziennika jak {@link #replay}, ale bez zmiany licznika rekordów -
+     * np. do przejrzenia dziennika przed właściwym odtworzeniem.
+     *
+     * @return liczba odczytanych rekordów
+     */
+    public int scan(Consumer<String[]> handler) {
+        return scan(file, (record, changeOffset) -> handler.accept(record));
+    }
+
+    /**
+     * Odczytuje rekordy poprzedniego pokolenia dziennika - zmiany sprzed ostatniego pełnego zapisu stanu,
+     * potrzebne tylko przy odtwarzaniu z poprzedniego snapshotu.
+     *
+     * @return liczba odczytanych rekordów
+     */
+    public int replayPrevious(ObjLongConsumer<String[]> handler) {
+        return scan(previousFile, handler);
+    }
+
+    /**
+     * Offset pierwszej zmiany {@link ChangeFeed}, której nie zawiera snapshot odpowiadający bieżącemu
+     * pokoleniu dziennika.
+     *
+     * @return offset lub -1, jeśli pokolenie nie zaczyna się od niego (dziennik sprzed pierwszego snapshotu)
+     */
+    public long getFirstChangeOffset() {
+        return firstChangeOffset(file);
+    }
+
+    /**
+     * Jak {@link #getFirstChangeOffset()}, dla poprzedniego pokolenia dziennika.
+     */
+    public long getPreviousFirstChangeOffset() {
+        return firstChangeOffset(previousFile);
+    }
+
+    private static long firstChangeOffset(File file) {
+        if (!file.exists()) {
+            return -1;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            // Pierwszy wiersz jest zwykłym rekordem w dzienniku, który nie powstał przez rotate()
+            return line != null && isChangeOffset(line) && line.indexOf('\t') < 0 ? Long.parseLong(line) : -1;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Błąd podczas odczytu dziennika zmian: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private static int scan(File file, ObjLongConsumer<String[]> handler) {
+        if (!file.exists()) {
+            return 0;
+        }
+        int replayed = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    String[] fields = decode(line);
+                    if (!isChangeOffset(fields[0])) {
+                        handler.accept(fields, -1);
+                    } else if (fields.length > 1) {
+                        handler.accept(Arrays.copyOfRange(fields, 1, fields.length), Long.parseLong(fields[0]));
+                    } else {
+                        // Początek pokolenia - nie jest zmianą
+                        continue;
+                    }
+                    replayed++;
+                } catch (RuntimeException e) {
+                    System.err.println("Pominięto uszkodzony rekord dziennika: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Błąd podczas odczytu dziennika zmian: " + e.getMessage());
+        }
+        return replayed;
+    }
+
+    /**
+     * Zaczyna nowy dziennik po zapisaniu pełnej kopii stanu (kompaktowanie). Rekordy zgłoszone wcześniej
+     * są już zawarte w kopii stanu i trafiają do poprzedniego pokolenia, zastępując je; rekordy zgłoszone
+     * później trafiają do nowego dziennika.
+     *
+     * @param nextChangeOffset offset pierwszej zmiany {@link ChangeFeed}, której kopia stanu nie zawiera
+     */
+    public CompletableFuture<Void> rotate(long nextChangeOffset) {
+        recordCount.set(0);
+        return enqueue(new PendingRecord(Long.toString(nextChangeOffset), true, new CompletableFuture<>()));
+    }
+
+    /**
+     * Zapisuje oczekujące rekordy, synchronizuje plik z dyskiem i zatrzymuje wątek dziennika.
+     */
+    public synchronized void close() {
+        if (writerThread == null) {
+            return;
+        }
+        queue.add(SHUTDOWN);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    /**
+     * Dodaje rekord do kolejki zapisu. W trybie SYNC wywołujący powinien poczekać
+     * na zwróconą przyszłość - robi to {@link TicketSystem} po zwolnieniu blokad.
+     */
+    private CompletableFuture<Void> append(long changeOffset, String... fields) {
+        recordCount.incrementAndGet();
+        return enqueue(new PendingRecord(changeOffset + "\t" + encode(fields), false, new CompletableFuture<>()));
+    }
+
+    private CompletableFuture<Void> enqueue(PendingRecord record) {
+        startWriterIfNeeded();
+        queue.add(record);
+        return record.done();
+    }
+
+    private synchronized void startWriterIfNeeded() {
+        if (writerThread == null) {
+            writerThread = new Thread(this::writerLoop, "journal-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Pętla wątku zapisującego: pobiera wszystkie oczekujące rekordy naraz,
+     * zapisuje je jednym ciągiem i wykonuje co najwyżej jeden fsync na paczkę.
+     */
+    private void writerLoop() {
+        List<PendingRecord> batch = new ArrayList<>();
+        lastSyncNanos = System.nanoTime();
+        boolean running = true;
+        while (running) {
+            try {
+                PendingRecord first = unsyncedOps > 0
+                        ? queue.poll(millisUntilPeriodicSync(), TimeUnit.MILLISECONDS)
+                        : queue.take();
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                }
+                running = !batch.contains(SHUTDOWN);
+                writeBatch(batch, !running);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (IOException e) {
+                System.err.println("Błąd podczas zapisu do dziennika zmian: " + e.getMessage());
+                failPending(batch, e);
+            }
+            batch.clear();
+        }
+        closeOutput();
+    }
+
+    private void writeBatch(List<PendingRecord> batch, boolean forceSync) throws IOException {
+        openOutputIfNeeded();
+        List<CompletableFuture<Void>> written = new ArrayList<>();
+        for (PendingRecord record : batch) {
+            if (record.rotate()) {
+                writer.flush();
+                output.getChannel().force(false);
+                closeOutput();
+                Files.move(file.toPath(), previousFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                openOutputIfNeeded();
+                writer.write(record.line());
+                writer.write('\n');
+                forceSync = true;
+            } else if (record.line() != null) {
+                writer.write(record.line());
+                writer.write('\n');
+                unsyncedOps++;
+            } else if (record != SHUTDOWN) {
+                forceSync = true;
+            }
+            written.add(record.done());
+        }
+        writer.flush();
+
+        boolean periodicDue = unsyncedOps >= flushEveryOps || millisUntilPeriodicSync() == 0;
+        if (durability == Durability.FIRE_AND_FORGET && !forceSync) {
+            unsyncedOps = 0;
+            written.forEach(done -> done.complete(null));
+        } else if (forceSync || durability == Durability.SYNC || periodicDue) {
+            output.getChannel().force(false);
+            unsyncedOps = 0;
+            lastSyncNanos = System.nanoTime();
+            awaitingSync.forEach(done -> done.complete(null));
+            awaitingSync.clear();
+            written.forEach(done -> done.complete(null));
+        } else {
+            awaitingSync.addAll(written);
+        }
+    }
+
+    private long millisUntilPeriodicSync() {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastSyncNanos);
+        return Math.max(0, flushIntervalMillis - elapsed);
+    }
+
+    private void failPending(List<PendingRecord> batch, IOException e) {
+        batch.forEach(record -> record.done().completeExceptionally(e));
+        awaitingSync.forEach(done -> done.completeExceptionally(e));
+        awaitingSync.clear();
+        closeOutput();
+    }
+
+    private void openOutputIfNeeded() throws IOException {
+        if (writer == null) {
+            output = new FileOutputStream(file, true);
+            writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void closeOutput() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Błąd podczas zamykania dziennika zmian: " + e.getMessage());
+        }
+        writer = null;
+        output = null;
+    }
+
+    /**
+     * Czy pole jest offsetem zmiany - typy rekordów nie zaczynają się od cyfry.
+     */
+    private static boolean isChangeOffset(String field) {
+        return !field.isEmpty() && Character.isDigit(field.charAt(0));
+    }
+
+    /**
+     * Koduje pola rekordu w jednej linii; null zapisywany jest jako "\0".
+     */
+    static String encode(String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                sb.append('\t');
+            }
+            String field = fields[i];
+            if (field == null) {
+                sb.append("\\0");
+                continue;
+            }
+            for (int j = 0; j < field.length(); j++) {
+                char c = field.charAt(j);
+                switch (c) {
+                    case '\\' -> sb.append("\\\\");
+                    case '\t' -> sb.append("\\t");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    default -> sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    static String[] decode(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean isNull = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                fields.add(isNull ? null : sb.toString());
+                sb.setLength(0);
+                isNull = false;
+            } else if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                switch (next) {
+                    case 't' -> sb.append('\t');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case '0' -> isNull = true;
+                    default -> sb.append(next);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        fields.add(isNull ? null : sb.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Pola rekordu {@link #TICKET_ADDED} - pełny stan zgłoszenia.
+     */
+    static String[] ticketAddedRecord(Ticket ticket) {
+        return new String[]{TICKET_ADDED,
+                ticket.getTicketId(),
+                ticket.getTitle(),
+                ticket.getDescription(),
+                ticket.getReporterName(),
+                ticket.getReporterEmail(),
+                ticket.getPriority().name(),
+                ticket.getStatus().name(),
+                ticket.getAssignedTechnicianName(),
+                String.valueOf(ticket.getCreatedAt().toEpochSecond(ZoneOffset.UTC))};
+    }
+
+    /**
+     * Odtwarza zgłoszenie z rekordu {@link #TICKET_ADDED}.
+     */
+    static Ticket ticketFromRecord(String[] record) {
+        return new Ticket(record[1], record[2], record[3], record[4], record[5],
+                Ticket.Priority.valueOf(record[6]),
+                Ticket.Status.valueOf(record[7]),
+                record[8],
+                LocalDateTime.ofEpochSecond(Long.parseLong(record[9]), 0, ZoneOffset.UTC));
+    }
+}
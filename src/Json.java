@@ -1,7 +1,12 @@
 import java.io.*;
-// import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Klasa zarządzająca zapisem i odczytem danych plików JSON.
@@ -10,83 +15,115 @@ import java.util.*;
 public class Json {
     private static final String TICKETS_FILE = "tickets.json";
     private static final String TECHNICIANS_FILE = "technicians.json";
+    /** Rozmiar pliku, od którego zgłoszenia są wczytywane równolegle. */
+    private static final long PARALLEL_LOAD_THRESHOLD = 8L * 1024 * 1024;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    public void saveTickets(List<Ticket> tickets) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TICKETS_FILE))) {
-            writer.println("[");
-            for (int i = 0; i < tickets.size(); i++) {
-                Ticket ticket = tickets.get(i);
-                writer.println("  {");
-                writer.println("    \"ticketId\": \"" + ticket.getTicketId() + "\",");
-                writer.println("    \"title\": \"" + escapejSON(ticket.getTitle()) + "\",");
-                writer.println("    \"description\": \"" + escapejSON(ticket.getDescription()) + "\",");
-                writer.println("    \"reporterName\": \"" + escapejSON(ticket.getReporterName()) + "\",");
-                writer.println("    \"reporterEmail\": \"" + ticket.getReporterEmail() + "\",");
-                writer.println("    \"priority\": \"" + ticket.getPriority() + "\",");
-                writer.println("    \"status\": \"" + ticket.getStatus() + "\",");
-                writer.println("    \"assignedTechnicianName\": " +
-                        (ticket.getAssignedTechnicianName() != null ?
-                                "\"" + escapejSON(ticket.getAssignedTechnicianName()) + "\"" : "null") + ",");
-                writer.println("    \"createdAt\": \"" + ticket.getCreatedAt().format(DATE_FORMATTER) + "\",");
-                
-
-                writer.print("  }");
-                if (i < tickets.size() - 1) {
-                    writer.println(",");
-                } else {
-                    writer.println();
-                }
+    private static final Metrics.Operation SAVE_TICKETS = Metrics.operation("json.saveTickets");
+    private static final Metrics.Operation LOAD_TICKETS = Metrics.operation("json.loadTickets");
+    private static final Metrics.Operation SAVE_TECHNICIANS = Metrics.operation("json.saveTechnicians");
+    private static final Metrics.Operation LOAD_TECHNICIANS = Metrics.operation("json.loadTechnicians");
+    private static final LongAdder BYTES_WRITTEN = Metrics.counter("json.bytesWritten");
+    private static final LongAdder BYTES_READ = Metrics.counter("json.bytesRead");
+    private static final LongAdder TICKETS_SAVED = Metrics.counter("json.ticketsSaved");
+    private static final LongAdder TICKETS_LOADED = Metrics.counter("json.ticketsLoaded");
+
+    private final File ticketsFile;
+    private final File techniciansFile;
+
+    public Json() {
+        this(null);
+    }
+
+    /**
+     * @param directory katalog z plikami danych; null oznacza katalog bieżący
+     */
+    public Json(File directory) {
+        this.ticketsFile = new File(directory, TICKETS_FILE);
+        this.techniciansFile = new File(directory, TECHNICIANS_FILE);
+    }
+
+    /**
+     * Zapisuje zgłoszenia do pliku JSON. Plik jest najpierw zapisywany obok
+     * i podmieniany dopiero po udanym zapisie, więc przerwany zapis nie niszczy poprzedniej wersji.
+     *
+     * @param tickets lista zgłoszeń do zapisania
+     * @return true, jeśli zapis się powiódł
+     */
+    public boolean saveTickets(List<Ticket> tickets) {
+        long start = System.nanoTime();
+        boolean saved = writeTickets(tickets);
+        SAVE_TICKETS.record(start);
+        if (saved) {
+            TICKETS_SAVED.add(tickets.size());
+            BYTES_WRITTEN.add(ticketsFile.length());
+        } else {
+            SAVE_TICKETS.failed();
+        }
+        return saved;
+    }
+
+    private boolean writeTickets(List<Ticket> tickets) {
+        File tempFile = new File(ticketsFile.getPath() + ".tmp");
+        try (Writer out = openWriter(tempFile)) {
+            JsonWriter writer = new JsonWriter(out, "  ");
+            writer.beginArray();
+            for (Ticket ticket : tickets) {
+                writeTicket(writer, ticket);
             }
-            writer.println("]");
-            //            System.out.println("Zgłoszenia zostały zapisane do pliku: " + TICKETS_FILE);
+            writer.endArray().flush();
+            out.write(System.lineSeparator());
+            //            System.out.println("Zgłoszenia zostały zapisane do pliku: " + ticketsFile);
         } catch (IOException e) {
             System.err.println("Błąd podczas zapisywania zgłoszeń: " + e.getMessage());
+            return false;
         }
+        return replaceFile(tempFile, ticketsFile);
     }
 
     /**
      * Wczytuje zgłoszenia z pliku JSON.
      *
      * @return lista wczytanych zgłoszeń
+     * @throws IllegalStateException jeśli pliku nie da się w całości odczytać
      */
 
     public List<Ticket> loadTickets() {
+        long start = System.nanoTime();
+        List<Ticket> tickets = readTicketsFile();
+        LOAD_TICKETS.record(start);
+        TICKETS_LOADED.add(tickets.size());
+        return tickets;
+    }
+
+    private List<Ticket> readTicketsFile() {
         List<Ticket> tickets = new ArrayList<>();
-        File file = new File(TICKETS_FILE);
+        File file = ticketsFile;
 
         if (!file.exists()) {
-            System.out.println("Plik " + TICKETS_FILE + " nie istnieje.");
+            System.out.println("Plik " + ticketsFile + " nie istnieje.");
             return tickets;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            Map<String, String> currentTicket = new HashMap<>();
-            boolean inTicketObject = false;
-
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-
-                if (line.equals("{")) {
-                    inTicketObject = true;
-                    currentTicket.clear();
-                } else if (line.equals("}") || line.equals("},")) {
-                    if (inTicketObject && !currentTicket.isEmpty()) {
-                        Ticket ticket = createTicketFromMap(currentTicket);
-                        if (ticket != null) {
-                            tickets.add(ticket);
-                        }
-                    }
-                    inTicketObject = false;
-                } else if (inTicketObject && line.contains(":")) {
-                    parseJsonLine(line, currentTicket);
-                }
+        if (file.length() >= PARALLEL_LOAD_THRESHOLD) {
+            BYTES_READ.add(file.length());
+            try {
+                tickets = new ParallelTicketLoader(this).load(file);
+                System.out.println("Wczytano " + tickets.size() + " zgłoszeń z pliku: " + ticketsFile);
+            } catch (IOException e) {
+                LOAD_TICKETS.failed();
+                throw loadFailure(ticketsFile, e);
             }
+            return tickets;
+        }
 
-            System.out.println("Wczytano " + tickets.size() + " zgłoszeń z pliku: " + TICKETS_FILE);
+        BYTES_READ.add(file.length());
+        try (JsonReader reader = openReader(file)) {
+            readTickets(reader, tickets);
+            System.out.println("Wczytano " + tickets.size() + " zgłoszeń z pliku: " + ticketsFile);
         } catch (IOException e) {
-            System.err.println("Błąd podczas wczytywania zgłoszeń: " + e.getMessage());
+            LOAD_TICKETS.failed();
+            throw loadFailure(ticketsFile, e);
         }
 
         return tickets;
@@ -96,140 +133,185 @@ public class Json {
      * Zapisuje techników do pliku JSON.
      *
      * @param technicians lista techników do zapisania
+     * @return true, jeśli zapis się powiódł
      */
-    public void saveTechnicians(List<String> technicians) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TECHNICIANS_FILE))) {
-            writer.println("[");
-            for (int i = 0; i < technicians.size(); i++) {
-                writer.print("  \"" + escapejSON(technicians.get(i)) + "\"");
-                if (i < technicians.size() - 1) {
-                    writer.println(",");
-                } else {
-                    writer.println();
-                }
+    public boolean saveTechnicians(List<String> technicians) {
+        long start = System.nanoTime();
+        boolean saved = writeTechnicians(technicians);
+        SAVE_TECHNICIANS.record(start);
+        if (saved) {
+            BYTES_WRITTEN.add(techniciansFile.length());
+        } else {
+            SAVE_TECHNICIANS.failed();
+        }
+        return saved;
+    }
+
+    private boolean writeTechnicians(List<String> technicians) {
+        File tempFile = new File(techniciansFile.getPath() + ".tmp");
+        try (Writer out = openWriter(tempFile)) {
+            JsonWriter writer = new JsonWriter(out, "  ");
+            writer.beginArray();
+            for (String technician : technicians) {
+                writer.value(technician);
             }
-            writer.println("]");
+            writer.endArray().flush();
+            out.write(System.lineSeparator());
         } catch (IOException e) {
             System.err.println("Błąd podczas zapisywania techników: " + e.getMessage());
+            return false;
+        }
+        return replaceFile(tempFile, techniciansFile);
+    }
+
+    /**
+     * Podmienia plik docelowy zapisanym plikiem tymczasowym.
+     */
+    private boolean replaceFile(File tempFile, File targetFile) {
+        try {
+            Files.move(tempFile.toPath(), targetFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Błąd podczas podmiany pliku " + targetFile + ": " + e.getMessage());
+            return false;
         }
     }
     /**
      * Wczytuje techników z pliku JSON.
      *
      * @return lista wczytanych techników
+     * @throws IllegalStateException jeśli pliku nie da się w całości odczytać
      */
     public List<String> loadTechnicians() {
+        long start = System.nanoTime();
+        List<String> technicians = readTechniciansFile();
+        LOAD_TECHNICIANS.record(start);
+        return technicians;
+    }
+
+    private List<String> readTechniciansFile() {
         List<String> technicians = new ArrayList<>();
-        File file = new File(TECHNICIANS_FILE);
+        File file = techniciansFile;
 
         if (!file.exists()) {
-            System.out.println("Plik " + TECHNICIANS_FILE + " nie istnieje. Używamy domyślnej listy techników.");
+            System.out.println("Plik " + techniciansFile + " nie istnieje. Używamy domyślnej listy techników.");
             return Arrays.asList("Jan Kowalski", "Anna Nowak", "Piotr Wiśniewski");
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                // Szukaj linii zawierających nazwy techników w cudzysłowach
-                if (line.startsWith("\"") && (line.endsWith("\"") || line.endsWith("\","))) {
-                    String name = line.substring(1); // Usuń pierwszy cudzysłów
-                    if (name.endsWith(",")) {
-                        name = name.substring(0, name.length() - 1); // Usuń przecinek
-                    }
-                    if (name.endsWith("\"")) {
-                        name = name.substring(0, name.length() - 1); // Usuń ostatni cudzysłów
-                    }
-                    technicians.add(unescapejSON(name));
-                }
+        BYTES_READ.add(file.length());
+        try (JsonReader reader = openReader(file)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                technicians.add(reader.nextString());
             }
+            reader.endArray();
 
-            System.out.println("Wczytano " + technicians.size() + " techników z pliku: " + TECHNICIANS_FILE);
+            System.out.println("Wczytano " + technicians.size() + " techników z pliku: " + techniciansFile);
         } catch (IOException e) {
-            System.err.println("Błąd podczas wczytywania techników: " + e.getMessage());
-           // return Arrays.asList("Jan Kowalski", "Anna Nowak", "Piotr Wiśniewski");
+            LOAD_TECHNICIANS.failed();
+            throw loadFailure(techniciansFile, e);
         }
 
         return technicians;
     }
 
-
     /**
-     * escapowanie  JSON.
+     * Błąd odczytu pliku danych. Część wczytana do miejsca błędu nie jest zwracana - system uruchomiony
+     * z niepełną listą zapisałby ją przy najbliższym kompaktowaniu i utracił resztę danych.
      */
-    private String escapejSON(String str) {
-        if (str == null) return null;
-        return str.replace("\"", "\\\"")
-                .replace("\n", " ")  // Zamień nowe linie na spacje
-                .replace("\r", " ");
+    private static IllegalStateException loadFailure(File file, IOException cause) {
+        return new IllegalStateException("Nie można wczytać pliku " + file + ": " + cause.getMessage()
+                + " - uruchomienie przerwane, aby nie nadpisać danych", cause);
     }
 
+
     /**
-     * unescapowanie JSON.
+     * Otwiera plik do zapisu. Pliki zapisywane są z wcięciem, więc każde zgłoszenie zaczyna się
+     * w nowej linii, czego wymaga podział pliku w {@link ParallelTicketLoader}.
      */
-    private String unescapejSON(String str) {
-        if (str == null) return null;
-        return str.replace("\\\"", "\"");
+    private Writer openWriter(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
     }
 
     /**
-     * Parsuje pojedynczą linię JSON-a w formacie "klucz": "wartość".
+     * Otwiera plik do odczytu strumieniowego.
      */
-    private void parseJsonLine(String line, Map<String, String> data) {
-
-        if (line.endsWith(",")) {
-            line = line.substring(0, line.length() - 1);
-        }
-
-        int colonIndex = line.indexOf(":");
-        if (colonIndex == -1) return;
-
-        String key = line.substring(0, colonIndex).trim();
-        String value = line.substring(colonIndex + 1).trim();
-
-
-        if (key.startsWith("\"") && key.endsWith("\"")) {
-            key = key.substring(1, key.length() - 1);
-        }
-
-
-        if (value.equals("null")) {
-            data.put(key, null);
-        } else if (value.startsWith("\"") && value.endsWith("\"")) {
+    private JsonReader openReader(File file) throws IOException {
+        return new JsonReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+    }
 
-            value = value.substring(1, value.length() - 1);
-            data.put(key, unescapejSON(value));
-        } else {
-            data.put(key, value);
+    /**
+     * Odczytuje tablicę zgłoszeń. Zgłoszenia, których nie da się utworzyć, są pomijane.
+     */
+    void readTickets(JsonReader reader, List<Ticket> tickets) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Ticket ticket = readTicket(reader);
+            if (ticket != null) {
+                tickets.add(ticket);
+            }
         }
+        reader.endArray();
     }
 
     /**
-     * Tworzy obiekt Ticket z mapy danych.
+     * Zapisuje zgłoszenie jako obiekt JSON - w pliku zgłoszeń i w odpowiedziach API HTTP.
      */
-    private Ticket createTicketFromMap(Map<String, String> data) {
-        try {
-            String ticketId = data.get("ticketId");
-            String title = data.get("title");
-            String description = data.get("description");
-            String reporterName = data.get("reporterName");
-            String reporterEmail = data.get("reporterEmail");
-            String priorityStr = data.get("priority");
-
-
-            Ticket.Priority priority = convertPriority(priorityStr);
-
-            // Utwórz zgłoszenie
-            Ticket ticket = new Ticket(ticketId, title, description, reporterName, reporterEmail, priority);
+    void writeTicket(JsonWriter writer, Ticket ticket) throws IOException {
+        writer.beginObject();
+        writer.name("ticketId").value(ticket.getTicketId());
+        writer.name("title").value(ticket.getTitle());
+        writer.name("description").value(ticket.getDescription());
+        writer.name("reporterName").value(ticket.getReporterName());
+        writer.name("reporterEmail").value(ticket.getReporterEmail());
+        writer.name("priority").value(ticket.getPriority().toString());
+        writer.name("status").value(ticket.getStatus().toString());
+        writer.name("assignedTechnicianName").value(ticket.getAssignedTechnicianName());
+        writer.name("createdAt").value(ticket.getCreatedAt().format(DATE_FORMATTER));
+        writer.endObject();
+    }
 
-            // Przypisz technikaa
-            String assignedTechnician = data.get("assignedTechnicianName");
-            if (assignedTechnician != null && !assignedTechnician.isEmpty()) {
-                ticket.assignToTechnician(assignedTechnician);
+    /**
+     * Odczytuje pojedynczy obiekt zgłoszenia i od razu tworzy z niego Ticket.
+     */
+    Ticket readTicket(JsonReader reader) throws IOException {
+        String ticketId = null;
+        String title = null;
+        String description = null;
+        String reporterName = null;
+        String reporterEmail = null;
+        String priorityStr = null;
+        String statusStr = null;
+        String assignedTechnician = null;
+        String createdAtStr = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "ticketId" -> ticketId = reader.nextStringOrNull();
+                case "title" -> title = reader.nextStringOrNull();
+                case "description" -> description = reader.nextStringOrNull();
+                case "reporterName" -> reporterName = reader.nextStringOrNull();
+                case "reporterEmail" -> reporterEmail = reader.nextStringOrNull();
+                case "priority" -> priorityStr = reader.nextStringOrNull();
+                case "status" -> statusStr = reader.nextStringOrNull();
+                case "assignedTechnicianName" -> assignedTechnician = reader.nextStringOrNull();
+                case "createdAt" -> createdAtStr = reader.nextStringOrNull();
+                default -> reader.skipValue();
             }
+        }
+        reader.endObject();
 
-            return ticket;
-        } catch (Exception e) {
+        if (assignedTechnician != null && assignedTechnician.isEmpty()) {
+            assignedTechnician = null;
+        }
+        try {
+            return new Ticket(ticketId, title, description, reporterName, reporterEmail,
+                    convertPriority(priorityStr), convertStatus(statusStr), assignedTechnician,
+                    convertCreatedAt(createdAtStr));
+        } catch (IllegalArgumentException e) {
             System.err.println("Błąd podczas tworzenia zgłoszenia: " + e.getMessage());
             return null;
         }
@@ -239,6 +321,9 @@ public class Json {
      * Konwertuje string na Priority enum.
      */
     private Ticket.Priority convertPriority(String priorityStr) {
+        if (priorityStr == null) {
+            return Ticket.Priority.SREDNI;
+        }
         return switch (priorityStr) {
             case "Niski" -> Ticket.Priority.NISKI;
             case "Średni" -> Ticket.Priority.SREDNI;
@@ -248,4 +333,32 @@ public class Json {
 
         };
     }
+
+    /**
+     * Konwertuje string na Status enum.
+     */
+    private Ticket.Status convertStatus(String statusStr) {
+        if (statusStr == null) {
+            return Ticket.Status.NOWE;
+        }
+        return switch (statusStr) {
+            case "W trakcie" -> Ticket.Status.W_TRAKCIE;
+            case "Zamknięte" -> Ticket.Status.ZAMKNIETE;
+            default -> Ticket.Status.NOWE;
+        };
+    }
+
+    /**
+     * Konwertuje zapisaną datę utworzenia; przy braku lub błędnym formacie zwraca bieżący czas.
+     */
+    private LocalDateTime convertCreatedAt(String createdAtStr) {
+        if (createdAtStr == null) {
+            return LocalDateTime.now();
+        }
+        try {
+            return LocalDateTime.parse(createdAtStr, DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.now();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,257 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Strumieniowy tokenizer JSON czytający znak po znaku z {@link Reader}.
+ * Nie zależy od układu linii w pliku i nie tworzy pośrednich map - wywołujący
+ * odczytuje kolejne tokeny i od razu buduje z nich obiekty.
+ * <p>
+ * Przecinki i dwukropki traktowane są jak separatory, dzięki czemu akceptowane są
+ * również pliki z przecinkiem po ostatnim polu (zapisywane przez starsze wersje programu).
+ */
+public class JsonReader implements Closeable {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, LITERAL, END_DOCUMENT
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final char[] buffer;
+    private final StringBuilder value;
+    private int pos;
+    private int limit;
+    private Token peeked;
+    private long consumed;
+
+    public JsonReader(Reader in) {
+        if (in == null) {
+            throw new IllegalArgumentException("Źródło danych nie może być null");
+        }
+        this.in = in;
+        this.buffer = new char[BUFFER_SIZE];
+        this.value = new StringBuilder();
+    }
+
+    /**
+     * Zwraca rodzaj następnego tokenu bez jego konsumowania.
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int c = nextSignificantChar();
+        peeked = switch (c) {
+            case -1 -> Token.END_DOCUMENT;
+            case '{' -> Token.BEGIN_OBJECT;
+            case '}' -> Token.END_OBJECT;
+            case '[' -> Token.BEGIN_ARRAY;
+            case ']' -> Token.END_ARRAY;
+            case '"' -> Token.STRING;
+            default -> {
+                pos--; // pierwszy znak literału zostaje w buforze
+                yield Token.LITERAL;
+            }
+        };
+        return peeked;
+    }
+
+    /**
+     * Czy w bieżącej tablicy lub obiekcie jest kolejny element.
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+    }
+
+    /**
+     * Odczytuje nazwę pola obiektu.
+     */
+    public String nextName() throws IOException {
+        return nextString();
+    }
+
+    /**
+     * Odczytuje wartość tekstową, rozwijając sekwencje ucieczki.
+     */
+    public String nextString() throws IOException {
+        expect(Token.STRING);
+        return readString();
+    }
+
+    /**
+     * Odczytuje wartość tekstową lub null.
+     */
+    public String nextStringOrNull() throws IOException {
+        if (peek() == Token.LITERAL) {
+            String literal = nextLiteral();
+            if (literal.equals("null")) {
+                return null;
+            }
+            return literal;
+        }
+        return nextString();
+    }
+
+    /**
+     * Odczytuje literał (liczbę, true, false lub null) jako tekst.
+     */
+    public String nextLiteral() throws IOException {
+        expect(Token.LITERAL);
+        value.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            char c = buffer[pos];
+            if (c == ',' || c == ':' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                break;
+            }
+            value.append(c);
+            pos++;
+        }
+        return value.toString();
+    }
+
+    /**
+     * Pomija następną wartość razem z zagnieżdżonymi obiektami i tablicami.
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT, BEGIN_ARRAY -> {
+                    peeked = null;
+                    depth++;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    peeked = null;
+                    depth--;
+                }
+                case STRING -> nextString();
+                case LITERAL -> nextLiteral();
+                case END_DOCUMENT -> throw syntaxError("nieoczekiwany koniec danych");
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Liczba znaków odczytanych dotąd ze źródła.
+     */
+    public long getCharsConsumed() {
+        return consumed - (limit - pos);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("oczekiwano " + expected + ", a znaleziono " + token);
+        }
+        peeked = null;
+    }
+
+    private String readString() throws IOException {
+        value.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw syntaxError("niezakończony tekst");
+            }
+            // Kopiuj fragmenty bez znaków specjalnych w całości
+            int start = pos;
+            while (pos < limit && buffer[pos] != '"' && buffer[pos] != '\\') {
+                pos++;
+            }
+            value.append(buffer, start, pos - start);
+            if (pos == limit) {
+                continue;
+            }
+            char c = buffer[pos++];
+            if (c == '"') {
+                return value.toString();
+            }
+            readEscape();
+        }
+    }
+
+    private void readEscape() throws IOException {
+        char c = nextChar();
+        switch (c) {
+            case '"', '\\', '/' -> value.append(c);
+            case 'b' -> value.append('\b');
+            case 'f' -> value.append('\f');
+            case 'n' -> value.append('\n');
+            case 'r' -> value.append('\r');
+            case 't' -> value.append('\t');
+            case 'u' -> {
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(nextChar(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("nieprawidłowa sekwencja \\u");
+                    }
+                    code = (code << 4) | digit;
+                }
+                value.append((char) code);
+            }
+            // Starsze wersje zapisywały ukośnik bez ucieczki - zachowaj go dosłownie
+            default -> value.append('\\').append(c);
+        }
+    }
+
+    private char nextChar() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("nieoczekiwany koniec danych");
+        }
+        return buffer[pos++];
+    }
+
+    private int nextSignificantChar() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[pos++];
+            if (c != ',' && c != ':' && !Character.isWhitespace(c) && c != '\uFEFF') {
+                return c;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        consumed += read;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Błąd składni JSON (znak " + getCharsConsumed() + "): " + message);
+    }
+}
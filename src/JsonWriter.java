@@ -0,0 +1,262 @@
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Strumieniowy zapis JSON - odpowiednik {@link JsonReader}. Znaki specjalne są zamieniane podczas
+ * zapisu, bez składania pośrednich napisów, a tekst gromadzony jest we własnym buforze i przekazywany
+ * do {@link Writer} dużymi porcjami (wywołania {@code Writer} są synchronizowane, więc zapis
+ * pojedynczych znaków byłby kilkukrotnie wolniejszy).
+ * <p>
+ * Z wcięciem (np. dwie spacje) każdy element tablicy i pole obiektu zaczyna się w nowej linii,
+ * tak jak w plikach zapisywanych przez {@link Json}; bez wcięcia wynik jest zwarty, np. dla API HTTP.
+ */
+public class JsonWriter implements Closeable, Flushable {
+
+    /** Stan bieżącego poziomu zagnieżdżenia. */
+    private enum Scope {
+        EMPTY_DOCUMENT, NONEMPTY_DOCUMENT, EMPTY_ARRAY, NONEMPTY_ARRAY, EMPTY_OBJECT, NONEMPTY_OBJECT, DANGLING_NAME
+    }
+
+    private static final String[] REPLACEMENTS = new String[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            REPLACEMENTS[c] = String.format("\\u%04x", c);
+        }
+        REPLACEMENTS['"'] = "\\\"";
+        REPLACEMENTS['\\'] = "\\\\";
+        REPLACEMENTS['\n'] = "\\n";
+        REPLACEMENTS['\r'] = "\\r";
+        REPLACEMENTS['\t'] = "\\t";
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Writer out;
+    private final String indent;
+    private final char[] buffer;
+    private int position;
+    private Scope[] stack;
+    private int depth;
+
+    public JsonWriter(Writer out) {
+        this(out, "");
+    }
+
+    /**
+     * @param indent wcięcie jednego poziomu; pusty napis oznacza zapis zwarty
+     */
+    public JsonWriter(Writer out, String indent) {
+        if (out == null || indent == null) {
+            throw new IllegalArgumentException("Cel zapisu i wcięcie nie mogą być null");
+        }
+        this.out = out;
+        this.indent = indent;
+        this.buffer = new char[BUFFER_SIZE];
+        this.stack = new Scope[16];
+        this.stack[0] = Scope.EMPTY_DOCUMENT;
+        this.depth = 1;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        push(Scope.EMPTY_ARRAY);
+        write('[');
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(Scope.EMPTY_ARRAY, Scope.NONEMPTY_ARRAY, ']');
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        push(Scope.EMPTY_OBJECT);
+        write('{');
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close(Scope.EMPTY_OBJECT, Scope.NONEMPTY_OBJECT, '}');
+    }
+
+    /**
+     * Zapisuje nazwę pola; następne wywołanie musi zapisać jego wartość.
+     */
+    public JsonWriter name(String name) throws IOException {
+        if (name == null) {
+            throw new IllegalArgumentException("Nazwa pola nie może być null");
+        }
+        Scope scope = stack[depth - 1];
+        if (scope == Scope.NONEMPTY_OBJECT) {
+            write(',');
+        } else if (scope != Scope.EMPTY_OBJECT) {
+            throw new IllegalStateException("Nazwa pola poza obiektem JSON");
+        }
+        newLine();
+        stack[depth - 1] = Scope.DANGLING_NAME;
+        writeString(name);
+        write(indent.isEmpty() ? ":" : ": ");
+        return this;
+    }
+
+    /**
+     * Zapisuje tekst albo null, jeśli wartość jest null.
+     */
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("JSON nie obsługuje wartości " + value);
+        }
+        beforeValue();
+        write(Double.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        write(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        write("null");
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        out.close();
+    }
+
+    private void push(Scope scope) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = scope;
+    }
+
+    private JsonWriter close(Scope empty, Scope nonEmpty, char bracket) throws IOException {
+        Scope scope = stack[depth - 1];
+        if (scope != empty && scope != nonEmpty) {
+            throw new IllegalStateException("Niedomknięta struktura JSON");
+        }
+        depth--;
+        if (scope == nonEmpty) {
+            newLine();
+        }
+        write(bracket);
+        return this;
+    }
+
+    /**
+     * Separator przed wartością zależny od miejsca: element tablicy, wartość pola lub cały dokument.
+     */
+    private void beforeValue() throws IOException {
+        switch (stack[depth - 1]) {
+            case EMPTY_DOCUMENT -> stack[depth - 1] = Scope.NONEMPTY_DOCUMENT;
+            case EMPTY_ARRAY -> {
+                stack[depth - 1] = Scope.NONEMPTY_ARRAY;
+                newLine();
+            }
+            case NONEMPTY_ARRAY -> {
+                write(',');
+                newLine();
+            }
+            case DANGLING_NAME -> stack[depth - 1] = Scope.NONEMPTY_OBJECT;
+            case NONEMPTY_DOCUMENT -> throw new IllegalStateException("Dokument JSON może mieć tylko jedną wartość");
+            default -> throw new IllegalStateException("Brak nazwy pola przed wartością");
+        }
+    }
+
+    private void newLine() throws IOException {
+        if (indent.isEmpty()) {
+            return;
+        }
+        write('\n');
+        for (int i = 1; i < depth; i++) {
+            write(indent);
+        }
+    }
+
+    /**
+     * Zapisuje tekst w cudzysłowie; fragmenty bez znaków specjalnych są kopiowane w całości.
+     */
+    private void writeString(String value) throws IOException {
+        write('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement = c < 128 ? REPLACEMENTS[c] : null;
+            if (replacement == null) {
+                continue;
+            }
+            if (last < i) {
+                write(value, last, i - last);
+            }
+            write(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            write(value, last, length - last);
+        }
+        write('"');
+    }
+
+    private void write(char c) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = c;
+    }
+
+    private void write(String text) throws IOException {
+        write(text, 0, text.length());
+    }
+
+    private void write(String text, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            int count = Math.min(length, buffer.length - position);
+            text.getChars(offset, offset + count, buffer, position);
+            position += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram czasów wykonania w nanosekundach o stałej precyzji względnej (jak HdrHistogram).
+ * <p>
+ * Wartości poniżej 64 mają własne kubełki, a każdy wyższy przedział [2^k, 2^(k+1)) dzielony
+ * jest na 32 równe kubełki, więc błąd względny odczytanego percentyla nie przekracza ~3%.
+ * Zakres sięga 2^40 ns (ok. 18 minut); dłuższe czasy trafiają do ostatniego kubełka.
+ * Zapis to jedna operacja atomowa na tablicy kubełków, bez blokad i bez alokacji.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    /**
+     * Stan histogramu w jednej chwili. Percentyle i wartości w nanosekundach.
+     */
+    public record Snapshot(long count, long sumNanos, long maxNanos, long[] buckets) {
+        public double mean() {
+            return count == 0 ? 0 : (double) sumNanos / count;
+        }
+
+        /**
+         * Wartość, poniżej której leży podany odsetek pomiarów (np. 0.99), z dokładnością do kubełka.
+         */
+        public long percentile(double fraction) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    private final AtomicLongArray buckets;
+    private final LongAdder sum;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKET_COUNT);
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucketOf(nanos));
+        sum.add(nanos);
+        // Zapis maksimum tylko wtedy, gdy rzeczywiście rośnie - zwykle wystarcza sam odczyt
+        long currentMax = max.get();
+        while (nanos > currentMax && !max.compareAndSet(currentMax, nanos)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Odczyt stanu. Pomiary zapisywane w trakcie odczytu mogą, ale nie muszą, zostać uwzględnione.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = buckets.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(count, sum.sum(), max.get(), copy);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        // Pozycja w przedziale [2^exponent, 2^(exponent+1)) podzielonym na SUB_BUCKETS części
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -1,11 +1,97 @@
-public static void main(String[] args) {
-    // Tworzenie systemu zgłoszeń
-    TicketSystem ticketSystem = new TicketSystem();
+public static void main(String[] args) throws java.io.IOException {
+    java.util.List<String> options = new java.util.ArrayList<>(java.util.List.of(args));
+    // Z opcją --shards N zgłoszenia rozkładane są na N partycji w katalogu shards
+    int shardCount = takeOption(options, "--shards", 0);
+    // Z opcją --replicate PORT instancja udostępnia swoje zmiany replikom
+    int replicationPort = takeOption(options, "--replicate", 0);
+    // Z opcją --follow PORT instancja jest repliką tylko do odczytu instancji z --replicate PORT
+    int leaderPort = takeOption(options, "--follow", 0);
+
+    // Tworzenie systemu zgłoszeń - dostępny od razu, stan wczytywany w tle
+    TicketStore ticketSystem;
+    ReplicationFollower follower = null;
+    if (leaderPort > 0) {
+        TicketSystem replica = TicketSystem.openReplica(new java.io.File("replica"));
+        follower = ReplicationFollower.start(replica, "localhost", leaderPort);
+        ticketSystem = replica;
+    } else if (shardCount > 0) {
+        ticketSystem = ShardedTicketSystem.openLazily(new java.io.File("shards"), shardCount);
+    } else {
+        ticketSystem = TicketSystem.openLazily();
+    }
+
+    ReplicationLeader leader = null;
+    if (replicationPort > 0) {
+        if (!(ticketSystem instanceof TicketSystem source)) {
+            throw new IllegalArgumentException("Replikacja wymaga systemu bez podziału na partycje");
+        }
+        leader = new ReplicationLeader(source, replicationPort);
+        leader.start();
+        System.out.println("Źródło replikacji nasłuchuje na porcie " + leader.getPort());
+    }
+
+    // Udostępnienie metryk przez JMX (np. w JConsole)
+    Metrics.registerMBean();
 
     // Tworzenie usługi systemu zgłoszeń
     TicketService ticketService = new TicketService(ticketSystem);
 
+    // Z opcją --http [port] [adres] system działa jako serwer API, bez interfejsu konsolowego;
+    // bez adresu serwer nasłuchuje tylko lokalnie (np. 0.0.0.0 - na wszystkich interfejsach)
+    if (!options.isEmpty() && options.get(0).equals("--http")) {
+        int port = options.size() > 1 ? Integer.parseInt(options.get(1)) : TicketHttpServer.DEFAULT_PORT;
+        java.net.InetAddress address = options.size() > 2
+                ? java.net.InetAddress.getByName(options.get(2)) : java.net.InetAddress.getLoopbackAddress();
+        // Bez TCP_NODELAY odpowiedź na utrzymanym połączeniu czeka ok. 40 ms (zob. TicketHttpServer);
+        // serwer JDK odczytuje tę właściwość raz, przy tworzeniu pierwszego serwera
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        TicketHttpServer server = new TicketHttpServer(ticketService, address, port);
+        ReplicationLeader startedLeader = leader;
+        ReplicationFollower startedFollower = follower;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            ticketService.close();
+            closeReplication(startedLeader, startedFollower);
+            ticketSystem.close();
+        }));
+        server.start();
+        System.out.println("Serwer API zgłoszeń nasłuchuje na porcie " + server.getPort());
+        return;
+    }
+
     // Tworzenie i uruchomienie interfejsu użytkownika
     TicketSystemUI ticketSystemUI = new TicketSystemUI(ticketService);
     ticketSystemUI.start();
+
+    // Zamknięcie usługi, replikacji i dziennika zmian
+    ticketService.close();
+    closeReplication(leader, follower);
+    ticketSystem.close();
+}
+
+/**
+ * Usuwa z listy opcję z wartością liczbową i zwraca tę wartość.
+ */
+static int takeOption(java.util.List<String> options, String name, int defaultValue) {
+    int position = options.indexOf(name);
+    if (position < 0) {
+        return defaultValue;
+    }
+    if (position + 1 >= options.size()) {
+        throw new IllegalArgumentException("Opcja " + name + " wymaga wartości");
+    }
+    int value = Integer.parseInt(options.get(position + 1));
+    options.subList(position, position + 2).clear();
+    return value;
+}
+
+static void closeReplication(ReplicationLeader leader, ReplicationFollower follower) {
+    if (leader != null) {
+        leader.close();
+    }
+    if (follower != null) {
+        follower.close();
+    }
 }
@@ -0,0 +1,82 @@
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+import java.util.Map;
+
+/**
+ * Widok JMX rejestru {@link Metrics}. Każda metryka jest osobnym atrybutem tylko do odczytu,
+ * a lista atrybutów budowana jest przy każdym odczycie, więc widać też metryki zarejestrowane
+ * po uruchomieniu. Operacje: {@code reset} i {@code report}.
+ */
+public class MetricsMBean implements DynamicMBean {
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Number value = Metrics.values().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("Nieznana metryka: " + attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Number> values = Metrics.values();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Number value = values.get(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metryki są tylko do odczytu: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        return switch (actionName) {
+            case "reset" -> {
+                Metrics.reset();
+                yield null;
+            }
+            case "report" -> Metrics.report();
+            default -> throw new ReflectionException(new NoSuchMethodException(actionName),
+                    "Nieznana operacja: " + actionName);
+        };
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        Map<String, Number> values = Metrics.values();
+        MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+        int i = 0;
+        for (Map.Entry<String, Number> entry : values.entrySet()) {
+            attributes[i++] = new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                    entry.getKey(), true, false, false);
+        }
+        MBeanOperationInfo[] operations = {
+                new MBeanOperationInfo("reset", "Zeruje histogramy i liczniki",
+                        new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION),
+                new MBeanOperationInfo("report", "Raport tekstowy wszystkich metryk",
+                        new MBeanParameterInfo[0], String.class.getName(), MBeanOperationInfo.INFO)
+        };
+        return new MBeanInfo(getClass().getName(), "Metryki systemu obsługi zgłoszeń IT",
+                attributes, null, operations, null);
+    }
+}
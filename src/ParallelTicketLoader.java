@@ -0,0 +1,147 @@
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Równoległy odczyt dużych plików zgłoszeń.
+ * Plik jest mapowany do pamięci, dzielony na fragmenty zaczynające się na granicy
+ * obiektu JSON, a fragmenty są parsowane równolegle w puli fork-join.
+ */
+public class ParallelTicketLoader {
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int BOUNDARY_WINDOW = 64 * 1024;
+
+    private final Json json;
+    private final ForkJoinPool pool;
+
+    public ParallelTicketLoader(Json json) {
+        this(json, ForkJoinPool.commonPool());
+    }
+
+    public ParallelTicketLoader(Json json, ForkJoinPool pool) {
+        if (json == null || pool == null) {
+            throw new IllegalArgumentException("Parser i pula wątków nie mogą być null");
+        }
+        this.json = json;
+        this.pool = pool;
+    }
+
+    /**
+     * Wczytuje zgłoszenia z pliku, zachowując ich kolejność w pliku.
+     */
+    public List<Ticket> load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<long[]> chunks = splitIntoChunks(channel);
+            try {
+                List<List<Ticket>> parsed = pool.submit(() -> chunks.parallelStream()
+                        .map(chunk -> parseChunk(channel, chunk[0], chunk[1]))
+                        .toList()).join();
+
+                int total = parsed.stream().mapToInt(List::size).sum();
+                List<Ticket> tickets = new ArrayList<>(total);
+                parsed.forEach(tickets::addAll);
+                return tickets;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Wyznacza fragmenty [początek, koniec) pliku; każdy poza pierwszym zaczyna się od '{'.
+     */
+    private List<long[]> splitIntoChunks(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int parallelism = pool.getParallelism();
+        long chunkCount = Math.max(1, Math.min(size / MIN_CHUNK_SIZE, parallelism * 4L));
+        long chunkSize = size / chunkCount;
+
+        List<long[]> chunks = new ArrayList<>();
+        long start = 0;
+        for (int i = 1; i < chunkCount; i++) {
+            long boundary = findObjectStart(channel, Math.max(start + 1, i * chunkSize));
+            if (boundary < 0) {
+                break;
+            }
+            if (boundary > start) {
+                chunks.add(new long[]{start, boundary});
+                start = boundary;
+            }
+        }
+        chunks.add(new long[]{start, size});
+        return chunks;
+    }
+
+    /**
+     * Szuka początku obiektu za podaną pozycją. W poprawnym JSON-ie znak nowej linii
+     * nie występuje wewnątrz tekstu, więc od pierwszej nowej linii wiadomo, że jesteśmy poza nim.
+     *
+     * @return pozycja znaku '{' lub -1, jeśli do końca pliku nie ma kolejnego obiektu
+     */
+    private long findObjectStart(FileChannel channel, long from) throws IOException {
+        long size = channel.size();
+        boolean afterNewLine = false;
+        boolean inString = false;
+        boolean escaped = false;
+        for (long windowStart = from; windowStart < size; windowStart += BOUNDARY_WINDOW) {
+            long length = Math.min(BOUNDARY_WINDOW, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+            for (int i = 0; i < length; i++) {
+                byte b = window.get(i);
+                if (!afterNewLine) {
+                    afterNewLine = b == '\n';
+                } else if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{') {
+                    return windowStart + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private List<Ticket> parseChunk(FileChannel channel, long start, long end) {
+        try {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+            JsonReader reader = new JsonReader(new CharArrayReader(chars.array(), chars.arrayOffset(), chars.limit()));
+
+            List<Ticket> tickets = new ArrayList<>();
+            while (true) {
+                switch (reader.peek()) {
+                    case BEGIN_OBJECT -> {
+                        Ticket ticket = json.readTicket(reader);
+                        if (ticket != null) {
+                            tickets.add(ticket);
+                        }
+                    }
+                    case BEGIN_ARRAY -> reader.beginArray();
+                    case END_ARRAY -> reader.endArray();
+                    case END_DOCUMENT -> {
+                        return tickets;
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
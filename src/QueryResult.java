@@ -0,0 +1,11 @@
+import java.util.List;
+
+/**
+ * Wynik zapytania wraz z opisem sposobu jego wykonania.
+ *
+ * @param tickets  zgłoszenia w żądanym porządku
+ * @param plan     opis planu: wybrana ścieżka dostępu i dalsze kroki
+ * @param examined liczba zgłoszeń sprawdzonych podczas wykonania
+ */
+public record QueryResult(List<Ticket> tickets, String plan, int examined) {
+}
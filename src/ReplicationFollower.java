@@ -0,0 +1,228 @@
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replika: utrzymuje {@link TicketSystem} tylko do odczytu ({@link TicketSystem#openReplica(File)})
+ * jako kopię instancji głównej, pobierając jej zmiany od {@link ReplicationLeader} przez TCP.
+ * <p>
+ * Nowa replika pobiera pełny stan, a potem stosuje kolejne zmiany. Po zerwaniu połączenia łączy się
+ * ponownie i wznawia od offsetu pierwszej niezastosowanej zmiany; pełny stan pobiera jeszcze raz tylko
+ * wtedy, gdy źródło tego offsetu już nie przechowuje albo jego strumień zmian jest w innej epoce
+ * niż ten, z którego pochodzi stan repliki. Stan repliki jest tylko w pamięci - po ponownym
+ * uruchomieniu procesu replika zaczyna od pełnego stanu. Zarchiwizowane zgłoszenia znikają z repliki.
+ * <p>
+ * Opóźnienie repliki ({@link #getStatus()}) to liczba zmian źródła jeszcze w niej niezastosowanych
+ * i czas, od którego nie jest na bieżąco; podaje je też rejestr {@link Metrics}.
+ */
+public class ReplicationFollower implements AutoCloseable {
+    private static final long RECONNECT_MIN_MILLIS = 100;
+    private static final long RECONNECT_MAX_MILLIS = 5000;
+    /** Brak jakiegokolwiek komunikatu przez ten czas oznacza zerwane połączenie. */
+    private static final int READ_TIMEOUT_MILLIS = (int) (3 * ReplicationLeader.POSITION_INTERVAL_MILLIS);
+
+    private static final LongAdder CHANGES_APPLIED = Metrics.counter("replication.changesApplied");
+    private static final LongAdder SNAPSHOTS_LOADED = Metrics.counter("replication.snapshotsLoaded");
+    private static final LongAdder RECONNECTS = Metrics.counter("replication.reconnects");
+
+    /**
+     * Stan replikacji.
+     *
+     * @param appliedOffset offset następnej zmiany do zastosowania; -1 przed pobraniem pełnego stanu
+     * @param leaderOffset  ostatni znany offset następnej zmiany źródła
+     * @param lagChanges    liczba znanych zmian źródła niezastosowanych w replice
+     * @param lagMillis     czas, od którego replika nie jest na bieżąco; 0, jeśli jest
+     */
+    public record Status(boolean connected, long appliedOffset, long leaderOffset, long lagChanges, long lagMillis) {
+    }
+
+    private final TicketSystem replica;
+    private final String host;
+    private final int port;
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile Socket socket;
+    private volatile boolean connected;
+    /** Epoka strumienia zmian źródła, do której należy {@link #nextOffset}; -1 przed pobraniem pełnego stanu. */
+    private volatile long epoch = -1;
+    private volatile long nextOffset = -1;
+    private volatile long leaderOffset = -1;
+    private volatile long caughtUpAtMillis;
+
+    /**
+     * Tworzy replikę i uruchamia wątek replikacji.
+     *
+     * @param replica system utworzony przez {@link TicketSystem#openReplica(File)}
+     */
+    public static ReplicationFollower start(TicketSystem replica, String host, int port) {
+        ReplicationFollower follower = new ReplicationFollower(replica, host, port);
+        follower.thread.start();
+        return follower;
+    }
+
+    private ReplicationFollower(TicketSystem replica, String host, int port) {
+        if (replica == null || !replica.isReplica()) {
+            throw new IllegalArgumentException("Replikacja wymaga systemu utworzonego jako replika");
+        }
+        if (host == null || port <= 0 || port > 65535) {
+            throw new IllegalArgumentException("Nieprawidłowy adres źródła replikacji: " + host + ":" + port);
+        }
+        this.replica = replica;
+        this.host = host;
+        this.port = port;
+        this.caughtUpAtMillis = System.currentTimeMillis();
+        this.thread = new Thread(this::run, "replikacja");
+        thread.setDaemon(true);
+
+        Metrics.gauge("replication.connected", () -> connected ? 1 : 0);
+        Metrics.gauge("replication.appliedOffset", () -> nextOffset);
+        Metrics.gauge("replication.lag", () -> getStatus().lagChanges());
+        Metrics.gauge("replication.lagMillis", () -> getStatus().lagMillis());
+    }
+
+    public Status getStatus() {
+        long applied = nextOffset;
+        long leader = leaderOffset;
+        boolean upToDate = connected && applied >= 0 && applied >= leader;
+        long lagChanges = applied < 0 ? Math.max(0, leader) : Math.max(0, leader - applied);
+        long lagMillis = upToDate ? 0 : System.currentTimeMillis() - caughtUpAtMillis;
+        return new Status(connected, applied, leader, lagChanges, lagMillis);
+    }
+
+    /**
+     * Zatrzymuje replikację; stan repliki pozostaje dostępny do odczytu.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Połączenie i tak jest porzucane
+            }
+        }
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long backoff = RECONNECT_MIN_MILLIS;
+        boolean reported = false;
+        while (!closed) {
+            try (Socket current = new Socket()) {
+                socket = current;
+                current.connect(new InetSocketAddress(host, port), READ_TIMEOUT_MILLIS);
+                current.setTcpNoDelay(true);
+                current.setSoTimeout(READ_TIMEOUT_MILLIS);
+                BufferedReader in = new BufferedReader(new InputStreamReader(current.getInputStream(),
+                        StandardCharsets.UTF_8), 1 << 16);
+                Writer out = new OutputStreamWriter(current.getOutputStream(), StandardCharsets.UTF_8);
+                out.write(Journal.encode(ReplicationLeader.FOLLOW, Long.toString(epoch), Long.toString(nextOffset))
+                        + '\n');
+                out.flush();
+                connected = true;
+                reported = false;
+                backoff = RECONNECT_MIN_MILLIS;
+                System.out.println("Połączono ze źródłem replikacji " + host + ":" + port
+                        + (nextOffset >= 0 ? ", wznowienie od offsetu " + nextOffset : ""));
+                receive(in);
+            } catch (IOException | RuntimeException e) {
+                if (!closed && !reported) {
+                    System.err.println("Brak połączenia ze źródłem replikacji " + host + ":" + port + ": "
+                            + e.getMessage());
+                    reported = true;
+                }
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            if (closed) {
+                return;
+            }
+            RECONNECTS.increment();
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(RECONNECT_MAX_MILLIS, backoff * 2);
+        }
+    }
+
+    private void receive(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] fields = Journal.decode(line);
+            switch (fields[0]) {
+                case ReplicationLeader.SNAPSHOT -> loadSnapshot(in, Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+                case ReplicationLeader.POSITION -> {
+                    if (Long.parseLong(fields[1]) != epoch) {
+                        // Po ponownym połączeniu źródło wyśle pełny stan nowej epoki
+                        throw new IOException("Źródło replikacji zmieniło epokę strumienia zmian");
+                    }
+                    updateLeaderOffset(Long.parseLong(fields[2]));
+                }
+                case ReplicationLeader.CHANGE -> apply(Long.parseLong(fields[1]),
+                        Arrays.copyOfRange(fields, 2, fields.length));
+                default -> throw new IOException("Nieznany komunikat źródła replikacji: " + fields[0]);
+            }
+        }
+        throw new EOFException("Źródło replikacji zamknęło połączenie");
+    }
+
+    private void loadSnapshot(BufferedReader in, long snapshotEpoch, long offset) throws IOException {
+        List<Ticket> tickets = new ArrayList<>();
+        List<String> technicians = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(ReplicationLeader.SNAPSHOT_END)) {
+            String[] record = Journal.decode(line);
+            switch (record[0]) {
+                case Journal.TICKET_ADDED -> tickets.add(Journal.ticketFromRecord(record));
+                case Journal.TECHNICIAN_ADDED -> technicians.add(record[1]);
+                default -> throw new IOException("Nieoczekiwany rekord pełnego stanu: " + record[0]);
+            }
+        }
+        if (line == null) {
+            throw new EOFException("Połączenie zerwane w trakcie przesyłania pełnego stanu");
+        }
+        replica.replaceReplicaState(tickets, technicians);
+        epoch = snapshotEpoch;
+        nextOffset = offset;
+        // Źródło mogło po awarii wznowić numerację od niższego offsetu
+        leaderOffset = offset;
+        SNAPSHOTS_LOADED.increment();
+        updateLeaderOffset(offset);
+        System.out.println("Pobrano pełny stan ze źródła replikacji: " + tickets.size() + " zgłoszeń");
+    }
+
+    private void apply(long offset, String[] record) throws IOException {
+        if (offset != nextOffset) {
+            // Po zerwaniu połączenia replika wznowi od właściwego offsetu
+            throw new IOException("Luka w strumieniu zmian: oczekiwano offsetu " + nextOffset + ", otrzymano " + offset);
+        }
+        replica.applyReplicatedChange(record);
+        nextOffset = offset + 1;
+        CHANGES_APPLIED.increment();
+        updateLeaderOffset(offset + 1);
+    }
+
+    private void updateLeaderOffset(long offset) {
+        if (offset > leaderOffset) {
+            leaderOffset = offset;
+        }
+        if (nextOffset >= leaderOffset) {
+            caughtUpAtMillis = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Źródło replikacji: udostępnia strumień zmian {@link TicketSystem} replikom ({@link ReplicationFollower})
+ * przez gniazdo TCP na adresie lokalnym.
+ * <p>
+ * Protokół jest tekstowy, wiersz na komunikat, pola kodowane jak w rekordach {@link Journal}:
+ * <pre>
+ *   replika -> źródło   FOLLOW epoka offset      epoka strumienia i offset następnej zmiany do pobrania;
+ *                                                -1 -1 dla nowej repliki
+ *   źródło -> replika   SNAPSHOT epoka offset    pełny stan: po nim rekordy ADD i TECH_ADD, na końcu SNAPSHOT_END
+ *                       POSITION epoka offset    offset następnej zmiany źródła - przed każdą paczką zmian
+ *                                                i co {@value #POSITION_INTERVAL_MILLIS} ms, gdy zmian nie ma
+ *                       CHANGE offset pola...    zmiana ze strumienia zmian, pola jak w rekordzie dziennika
+ * </pre>
+ * Replika, której offset nie jest już przechowywany w strumieniu zmian albo pochodzi z innej epoki
+ * strumienia (źródło po awarii zaczęło nową - offsety nie wskazują już tych samych zmian), dostaje
+ * najpierw pełny stan.
+ * Każda replika obsługiwana jest w osobnym wątku wirtualnym i czyta strumień zmian samodzielnie,
+ * więc wolna replika zostaje w tyle, nie spowalniając zapisu ani innych replik.
+ */
+public class ReplicationLeader implements AutoCloseable {
+    public static final int DEFAULT_PORT = 9090;
+    static final String FOLLOW = "FOLLOW";
+    static final String SNAPSHOT = "SNAPSHOT";
+    static final String SNAPSHOT_END = "SNAPSHOT_END";
+    static final String POSITION = "POSITION";
+    static final String CHANGE = "CHANGE";
+    static final long POSITION_INTERVAL_MILLIS = 1000;
+    private static final int BATCH = 1024;
+
+    private static final LongAdder CHANGES_SENT = Metrics.counter("replication.changesSent");
+    private static final LongAdder SNAPSHOTS_SENT = Metrics.counter("replication.snapshotsSent");
+
+    private final TicketSystem ticketSystem;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * @param port port nasłuchu; 0 oznacza dowolny wolny port
+     */
+    public ReplicationLeader(TicketSystem ticketSystem, int port) throws IOException {
+        if (ticketSystem == null) {
+            throw new IllegalArgumentException("System zgłoszeń nie może być null");
+        }
+        if (ticketSystem.isReplica()) {
+            throw new IllegalArgumentException("Replika nie może być źródłem replikacji");
+        }
+        this.ticketSystem = ticketSystem;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        Metrics.gauge("replication.followers", followers::size);
+    }
+
+    public void start() {
+        executor.execute(this::acceptFollowers);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    /**
+     * Przestaje przyjmować repliki i zrywa połączenia z podłączonymi.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Błąd podczas zamykania gniazda replikacji: " + e.getMessage());
+        }
+        for (Socket follower : followers) {
+            closeQuietly(follower);
+        }
+        executor.close();
+    }
+
+    private void acceptFollowers() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                followers.add(socket);
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Błąd podczas przyjmowania repliki: " + e.getMessage());
+                }
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8),
+                     1 << 16)) {
+            String hello = in.readLine();
+            String[] fields = hello == null ? null : Journal.decode(hello);
+            if (fields == null || fields.length != 3 || !FOLLOW.equals(fields[0])) {
+                System.err.println("Nieprawidłowe powitanie repliki " + socket.getRemoteSocketAddress() + ": " + hello);
+                return;
+            }
+            stream(Long.parseLong(fields[1]), Long.parseLong(fields[2]), out);
+        } catch (SocketException e) {
+            // Replika rozłączyła się albo źródło jest zamykane
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            if (!closed) {
+                System.err.println("Błąd replikacji do " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+            }
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    /**
+     * Wysyła zmiany od podanego offsetu - poprzedzone pełnym stanem, jeśli replika jest w innej epoce
+     * strumienia albo offset nie jest przechowywany.
+     */
+    private void stream(long epoch, long offset, Writer out) throws IOException {
+        ChangeFeed feed = ticketSystem.getChangeFeed();
+        if (epoch != feed.getEpoch() || offset < feed.getFirstRetainedOffset() || offset > feed.getNextOffset()) {
+            ChangeFeed.InitialState state = sendSnapshot(out);
+            epoch = state.epoch();
+            offset = state.nextOffset();
+        }
+        while (!closed) {
+            List<ChangeFeed.Change> changes = feed.read(epoch, offset, BATCH, POSITION_INTERVAL_MILLIS);
+            writeLine(out, Journal.encode(POSITION, Long.toString(epoch), Long.toString(feed.getNextOffset())));
+            for (ChangeFeed.Change change : changes) {
+                writeLine(out, CHANGE + '\t' + change.offset() + '\t' + Journal.encode(change.fields()));
+                offset = change.offset() + 1;
+            }
+            out.flush();
+            CHANGES_SENT.add(changes.size());
+        }
+    }
+
+    /**
+     * @return wysłany stan z epoką i offsetem pierwszej zmiany, której nie zawiera
+     */
+    private ChangeFeed.InitialState sendSnapshot(Writer out) throws IOException {
+        ChangeFeed.InitialState state = ticketSystem.getStateForChangeFeed();
+        writeLine(out, Journal.encode(SNAPSHOT, Long.toString(state.epoch()), Long.toString(state.nextOffset())));
+        for (Ticket ticket : state.tickets()) {
+            writeLine(out, Journal.encode(Journal.ticketAddedRecord(ticket)));
+        }
+        for (String technician : state.technicians()) {
+            writeLine(out, Journal.encode(Journal.TECHNICIAN_ADDED, technician));
+        }
+        writeLine(out, SNAPSHOT_END);
+        out.flush();
+        SNAPSHOTS_SENT.increment();
+        return state;
+    }
+
+    private static void writeLine(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Połączenie i tak jest porzucane
+        }
+    }
+}
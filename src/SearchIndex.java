@@ -0,0 +1,375 @@
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Indeks pełnotekstowy (odwrócony) po tytule, opisie i zgłaszającym.
+ * <p>
+ * Teksty dzielone są na słowa zapisywane małymi literami i bez polskich znaków
+ * (ą→a, ł→l, ż→z ...), więc "drukarka", "Drukarką" i "DRUKARKA" to to samo słowo.
+ * Każde zgłoszenie dostaje w indeksie numer dokumentu, a lista wystąpień słowa to tablica
+ * liczb {@code numer << 3 | pola}, gdzie pola to bity tytułu, opisu i zgłaszającego.
+ * <p>
+ * Zapytanie to słowa, które muszą wystąpić wszystkie; słowo zakończone gwiazdką
+ * ({@code druk*}) pasuje do każdego słowa o tym początku. Wyniki są uszeregowane
+ * według trafności: trafienie w tytule waży więcej niż w zgłaszającym, a to więcej niż w opisie,
+ * a rzadkie słowa więcej niż częste.
+ */
+public class SearchIndex {
+    private static final int TITLE = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int REPORTER = 4;
+    private static final int FIELD_BITS = 3;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private final ConcurrentSkipListMap<String, Postings> terms;
+    private final Map<String, Integer> documentByTicketId; // pod documentsLock
+    private final Object documentsLock;
+    private volatile Ticket[] documents;
+    private int documentCount;
+    private volatile int liveDocuments;
+
+    public SearchIndex() {
+        this.terms = new ConcurrentSkipListMap<>();
+        this.documentByTicketId = new HashMap<>();
+        this.documentsLock = new Object();
+        this.documents = new Ticket[1024];
+    }
+
+    /**
+     * Dodaje zgłoszenie do indeksu; wcześniejsza wersja zgłoszenia o tym samym ID jest zastępowana.
+     */
+    public void add(Ticket ticket) {
+        Map<String, Integer> fields = new HashMap<>();
+        collectTerms(ticket.getTitle(), TITLE, fields);
+        collectTerms(ticket.getDescription(), DESCRIPTION, fields);
+        collectTerms(ticket.getReporterName(), REPORTER, fields);
+
+        int document;
+        synchronized (documentsLock) {
+            document = documentCount++;
+            if (document == documents.length) {
+                documents = Arrays.copyOf(documents, document * 2);
+            }
+            documents[document] = ticket;
+            Integer previous = documentByTicketId.put(ticket.getTicketId(), document);
+            if (previous != null) {
+                documents[previous] = null;
+            } else {
+                liveDocuments++;
+            }
+        }
+        for (Map.Entry<String, Integer> entry : fields.entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), key -> new Postings())
+                    .add(document << FIELD_BITS | entry.getValue());
+        }
+    }
+
+    /**
+     * Usuwa zgłoszenie z wyników wyszukiwania. Wpisy na listach wystąpień zostają
+     * i są pomijane przy wyszukiwaniu.
+     */
+    public void remove(String ticketId) {
+        synchronized (documentsLock) {
+            Integer document = documentByTicketId.remove(ticketId);
+            if (document != null) {
+                documents[document] = null;
+                liveDocuments--;
+            }
+        }
+    }
+
+    public int size() {
+        return liveDocuments;
+    }
+
+    /**
+     * Wyszukuje zgłoszenia zawierające wszystkie słowa zapytania.
+     *
+     * @param query słowa oddzielone spacjami; słowo zakończone '*' jest przedrostkiem
+     * @param limit maksymalna liczba wyników
+     * @return zgłoszenia od najlepiej dopasowanego
+     */
+    public List<Ticket> search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Zapytanie nie może być puste");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit wyników musi być dodatni");
+        }
+
+        List<QueryTerm> queryTerms = parseQuery(query);
+        if (queryTerms.isEmpty()) {
+            throw new IllegalArgumentException("Zapytanie nie zawiera słów do wyszukania");
+        }
+        for (QueryTerm term : queryTerms) {
+            if (term.size() == 0) {
+                return new ArrayList<>();
+            }
+        }
+        // Najrzadsze słowo wyznacza kandydatów, pozostałe tylko je filtrują
+        queryTerms.sort(Comparator.comparingInt(QueryTerm::size));
+        Ticket[] docs = documents;
+        int total = Math.max(1, liveDocuments);
+        long maxScore = 0;
+        for (QueryTerm term : queryTerms) {
+            term.weight = Math.round(1000 * Math.log(1.0 + (double) total / term.size()));
+            maxScore += fieldWeight(FIELD_MASK) * term.weight;
+        }
+
+        // Kandydaci przeglądani od najnowszych, więc przy równym wyniku zostaje nowsze zgłoszenie.
+        // Kopiec trzyma (wynik << 32 | numer) najlepszych dotąd wyników, najsłabszy na szczycie.
+        PriorityQueue<Long> best = new PriorityQueue<>(limit + 1);
+        QueryTerm driver = queryTerms.get(0);
+        int[] entries = driver.list.entries();
+        candidates:
+        for (int i = driver.list.size() - 1; i >= 0; i--) {
+            int document = entries[i] >>> FIELD_BITS;
+            if (document >= docs.length || docs[document] == null) {
+                continue;
+            }
+            long score = fieldWeight(entries[i] & FIELD_MASK) * driver.weight;
+            for (int t = 1; t < queryTerms.size(); t++) {
+                QueryTerm term = queryTerms.get(t);
+                int fields = term.fieldsOf(document);
+                if (fields == 0) {
+                    continue candidates;
+                }
+                score += fieldWeight(fields) * term.weight;
+            }
+            if (best.size() < limit) {
+                best.add(score << 32 | document);
+            } else if (score > best.peek() >>> 32) {
+                best.poll();
+                best.add(score << 32 | document);
+                if (best.peek() >>> 32 >= maxScore) {
+                    break; // żaden starszy kandydat nie może już wypaść lepiej
+                }
+            }
+        }
+
+        List<Ticket> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            Ticket ticket = docs[(int) (best.poll() & 0xFFFFFFFFL)];
+            if (ticket != null) {
+                results.add(ticket);
+            }
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    /**
+     * Dzieli tekst na słowa: małe litery, bez znaków diakrytycznych, tylko litery i cyfry.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                appendFolded(c, token);
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private static void appendFolded(char c, StringBuilder token) {
+        char lower = Character.toLowerCase(c);
+        switch (lower) {
+            case 'ą' -> token.append('a');
+            case 'ć' -> token.append('c');
+            case 'ę' -> token.append('e');
+            case 'ł' -> token.append('l');
+            case 'ń' -> token.append('n');
+            case 'ó' -> token.append('o');
+            case 'ś' -> token.append('s');
+            case 'ź', 'ż' -> token.append('z');
+            default -> {
+                if (lower < 128) {
+                    token.append(lower);
+                } else {
+                    // Pozostałe znaki diakrytyczne: rozkład na literę bazową i znaki łączące
+                    String decomposed = Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD);
+                    for (int i = 0; i < decomposed.length(); i++) {
+                        char part = decomposed.charAt(i);
+                        if (Character.getType(part) != Character.NON_SPACING_MARK) {
+                            token.append(part);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void collectTerms(String text, int field, Map<String, Integer> fields) {
+        for (String token : tokenize(text)) {
+            fields.merge(token, field, (a, b) -> a | b);
+        }
+    }
+
+    private static int fieldWeight(int fields) {
+        int weight = 0;
+        if ((fields & TITLE) != 0) weight += 3;
+        if ((fields & REPORTER) != 0) weight += 2;
+        if ((fields & DESCRIPTION) != 0) weight += 1;
+        return weight;
+    }
+
+    private List<QueryTerm> parseQuery(String query) {
+        List<QueryTerm> result = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            List<String> tokens = tokenize(word);
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                // Gwiazdka dotyczy tylko ostatniej części słowa, np. "wi-fi*" -> "wi", "fi*"
+                if (prefix && i == tokens.size() - 1) {
+                    if (token.length() < MIN_PREFIX_LENGTH) {
+                        throw new IllegalArgumentException("Przedrostek musi mieć co najmniej "
+                                + MIN_PREFIX_LENGTH + " znaki: " + word);
+                    }
+                    result.add(prefixTerm(token));
+                } else {
+                    Postings postings = terms.get(token);
+                    result.add(new QueryTerm(postings == null ? PostingList.EMPTY : postings.sorted()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Łączy listy wszystkich słów o danym przedrostku w jedną posortowaną listę,
+     * sumując pola dla dokumentów występujących na kilku listach.
+     */
+    private QueryTerm prefixTerm(String prefix) {
+        ConcurrentNavigableMap<String, Postings> matching = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        List<PostingList> lists = new ArrayList<>();
+        int total = 0;
+        for (Postings postings : matching.values()) {
+            PostingList list = postings.sorted();
+            lists.add(list);
+            total += list.size();
+        }
+        if (lists.size() == 1) {
+            return new QueryTerm(lists.get(0));
+        }
+        int[] merged = new int[total];
+        int size = 0;
+        for (PostingList list : lists) {
+            System.arraycopy(list.entries(), 0, merged, size, list.size());
+            size += list.size();
+        }
+        Arrays.sort(merged);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique > 0 && merged[unique - 1] >>> FIELD_BITS == merged[i] >>> FIELD_BITS) {
+                merged[unique - 1] |= merged[i] & FIELD_MASK;
+            } else {
+                merged[unique++] = merged[i];
+            }
+        }
+        return new QueryTerm(new PostingList(merged, unique));
+    }
+
+    /**
+     * Niezmienny widok pierwszych {@code size} pozycji listy wystąpień.
+     */
+    private record PostingList(int[] entries, int size) {
+        static final PostingList EMPTY = new PostingList(new int[0], 0);
+    }
+
+    /**
+     * Słowo zapytania z kursorem przesuwanym od końca listy - kandydaci sprawdzani są
+     * w malejącej kolejności numerów, więc kursor nigdy się nie cofa.
+     */
+    private static final class QueryTerm {
+        private final PostingList list;
+        private int cursor;
+        private long weight;
+
+        QueryTerm(PostingList list) {
+            this.list = list;
+            this.cursor = list.size() - 1;
+        }
+
+        int size() {
+            return list.size();
+        }
+
+        /**
+         * Pola, w których słowo występuje w danym dokumencie, lub 0.
+         */
+        int fieldsOf(int document) {
+            int[] entries = list.entries();
+            // Przeskoki wykładnicze, a potem wyszukiwanie binarne w znalezionym przedziale
+            int step = 1;
+            int high = cursor;
+            while (high >= 0 && entries[high] >>> FIELD_BITS > document) {
+                cursor = high;
+                high -= step;
+                step <<= 1;
+            }
+            int low = Math.max(0, high);
+            high = cursor;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midDocument = entries[mid] >>> FIELD_BITS;
+                if (midDocument > document) {
+                    high = mid - 1;
+                } else if (midDocument < document) {
+                    low = mid + 1;
+                } else {
+                    cursor = mid;
+                    return entries[mid] & FIELD_MASK;
+                }
+            }
+            cursor = high;
+            return 0;
+        }
+    }
+
+    /**
+     * Lista wystąpień słowa. Numery dokumentów są przydzielane rosnąco, ale równoległe
+     * dodawanie może zapisać je w innej kolejności - wtedy lista jest sortowana przy
+     * najbliższym wyszukiwaniu (na kopii, bo starszą tablicę może czytać inne zapytanie).
+     */
+    private static final class Postings {
+        private int[] entries = new int[2];
+        private int size;
+        private boolean sorted = true;
+
+        synchronized void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            if (size > 0 && entry < entries[size - 1]) {
+                sorted = false;
+            }
+            entries[size++] = entry;
+        }
+
+        synchronized PostingList sorted() {
+            if (!sorted) {
+                int[] copy = Arrays.copyOf(entries, entries.length);
+                Arrays.sort(copy, 0, size);
+                entries = copy;
+                sorted = true;
+            }
+            // Dopisywanie nie zmienia pierwszych 'size' pozycji, więc widok pozostaje poprawny
+            return new PostingList(entries, size);
+        }
+    }
+}
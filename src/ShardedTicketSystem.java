@@ -0,0 +1,652 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * System zgłoszeń podzielony na niezależne partycje według skrótu ID zgłoszenia.
+ * <p>
+ * Każda partycja to osobny {@link TicketSystem} we własnym katalogu {@code shard-<n>} - z własnym
+ * snapshotem, dziennikiem i jego wątkiem zapisu, archiwum i blokadami - więc zapisy do różnych
+ * partycji nie czekają na siebie nawzajem. Operacje na jednym zgłoszeniu trafiają do jego partycji.
+ * Listy, strony, zapytania i wyszukiwanie wykonywane są równolegle we wszystkich partycjach
+ * (na wątkach wirtualnych) i scalane w żądanym porządku; liczniki są sumowane.
+ * <p>
+ * Identyfikatory przydziela jeden wspólny alokator, więc są unikalne w całym systemie. Technicy
+ * zapisywani są w każdej partycji; zmiana, która nie powiodła się w części partycji, jest wycofywana
+ * w pozostałych, a technik istnieje w systemie tylko wtedy, gdy mają go wszystkie partycje. Czego nie
+ * udało się wycofać (np. zmiany w pamięci partycji, której zapis zawiódł), uzgadnia
+ * {@link #reconcileTechnicians()} przy następnym uruchomieniu. Liczba partycji jest stała dla katalogu
+ * danych - jej zmiana wymagałaby przeniesienia zgłoszeń między partycjami.
+ * <p>
+ * Szyna zdarzeń, kolejka przydziału i strumień zmian działają osobno w każdej partycji
+ * ({@link #getShards()}); wspólnego strumienia zmian nie ma.
+ */
+public class ShardedTicketSystem implements TicketStore {
+    private static final String SHARD_DIRECTORY_PREFIX = "shard-";
+    private static final String SEQUENCE_FILE = "ticket-ids.seq";
+
+    private final List<TicketSystem> shards;
+    private final TicketIdAllocator idAllocator;
+    private final ExecutorService executor;
+    private final CompletableFuture<Void> ready;
+    /** Szereguje dodawanie i usuwanie techników, które obejmuje wszystkie partycje. */
+    private final Object technicianLock = new Object();
+
+    /**
+     * @param directory  katalog z partycjami; tworzony, jeśli nie istnieje
+     * @param shardCount liczba partycji
+     */
+    public ShardedTicketSystem(File directory, int shardCount) {
+        this(directory, shardCount, Journal.Durability.PERIODIC, Journal.DEFAULT_FLUSH_INTERVAL_MS,
+                Journal.DEFAULT_FLUSH_EVERY_OPS, false);
+    }
+
+    /**
+     * Tworzy system, którego partycje wczytują stan w tle - zob. {@link TicketSystem#openLazily()}.
+     */
+    public static ShardedTicketSystem openLazily(File directory, int shardCount) {
+        return new ShardedTicketSystem(directory, shardCount, Journal.Durability.PERIODIC,
+                Journal.DEFAULT_FLUSH_INTERVAL_MS, Journal.DEFAULT_FLUSH_EVERY_OPS, true);
+    }
+
+    /**
+     * @param durability          poziom trwałości zapisu dziennika każdej partycji
+     * @param flushIntervalMillis maksymalny czas między kolejnymi fsync w trybie PERIODIC
+     * @param flushEveryOps       liczba operacji wymuszająca fsync w trybie PERIODIC
+     */
+    public ShardedTicketSystem(File directory, int shardCount, Journal.Durability durability,
+                               long flushIntervalMillis, int flushEveryOps) {
+        this(directory, shardCount, durability, flushIntervalMillis, flushEveryOps, false);
+    }
+
+    private ShardedTicketSystem(File directory, int shardCount, Journal.Durability durability,
+                                long flushIntervalMillis, int flushEveryOps, boolean lazy) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Katalog partycji nie może być null");
+        }
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Liczba partycji musi być dodatnia");
+        }
+        checkShardLayout(directory, shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            File shardDirectory = shardDirectory(directory, i);
+            if (!shardDirectory.exists() && !shardDirectory.mkdirs()) {
+                throw new UncheckedIOException(new IOException("Nie można utworzyć katalogu " + shardDirectory));
+            }
+        }
+        this.idAllocator = new TicketIdAllocator(new File(directory, SEQUENCE_FILE));
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        // Partycje wczytują stan równolegle
+        this.shards = List.copyOf(IntStream.range(0, shardCount).parallel()
+                .mapToObj(i -> TicketSystem.openShard(shardDirectory(directory, i), durability,
+                        flushIntervalMillis, flushEveryOps, idAllocator, lazy))
+                .toList());
+        this.ready = CompletableFuture.allOf(shards.stream().map(TicketSystem::whenReady)
+                        .toArray(CompletableFuture[]::new))
+                .thenRun(this::reconcileTechnicians);
+        if (!lazy) {
+            awaitReady();
+        }
+    }
+
+    private static File shardDirectory(File directory, int shard) {
+        return new File(directory, SHARD_DIRECTORY_PREFIX + shard);
+    }
+
+    /**
+     * Odrzuca katalog podzielony na inną liczbę partycji - zgłoszenia trafiłyby do złych partycji.
+     */
+    private static void checkShardLayout(File directory, int shardCount) {
+        File[] existing = directory.listFiles((dir, name) -> name.matches(SHARD_DIRECTORY_PREFIX + "\\d+"));
+        if (existing != null && existing.length > 0 && existing.length != shardCount) {
+            throw new IllegalArgumentException("Katalog " + directory + " zawiera " + existing.length
+                    + " partycji, a nie " + shardCount);
+        }
+    }
+
+    /**
+     * Uzupełnia techników brakujących w części partycji, np. po awarii w trakcie ich dodawania.
+     */
+    private void reconcileTechnicians() {
+        Set<String> all = new LinkedHashSet<>();
+        shards.forEach(shard -> all.addAll(shard.getAllTechnicians()));
+        for (TicketSystem shard : shards) {
+            for (String technician : all) {
+                if (!shard.hasTechnician(technician)) {
+                    shard.addTechnician(technician);
+                }
+            }
+        }
+    }
+
+    private void awaitReady() {
+        try {
+            ready.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Wczytywanie danych nie powiodło się: " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    private int shardIndex(String ticketId) {
+        if (ticketId == null) {
+            return 0;
+        }
+        int hash = ticketId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.size());
+    }
+
+    /**
+     * Partycja zgłoszenia; zgłoszenia bez ID trafiają do pierwszej, która odrzuca je jak pojedynczy system.
+     */
+    private TicketSystem shardFor(String ticketId) {
+        return shards.get(shardIndex(ticketId));
+    }
+
+    /**
+     * Wykonuje operację równolegle we wszystkich partycjach.
+     *
+     * @return wyniki w kolejności partycji
+     */
+    private <T> List<T> fanOut(Function<TicketSystem, T> operation) {
+        return fanOutByIndex(i -> operation.apply(shards.get(i)));
+    }
+
+    private <T> List<T> fanOutByIndex(IntFunction<T> operation) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            futures.add(CompletableFuture.supplyAsync(() -> operation.apply(shard), executor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                // Wyjątek z partycji przekazywany bez zmian, np. z komunikatem walidacji
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    private List<Ticket> fanOutTickets(Function<TicketSystem, List<Ticket>> query) {
+        List<List<Ticket>> parts = fanOut(query);
+        List<Ticket> merged = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+        parts.forEach(merged::addAll);
+        return merged;
+    }
+
+    private int sum(ToIntFunction<TicketSystem> count) {
+        return shards.stream().mapToInt(count).sum();
+    }
+
+    public CompletableFuture<Void> addTicket(Ticket ticket) {
+        if (ticket == null) {
+            throw new IllegalArgumentException("Zgłoszenie nie może być null");
+        }
+        return shardFor(ticket.getTicketId()).addTicket(ticket);
+    }
+
+    /**
+     * Import zbiorczy: pozycje bez ID dostają identyfikatory przed podziałem na partycje,
+     * a każda partycja importuje swoją część równolegle z pozostałymi. Pozycje z jawnym ID trafiają
+     * do partycji od razu przy czytaniu danych; identyfikatory pozostałych są przydzielane jednym blokiem
+     * dopiero po przeczytaniu całości, gdy alokator zna już wszystkie jawne ID z paczki.
+     */
+    public List<IngestResult> ingestTickets(Iterable<TicketDraft> drafts) {
+        if (drafts == null) {
+            throw new IllegalArgumentException("Dane importu nie mogą być null");
+        }
+        return ingest(drafts.iterator());
+    }
+
+    public List<IngestResult> ingestTickets(Stream<TicketDraft> drafts) {
+        if (drafts == null) {
+            throw new IllegalArgumentException("Dane importu nie mogą być null");
+        }
+        return ingest(drafts.iterator());
+    }
+
+    private List<IngestResult> ingest(Iterator<TicketDraft> input) {
+        awaitReady();
+        List<List<TicketDraft>> parts = new ArrayList<>(shards.size());
+        List<List<Integer>> positions = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            parts.add(new ArrayList<>());
+            positions.add(new ArrayList<>());
+        }
+        List<TicketDraft> withoutId = new ArrayList<>();
+        List<Integer> withoutIdPositions = new ArrayList<>();
+        int size = 0;
+        for (; input.hasNext(); size++) {
+            TicketDraft draft = input.next();
+            if (draft != null && draft.ticketId() == null) {
+                withoutId.add(draft);
+                withoutIdPositions.add(size);
+                continue;
+            }
+            if (draft != null) {
+                idAllocator.observe(draft.ticketId());
+            }
+            int shard = shardIndex(draft == null ? null : draft.ticketId());
+            parts.get(shard).add(draft);
+            positions.get(shard).add(size);
+        }
+        if (size == 0) {
+            return new ArrayList<>();
+        }
+
+        // Partycję wyznacza ID, więc brakujące identyfikatory przydzielane są przed podziałem - jednym blokiem
+        if (!withoutId.isEmpty()) {
+            TicketIdAllocator.IdBlock ids = idAllocator.reserveBlock(withoutId.size());
+            for (int i = 0; i < withoutId.size(); i++) {
+                TicketDraft draft = withoutId.get(i);
+                String ticketId = ids.idAt(i);
+                int shard = shardIndex(ticketId);
+                parts.get(shard).add(new TicketDraft(ticketId, draft.title(), draft.description(),
+                        draft.reporterName(), draft.reporterEmail(), draft.priority()));
+                positions.get(shard).add(withoutIdPositions.get(i));
+            }
+        }
+
+        IngestResult[] results = new IngestResult[size];
+        fanOutByIndex(shard -> {
+            if (parts.get(shard).isEmpty()) {
+                return null;
+            }
+            for (IngestResult result : shards.get(shard).ingestTickets(parts.get(shard))) {
+                int index = positions.get(shard).get(result.index());
+                results[index] = new IngestResult(index, result.ticketId(), result.outcome(), result.message());
+            }
+            return null;
+        });
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    public String nextTicketId() {
+        awaitReady();
+        return idAllocator.nextTicketId();
+    }
+
+    /**
+     * Dodaje technika do wszystkich partycji, którym go brakuje. Jeśli dodanie w którejś partycji się nie
+     * powiedzie, technik jest usuwany z partycji, do których już trafił, a wyjątek przekazywany dalej.
+     *
+     * @return przyszłość zapisu zmiany we wszystkich partycjach
+     * @throws IllegalArgumentException jeśli nazwa jest pusta lub technik już istnieje
+     */
+    public CompletableFuture<Void> addTechnician(String technicianName) {
+        synchronized (technicianLock) {
+            if (hasTechnician(technicianName)) {
+                throw new IllegalArgumentException("Technik " + technicianName + " już istnieje w systemie");
+            }
+            List<TicketSystem> added = new ArrayList<>();
+            List<CompletableFuture<Void>> written = new ArrayList<>();
+            try {
+                for (TicketSystem shard : shards) {
+                    // Partycja pozostała po nieudanej zmianie może już mieć technika
+                    if (!shard.hasTechnician(technicianName)) {
+                        written.add(shard.addTechnician(technicianName));
+                        added.add(shard);
+                    }
+                }
+            } catch (RuntimeException e) {
+                rollBack(added, shard -> shard.removeTechnician(technicianName), e);
+                throw e;
+            }
+            return CompletableFuture.allOf(written.toArray(new CompletableFuture<?>[0]));
+        }
+    }
+
+    /**
+     * Usuwa technika ze wszystkich partycji. Jeśli usunięcie w którejś partycji się nie powiedzie (np. technik
+     * dostał w międzyczasie zgłoszenie), technik jest przywracany w partycjach, z których został już usunięty.
+     *
+     * @return przyszłość zapisu zmiany we wszystkich partycjach
+     * @throws IllegalArgumentException jeśli technik nie istnieje lub ma przypisane zgłoszenia
+     */
+    public CompletableFuture<Void> removeTechnician(String technicianName) {
+        synchronized (technicianLock) {
+            // Usuwalny jest także technik pozostały tylko w części partycji
+            if (shards.stream().noneMatch(shard -> shard.hasTechnician(technicianName))) {
+                throw new IllegalArgumentException("Technik " + technicianName + " nie istnieje w systemie");
+            }
+            int activeTickets = getActiveTicketCountFor(technicianName);
+            if (activeTickets > 0) {
+                throw new IllegalArgumentException("Nie można usunąć technika " + technicianName +
+                        " - ma przypisane " + activeTickets + " aktywnych zgłoszeń");
+            }
+            List<TicketSystem> removed = new ArrayList<>();
+            List<CompletableFuture<Void>> written = new ArrayList<>();
+            try {
+                for (TicketSystem shard : shards) {
+                    if (shard.hasTechnician(technicianName)) {
+                        written.add(shard.removeTechnician(technicianName));
+                        removed.add(shard);
+                    }
+                }
+            } catch (RuntimeException e) {
+                rollBack(removed, shard -> shard.addTechnician(technicianName), e);
+                throw e;
+            }
+            return CompletableFuture.allOf(written.toArray(new CompletableFuture<?>[0]));
+        }
+    }
+
+    /**
+     * Wycofuje zmianę w partycjach {@code changed} i czeka na zapis wycofania. Błędy wycofania dołączane są
+     * do {@code failure} - pozostawiony stan uzgadnia {@link #reconcileTechnicians()} przy następnym starcie.
+     */
+    private static void rollBack(List<TicketSystem> changed, Function<TicketSystem, CompletableFuture<Void>> undo,
+                                 RuntimeException failure) {
+        for (TicketSystem shard : changed) {
+            try {
+                undo.apply(shard).join();
+            } catch (CompletionException e) {
+                failure.addSuppressed(e.getCause() != null ? e.getCause() : e);
+            } catch (RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    public Optional<Ticket> findTicketById(String ticketId) {
+        return shardFor(ticketId).findTicketById(ticketId);
+    }
+
+    public CompletableFuture<Void> assignTicket(String ticketId, String technicianName) {
+        return shardFor(ticketId).assignTicket(ticketId, technicianName);
+    }
+
+    public Optional<CompletableFuture<Void>> assignTicketIfNew(String ticketId, String technicianName) {
+        return shardFor(ticketId).assignTicketIfNew(ticketId, technicianName);
+    }
+
+    public Optional<CompletableFuture<Void>> closeTicketIfAssignedTo(String ticketId, String technicianName) {
+        return shardFor(ticketId).closeTicketIfAssignedTo(ticketId, technicianName);
+    }
+
+    public CompletableFuture<Void> closeTicket(String ticketId) {
+        return shardFor(ticketId).closeTicket(ticketId);
+    }
+
+    public List<Ticket> getAllTickets() {
+        return fanOutTickets(TicketSystem::getAllTickets);
+    }
+
+    public List<Ticket> getActiveTickets() {
+        return fanOutTickets(TicketSystem::getActiveTickets);
+    }
+
+    public List<Ticket> getUnassignedTickets() {
+        return fanOutTickets(TicketSystem::getUnassignedTickets);
+    }
+
+    public List<Ticket> getTicketsAssignedTo(String technicianName) {
+        return fanOutTickets(shard -> shard.getTicketsAssignedTo(technicianName));
+    }
+
+    public List<Ticket> getActiveTicketsAssignedTo(String technicianName) {
+        return fanOutTickets(shard -> shard.getActiveTicketsAssignedTo(technicianName));
+    }
+
+    public List<Ticket> getTicketsByStatus(Ticket.Status status) {
+        return fanOutTickets(shard -> shard.getTicketsByStatus(status));
+    }
+
+    public int getActiveTicketCountFor(String technicianName) {
+        return sum(shard -> shard.getActiveTicketCountFor(technicianName));
+    }
+
+    /**
+     * Każda partycja zwraca swoją stronę od tego samego kursora; strona wynikowa to początek
+     * ich scalenia. Kursor opisuje pozycję w porządku, a nie w partycji, więc pasuje do wszystkich.
+     */
+    public TicketPage getTicketPage(TicketSort sort, boolean activeOnly, String cursor, int pageSize) {
+        List<TicketPage> pages = fanOut(shard -> shard.getTicketPage(sort, activeOnly, cursor, pageSize));
+        List<Ticket> merged = new ArrayList<>();
+        pages.forEach(page -> merged.addAll(page.tickets()));
+        merged.sort(TicketListing.comparator(sort));
+        boolean hasNext = merged.size() > pageSize || pages.stream().anyMatch(TicketPage::hasNext);
+        if (merged.size() > pageSize) {
+            merged.subList(pageSize, merged.size()).clear();
+        }
+        return new TicketPage(merged, hasNext ? TicketListing.cursorOf(sort, merged.get(pageSize - 1)) : null);
+    }
+
+    /**
+     * Zapytanie wykonywane w każdej partycji z tym samym limitem; wyniki są scalane i ponownie przycinane.
+     */
+    public QueryResult query(TicketQuery query) {
+        List<QueryResult> partial = fanOut(shard -> shard.query(query));
+        List<Ticket> merged = partial.stream()
+                .flatMap(result -> result.tickets().stream())
+                .sorted(TicketListing.comparator(query.getSort()))
+                .limit(query.getLimit())
+                .collect(Collectors.toCollection(ArrayList::new));
+        int examined = partial.stream().mapToInt(QueryResult::examined).sum();
+        String plan = "równolegle w " + shards.size() + " partycjach, scalenie wyników; partycja 0: "
+                + partial.get(0).plan();
+        return new QueryResult(merged, plan, examined);
+    }
+
+    /**
+     * Leniwe scalanie strumieni partycji - kolejne zgłoszenie pobierane jest z partycji,
+     * której bieżące zgłoszenie jest pierwsze w porządku.
+     */
+    public Stream<Ticket> streamTickets(TicketSort sort) {
+        List<Stream<Ticket>> streams = shards.stream().map(shard -> shard.streamTickets(sort)).toList();
+        Iterator<Ticket> merged = new MergingIterator(streams, TicketListing.comparator(sort));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    /**
+     * Wyniki partycji przeplatane według miejsca w rankingu: najpierw najlepsze z każdej partycji,
+     * potem drugie itd. Ranking liczony jest w obrębie partycji, więc kolejność jest przybliżona.
+     */
+    public List<Ticket> searchTickets(String query, int limit) {
+        List<List<Ticket>> ranked = fanOut(shard -> shard.searchTickets(query, limit));
+        List<Ticket> merged = new ArrayList<>();
+        for (int rank = 0; merged.size() < limit; rank++) {
+            boolean any = false;
+            for (List<Ticket> results : ranked) {
+                if (rank < results.size() && merged.size() < limit) {
+                    merged.add(results.get(rank));
+                    any = true;
+                }
+            }
+            if (!any) {
+                break;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Technicy obecni we wszystkich partycjach, w kolejności pierwszej partycji.
+     */
+    public List<String> getAllTechnicians() {
+        List<String> technicians = new ArrayList<>(shards.get(0).getAllTechnicians());
+        for (TicketSystem shard : shards.subList(1, shards.size())) {
+            technicians.removeIf(technician -> !shard.hasTechnician(technician));
+        }
+        return technicians;
+    }
+
+    /**
+     * @return czy technik istnieje we wszystkich partycjach - tylko taki może obsługiwać dowolne zgłoszenie
+     */
+    public boolean hasTechnician(String technicianName) {
+        for (TicketSystem shard : shards) {
+            if (!shard.hasTechnician(technicianName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getTotalTicketCount() {
+        return sum(TicketSystem::getTotalTicketCount);
+    }
+
+    public int getArchivedTicketCount() {
+        return sum(TicketSystem::getArchivedTicketCount);
+    }
+
+    public int getActiveTicketCount() {
+        return sum(TicketSystem::getActiveTicketCount);
+    }
+
+    public int getTechnicianCount() {
+        return getAllTechnicians().size();
+    }
+
+    public int archiveClosedTickets() {
+        return fanOut(TicketSystem::archiveClosedTickets).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Pobiera najpilniejsze zgłoszenie spośród czół kolejek wszystkich partycji. Jeśli w międzyczasie
+     * kolejka wybranej partycji opustoszała, wybór jest powtarzany bez niej.
+     */
+    public Optional<TicketDispatcher.Lease> claimNextTicket(String technicianName) {
+        if (!hasTechnician(technicianName)) {
+            throw new IllegalArgumentException("Technik " + technicianName + " nie istnieje w systemie");
+        }
+        List<TicketSystem> candidates = new ArrayList<>(shards);
+        while (!candidates.isEmpty()) {
+            TicketSystem best = null;
+            Ticket bestTicket = null;
+            for (TicketSystem shard : candidates) {
+                Ticket next = shard.getDispatcher().peekNext();
+                if (next != null && (bestTicket == null || TicketDispatcher.DISPATCH_ORDER.compare(next, bestTicket) < 0)) {
+                    best = shard;
+                    bestTicket = next;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            Optional<TicketDispatcher.Lease> lease = best.claimNextTicket(technicianName);
+            if (lease.isPresent()) {
+                return lease;
+            }
+            candidates.remove(best);
+        }
+        return Optional.empty();
+    }
+
+    public Ticket confirmClaim(TicketDispatcher.Lease lease) {
+        return shardFor(lease == null ? null : lease.getTicketId()).confirmClaim(lease);
+    }
+
+    public void releaseClaim(TicketDispatcher.Lease lease) {
+        if (lease != null) {
+            shardFor(lease.getTicketId()).releaseClaim(lease);
+        }
+    }
+
+    /**
+     * Przyszłość kończąca się, gdy zmiany we wszystkich partycjach są trwale zapisane.
+     */
+    public CompletableFuture<Void> sync() {
+        return CompletableFuture.allOf(shards.stream().map(TicketSystem::sync).toArray(CompletableFuture[]::new));
+    }
+
+    public void saveDataToFiles() {
+        fanOut(shard -> {
+            shard.saveDataToFiles();
+            return null;
+        });
+    }
+
+    /**
+     * Zamyka wszystkie partycje równolegle - każda zapisuje przy tym pełny stan.
+     */
+    public void close() {
+        try {
+            fanOut(shard -> {
+                shard.close();
+                return null;
+            });
+        } finally {
+            executor.close();
+        }
+    }
+
+    public boolean isReady() {
+        return ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    public TicketSystem.StartupProgress getStartupProgress() {
+        int loaded = 0;
+        int expected = 0;
+        for (TicketSystem shard : shards) {
+            TicketSystem.StartupProgress progress = shard.getStartupProgress();
+            loaded += progress.loadedTickets();
+            expected += progress.expectedTickets();
+        }
+        return new TicketSystem.StartupProgress(isReady(), loaded, expected);
+    }
+
+    public List<TicketSystem> getShards() {
+        return shards;
+    }
+
+    /**
+     * Scalanie posortowanych strumieni w jeden - kopiec z bieżącym zgłoszeniem każdego strumienia.
+     */
+    private static final class MergingIterator implements Iterator<Ticket> {
+        private record Head(Ticket ticket, Iterator<Ticket> source) {
+        }
+
+        private final PriorityQueue<Head> heads;
+
+        MergingIterator(List<Stream<Ticket>> streams, Comparator<Ticket> order) {
+            this.heads = new PriorityQueue<>(Math.max(1, streams.size()),
+                    (a, b) -> order.compare(a.ticket(), b.ticket()));
+            for (Stream<Ticket> stream : streams) {
+                advance(stream.iterator());
+            }
+        }
+
+        private void advance(Iterator<Ticket> source) {
+            if (source.hasNext()) {
+                heads.add(new Head(source.next(), source));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Ticket next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            advance(head.source());
+            return head.ticket();
+        }
+    }
+}
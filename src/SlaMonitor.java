@@ -0,0 +1,311 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Pilnowanie terminów SLA aktywnych zgłoszeń według {@link SlaPolicy}.
+ * <p>
+ * Każde aktywne zgłoszenie ma jeden licznik w {@link TimingWheel} - na najbliższy termin: przypisania,
+ * dopóki zgłoszenie jest nowe i nieprzypisane, a potem zamknięcia. Zmiany zgłoszeń przychodzą z szyny
+ * zdarzeń systemu: przypisanie przestawia licznik na termin zamknięcia, zamknięcie go anuluje - każda
+ * operacja O(1), bez przeglądania zgłoszeń. Przekroczenie terminu jest sprawdzane ze stanem zgłoszenia,
+ * zliczane ({@code sla.breaches}) i publikowane jako {@link TicketEvent.SlaBreached}; eskalacje
+ * wypisywane są jako zestawienie co {@link #DIGEST_INTERVAL}.
+ * <p>
+ * Przy starcie - gdy system wczytał już stan - terminy odtwarzane są jednym przejściem po aktywnych
+ * zgłoszeniach (indeks statusów);
+ * to samo przejście uzupełnia zgłoszenia, gdyby szyna pominęła zdarzenia przy przepełnionej kolejce.
+ * Terminy, które minęły jeszcze przed uruchomieniem nadzoru, zostały eskalowane przez poprzednie
+ * uruchomienie (albo nie było go wtedy wcale), więc nie są eskalowane ponownie po każdym restarcie:
+ * przegląd startowy pomija je i wypisuje jedno zestawienie z ich liczbą.
+ */
+public class SlaMonitor implements AutoCloseable {
+    public static final Duration DIGEST_INTERVAL = Duration.ofSeconds(5);
+    private static final long TICK_MILLIS = 1000;
+    private static final int EVENT_QUEUE_CAPACITY = 1 << 16;
+    private static final int ESCALATION_QUEUE_CAPACITY = 1024;
+    /** Liczba identyfikatorów wymienianych w zestawieniu eskalacji. */
+    private static final int DIGEST_LISTED = 10;
+
+    private static final Metrics.Operation REBUILD = Metrics.operation("sla.rebuild");
+    private static final LongAdder BREACHES = Metrics.counter("sla.breaches");
+
+    /** Etap zgłoszenia: oczekiwanie na termin przypisania, na termin zamknięcia lub koniec nadzoru. */
+    private enum Stage { ASSIGN, CLOSE, DONE }
+
+    /**
+     * Nadzorowane zgłoszenie. Zmieniane pod własną blokadą przez wątek zdarzeń i wątek zegara.
+     */
+    private static final class Tracked {
+        final String ticketId;
+        final Ticket.Priority priority;
+        final long createdAtMillis;
+        Stage stage = Stage.ASSIGN;
+        TimingWheel.Timer<Tracked> timer;
+
+        Tracked(String ticketId, Ticket.Priority priority, long createdAtNanos) {
+            this.ticketId = ticketId;
+            this.priority = priority;
+            this.createdAtMillis = Math.floorDiv(createdAtNanos, 1_000_000L);
+        }
+    }
+
+    private final TicketSystem ticketSystem;
+    private final SlaPolicy policy;
+    private final LongSupplier clock;
+    private final TimingWheel<Tracked> wheel;
+    private final Map<String, Tracked> tracked = new ConcurrentHashMap<>();
+    private final TicketEventBus.Subscription events;
+    private final TicketEventBus.Subscription escalations;
+    /** Czas uruchomienia nadzoru; wcześniejsze terminy nie są eskalowane przy przeglądzie startowym. */
+    private final long startedAtMillis;
+    private volatile int overdueAtStart;
+    private long seenDropped;
+
+    /**
+     * Tworzy nadzór i uruchamia wątek zegara.
+     */
+    public static SlaMonitor start(TicketSystem ticketSystem, SlaPolicy policy) {
+        SlaMonitor monitor = new SlaMonitor(ticketSystem, policy, SlaMonitor::localTimeMillis);
+        monitor.wheel.start("sla-zegar");
+        return monitor;
+    }
+
+    /**
+     * Tworzy nadzór bez uruchamiania zegara, np. do pomiarów z zegarem sterowanym ręcznie.
+     *
+     * @param clock czas lokalny w milisekundach, w tej samej skali co {@link Ticket#getCreatedAtEpochNanos()}
+     */
+    SlaMonitor(TicketSystem ticketSystem, SlaPolicy policy, LongSupplier clock) {
+        if (ticketSystem == null || policy == null || clock == null) {
+            throw new IllegalArgumentException("System zgłoszeń, polityka SLA i zegar nie mogą być null");
+        }
+        this.ticketSystem = ticketSystem;
+        this.policy = policy;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, clock, this::expired);
+        this.startedAtMillis = clock.getAsLong();
+
+        TicketEventBus bus = ticketSystem.getEventBus();
+        // Najpierw subskrypcja, potem przegląd - zgłoszenie dodane w międzyczasie nie zostanie pominięte
+        this.events = bus.subscribe("sla", event -> !(event instanceof TicketEvent.SlaBreached),
+                EVENT_QUEUE_CAPACITY, Duration.ZERO, this::onEvents);
+        this.escalations = bus.subscribe("eskalacje", event -> event instanceof TicketEvent.SlaBreached,
+                ESCALATION_QUEUE_CAPACITY, DIGEST_INTERVAL, this::printEscalations);
+        ticketSystem.whenReady().thenRun(() -> REBUILD.run(this::trackAtStartup));
+    }
+
+    public int getTrackedCount() {
+        return tracked.size();
+    }
+
+    public long getPendingCount() {
+        return wheel.getPendingCount();
+    }
+
+    /**
+     * Liczba aktywnych zgłoszeń, których termin minął przed uruchomieniem nadzoru (bez ponownej eskalacji).
+     */
+    public int getOverdueAtStartCount() {
+        return overdueAtStart;
+    }
+
+    /**
+     * Przesuwa zegar do podanego czasu - tylko dla nadzoru bez uruchomionego wątku zegara.
+     */
+    void advance(long nowMillis) {
+        wheel.advance(nowMillis);
+    }
+
+    @Override
+    public void close() {
+        events.close();
+        escalations.close();
+        wheel.close();
+    }
+
+    private void trackAtStartup() {
+        List<String> overdue = trackActiveTickets(startedAtMillis);
+        overdueAtStart = overdue.size();
+        if (!overdue.isEmpty()) {
+            System.out.println("SLA: " + overdue.size() + " aktywnych zgłoszeń przekroczyło terminy jeszcze przed"
+                    + " uruchomieniem nadzoru, np. " + String.join(", ", overdue.subList(0,
+                    Math.min(overdue.size(), DIGEST_LISTED))) + " - bez ponownej eskalacji.");
+        }
+    }
+
+    /**
+     * @param skipDeadlinesBefore terminy wcześniejsze niż ten czas są pomijane bez eskalacji
+     *                            ({@link Long#MIN_VALUE} - żaden nie jest pomijany)
+     * @return zgłoszenia z pominiętymi terminami
+     */
+    private List<String> trackActiveTickets(long skipDeadlinesBefore) {
+        List<String> overdue = new ArrayList<>();
+        for (Ticket.Status status : List.of(Ticket.Status.NOWE, Ticket.Status.W_TRAKCIE)) {
+            for (Ticket ticket : ticketSystem.getTicketsByStatus(status)) {
+                if (track(ticket.getTicketId(), ticket.getPriority(), ticket.getCreatedAtEpochNanos(),
+                        ticket.getState(), skipDeadlinesBefore)) {
+                    overdue.add(ticket.getTicketId());
+                }
+            }
+        }
+        return overdue;
+    }
+
+    /**
+     * @return czy któryś termin zgłoszenia został pominięty jako wcześniejszy niż {@code skipDeadlinesBefore}
+     */
+    private boolean track(String ticketId, Ticket.Priority priority, long createdAtNanos, Ticket.State state,
+                          long skipDeadlinesBefore) {
+        if (!state.isActive()) {
+            return false;
+        }
+        Tracked entry = new Tracked(ticketId, priority, createdAtNanos);
+        if (tracked.putIfAbsent(entry.ticketId, entry) != null) {
+            return false;
+        }
+        synchronized (entry) {
+            if (state.isAssigned()) {
+                entry.stage = Stage.CLOSE;
+            }
+            boolean skipped = false;
+            if (entry.stage == Stage.ASSIGN && deadline(entry) < skipDeadlinesBefore) {
+                entry.stage = Stage.CLOSE;
+                skipped = true;
+            }
+            if (entry.stage == Stage.CLOSE && deadline(entry) < skipDeadlinesBefore) {
+                entry.stage = Stage.DONE;
+                tracked.remove(entry.ticketId, entry);
+                return true;
+            }
+            entry.timer = wheel.schedule(entry, deadline(entry));
+            return skipped;
+        }
+    }
+
+    private void onEvents(List<TicketEvent> batch) {
+        for (TicketEvent event : batch) {
+            switch (event) {
+                // Zdarzenia zgłoszenia przychodzą w kolejności zmian, więc wystarczy stan z chwili dodania
+                case TicketEvent.TicketCreated created -> track(created.ticketId(), created.priority(),
+                        Ticket.toEpochNanos(created.createdAt()), created.state(), Long.MIN_VALUE);
+                case TicketEvent.TicketAssigned assigned -> onAssigned(assigned.ticketId());
+                case TicketEvent.TicketClosed closed -> untrack(closed.ticketId());
+                default -> {
+                }
+            }
+        }
+        long dropped = events.getDroppedCount();
+        if (dropped != seenDropped) {
+            seenDropped = dropped;
+            // Zgłoszenia pominięte przez szynę w trakcie działania - ich terminy są eskalowane normalnie
+            REBUILD.run(() -> trackActiveTickets(Long.MIN_VALUE));
+        }
+    }
+
+    private void onAssigned(String ticketId) {
+        Tracked entry = tracked.get(ticketId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.stage == Stage.ASSIGN) {
+                wheel.cancel(entry.timer);
+                entry.stage = Stage.CLOSE;
+                entry.timer = wheel.schedule(entry, deadline(entry));
+            }
+        }
+    }
+
+    private void untrack(String ticketId) {
+        Tracked entry = tracked.remove(ticketId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            wheel.cancel(entry.timer);
+            entry.stage = Stage.DONE;
+        }
+    }
+
+    /**
+     * Odpalenie licznika w wątku zegara: sprawdzenie stanu zgłoszenia i ewentualna eskalacja.
+     */
+    private void expired(Tracked entry) {
+        synchronized (entry) {
+            // Licznik odpalony tuż przed przestawieniem przez zdarzenie - bieżący termin jeszcze nie minął
+            if (entry.stage == Stage.DONE || clock.getAsLong() < deadline(entry)) {
+                return;
+            }
+            Ticket ticket = ticketSystem.findTicketById(entry.ticketId).orElse(null);
+            if (ticket == null || !ticket.isActive()) {
+                entry.stage = Stage.DONE;
+                tracked.remove(entry.ticketId, entry);
+                return;
+            }
+            if (entry.stage == Stage.ASSIGN) {
+                if (!ticket.isAssigned()) {
+                    breach(entry, SlaPolicy.Kind.PRZYPISANIE);
+                }
+                entry.stage = Stage.CLOSE;
+                entry.timer = wheel.schedule(entry, deadline(entry));
+            } else {
+                breach(entry, SlaPolicy.Kind.ZAMKNIECIE);
+                entry.stage = Stage.DONE;
+                tracked.remove(entry.ticketId, entry);
+            }
+        }
+    }
+
+    private void breach(Tracked entry, SlaPolicy.Kind kind) {
+        BREACHES.increment();
+        LocalDateTime deadline = LocalDateTime.ofEpochSecond(Math.floorDiv(deadline(entry), 1000L),
+                (int) Math.floorMod(deadline(entry), 1000L) * 1_000_000, ZoneOffset.UTC);
+        ticketSystem.getEventBus().publish(new TicketEvent.SlaBreached(entry.ticketId, entry.priority, kind,
+                deadline, LocalDateTime.now()));
+    }
+
+    private long deadline(Tracked entry) {
+        SlaPolicy.Kind kind = entry.stage == Stage.ASSIGN ? SlaPolicy.Kind.PRZYPISANIE : SlaPolicy.Kind.ZAMKNIECIE;
+        return entry.createdAtMillis + policy.getLimit(kind, entry.priority).toMillis();
+    }
+
+    private void printEscalations(List<TicketEvent> batch) {
+        List<TicketEvent.SlaBreached> breaches = new ArrayList<>();
+        for (TicketEvent event : batch) {
+            if (event instanceof TicketEvent.SlaBreached breached) {
+                breaches.add(breached);
+            }
+        }
+        if (breaches.size() == 1) {
+            TicketEvent.SlaBreached breached = breaches.get(0);
+            System.out.println("ESKALACJA: Zgłoszenie " + breached.ticketId() + " (priorytet " + breached.priority()
+                    + ") przekroczyło termin SLA na " + breached.kind() + " (" + breached.deadline() + ")");
+        } else if (breaches.size() > 1) {
+            StringBuilder digest = new StringBuilder("ESKALACJA: ").append(breaches.size())
+                    .append(" przekroczonych terminów SLA - ");
+            for (int i = 0; i < Math.min(breaches.size(), DIGEST_LISTED); i++) {
+                TicketEvent.SlaBreached breached = breaches.get(i);
+                digest.append(i > 0 ? ", " : "").append(breached.ticketId())
+                        .append(" (").append(breached.kind()).append(")");
+            }
+            if (breaches.size() > DIGEST_LISTED) {
+                digest.append(" i ").append(breaches.size() - DIGEST_LISTED).append(" innych");
+            }
+            System.out.println(digest);
+        }
+    }
+
+    /**
+     * Bieżący czas lokalny w milisekundach - w tej samej skali, w której zapisywana jest data utworzenia zgłoszenia.
+     */
+    private static long localTimeMillis() {
+        return LocalDateTime.now().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
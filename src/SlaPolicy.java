@@ -0,0 +1,75 @@
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Terminy obsługi zgłoszeń (SLA) zależne od priorytetu, liczone od utworzenia zgłoszenia:
+ * czas na przypisanie technika i czas na zamknięcie zgłoszenia.
+ */
+public final class SlaPolicy {
+
+    /**
+     * Rodzaj terminu.
+     */
+    public enum Kind {
+        PRZYPISANIE("przypisanie"),
+        ZAMKNIECIE("zamknięcie");
+
+        private final String displayName;
+
+        Kind(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private final Map<Ticket.Priority, Duration> assignWithin;
+    private final Map<Ticket.Priority, Duration> closeWithin;
+
+    /**
+     * @param assignWithin czas na przypisanie dla każdego priorytetu
+     * @param closeWithin  czas na zamknięcie dla każdego priorytetu
+     */
+    public SlaPolicy(Map<Ticket.Priority, Duration> assignWithin, Map<Ticket.Priority, Duration> closeWithin) {
+        this.assignWithin = copy(assignWithin);
+        this.closeWithin = copy(closeWithin);
+    }
+
+    /**
+     * Domyślne terminy: krytyczne 15 min / 4 h, wysokie 1 h / 1 dzień, średnie 4 h / 3 dni, niskie 1 / 7 dni.
+     */
+    public static SlaPolicy defaults() {
+        return new SlaPolicy(
+                Map.of(Ticket.Priority.KRYTYCZNY, Duration.ofMinutes(15),
+                        Ticket.Priority.WYSOKI, Duration.ofHours(1),
+                        Ticket.Priority.SREDNI, Duration.ofHours(4),
+                        Ticket.Priority.NISKI, Duration.ofDays(1)),
+                Map.of(Ticket.Priority.KRYTYCZNY, Duration.ofHours(4),
+                        Ticket.Priority.WYSOKI, Duration.ofDays(1),
+                        Ticket.Priority.SREDNI, Duration.ofDays(3),
+                        Ticket.Priority.NISKI, Duration.ofDays(7)));
+    }
+
+    public Duration getLimit(Kind kind, Ticket.Priority priority) {
+        return (kind == Kind.PRZYPISANIE ? assignWithin : closeWithin).get(priority);
+    }
+
+    private static Map<Ticket.Priority, Duration> copy(Map<Ticket.Priority, Duration> limits) {
+        if (limits == null) {
+            throw new IllegalArgumentException("Terminy SLA nie mogą być null");
+        }
+        Map<Ticket.Priority, Duration> copy = new EnumMap<>(Ticket.Priority.class);
+        for (Ticket.Priority priority : Ticket.Priority.values()) {
+            Duration limit = limits.get(priority);
+            if (limit == null || limit.isNegative() || limit.isZero()) {
+                throw new IllegalArgumentException("Brak dodatniego terminu SLA dla priorytetu " + priority);
+            }
+            copy.put(priority, limit);
+        }
+        return copy;
+    }
+}
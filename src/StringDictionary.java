@@ -0,0 +1,63 @@
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Słownik powtarzających się tekstów zgłoszeń: nazwisk zgłaszających, ich adresów
+ * e-mail i nazwisk techników. Każda wartość przechowywana jest raz, a zgłoszenia
+ * wskazują na wspólną instancję zamiast na własną kopię odczytaną z pliku.
+ * <p>
+ * Słownik jest wspólny dla całego procesu (partycje, repliki i kolejne instancje systemu
+ * korzystają z tych samych wpisów), więc wpisy są trzymane słabo: tekst, na który nie wskazuje
+ * już żadne zgłoszenie, usuwa GC razem z wpisem. Słownik jest podzielony na pasy z osobnymi
+ * blokadami, żeby równoległa walidacja importu nie czekała na jednym monitorze.
+ */
+public final class StringDictionary {
+    private static final int STRIPES = 32;
+    private static final List<Map<String, WeakReference<String>>> VALUES = new ArrayList<>(STRIPES);
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            VALUES.add(new WeakHashMap<>());
+        }
+    }
+
+    private StringDictionary() {
+    }
+
+    /**
+     * Zwraca wspólną instancję tekstu równego podanemu.
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        Map<String, WeakReference<String>> stripe = VALUES.get((hash ^ (hash >>> 16)) & (STRIPES - 1));
+        synchronized (stripe) {
+            WeakReference<String> reference = stripe.get(value);
+            String existing = reference != null ? reference.get() : null;
+            if (existing != null) {
+                return existing;
+            }
+            // Klucz i wartość to ta sama instancja - wpis żyje tak długo, jak zgłoszenia, które jej używają
+            stripe.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * Liczba wpisów, w tym tych, których GC jeszcze nie usunął.
+     */
+    public static int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> stripe : VALUES) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+}
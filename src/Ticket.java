@@ -1,8 +1,20 @@
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 //import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
 
+/**
+ * Zgłoszenie serwisowe.
+ * <p>
+ * Reprezentacja jest zwarta, bo w systemie mogą być miliony zgłoszeń: tytuł i opis
+ * przechowywane są jako bajty UTF-8 (tekst z polskimi znakami zajmowałby jako String
+ * dwa bajty na znak), dane zgłaszającego i technika pochodzą ze wspólnego
+ * {@link StringDictionary}, a data utworzenia to liczba nanosekund od epoki (UTC).
+ */
 public class Ticket {
     public enum Status {
         NOWE("Nowe"),
@@ -24,22 +36,87 @@ public class Ticket {
         public String toString() { return displayName; }
     }
 
+    /**
+     * Zmienna część zgłoszenia: status i przypisany technik. Zmieniana w całości
+     * operacją compare-and-set, więc obu pól nigdy nie widać w niespójnym stanie.
+     */
+    public record State(Status status, String assignedTechnicianName) {
+        /** Stan nowego, nieprzypisanego zgłoszenia - wspólny dla wszystkich takich zgłoszeń. */
+        static final State NEW_UNASSIGNED = new State(Status.NOWE, null);
+
+        static State of(Status status, String assignedTechnicianName) {
+            if (status == Status.NOWE && assignedTechnicianName == null) {
+                return NEW_UNASSIGNED;
+            }
+            return new State(status, StringDictionary.intern(assignedTechnicianName));
+        }
+
+        public boolean isAssigned() {
+            return assignedTechnicianName != null && !assignedTechnicianName.trim().isEmpty();
+        }
+
+        public boolean isActive() {
+            return status != Status.ZAMKNIETE;
+        }
+    }
+
+    /** Format ID: TKT- i od 5 cyfr (dotychczasowe TKT-XXXXX) do 18 cyfr (numery z {@link TicketIdAllocator}). */
+    private static final Pattern TICKET_ID_PATTERN = Pattern.compile("TKT-\\d{5,18}");
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
     private final String ticketId;
-    private final String title;
-    private final String description;
+    private final byte[] title;
+    private final byte[] description;
     private final String reporterName;
     private final String reporterEmail;
     private final Priority priority;
-    private final LocalDateTime createdAt;
-    private Status status;
-    private String assignedTechnicianName;
+    private final long createdAtNanos;
+    private final AtomicReference<State> state;
 
 
     public Ticket(String ticketId, String title, String description,
                   String reporterName, String reporterEmail, Priority priority) {
-        if (ticketId == null || !ticketId.matches("TKT-\\d{5}")) {
-            throw new IllegalArgumentException("ID zgłoszenia musi mieć format TKT-XXXXX (5 cyfr)");
+        this(ticketId, title, description, reporterName, reporterEmail, priority,
+                Status.NOWE, null, LocalDateTime.now());
+    }
+
+    /**
+     * Odtwarza zgłoszenie z zapisanego stanu (plik JSON lub dziennik zmian).
+     */
+    public Ticket(String ticketId, String title, String description,
+                  String reporterName, String reporterEmail, Priority priority,
+                  Status status, String assignedTechnicianName, LocalDateTime createdAt) {
+        if (ticketId == null || !TICKET_ID_PATTERN.matcher(ticketId).matches()) {
+            throw new IllegalArgumentException("ID zgłoszenia musi mieć format TKT-XXXXX (co najmniej 5 cyfr)");
         }
+        validateFields(title, description, reporterName, reporterEmail, priority);
+        if (status == null) {
+            throw new IllegalArgumentException("Status nie może być null !");
+        }
+        if (createdAt == null) {
+            throw new IllegalArgumentException("Data utworzenia nie może być null !");
+        }
+        if (createdAt.getYear() < 1678 || createdAt.getYear() > 2261) {
+            throw new IllegalArgumentException("Data utworzenia poza obsługiwanym zakresem !");
+        }
+
+        this.ticketId = ticketId;
+        this.title = title.getBytes(StandardCharsets.UTF_8);
+        this.description = description.getBytes(StandardCharsets.UTF_8);
+        this.reporterName = StringDictionary.intern(reporterName);
+        this.reporterEmail = StringDictionary.intern(reporterEmail);
+        this.priority = priority;
+        this.createdAtNanos = toEpochNanos(createdAt);
+        this.state = new AtomicReference<>(State.of(status, assignedTechnicianName));
+    }
+
+    /**
+     * Sprawdza pola podawane przy tworzeniu zgłoszenia, zanim zostanie mu przydzielony identyfikator.
+     *
+     * @throws IllegalArgumentException z tym samym komunikatem, co konstruktor
+     */
+    static void validateFields(String title, String description, String reporterName, String reporterEmail,
+                               Priority priority) {
         if (title == null || title.trim().isEmpty()) {
             throw new IllegalArgumentException("Tytuł zgłoszenia nie może być pusty !");
         }
@@ -55,55 +132,113 @@ public class Ticket {
         if (priority == null) {
             throw new IllegalArgumentException("Priorytet nie może być null !");
         }
-
-        this.ticketId = ticketId;
-        this.title = title;
-        this.description = description;
-        this.reporterName = reporterName;
-        this.reporterEmail = reporterEmail;
-        this.priority = priority;
-        this.createdAt = LocalDateTime.now();
-        this.status = Status.NOWE;
     }
 
     public void assignToTechnician(String technicianName) {
-        if (status == Status.ZAMKNIETE) {
-            throw new IllegalStateException("Nie można przypisać zamkniętego zgłoszenia");
-        }
         if (technicianName == null || technicianName.trim().isEmpty()) {
             throw new IllegalArgumentException("Nazwa technika nie może być pusta");
         }
-        this.assignedTechnicianName = technicianName;
-        this.status = Status.W_TRAKCIE;
-
+        State next = State.of(Status.W_TRAKCIE, technicianName);
+        while (true) {
+            State current = state.get();
+            if (current.status() == Status.ZAMKNIETE) {
+                throw new IllegalStateException("Nie można przypisać zamkniętego zgłoszenia");
+            }
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+        }
     }
 
 
 
     public void close() {
+        state.updateAndGet(current -> current.status() == Status.ZAMKNIETE
+                ? current
+                : State.of(Status.ZAMKNIETE, current.assignedTechnicianName()));
+    }
 
-        this.status = Status.ZAMKNIETE;
+    /**
+     * Przypisuje zgłoszenie tylko wtedy, gdy jest nowe i nieprzypisane.
+     *
+     * @return true, jeśli to wywołanie przypisało zgłoszenie; false, jeśli ktoś był szybszy
+     */
+    public boolean assignIfNew(String technicianName) {
+        if (technicianName == null || technicianName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Nazwa technika nie może być pusta");
+        }
+        State current = state.get();
+        if (current.status() != Status.NOWE || current.isAssigned()) {
+            return false;
+        }
+        return state.compareAndSet(current, State.of(Status.W_TRAKCIE, technicianName));
+    }
 
+    /**
+     * Zamyka zgłoszenie tylko wtedy, gdy jest aktywne i przypisane do podanego technika.
+     *
+     * @return true, jeśli to wywołanie zamknęło zgłoszenie
+     */
+    public boolean closeIfAssignedTo(String technicianName) {
+        // Bez tego nieprzypisane zgłoszenie (technik null) zamykałby każdy, kto poda null
+        if (technicianName == null || technicianName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Nazwa technika nie może być pusta");
+        }
+        State current = state.get();
+        if (!current.isActive() || !Objects.equals(current.assignedTechnicianName(), technicianName)) {
+            return false;
+        }
+        return state.compareAndSet(current, State.of(Status.ZAMKNIETE, technicianName));
+    }
+
+    /**
+     * Zmienia stan, jeśli bieżący stan jest dokładnie tym oczekiwanym (ta sama instancja).
+     * Bez publicznego dostępu - zmiana z pominięciem {@link TicketSystem} nie trafiłaby do indeksów
+     * ani do dziennika.
+     *
+     * @return true, jeśli zmiana się powiodła
+     */
+    boolean compareAndSetState(State expected, State next) {
+        if (next == null || next.status() == null) {
+            throw new IllegalArgumentException("Nowy stan zgłoszenia nie może być pusty");
+        }
+        return state.compareAndSet(expected, next);
+    }
+
+    public State getState() {
+        return state.get();
     }
 
     public boolean isAssigned() {
-        return assignedTechnicianName != null && !assignedTechnicianName.trim().isEmpty();
+        return state.get().isAssigned();
     }
 
     public boolean isActive() {
-        return status != Status.ZAMKNIETE;
+        return state.get().isActive();
     }
 
     // Gettery
     public String getTicketId() { return ticketId; }
-    public String getTitle() { return title; }
-    public String getDescription() { return description; }
+    /** Dekoduje tytuł przy każdym wywołaniu - zapis do plików korzysta z {@link #titleUtf8()}. */
+    public String getTitle() { return new String(title, StandardCharsets.UTF_8); }
+    /** Dekoduje opis przy każdym wywołaniu - zapis do plików korzysta z {@link #descriptionUtf8()}. */
+    public String getDescription() { return new String(description, StandardCharsets.UTF_8); }
+
+    /** Tytuł w przechowywanej postaci UTF-8, bez kopiowania; tablicy nie wolno zmieniać. */
+    byte[] titleUtf8() { return title; }
+    /** Opis w przechowywanej postaci UTF-8, bez kopiowania; tablicy nie wolno zmieniać. */
+    byte[] descriptionUtf8() { return description; }
     public String getReporterName() { return reporterName; }
     public String getReporterEmail() { return reporterEmail; }
     public Priority getPriority() { return priority; }
-    public LocalDateTime getCreatedAt() { return createdAt; }
-    public Status getStatus() { return status; }
-    public String getAssignedTechnicianName() { return assignedTechnicianName; }
+    public LocalDateTime getCreatedAt() {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(createdAtNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(createdAtNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+    /** Data utworzenia jako liczba nanosekund od epoki (UTC) - do porównań bez tworzenia obiektów. */
+    public long getCreatedAtEpochNanos() { return createdAtNanos; }
+    public Status getStatus() { return state.get().status(); }
+    public String getAssignedTechnicianName() { return state.get().assignedTechnicianName(); }
 
 
     @Override
@@ -122,13 +257,28 @@ public class Ticket {
     @Override
     public String toString() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+        State current = state.get();
         return "Ticket{" +
                 "ticketId='" + ticketId + '\'' +
-                ", title='" + title + '\'' +
-                ", status=" + status +
+                ", title='" + getTitle() + '\'' +
+                ", status=" + current.status() +
                 ", priority=" + priority +
-                ", assignedTo='" + (assignedTechnicianName != null ? assignedTechnicianName : "brak") + '\'' +
-                ", created=" + createdAt.format(formatter) +
+                ", assignedTo='" + (current.assignedTechnicianName() != null ? current.assignedTechnicianName() : "brak") + '\'' +
+                ", created=" + getCreatedAt().format(formatter) +
                 '}';
     }
+
+    /**
+     * Liczba nanosekund od epoki (UTC); daty spoza zakresu long są zaokrąglane do jego granic.
+     */
+    public static long toEpochNanos(LocalDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        if (seconds >= Long.MAX_VALUE / NANOS_PER_SECOND) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds <= Long.MIN_VALUE / NANOS_PER_SECOND) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * NANOS_PER_SECOND + dateTime.getNano();
+    }
 }
@@ -0,0 +1,409 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Archiwum zamkniętych zgłoszeń w niezmiennych plikach segmentów.
+ * <p>
+ * Segment zawiera zgłoszenia utworzone w jednym miesiącu i po zapisaniu nie jest już zmieniany.
+ * Układ pliku:
+ * <pre>
+ * magic "TKTA" | wersja | rekordy (długość, dane, CRC32) | indeks (liczba, [numer, długość ID, pozycja]...) | stopka
+ * </pre>
+ * Stopka zawiera pozycję indeksu, sumę kontrolną indeksu i ponownie magic. Przy starcie
+ * wczytywane są tylko indeksy segmentów (posortowane numery zgłoszeń i pozycje rekordów),
+ * a samo zgłoszenie odczytywane jest z pliku dopiero przy wyszukaniu po ID.
+ * <p>
+ * Numer nie identyfikuje zgłoszenia jednoznacznie - TKT-00123 i TKT-000123 mają ten sam numer -
+ * dlatego indeks przechowuje też długość ID, która razem z numerem wyznacza pełny identyfikator.
+ * Segmenty w wersji 1 nie mają długości w indeksie; dla nich identyfikator jest porównywany
+ * z odczytanym rekordem.
+ */
+public class TicketArchive {
+    static final String ARCHIVE_DIRECTORY = "archive";
+    private static final int MAGIC = 0x544B5441; // "TKTA"
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_ID_LENGTH = 1;
+    private static final int FOOTER_SIZE = 16;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{4}-\\d{2})-(\\d+)\\.seg");
+
+    /**
+     * Otwarty segment z indeksem w pamięci.
+     */
+    private static final class Segment {
+        private final File file;
+        private final FileChannel channel;
+        private final long[] numbers;
+        /** Długości identyfikatorów; null dla segmentów w wersji 1. */
+        private final int[] idLengths;
+        private final long[] offsets;
+
+        Segment(File file, FileChannel channel, long[] numbers, int[] idLengths, long[] offsets) {
+            this.file = file;
+            this.channel = channel;
+            this.numbers = numbers;
+            this.idLengths = idLengths;
+            this.offsets = offsets;
+        }
+
+        /**
+         * Pozycja rekordu zgłoszenia o danym ID lub -1.
+         */
+        long offsetOf(String ticketId, long number) throws IOException {
+            if (numbers.length == 0 || number < numbers[0] || number > numbers[numbers.length - 1]) {
+                return -1;
+            }
+            int position = Arrays.binarySearch(numbers, number);
+            if (position < 0) {
+                return -1;
+            }
+            // Ten sam numer może mieć kilka identyfikatorów różniących się liczbą zer wiodących
+            while (position > 0 && numbers[position - 1] == number) {
+                position--;
+            }
+            for (; position < numbers.length && numbers[position] == number; position++) {
+                boolean matches = idLengths != null
+                        ? idLengths[position] == ticketId.length()
+                        : readRecord(channel, offsets[position]).getTicketId().equals(ticketId);
+                if (matches) {
+                    return offsets[position];
+                }
+            }
+            return -1;
+        }
+    }
+
+    private final File directory;
+    private final List<Segment> segments;
+    private final AtomicInteger nextSequence;
+
+    public TicketArchive() {
+        this(new File(ARCHIVE_DIRECTORY));
+    }
+
+    public TicketArchive(File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Katalog archiwum nie może być null");
+        }
+        this.directory = directory;
+        this.segments = new CopyOnWriteArrayList<>();
+        this.nextSequence = new AtomicInteger(1);
+        openSegments();
+    }
+
+    /**
+     * Liczba zarchiwizowanych zgłoszeń.
+     */
+    public final int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.numbers.length;
+        }
+        return size;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Najwyższy numer zarchiwizowanego zgłoszenia lub -1, jeśli archiwum jest puste.
+     */
+    public long getMaxTicketNumber() {
+        long max = -1;
+        for (Segment segment : segments) {
+            if (segment.numbers.length > 0) {
+                max = Math.max(max, segment.numbers[segment.numbers.length - 1]);
+            }
+        }
+        return max;
+    }
+
+    public boolean contains(String ticketId) {
+        long number = TicketIdAllocator.numberOf(ticketId);
+        if (number < 0) {
+            return false;
+        }
+        for (Segment segment : segments) {
+            try {
+                if (segment.offsetOf(ticketId, number) >= 0) {
+                    return true;
+                }
+            } catch (IOException e) {
+                System.err.println("Błąd podczas odczytu segmentu " + segment.file + ": " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wyszukuje zgłoszenie w archiwum, zaczynając od najnowszych segmentów.
+     */
+    public Optional<Ticket> find(String ticketId) {
+        long number = TicketIdAllocator.numberOf(ticketId);
+        if (number < 0) {
+            return Optional.empty();
+        }
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            try {
+                long offset = segment.offsetOf(ticketId, number);
+                if (offset >= 0) {
+                    return Optional.of(readRecord(segment.channel, offset));
+                }
+            } catch (IOException e) {
+                System.err.println("Błąd podczas odczytu segmentu " + segment.file + ": " + e.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Zapisuje zgłoszenia w nowych segmentach - po jednym na każdy miesiąc utworzenia.
+     *
+     * @return zgłoszenia, które zostały trwale zapisane; przy błędzie zapisu części
+     *         segmentów lista nie zawiera ich zgłoszeń
+     */
+    public List<Ticket> archive(Collection<Ticket> tickets) {
+        Map<YearMonth, List<Ticket>> byMonth = new TreeMap<>();
+        for (Ticket ticket : tickets) {
+            byMonth.computeIfAbsent(YearMonth.from(ticket.getCreatedAt()), key -> new ArrayList<>()).add(ticket);
+        }
+        if (!byMonth.isEmpty() && !directory.exists() && !directory.mkdirs()) {
+            System.err.println("Nie udało się utworzyć katalogu archiwum " + directory);
+            return new ArrayList<>();
+        }
+
+        List<Ticket> archived = new ArrayList<>();
+        for (Map.Entry<YearMonth, List<Ticket>> entry : byMonth.entrySet()) {
+            File file = new File(directory, "segment-" + entry.getKey() + "-"
+                    + String.format("%06d", nextSequence.getAndIncrement()) + ".seg");
+            try {
+                writeSegment(file, entry.getValue());
+                segments.add(openSegment(file));
+                archived.addAll(entry.getValue());
+            } catch (IOException e) {
+                System.err.println("Błąd podczas zapisywania segmentu " + file + ": " + e.getMessage());
+            }
+        }
+        return archived;
+    }
+
+    public void close() {
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                System.err.println("Błąd podczas zamykania segmentu " + segment.file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void openSegments() {
+        File[] files = directory.listFiles((dir, name) -> SEGMENT_NAME.matcher(name).matches());
+        if (files == null) {
+            return;
+        }
+        // Kolejność numerów segmentów, żeby nowsze segmenty były przeszukiwane jako pierwsze
+        Arrays.sort(files, Comparator.comparingInt(TicketArchive::sequenceOf));
+        for (File file : files) {
+            nextSequence.accumulateAndGet(sequenceOf(file) + 1, Math::max);
+            try {
+                segments.add(openSegment(file));
+            } catch (IOException e) {
+                System.err.println("Błąd podczas wczytywania segmentu " + file + ": " + e.getMessage());
+            }
+        }
+        if (!segments.isEmpty()) {
+            System.out.println("Archiwum: " + size() + " zgłoszeń w " + segments.size() + " segmentach.");
+        }
+    }
+
+    private static int sequenceOf(File file) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+        return matcher.matches() ? Integer.parseInt(matcher.group(2)) : 0;
+    }
+
+    private static void writeSegment(File file, List<Ticket> tickets) throws IOException {
+        List<Ticket> sorted = new ArrayList<>(tickets);
+        sorted.sort(Comparator.comparingLong((Ticket ticket) -> TicketIdAllocator.numberOf(ticket.getTicketId()))
+                .thenComparingInt(ticket -> ticket.getTicketId().length()));
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            long position = 5;
+
+            long[] offsets = new long[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                byte[] record = encode(sorted.get(i));
+                CRC32 crc = new CRC32();
+                crc.update(record);
+                offsets[i] = position;
+                out.writeInt(record.length);
+                out.write(record);
+                out.writeInt((int) crc.getValue());
+                position += 8 + record.length;
+            }
+
+            ByteArrayOutputStream indexBytes = new ByteArrayOutputStream(4 + sorted.size() * 20);
+            DataOutputStream index = new DataOutputStream(indexBytes);
+            index.writeInt(sorted.size());
+            for (int i = 0; i < sorted.size(); i++) {
+                String ticketId = sorted.get(i).getTicketId();
+                index.writeLong(TicketIdAllocator.numberOf(ticketId));
+                index.writeInt(ticketId.length());
+                index.writeLong(offsets[i]);
+            }
+            CRC32 indexCrc = new CRC32();
+            indexCrc.update(indexBytes.toByteArray());
+            indexBytes.writeTo(out);
+
+            out.writeLong(position);
+            out.writeInt((int) indexCrc.getValue());
+            out.writeInt(MAGIC);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Segment openSegment(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < 5 + 4 + FOOTER_SIZE) {
+                throw new IOException("plik jest za krótki");
+            }
+            int version = readFully(channel, 4, 1).get();
+            if (version != VERSION && version != VERSION_WITHOUT_ID_LENGTH) {
+                throw new IOException("nieobsługiwana wersja " + version);
+            }
+            ByteBuffer footer = readFully(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            int storedCrc = footer.getInt();
+            if (footer.getInt() != MAGIC || indexOffset < 5 || indexOffset > size - FOOTER_SIZE) {
+                throw new IOException("nieprawidłowa stopka");
+            }
+            ByteBuffer index = readFully(channel, indexOffset, (int) (size - FOOTER_SIZE - indexOffset));
+            CRC32 crc = new CRC32();
+            crc.update(index.duplicate());
+            if ((int) crc.getValue() != storedCrc) {
+                throw new IOException("niezgodna suma kontrolna indeksu");
+            }
+            boolean withIdLengths = version == VERSION;
+            int count = index.getInt();
+            if (count < 0 || index.remaining() != count * (withIdLengths ? 20L : 16L)) {
+                throw new IOException("nieprawidłowy indeks");
+            }
+            long[] numbers = new long[count];
+            int[] idLengths = withIdLengths ? new int[count] : null;
+            long[] offsets = new long[count];
+            for (int i = 0; i < count; i++) {
+                numbers[i] = index.getLong();
+                if (withIdLengths) {
+                    idLengths[i] = index.getInt();
+                }
+                offsets[i] = index.getLong();
+            }
+            return new Segment(file, channel, numbers, idLengths, offsets);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException io ? io : new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("nieoczekiwany koniec pliku");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static Ticket readRecord(FileChannel channel, long offset) throws IOException {
+        int length = readFully(channel, offset, 4).getInt();
+        if (length < 0 || offset + 8 + length > channel.size()) {
+            throw new IOException("nieprawidłowa długość rekordu");
+        }
+        ByteBuffer record = readFully(channel, offset + 4, length + 4);
+        byte[] data = new byte[length];
+        record.get(data);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if ((int) crc.getValue() != record.getInt()) {
+            throw new IOException("niezgodna suma kontrolna rekordu");
+        }
+        return decode(data);
+    }
+
+    private static byte[] encode(Ticket ticket) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, ticket.getTicketId());
+        writeUtf8(out, ticket.titleUtf8());
+        writeUtf8(out, ticket.descriptionUtf8());
+        writeString(out, ticket.getReporterName());
+        writeString(out, ticket.getReporterEmail());
+        out.writeByte(ticket.getPriority().ordinal());
+        out.writeByte(ticket.getStatus().ordinal());
+        String technician = ticket.getAssignedTechnicianName();
+        out.writeBoolean(technician != null);
+        if (technician != null) {
+            writeString(out, technician);
+        }
+        out.writeLong(ticket.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+        return bytes.toByteArray();
+    }
+
+    private static Ticket decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        String ticketId = readString(in);
+        String title = readString(in);
+        String description = readString(in);
+        String reporterName = readString(in);
+        String reporterEmail = readString(in);
+        Ticket.Priority priority = Ticket.Priority.values()[in.readUnsignedByte()];
+        Ticket.Status status = Ticket.Status.values()[in.readUnsignedByte()];
+        String technician = in.readBoolean() ? readString(in) : null;
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+        return new Ticket(ticketId, title, description, reporterName, reporterEmail, priority,
+                status, technician, createdAt);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeUtf8(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeUtf8(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new EOFException("nieoczekiwany koniec rekordu");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
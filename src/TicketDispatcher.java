@@ -0,0 +1,226 @@
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kolejka przydziału zgłoszeń dla techników.
+ * <p>
+ * Nieprzypisane zgłoszenia czekają w kolejce uporządkowanej według priorytetu
+ * (od krytycznych), a następnie daty utworzenia. Technik pobiera następne zgłoszenie
+ * metodą {@link #claimNext(String)} i dostaje na nie dzierżawę ograniczoną w czasie.
+ * Zatwierdzenie dzierżawy przypisuje zgłoszenie; dzierżawa, która wygaśnie, wraca do kolejki.
+ * Kolejka jest nieblokująca, więc wielu techników może pobierać zgłoszenia równocześnie,
+ * a każde zgłoszenie trafia tylko do jednego z nich.
+ */
+public class TicketDispatcher {
+    private static final long DEFAULT_LEASE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    static final Comparator<Ticket> DISPATCH_ORDER = Comparator
+            .comparing(Ticket::getPriority, Comparator.reverseOrder())
+            .thenComparingLong(Ticket::getCreatedAtEpochNanos)
+            .thenComparing(Ticket::getTicketId);
+
+    /**
+     * Dzierżawa zgłoszenia pobranego przez technika.
+     */
+    public static final class Lease implements Delayed {
+        private final long leaseId;
+        private final Ticket ticket;
+        private final String technicianName;
+        private final long expiresAtNanos;
+
+        private Lease(long leaseId, Ticket ticket, String technicianName, long expiresAtNanos) {
+            this.leaseId = leaseId;
+            this.ticket = ticket;
+            this.technicianName = technicianName;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        public Ticket getTicket() { return ticket; }
+        public String getTicketId() { return ticket.getTicketId(); }
+        public String getTechnicianName() { return technicianName; }
+
+        public boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos >= 0;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtNanos, ((Lease) other).expiresAtNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "Lease{" + ticket.getTicketId() + " -> " + technicianName + ", id=" + leaseId + '}';
+        }
+    }
+
+    private final TicketSystem ticketSystem;
+    private final long leaseNanos;
+    private final ConcurrentSkipListSet<Ticket> queue;
+    private final ConcurrentHashMap<String, Lease> leases;
+    private final DelayQueue<Lease> expirations;
+    private final AtomicLong leaseSequence;
+    private volatile Thread reaper;
+
+    public TicketDispatcher(TicketSystem ticketSystem) {
+        this(ticketSystem, DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * @param ticketSystem system, w którym zatwierdzane są przypisania
+     * @param leaseMillis  czas ważności dzierżawy w milisekundach
+     */
+    public TicketDispatcher(TicketSystem ticketSystem, long leaseMillis) {
+        if (ticketSystem == null) {
+            throw new IllegalArgumentException("System zgłoszeń nie może być null");
+        }
+        if (leaseMillis <= 0) {
+            throw new IllegalArgumentException("Czas dzierżawy musi być dodatni");
+        }
+        this.ticketSystem = ticketSystem;
+        this.leaseNanos = TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+        this.queue = new ConcurrentSkipListSet<>(DISPATCH_ORDER);
+        this.leases = new ConcurrentHashMap<>();
+        this.expirations = new DelayQueue<>();
+        this.leaseSequence = new AtomicLong();
+    }
+
+    /**
+     * Aktualizuje kolejkę po zmianie zgłoszenia: nieprzypisane aktywne zgłoszenie trafia
+     * do kolejki (o ile nie jest wydzierżawione), każde inne jest z niej usuwane.
+     */
+    void update(Ticket ticket) {
+        // Usunięcie po kluczu porządku zastępuje też poprzednią wersję zgłoszenia o tym samym ID
+        queue.remove(ticket);
+        if (ticket.isActive() && !ticket.isAssigned()) {
+            if (!leases.containsKey(ticket.getTicketId())) {
+                queue.add(ticket);
+            }
+        } else {
+            leases.remove(ticket.getTicketId());
+        }
+    }
+
+    /**
+     * Pobiera najpilniejsze oczekujące zgłoszenie i wydziela je technikowi na czas dzierżawy.
+     *
+     * @param technicianName technik pobierający zgłoszenie
+     * @return dzierżawa lub pusty wynik, jeśli kolejka jest pusta
+     */
+    public Optional<Lease> claimNext(String technicianName) {
+        if (!ticketSystem.hasTechnician(technicianName)) {
+            throw new IllegalArgumentException("Technik " + technicianName + " nie istnieje w systemie");
+        }
+        Ticket ticket;
+        while ((ticket = queue.pollFirst()) != null) {
+            // Pomijaj zgłoszenia, które w międzyczasie zostały przypisane lub zamknięte
+            if (ticket.isActive() && !ticket.isAssigned()) {
+                Lease lease = new Lease(leaseSequence.incrementAndGet(), ticket, technicianName,
+                        System.nanoTime() + leaseNanos);
+                leases.put(ticket.getTicketId(), lease);
+                expirations.add(lease);
+                startReaperIfNeeded();
+                return Optional.of(lease);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Najpilniejsze oczekujące zgłoszenie bez pobierania go z kolejki; null, jeśli kolejka jest pusta.
+     */
+    Ticket peekNext() {
+        for (Ticket ticket : queue) {
+            if (ticket.isActive() && !ticket.isAssigned()) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Zatwierdza dzierżawę, przypisując zgłoszenie technikowi. Dzierżawa trwa do końca przypisania;
+     * jeśli przypisanie się nie powiedzie, zgłoszenie wraca do kolejki.
+     *
+     * @throws IllegalStateException    jeśli dzierżawa wygasła lub zgłoszenie zostało już przypisane
+     * @throws IllegalArgumentException jeśli technik lub zgłoszenie nie istnieje
+     */
+    public Ticket confirm(Lease lease) {
+        if (lease == null) {
+            throw new IllegalArgumentException("Dzierżawa nie może być null");
+        }
+        if (lease.isExpired() || leases.get(lease.getTicketId()) != lease) {
+            throw new IllegalStateException("Dzierżawa zgłoszenia " + lease.getTicketId() + " wygasła");
+        }
+        boolean assigned = false;
+        try {
+            // Udane przypisanie usuwa dzierżawę przez update()
+            assigned = ticketSystem.assignTicketIfNew(lease.getTicketId(), lease.getTechnicianName()).isPresent();
+        } finally {
+            if (!assigned) {
+                release(lease);
+            }
+        }
+        if (!assigned) {
+            throw new IllegalStateException("Zgłoszenie " + lease.getTicketId() + " zostało już obsłużone");
+        }
+        return lease.getTicket();
+    }
+
+    /**
+     * Zwalnia dzierżawę przed czasem - zgłoszenie wraca do kolejki.
+     */
+    public void release(Lease lease) {
+        if (lease != null && leases.remove(lease.getTicketId(), lease)) {
+            update(lease.getTicket());
+        }
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public int getLeasedCount() {
+        return leases.size();
+    }
+
+    private void startReaperIfNeeded() {
+        if (reaper == null) {
+            synchronized (this) {
+                if (reaper == null) {
+                    Thread thread = new Thread(this::reapExpiredLeases, "dispatcher-lease-reaper");
+                    thread.setDaemon(true);
+                    thread.start();
+                    reaper = thread;
+                }
+            }
+        }
+    }
+
+    /**
+     * Zwraca do kolejki zgłoszenia z wygasłych, niezatwierdzonych dzierżaw.
+     */
+    private void reapExpiredLeases() {
+        try {
+            while (true) {
+                Lease lease = expirations.take();
+                if (leases.remove(lease.getTicketId(), lease)) {
+                    update(lease.getTicket());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
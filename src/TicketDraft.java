@@ -0,0 +1,12 @@
+/**
+ * Dane nowego zgłoszenia przed walidacją, np. z importu alertów lub bramki pocztowej.
+ * Identyfikator jest opcjonalny - jeśli go brak, system przydziela kolejny wolny.
+ */
+public record TicketDraft(String ticketId, String title, String description,
+                          String reporterName, String reporterEmail, Ticket.Priority priority) {
+
+    public TicketDraft(String title, String description, String reporterName,
+                       String reporterEmail, Ticket.Priority priority) {
+        this(null, title, description, reporterName, reporterEmail, priority);
+    }
+}
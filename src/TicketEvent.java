@@ -0,0 +1,58 @@
+import java.time.LocalDateTime;
+
+/**
+ * Zdarzenie domenowe systemu zgłoszeń, publikowane przez {@link TicketSystem} w {@link TicketEventBus}
+ * po zatwierdzeniu zmiany. Zdarzenia są niezmienne i niosą kopię potrzebnych danych, więc subskrybent
+ * nie musi ponownie odczytywać zgłoszenia, które w międzyczasie mogło się zmienić.
+ */
+public sealed interface TicketEvent {
+
+    LocalDateTime occurredAt();
+
+    /**
+     * Nowe zgłoszenie. Niesie niezmienną kopię zgłoszenia z chwili dodania, w tym jego stan
+     * ({@link Ticket.State}), a nie samo zgłoszenie, które mogło się już zmienić.
+     *
+     * @param createdAt data utworzenia zgłoszenia
+     */
+    record TicketCreated(String ticketId, String title, String reporterName, Ticket.Priority priority,
+                         Ticket.State state, LocalDateTime createdAt, LocalDateTime occurredAt)
+            implements TicketEvent {
+        TicketCreated(Ticket ticket) {
+            this(ticket.getTicketId(), ticket.getTitle(), ticket.getReporterName(), ticket.getPriority(),
+                    ticket.getState(), ticket.getCreatedAt(), LocalDateTime.now());
+        }
+
+        /**
+         * Czy zgłoszenie wymaga natychmiastowej uwagi (priorytet wysoki lub krytyczny).
+         */
+        public boolean isHighPriority() {
+            return priority == Ticket.Priority.WYSOKI || priority == Ticket.Priority.KRYTYCZNY;
+        }
+    }
+
+    record TicketAssigned(String ticketId, String technicianName, LocalDateTime occurredAt) implements TicketEvent {
+        TicketAssigned(String ticketId, String technicianName) {
+            this(ticketId, technicianName, LocalDateTime.now());
+        }
+    }
+
+    record TicketClosed(String ticketId, LocalDateTime occurredAt) implements TicketEvent {
+        TicketClosed(String ticketId) {
+            this(ticketId, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Zgłoszenie przekroczyło termin SLA - publikowane przez {@link SlaMonitor}.
+     */
+    record SlaBreached(String ticketId, Ticket.Priority priority, SlaPolicy.Kind kind, LocalDateTime deadline,
+                       LocalDateTime occurredAt) implements TicketEvent {
+    }
+
+    record TechnicianRemoved(String technicianName, LocalDateTime occurredAt) implements TicketEvent {
+        TechnicianRemoved(String technicianName) {
+            this(technicianName, LocalDateTime.now());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Asynchroniczna szyna zdarzeń {@link TicketEvent}.
+ * <p>
+ * Każdy subskrybent ma własną ograniczoną kolejkę i własny wątek wirtualny. Publikacja tylko wstawia
+ * zdarzenie do kolejek i nigdy nie czeka: gdy kolejka wolnego subskrybenta jest pełna, nowe zdarzenie
+ * jest dla niego pomijane i zliczane ({@code events.dropped}), więc wolny subskrybent nie spowalnia
+ * operacji na zgłoszeniach ani pozostałych subskrybentów.
+ * <p>
+ * Zdarzenia dostarczane są paczkami - wszystko, co czeka w kolejce. Subskrybent z interwałem
+ * zestawienia po każdej dostawie czeka podany czas, więc pierwsze zdarzenie po przerwie trafia do niego
+ * od razu, a przy nawale zdarzeń dostaje jedno zestawienie na interwał.
+ */
+public class TicketEventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1024;
+    /** Co ile wątek subskrybenta sprawdza, czy ma zakończyć pracę. */
+    private static final long POLL_MILLIS = 100;
+
+    private static final LongAdder PUBLISHED = Metrics.counter("events.published");
+    private static final LongAdder DROPPED = Metrics.counter("events.dropped");
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Subskrypcja każdego zdarzenia, z domyślną pojemnością kolejki i bez zestawień.
+     */
+    public Subscription subscribe(String name, Consumer<TicketEvent> handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Obsługa zdarzeń nie może być null");
+        }
+        return subscribe(name, event -> true, DEFAULT_CAPACITY, Duration.ZERO, events -> events.forEach(handler));
+    }
+
+    /**
+     * @param name           nazwa subskrybenta, używana w nazwie wątku i metryce {@code events.<name>}
+     * @param filter         zdarzenia przyjmowane do kolejki; sprawdzany w wątku publikującym, więc musi być tani
+     * @param capacity       pojemność kolejki
+     * @param digestInterval minimalny odstęp między dostawami; {@link Duration#ZERO} - dostawa od razu
+     * @param handler        obsługa paczki zdarzeń w kolejności publikacji
+     */
+    public Subscription subscribe(String name, Predicate<? super TicketEvent> filter, int capacity,
+                                  Duration digestInterval, Consumer<List<TicketEvent>> handler) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Nazwa subskrybenta nie może być pusta");
+        }
+        if (filter == null || handler == null) {
+            throw new IllegalArgumentException("Filtr i obsługa zdarzeń nie mogą być null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Pojemność kolejki musi być dodatnia");
+        }
+        if (digestInterval == null || digestInterval.isNegative()) {
+            throw new IllegalArgumentException("Interwał zestawienia nie może być ujemny");
+        }
+        if (closed) {
+            throw new IllegalStateException("Szyna zdarzeń jest zamknięta");
+        }
+        Subscription subscription = new Subscription(name, filter, capacity, digestInterval, handler);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * Przekazuje zdarzenie wszystkim subskrybentom, bez czekania na ich obsługę.
+     */
+    public void publish(TicketEvent event) {
+        if (event == null) {
+            throw new IllegalArgumentException("Zdarzenie nie może być null");
+        }
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        PUBLISHED.increment();
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Łączna liczba zdarzeń oczekujących w kolejkach subskrybentów.
+     */
+    public int getQueuedCount() {
+        int queued = 0;
+        for (Subscription subscription : subscriptions) {
+            queued += subscription.getQueuedCount();
+        }
+        return queued;
+    }
+
+    /**
+     * Kończy wszystkie subskrypcje; zdarzenia oczekujące w kolejkach są jeszcze dostarczane.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    /**
+     * Subskrypcja: kolejka zdarzeń i wątek, który je dostarcza.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final String name;
+        private final Predicate<? super TicketEvent> filter;
+        private final BlockingQueue<TicketEvent> queue;
+        private final long digestIntervalNanos;
+        private final Consumer<List<TicketEvent>> handler;
+        private final Metrics.Operation delivery;
+        private final LongAdder dropped = new LongAdder();
+        private volatile boolean stopping;
+        private Thread thread;
+
+        private Subscription(String name, Predicate<? super TicketEvent> filter, int capacity,
+                             Duration digestInterval, Consumer<List<TicketEvent>> handler) {
+            this.name = name;
+            this.filter = filter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.digestIntervalNanos = digestInterval.toNanos();
+            this.handler = handler;
+            this.delivery = Metrics.operation("events." + name);
+        }
+
+        private void start() {
+            thread = Thread.ofVirtual().name("zdarzenia-" + name).start(this::deliverLoop);
+        }
+
+        private void offer(TicketEvent event) {
+            if (!filter.test(event)) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                dropped.increment();
+                DROPPED.increment();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getQueuedCount() {
+            return queue.size();
+        }
+
+        /**
+         * Liczba zdarzeń pominiętych z powodu pełnej kolejki.
+         */
+        public long getDroppedCount() {
+            return dropped.sum();
+        }
+
+        /**
+         * Kończy subskrypcję po dostarczeniu zdarzeń, które są już w kolejce.
+         */
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+            stopping = true;
+            try {
+                thread.join(Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void deliverLoop() {
+            try {
+                while (true) {
+                    TicketEvent first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        if (stopping) {
+                            return;
+                        }
+                        continue;
+                    }
+                    List<TicketEvent> batch = new ArrayList<>();
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    deliver(batch);
+                    if (digestIntervalNanos > 0) {
+                        pause(digestIntervalNanos);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void deliver(List<TicketEvent> batch) {
+            try {
+                delivery.run(() -> handler.accept(batch));
+            } catch (RuntimeException e) {
+                System.err.println("Błąd podczas obsługi zdarzeń przez " + name + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * Odstęp do następnej dostawy, skracany przy zamykaniu subskrypcji.
+         */
+        private void pause(long nanos) throws InterruptedException {
+            long deadline = System.nanoTime() + nanos;
+            long remaining;
+            while (!stopping && (remaining = deadline - System.nanoTime()) > 0) {
+                Thread.sleep(Math.min(TimeUnit.NANOSECONDS.toMillis(remaining) + 1, POLL_MILLIS));
+            }
+        }
+    }
+}
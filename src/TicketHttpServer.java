@@ -0,0 +1,565 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serwer HTTP udostępniający operacje {@link TicketService} jako API JSON.
+ * <p>
+ * Każde żądanie obsługiwane jest w osobnym wątku wirtualnym, więc oczekiwanie na zapis dziennika
+ * czy wolnego klienta nie blokuje wątków platformy - serwer utrzymuje tysiące równoczesnych połączeń.
+ * Odpowiedzi zapisywane są strumieniowo przez {@link JsonWriter}, w tym samym formacie zgłoszenia
+ * co plik {@code tickets.json}.
+ * <pre>
+ *   GET    /tickets                    lista zgłoszeń (parametry poniżej)
+ *   POST   /tickets                    nowe zgłoszenie: title, description, reporterName, reporterEmail, priority
+ *   GET    /tickets/{id}               zgłoszenie
+ *   POST   /tickets/{id}/assign        przypisanie: {"technician": "..."}
+ *   POST   /tickets/{id}/close         zamknięcie
+ *   GET    /technicians                lista techników
+ *   POST   /technicians                nowy technik: {"name": "..."}
+ *   DELETE /technicians/{name}         usunięcie technika
+ *   GET    /changes?epoch=E&from=N     zmiany od offsetu N ({@code limit}, {@code wait} - ms oczekiwania na nowe);
+ *                                      409, gdy strumień jest już w innej epoce - trzeba pobrać pełny stan
+ *   GET    /changes/state              pełny stan, epoka i offset, od którego czytać zmiany;
+ *                                      oba zasoby zmian zwracają 501 w systemie podzielonym na partycje
+ *   GET    /metrics                    raport metryk (tekst)
+ *   GET    /ready                      gotowość: 200 po wczytaniu stanu, wcześniej 503 z postępem
+ * </pre>
+ * Operacje zmieniające stan odpowiadają dopiero po trwałym zapisie zmiany; jeśli zapisu nie da się wykonać,
+ * odpowiedzią jest 503, a zmiana pozostaje w pamięci (zob. {@link WriteNotDurableException}).
+ * Na replice ({@link ReplicationFollower}) operacje zmieniające stan kończą się kodem 409, a {@code /ready}
+ * zwraca 503 do pobrania pierwszego pełnego stanu od instancji głównej.
+ * Do końca wczytywania stanu w tle ({@link TicketSystem#openLazily()}) żądania inne niż odczyt zgłoszenia
+ * po ID, {@code /metrics} i {@code /ready} czekają na gotowość systemu.
+ * Lista bez filtrów jest stronicowana kursorem ({@code sort}, {@code pageSize}, {@code cursor},
+ * {@code active=true}). Z filtrami ({@code status}, {@code technician}, {@code unassigned=true},
+ * {@code minPriority}, {@code maxPriority}, {@code from}, {@code to}) wykonywane jest zapytanie
+ * {@link TicketQuery} z limitem {@code limit}; wartości list rozdziela się przecinkami.
+ * <p>
+ * API nie ma uwierzytelniania, więc domyślnie serwer nasłuchuje tylko na adresie lokalnym - jak
+ * {@link ReplicationLeader}. Na innym adresie trzeba go uruchomić jawnie.
+ * Serwer JDK wysyła nagłówki i treść odpowiedzi osobnymi zapisami; bez opcji JVM
+ * {@code -Dsun.net.httpserver.nodelay=true} (ustawianej przez {@code Main}) algorytm Nagle'a z opóźnionym
+ * ACK klienta wydłuża każde żądanie na utrzymanym połączeniu o ok. 40 ms.
+ */
+public class TicketHttpServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 4096;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final long MAX_CHANGES_WAIT_MILLIS = 30_000;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    private static final String TEXT_TYPE = "text/plain; charset=utf-8";
+
+    private static final Metrics.Operation REQUESTS = Metrics.operation("http.request");
+
+    /**
+     * Błąd obsługi żądania z kodem odpowiedzi HTTP.
+     */
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Zapisuje treść odpowiedzi JSON.
+     */
+    @FunctionalInterface
+    private interface Body {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    private final TicketService ticketService;
+    private final Json json;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Serwer nasłuchujący na adresie lokalnym.
+     *
+     * @param port port nasłuchu; 0 oznacza dowolny wolny port
+     */
+    public TicketHttpServer(TicketService ticketService, int port) throws IOException {
+        this(ticketService, InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * @param bindAddress adres nasłuchu; API nie ma uwierzytelniania - adres inny niż lokalny udostępnia
+     *                    zmiany stanu każdemu, kto ma dostęp do sieci
+     * @param port        port nasłuchu; 0 oznacza dowolny wolny port
+     */
+    public TicketHttpServer(TicketService ticketService, InetAddress bindAddress, int port) throws IOException {
+        if (ticketService == null) {
+            throw new IllegalArgumentException("Usługa systemu zgłoszeń nie może być null");
+        }
+        if (bindAddress == null) {
+            throw new IllegalArgumentException("Adres nasłuchu nie może być null");
+        }
+        this.ticketService = ticketService;
+        this.json = new Json();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/tickets", exchange -> handle(exchange, this::tickets));
+        server.createContext("/technicians", exchange -> handle(exchange, this::technicians));
+        server.createContext("/changes", exchange -> handle(exchange, this::changes));
+        server.createContext("/metrics", exchange -> handle(exchange, this::metrics));
+        server.createContext("/ready", exchange -> handle(exchange, this::ready));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Zatrzymuje serwer, dając trwającym żądaniom sekundę na zakończenie.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, List<String> path) throws IOException;
+    }
+
+    /**
+     * Wspólna obsługa żądań: podział ścieżki, pomiar czasu i zamiana wyjątków na kody HTTP.
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        long start = System.nanoTime();
+        try (exchange) {
+            try {
+                handler.handle(exchange, pathSegments(exchange));
+            } catch (CompletionException e) {
+                // Nieudany zapis zmiany zgłoszony przez jej przyszłość
+                sendFailure(exchange, e.getCause() instanceof RuntimeException cause ? cause : e);
+            } catch (RuntimeException e) {
+                sendFailure(exchange, e);
+            }
+        } finally {
+            REQUESTS.record(start);
+        }
+    }
+
+    private void sendFailure(HttpExchange exchange, RuntimeException failure) throws IOException {
+        switch (failure) {
+            case HttpError e -> sendError(exchange, e.status, e.getMessage());
+            case IllegalArgumentException e -> sendError(exchange, 400, e.getMessage());
+            case WriteNotDurableException e -> {
+                REQUESTS.failed();
+                System.err.println("Nieudany zapis zmiany z żądania " + exchange.getRequestURI() + ": " + e.getMessage());
+                sendError(exchange, 503, e.getMessage());
+            }
+            case IllegalStateException e -> sendError(exchange, 409, e.getMessage());
+            case UnsupportedOperationException e -> sendError(exchange, 501, e.getMessage());
+            default -> {
+                REQUESTS.failed();
+                System.err.println("Błąd podczas obsługi żądania " + exchange.getRequestURI() + ": " + failure);
+                sendError(exchange, 500, "Błąd wewnętrzny serwera");
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- /tickets
+
+    private void tickets(HttpExchange exchange, List<String> path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.size() == 1) {
+            switch (method) {
+                case "GET" -> listTickets(exchange);
+                case "POST" -> createTicket(exchange);
+                default -> throw methodNotAllowed(method);
+            }
+            return;
+        }
+        Ticket ticket = findTicket(path.get(1));
+        if (path.size() == 2 && method.equals("GET")) {
+            sendJson(exchange, 200, writer -> json.writeTicket(writer, ticket));
+        } else if (path.size() == 3 && method.equals("POST") && path.get(2).equals("assign")) {
+            String technician = readFields(exchange).get("technician");
+            if (technician == null || technician.isBlank()) {
+                throw new IllegalArgumentException("Brak pola technician");
+            }
+            Ticket assigned = ticketService.assignTicket(ticket.getTicketId(), technician);
+            sendJson(exchange, 200, writer -> json.writeTicket(writer, assigned));
+        } else if (path.size() == 3 && method.equals("POST") && path.get(2).equals("close")) {
+            ticketService.closeTicket(ticket.getTicketId()).join();
+            Ticket closed = findTicket(ticket.getTicketId());
+            sendJson(exchange, 200, writer -> json.writeTicket(writer, closed));
+        } else if (path.size() == 3 && (path.get(2).equals("assign") || path.get(2).equals("close"))) {
+            throw methodNotAllowed(method);
+        } else {
+            throw new HttpError(404, "Nie znaleziono: " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private void createTicket(HttpExchange exchange) throws IOException {
+        Map<String, String> fields = readFields(exchange);
+        String priorityName = fields.get("priority");
+        Ticket.Priority priority = priorityName == null
+                ? Ticket.Priority.SREDNI : parseEnum(Ticket.Priority.class, priorityName, "priorytet");
+        // Walidacja przed przydziałem ID - odrzucone żądanie nie zużywa numeru zgłoszenia
+        Ticket.validateFields(fields.get("title"), fields.get("description"), fields.get("reporterName"),
+                fields.get("reporterEmail"), priority);
+        Ticket ticket = new Ticket(ticketService.nextTicketId(), fields.get("title"), fields.get("description"),
+                fields.get("reporterName"), fields.get("reporterEmail"), priority);
+        ticketService.addTicket(ticket).join();
+        exchange.getResponseHeaders().set("Location", "/tickets/" + ticket.getTicketId());
+        sendJson(exchange, 201, writer -> json.writeTicket(writer, ticket));
+    }
+
+    private void listTickets(HttpExchange exchange) throws IOException {
+        Map<String, String> params = queryParameters(exchange);
+        TicketSort sort = params.containsKey("sort")
+                ? parseEnum(TicketSort.class, params.get("sort"), "porządek") : TicketSort.CREATED_AT;
+
+        TicketQuery query = buildQuery(params, sort);
+        if (query != null) {
+            QueryResult result = ticketService.findTickets(query);
+            sendJson(exchange, 200, writer -> {
+                writer.beginObject();
+                writeTickets(writer, result.tickets());
+                writer.name("plan").value(result.plan());
+                writer.endObject();
+            });
+            return;
+        }
+        int pageSize = intParameter(params, "pageSize", DEFAULT_PAGE_SIZE);
+        String cursor = params.get("cursor");
+        TicketPage page = Boolean.parseBoolean(params.get("active"))
+                ? ticketService.listActiveTickets(sort, cursor, pageSize)
+                : ticketService.listTickets(sort, cursor, pageSize);
+        sendJson(exchange, 200, writer -> {
+            writer.beginObject();
+            writeTickets(writer, page.tickets());
+            writer.name("nextCursor").value(page.nextCursor());
+            writer.endObject();
+        });
+    }
+
+    /**
+     * Zapytanie z filtrów w parametrach lub null, jeśli żaden filtr nie został podany.
+     */
+    private TicketQuery buildQuery(Map<String, String> params, TicketSort sort) {
+        TicketQuery.Builder builder = TicketQuery.builder().sortBy(sort)
+                .limit(intParameter(params, "limit", DEFAULT_PAGE_SIZE));
+        boolean filtered = false;
+        if (params.containsKey("status")) {
+            List<Ticket.Status> statuses = new ArrayList<>();
+            for (String status : params.get("status").split(",")) {
+                statuses.add(parseEnum(Ticket.Status.class, status, "status"));
+            }
+            builder.status(statuses.get(0), statuses.subList(1, statuses.size()).toArray(new Ticket.Status[0]));
+            filtered = true;
+        }
+        if (params.containsKey("technician")) {
+            builder.technicians(params.get("technician").split(","));
+            filtered = true;
+        }
+        if (Boolean.parseBoolean(params.get("unassigned"))) {
+            builder.unassigned();
+            filtered = true;
+        }
+        if (params.containsKey("minPriority")) {
+            builder.minPriority(parseEnum(Ticket.Priority.class, params.get("minPriority"), "priorytet"));
+            filtered = true;
+        }
+        if (params.containsKey("maxPriority")) {
+            builder.maxPriority(parseEnum(Ticket.Priority.class, params.get("maxPriority"), "priorytet"));
+            filtered = true;
+        }
+        if (params.containsKey("from") || params.containsKey("to")) {
+            builder.createdBetween(dateParameter(params, "from"), dateParameter(params, "to"));
+            filtered = true;
+        }
+        return filtered ? builder.build() : null;
+    }
+
+    private Ticket findTicket(String ticketId) {
+        try {
+            return ticketService.findTicketById(ticketId);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(404, e.getMessage());
+        }
+    }
+
+    private void writeTickets(JsonWriter writer, List<Ticket> tickets) throws IOException {
+        writer.name("tickets").beginArray();
+        for (Ticket ticket : tickets) {
+            json.writeTicket(writer, ticket);
+        }
+        writer.endArray();
+    }
+
+    // ---------------------------------------------------------------- /technicians, /metrics
+
+    private void technicians(HttpExchange exchange, List<String> path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.size() == 1 && method.equals("GET")) {
+            List<String> technicians = ticketService.getAllTechnicians();
+            sendJson(exchange, 200, writer -> {
+                writer.beginArray();
+                for (String technician : technicians) {
+                    writer.value(technician);
+                }
+                writer.endArray();
+            });
+        } else if (path.size() == 1 && method.equals("POST")) {
+            String name = readFields(exchange).get("name");
+            ticketService.addTechnician(name).join();
+            sendJson(exchange, 201, writer -> writer.beginObject().name("name").value(name).endObject());
+        } else if (path.size() == 2 && method.equals("DELETE")) {
+            ticketService.removeTechnician(path.get(1)).join();
+            exchange.sendResponseHeaders(204, -1);
+        } else if (path.size() <= 2) {
+            throw methodNotAllowed(method);
+        } else {
+            throw new HttpError(404, "Nie znaleziono: " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    // ---------------------------------------------------------------- /changes
+
+    private void changes(HttpExchange exchange, List<String> path) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw methodNotAllowed(exchange.getRequestMethod());
+        }
+        if (path.size() == 2 && path.get(1).equals("state")) {
+            ChangeFeed.InitialState state = ticketService.getChangeFeedState();
+            sendJson(exchange, 200, writer -> {
+                writer.beginObject();
+                writeTickets(writer, state.tickets());
+                writer.name("technicians").beginArray();
+                for (String technician : state.technicians()) {
+                    writer.value(technician);
+                }
+                writer.endArray();
+                writer.name("epoch").value(state.epoch());
+                writer.name("nextOffset").value(state.nextOffset());
+                writer.endObject();
+            });
+            return;
+        }
+        if (path.size() != 1) {
+            throw new HttpError(404, "Nie znaleziono: " + exchange.getRequestURI().getPath());
+        }
+        Map<String, String> params = queryParameters(exchange);
+        // Bez epoki offset odnosi się do bieżącej; odbiorca zapamiętuje epokę z odpowiedzi
+        long epoch = params.containsKey("epoch") ? longParameter(params, "epoch", 0)
+                : ticketService.getChangeFeedEpoch();
+        long from = longParameter(params, "from", 0);
+        long wait = Math.min(longParameter(params, "wait", 0), MAX_CHANGES_WAIT_MILLIS);
+        List<ChangeFeed.Change> changes = ticketService.getChanges(epoch, from,
+                intParameter(params, "limit", MAX_PAGE_SIZE), wait);
+        long nextOffset = changes.isEmpty() ? from : changes.get(changes.size() - 1).offset() + 1;
+        sendJson(exchange, 200, writer -> {
+            writer.beginObject();
+            writer.name("changes").beginArray();
+            for (ChangeFeed.Change change : changes) {
+                writeChange(writer, change);
+            }
+            writer.endArray();
+            writer.name("epoch").value(epoch);
+            writer.name("nextOffset").value(nextOffset);
+            writer.endObject();
+        });
+    }
+
+    private void writeChange(JsonWriter writer, ChangeFeed.Change change) throws IOException {
+        writer.beginObject();
+        writer.name("offset").value(change.offset());
+        writer.name("type").value(change.type());
+        if (change.ticketId() != null) {
+            writer.name("ticketId").value(change.ticketId());
+        }
+        Ticket ticket = change.ticket();
+        if (ticket != null) {
+            writer.name("ticket");
+            json.writeTicket(writer, ticket);
+        } else if (change.technicianName() != null) {
+            writer.name("technician").value(change.technicianName());
+        }
+        writer.endObject();
+    }
+
+    private void metrics(HttpExchange exchange, List<String> path) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw methodNotAllowed(exchange.getRequestMethod());
+        }
+        send(exchange, 200, TEXT_TYPE, ticketService.getMetricsReport().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void ready(HttpExchange exchange, List<String> path) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw methodNotAllowed(exchange.getRequestMethod());
+        }
+        TicketSystem.StartupProgress progress = ticketService.getStartupProgress();
+        sendJson(exchange, progress.ready() ? 200 : 503, writer -> writer.beginObject()
+                .name("ready").value(progress.ready())
+                .name("loadedTickets").value(progress.loadedTickets())
+                .name("expectedTickets").value(progress.expectedTickets())
+                .name("percent").value(progress.percent())
+                .endObject());
+    }
+
+    // ---------------------------------------------------------------- żądania i odpowiedzi
+
+    /**
+     * Odczytuje obiekt JSON z treści żądania. Wartości niebędące tekstem są zapisywane jako tekst literału.
+     */
+    private static Map<String, String> readFields(HttpExchange exchange) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            if (reader.peek() == JsonReader.Token.END_DOCUMENT) {
+                return fields;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (reader.peek()) {
+                    case STRING, LITERAL -> fields.put(name, reader.nextStringOrNull());
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Nieprawidłowy JSON w treści żądania: " + e.getMessage());
+        }
+        return fields;
+    }
+
+    private static List<String> pathSegments(HttpExchange exchange) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : exchange.getRequestURI().getRawPath().split("/")) {
+            if (!segment.isEmpty()) {
+                // Jak URI.getPath(): tylko sekwencje %XX, '+' w ścieżce to zwykły znak (np. "C++")
+                segments.add(URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8));
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static int intParameter(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed <= 0 || parsed > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("Parametr " + name + " musi być z zakresu 1-" + MAX_PAGE_SIZE);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parametr " + name + " musi być liczbą: " + value);
+        }
+    }
+
+    private static long longParameter(Map<String, String> params, String name, long defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed < 0) {
+                throw new IllegalArgumentException("Parametr " + name + " nie może być ujemny");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parametr " + name + " musi być liczbą: " + value);
+        }
+    }
+
+    private static LocalDateTime dateParameter(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Parametr " + name + " musi mieć format RRRR-MM-DDTGG:MM:SS: " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String description) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nieznany " + description + ": " + value);
+        }
+    }
+
+    private static HttpError methodNotAllowed(String method) {
+        return new HttpError(405, "Metoda " + method + " nie jest obsługiwana");
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+        body.write(writer);
+        writer.close();
+        send(exchange, status, JSON_TYPE, bytes.toByteArray());
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, writer -> writer.beginObject().name("error").value(message).endObject());
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
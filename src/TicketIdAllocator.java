@@ -0,0 +1,175 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Przydział unikalnych, rosnących numerów zgłoszeń.
+ * <p>
+ * Numery rezerwowane są blokami: przed wydaniem pierwszego numeru z nowego bloku górna
+ * granica bloku zapisywana jest w pliku, więc po restarcie (także po awarii) przydział
+ * zaczyna się powyżej wszystkich wydanych wcześniej numerów. W obrębie bloku numer
+ * wydawany jest bez blokad.
+ * <p>
+ * Identyfikatory mają postać TKT- i od 5 do 18 cyfr; numery poniżej 100000 są
+ * dopełniane zerami, więc istniejące identyfikatory TKT-XXXXX pozostają poprawne.
+ */
+public class TicketIdAllocator {
+    static final String SEQUENCE_FILE = "ticket-ids.seq";
+    private static final String PREFIX = "TKT-";
+    private static final long FIRST_NUMBER = 10000;
+    private static final long DEFAULT_BLOCK_SIZE = 1000;
+    /** Największy numer mieszczący się w 18 cyfrach identyfikatora. */
+    static final long MAX_NUMBER = 999_999_999_999_999_999L;
+
+    /**
+     * Zarezerwowany zakres numerów [start, end) do samodzielnego wykorzystania przez wywołującego.
+     */
+    public record IdBlock(long start, long end) {
+        public int size() {
+            return (int) (end - start);
+        }
+
+        public String idAt(int offset) {
+            if (offset < 0 || offset >= size()) {
+                throw new IndexOutOfBoundsException("Poza zakresem bloku: " + offset);
+            }
+            return formatId(start + offset);
+        }
+    }
+
+    private final File file;
+    private final long blockSize;
+    private final AtomicLong next;
+    private volatile long reservedLimit;
+
+    public TicketIdAllocator() {
+        this(new File(SEQUENCE_FILE), DEFAULT_BLOCK_SIZE);
+    }
+
+    public TicketIdAllocator(File file) {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    public TicketIdAllocator(File file, long blockSize) {
+        if (file == null || blockSize <= 0) {
+            throw new IllegalArgumentException("Nieprawidłowa konfiguracja przydziału numerów");
+        }
+        this.file = file;
+        this.blockSize = blockSize;
+        long highWaterMark = readHighWaterMark();
+        this.next = new AtomicLong(highWaterMark);
+        this.reservedLimit = highWaterMark;
+    }
+
+    /**
+     * Zwraca kolejny wolny identyfikator zgłoszenia.
+     */
+    public String nextTicketId() {
+        long number = next.getAndIncrement();
+        checkNotExhausted(number);
+        if (number >= reservedLimit) {
+            reserveUpTo(number + 1);
+        }
+        return formatId(number);
+    }
+
+    /**
+     * Rezerwuje ciągły blok numerów, np. dla importu wielu zgłoszeń naraz.
+     */
+    public IdBlock reserveBlock(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Rozmiar bloku musi być dodatni");
+        }
+        long start = next.getAndAdd(size);
+        long end = start + size;
+        checkNotExhausted(end - 1);
+        if (end > reservedLimit) {
+            reserveUpTo(end);
+        }
+        return new IdBlock(start, end);
+    }
+
+    /**
+     * Zapewnia, że kolejne numery będą większe od numeru istniejącego zgłoszenia.
+     * Identyfikatory w innym formacie są ignorowane.
+     */
+    public void observe(String ticketId) {
+        long number = numberOf(ticketId);
+        if (number >= 0) {
+            next.accumulateAndGet(number + 1, Math::max);
+        }
+    }
+
+    private static void checkNotExhausted(long number) {
+        if (number > MAX_NUMBER) {
+            throw new IllegalStateException("Wyczerpano numery zgłoszeń - identyfikator miałby więcej niż 18 cyfr");
+        }
+    }
+
+    public static String formatId(long number) {
+        String digits = Long.toString(number);
+        if (digits.length() >= 5) {
+            return PREFIX + digits;
+        }
+        return PREFIX + "0".repeat(5 - digits.length()) + digits;
+    }
+
+    /**
+     * Numer zawarty w identyfikatorze lub -1, jeśli identyfikator ma inny format.
+     */
+    public static long numberOf(String ticketId) {
+        if (ticketId == null || !ticketId.startsWith(PREFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(ticketId, PREFIX.length(), ticketId.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Przesuwa i zapisuje górną granicę zarezerwowanych numerów, zanim którykolwiek z nich zostanie wydany.
+     */
+    private synchronized void reserveUpTo(long required) {
+        if (required <= reservedLimit) {
+            return;
+        }
+        long newLimit = Math.max(required, next.get()) + blockSize;
+        writeHighWaterMark(newLimit);
+        reservedLimit = newLimit;
+    }
+
+    private long readHighWaterMark() {
+        if (!file.exists()) {
+            return FIRST_NUMBER;
+        }
+        try {
+            return Math.max(FIRST_NUMBER, Long.parseLong(Files.readString(file.toPath(), StandardCharsets.UTF_8).trim()));
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Błąd podczas odczytu pliku " + file + ": " + e.getMessage());
+            return FIRST_NUMBER;
+        }
+    }
+
+    private void writeHighWaterMark(long value) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(Long.toString(value).getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nie udało się zapisać licznika zgłoszeń", e);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nie udało się zapisać licznika zgłoszeń", e);
+        }
+    }
+}
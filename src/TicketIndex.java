@@ -0,0 +1,83 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indeksy pomocnicze systemu zgłoszeń: zgłoszenia według technika, według statusu
+ * oraz zbiór zgłoszeń nieprzypisanych. Dzięki nim zapytania kosztują O(wyniku), a liczniki O(1).
+ * <p>
+ * Indeks opisuje bieżący stan zgłoszenia, dlatego przy każdej zmianie stanu zgłoszenie
+ * należy najpierw usunąć z indeksu ({@link #remove}), zmienić, a potem dodać ponownie ({@link #add}).
+ * Struktury są współbieżne; zmiany dotyczące jednego zgłoszenia serializuje {@link TicketSystem}.
+ */
+public class TicketIndex {
+    private final Map<String, Set<Ticket>> ticketsByTechnician;
+    private final Map<String, Set<Ticket>> activeByTechnician;
+    private final Map<Ticket.Status, Set<Ticket>> ticketsByStatus;
+    private final Set<Ticket> unassignedTickets;
+
+    public TicketIndex() {
+        this.ticketsByTechnician = new ConcurrentHashMap<>();
+        this.activeByTechnician = new ConcurrentHashMap<>();
+        this.ticketsByStatus = new EnumMap<>(Ticket.Status.class);
+        for (Ticket.Status status : Ticket.Status.values()) {
+            ticketsByStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+        this.unassignedTickets = ConcurrentHashMap.newKeySet();
+    }
+
+    public void add(Ticket ticket) {
+        Ticket.State state = ticket.getState();
+        ticketsByStatus.get(state.status()).add(ticket);
+        if (state.isAssigned()) {
+            String technician = state.assignedTechnicianName();
+            ticketsByTechnician.computeIfAbsent(technician, key -> ConcurrentHashMap.newKeySet()).add(ticket);
+            if (state.isActive()) {
+                activeByTechnician.computeIfAbsent(technician, key -> ConcurrentHashMap.newKeySet()).add(ticket);
+            }
+        } else {
+            unassignedTickets.add(ticket);
+        }
+    }
+
+    public void remove(Ticket ticket) {
+        Ticket.State state = ticket.getState();
+        ticketsByStatus.get(state.status()).remove(ticket);
+        if (state.isAssigned()) {
+            String technician = state.assignedTechnicianName();
+            removeFrom(ticketsByTechnician, technician, ticket);
+            removeFrom(activeByTechnician, technician, ticket);
+        } else {
+            unassignedTickets.remove(ticket);
+        }
+    }
+
+    public Collection<Ticket> getByTechnician(String technicianName) {
+        return ticketsByTechnician.getOrDefault(technicianName, Collections.emptySet());
+    }
+
+    public Collection<Ticket> getActiveByTechnician(String technicianName) {
+        return activeByTechnician.getOrDefault(technicianName, Collections.emptySet());
+    }
+
+    public Collection<Ticket> getByStatus(Ticket.Status status) {
+        return ticketsByStatus.get(status);
+    }
+
+    public Collection<Ticket> getUnassigned() {
+        return unassignedTickets;
+    }
+
+    public int getActiveCount() {
+        return ticketsByStatus.get(Ticket.Status.NOWE).size() + ticketsByStatus.get(Ticket.Status.W_TRAKCIE).size();
+    }
+
+    /**
+     * Pusty zbiór technika zostaje w mapie - usuwanie go mogłoby zgubić równoległe dodanie.
+     */
+    private static void removeFrom(Map<String, Set<Ticket>> index, String technician, Ticket ticket) {
+        Set<Ticket> set = index.get(technician);
+        if (set != null) {
+            set.remove(ticket);
+        }
+    }
+}
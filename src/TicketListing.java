@@ -0,0 +1,272 @@
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Uporządkowane widoki zgłoszeń do stronicowania bez kopiowania całej kolekcji.
+ * <p>
+ * Dla każdego porządku {@link TicketSort} utrzymywana jest posortowana mapa, w której
+ * kluczem jest samo zgłoszenie, porównywane po niezmiennych polach (priorytet, data
+ * utworzenia, numer) - zmiana statusu czy przypisania nie wymaga więc aktualizacji,
+ * a widoki nie tworzą osobnych obiektów kluczy. Kursor to zakodowana pozycja ostatniego
+ * zgłoszenia na stronie - następna strona zaczyna się zaraz za nią, nawet jeśli
+ * w międzyczasie dodano lub usunięto inne zgłoszenia.
+ */
+public class TicketListing {
+    private static final String CURSOR_SEPARATOR = "|";
+
+    /**
+     * Pozycja w porządku używana jako granica wycinka i w kursorze: grupa (odwrócony
+     * priorytet lub 0), czas w nanosekundach od epoki (0 dla porządku według ID) i ID.
+     */
+    private record SortKey(int group, long value, String ticketId) {
+    }
+
+    private static final Ticket.Priority[] PRIORITIES = Ticket.Priority.values();
+
+    private final Map<TicketSort, ConcurrentSkipListMap<Object, Ticket>> views;
+    private final AtomicIntegerArray countByPriority;
+
+    public TicketListing() {
+        this.views = new EnumMap<>(TicketSort.class);
+        for (TicketSort sort : TicketSort.values()) {
+            views.put(sort, new ConcurrentSkipListMap<>(order(sort)));
+        }
+        this.countByPriority = new AtomicIntegerArray(PRIORITIES.length);
+    }
+
+    public void add(Ticket ticket) {
+        views.forEach((sort, view) -> {
+            if (view.put(ticket, ticket) == null && sort == TicketSort.PRIORITY) {
+                countByPriority.incrementAndGet(ticket.getPriority().ordinal());
+            }
+        });
+    }
+
+    public void remove(Ticket ticket) {
+        views.forEach((sort, view) -> {
+            if (view.remove(ticket, ticket) && sort == TicketSort.PRIORITY) {
+                countByPriority.decrementAndGet(ticket.getPriority().ordinal());
+            }
+        });
+    }
+
+    public int size() {
+        return views.get(TicketSort.ID).size();
+    }
+
+    public int countByPriority(Ticket.Priority priority) {
+        return countByPriority.get(priority.ordinal());
+    }
+
+    /**
+     * Zgłoszenia utworzone w przedziale [from, to), w porządku {@link TicketSort#CREATED_AT}.
+     * Granica null oznacza brak ograniczenia z tej strony.
+     */
+    public Collection<Ticket> createdBetween(LocalDateTime from, LocalDateTime to) {
+        return views.get(TicketSort.CREATED_AT).subMap(lowerBound(0, from), upperBound(0, to)).values();
+    }
+
+    /**
+     * Zgłoszenia o priorytecie z przedziału [min, max] utworzone w przedziale [from, to),
+     * w porządku {@link TicketSort#PRIORITY}: kolejne kubełki priorytetów od najwyższego,
+     * w każdym wycinek według daty utworzenia.
+     */
+    public Iterable<Ticket> byPriority(Ticket.Priority min, Ticket.Priority max,
+                                       LocalDateTime from, LocalDateTime to) {
+        ConcurrentSkipListMap<Object, Ticket> view = views.get(TicketSort.PRIORITY);
+        List<Collection<Ticket>> buckets = new ArrayList<>();
+        int highest = max == null ? PRIORITIES.length - 1 : max.ordinal();
+        int lowest = min == null ? 0 : min.ordinal();
+        for (int ordinal = highest; ordinal >= lowest; ordinal--) {
+            int group = PRIORITIES.length - 1 - ordinal;
+            buckets.add(view.subMap(lowerBound(group, from), upperBound(group, to)).values());
+        }
+        return () -> buckets.stream().flatMap(Collection::stream).iterator();
+    }
+
+    /**
+     * Szacuje, jaka część zgłoszeń została utworzona w przedziale [from, to), zakładając
+     * równomierny rozkład dat między najstarszym a najnowszym zgłoszeniem. Koszt O(log n).
+     */
+    public double estimateCreatedFraction(LocalDateTime from, LocalDateTime to) {
+        ConcurrentSkipListMap<Object, Ticket> view = views.get(TicketSort.CREATED_AT);
+        Map.Entry<Object, Ticket> first = view.firstEntry();
+        Map.Entry<Object, Ticket> last = view.lastEntry();
+        if (first == null) {
+            return 0;
+        }
+        long min = first.getValue().getCreatedAtEpochNanos();
+        long max = last.getValue().getCreatedAtEpochNanos();
+        long start = from == null ? min : Math.max(min, Ticket.toEpochNanos(from));
+        long end = to == null ? max : Math.min(max, Ticket.toEpochNanos(to));
+        if (end < start) {
+            return 0;
+        }
+        if (max == min) {
+            return 1;
+        }
+        return Math.min(1.0, ((double) end - start) / ((double) max - min));
+    }
+
+    /**
+     * Porównanie zgłoszeń zgodne z kolejnością widoku danego porządku.
+     */
+    static Comparator<Ticket> comparator(TicketSort sort) {
+        Comparator<Object> order = order(sort);
+        return order::compare;
+    }
+
+    /**
+     * Zwraca stronę zgłoszeń spełniających warunek.
+     *
+     * @param sort     porządek
+     * @param filter   warunek; zgłoszenia, które go nie spełniają, są pomijane
+     * @param cursor   kursor z poprzedniej strony lub null dla pierwszej strony
+     * @param pageSize liczba zgłoszeń na stronie
+     */
+    public TicketPage page(TicketSort sort, Predicate<Ticket> filter, String cursor, int pageSize) {
+        if (sort == null || filter == null) {
+            throw new IllegalArgumentException("Porządek i warunek nie mogą być null");
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Rozmiar strony musi być dodatni");
+        }
+        ConcurrentNavigableMap<Object, Ticket> view = views.get(sort);
+        if (cursor != null) {
+            view = view.tailMap(decodeCursor(sort, cursor), false);
+        }
+
+        List<Ticket> tickets = new ArrayList<>(pageSize);
+        for (Ticket ticket : view.values()) {
+            if (!filter.test(ticket)) {
+                continue;
+            }
+            if (tickets.size() == pageSize) {
+                // Istnieje co najmniej jedno zgłoszenie na następnej stronie
+                return new TicketPage(tickets, encodeCursor(sort, keyOf(sort, tickets.get(pageSize - 1))));
+            }
+            tickets.add(ticket);
+        }
+        return new TicketPage(tickets, null);
+    }
+
+    /**
+     * Leniwy strumień zgłoszeń w danym porządku - nie tworzy kopii kolekcji.
+     * Strumień jest słabo spójny: może, ale nie musi, uwzględniać zmiany wprowadzane w trakcie przeglądania.
+     */
+    public Stream<Ticket> stream(TicketSort sort) {
+        if (sort == null) {
+            throw new IllegalArgumentException("Porządek nie może być null");
+        }
+        return views.get(sort).values().stream();
+    }
+
+    /**
+     * Kursor wskazujący pozycję tuż za zgłoszeniem; pasuje do każdego widoku w tym porządku.
+     */
+    static String cursorOf(TicketSort sort, Ticket ticket) {
+        return encodeCursor(sort, keyOf(sort, ticket));
+    }
+
+    private static SortKey keyOf(TicketSort sort, Ticket ticket) {
+        return new SortKey(group(sort, ticket), value(sort, ticket), ticket.getTicketId());
+    }
+
+    /**
+     * Porządek widoku. Porównuje zgłoszenia i pozycje {@link SortKey} (granice wycinków i kursory)
+     * na prostych polach, bez tworzenia obiektów.
+     */
+    private static Comparator<Object> order(TicketSort sort) {
+        return (a, b) -> {
+            int result = Integer.compare(group(sort, a), group(sort, b));
+            if (result == 0) {
+                result = Long.compare(value(sort, a), value(sort, b));
+            }
+            if (result == 0) {
+                result = sort == TicketSort.ID ? compareIdNumbers(ticketIdOf(a), ticketIdOf(b))
+                        : ticketIdOf(a).compareTo(ticketIdOf(b));
+            }
+            return result;
+        };
+    }
+
+    private static int group(TicketSort sort, Object position) {
+        if (position instanceof SortKey key) {
+            return key.group();
+        }
+        return sort == TicketSort.PRIORITY ? PRIORITIES.length - 1 - ((Ticket) position).getPriority().ordinal() : 0;
+    }
+
+    private static long value(TicketSort sort, Object position) {
+        if (position instanceof SortKey key) {
+            return key.value();
+        }
+        return sort == TicketSort.ID ? 0 : ((Ticket) position).getCreatedAtEpochNanos();
+    }
+
+    private static String ticketIdOf(Object position) {
+        return position instanceof SortKey key ? key.ticketId() : ((Ticket) position).getTicketId();
+    }
+
+    /**
+     * Porównuje identyfikatory TKT-... według wartości liczbowej numeru, bez jego parsowania.
+     * Pusty identyfikator granicy jest mniejszy od każdego innego.
+     */
+    private static int compareIdNumbers(String a, String b) {
+        int startA = firstSignificantDigit(a);
+        int startB = firstSignificantDigit(b);
+        int result = Integer.compare(a.length() - startA, b.length() - startB);
+        for (int i = 0; result == 0 && startA + i < a.length(); i++) {
+            result = Character.compare(a.charAt(startA + i), b.charAt(startB + i));
+        }
+        return result != 0 ? result : a.compareTo(b);
+    }
+
+    private static int firstSignificantDigit(String ticketId) {
+        int position = Math.min(4, ticketId.length());
+        while (position < ticketId.length() - 1 && ticketId.charAt(position) == '0') {
+            position++;
+        }
+        return position;
+    }
+
+    /** Pusty identyfikator jest mniejszy od każdego innego, więc granica wypada przed kluczami o tej wartości. */
+    private static SortKey lowerBound(int group, LocalDateTime from) {
+        return new SortKey(group, from == null ? Long.MIN_VALUE : Ticket.toEpochNanos(from), "");
+    }
+
+    private static SortKey upperBound(int group, LocalDateTime to) {
+        return to == null ? new SortKey(group + 1, Long.MIN_VALUE, "") : new SortKey(group, Ticket.toEpochNanos(to), "");
+    }
+
+    private static String encodeCursor(TicketSort sort, SortKey key) {
+        String raw = sort.name() + CURSOR_SEPARATOR + key.group() + CURSOR_SEPARATOR + key.value()
+                + CURSOR_SEPARATOR + key.ticketId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SortKey decodeCursor(TicketSort sort, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + CURSOR_SEPARATOR, 4);
+            if (parts.length != 4 || !parts[0].equals(sort.name())) {
+                throw new IllegalArgumentException("Kursor nie pasuje do porządku " + sort);
+            }
+            return new SortKey(Integer.parseInt(parts[1]), Long.parseLong(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nieprawidłowy kursor stronicowania: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+import java.util.List;
+
+/**
+ * Strona wyników listowania zgłoszeń.
+ *
+ * @param tickets    zgłoszenia na stronie
+ * @param nextCursor kursor następnej strony; null, jeśli to ostatnia strona
+ */
+public record TicketPage(List<Ticket> tickets, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
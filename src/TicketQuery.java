@@ -0,0 +1,209 @@
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Zapytanie o zgłoszenia: koniunkcja warunków, porządek i limit wyników.
+ * Tworzone budowniczym, np.
+ * <pre>
+ * TicketQuery.builder()
+ *         .status(Ticket.Status.NOWE)
+ *         .minPriority(Ticket.Priority.WYSOKI)
+ *         .createdBetween(od, do)
+ *         .technicians("Jan Kowalski", "Anna Nowak")
+ *         .sortBy(TicketSort.PRIORITY)
+ *         .limit(20)
+ *         .build();
+ * </pre>
+ * Warunek, którego nie ustawiono, nie ogranicza wyników. Sposób wykonania wybiera
+ * {@link TicketQueryEngine}.
+ */
+public final class TicketQuery {
+    private final Set<Ticket.Status> statuses;
+    private final Ticket.Priority minPriority;
+    private final Ticket.Priority maxPriority;
+    private final LocalDateTime createdFrom;
+    private final LocalDateTime createdTo;
+    private final long createdFromNanos;
+    private final long createdToNanos;
+    private final Set<String> technicians;
+    private final boolean unassignedOnly;
+    private final TicketSort sort;
+    private final int limit;
+
+    private TicketQuery(Builder builder) {
+        this.statuses = builder.statuses == null ? null : EnumSet.copyOf(builder.statuses);
+        this.minPriority = builder.minPriority;
+        this.maxPriority = builder.maxPriority;
+        this.createdFrom = builder.createdFrom;
+        this.createdTo = builder.createdTo;
+        this.createdFromNanos = createdFrom == null ? Long.MIN_VALUE : Ticket.toEpochNanos(createdFrom);
+        this.createdToNanos = createdTo == null ? Long.MAX_VALUE : Ticket.toEpochNanos(createdTo);
+        this.technicians = builder.technicians == null ? null
+                : Collections.unmodifiableSet(new LinkedHashSet<>(builder.technicians));
+        this.unassignedOnly = builder.unassignedOnly;
+        this.sort = builder.sort;
+        this.limit = builder.limit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Dozwolone statusy lub null, jeśli dowolny. */
+    public Set<Ticket.Status> getStatuses() { return statuses; }
+    public Ticket.Priority getMinPriority() { return minPriority; }
+    public Ticket.Priority getMaxPriority() { return maxPriority; }
+    /** Początek przedziału dat utworzenia (włącznie) lub null. */
+    public LocalDateTime getCreatedFrom() { return createdFrom; }
+    /** Koniec przedziału dat utworzenia (wyłącznie) lub null. */
+    public LocalDateTime getCreatedTo() { return createdTo; }
+    /** Dozwoleni technicy lub null, jeśli dowolny. */
+    public Set<String> getTechnicians() { return technicians; }
+    public boolean isUnassignedOnly() { return unassignedOnly; }
+    public TicketSort getSort() { return sort; }
+    /** Maksymalna liczba wyników; {@link Integer#MAX_VALUE}, jeśli bez limitu. */
+    public int getLimit() { return limit; }
+
+    public boolean hasPriorityRange() {
+        return minPriority != null || maxPriority != null;
+    }
+
+    public boolean hasDateRange() {
+        return createdFrom != null || createdTo != null;
+    }
+
+    /**
+     * Sprawdza wszystkie warunki na jednym, spójnym odczycie stanu zgłoszenia.
+     */
+    public boolean matches(Ticket ticket) {
+        Ticket.State state = ticket.getState();
+        if (statuses != null && !statuses.contains(state.status())) {
+            return false;
+        }
+        if (minPriority != null && ticket.getPriority().compareTo(minPriority) < 0) {
+            return false;
+        }
+        if (maxPriority != null && ticket.getPriority().compareTo(maxPriority) > 0) {
+            return false;
+        }
+        if (createdFrom != null && ticket.getCreatedAtEpochNanos() < createdFromNanos) {
+            return false;
+        }
+        if (createdTo != null && ticket.getCreatedAtEpochNanos() >= createdToNanos) {
+            return false;
+        }
+        if (technicians != null && !technicians.contains(state.assignedTechnicianName())) {
+            return false;
+        }
+        return !unassignedOnly || !state.isAssigned();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("TicketQuery{");
+        if (statuses != null) sb.append("status=").append(statuses).append(", ");
+        if (minPriority != null) sb.append("priorytet>=").append(minPriority).append(", ");
+        if (maxPriority != null) sb.append("priorytet<=").append(maxPriority).append(", ");
+        if (createdFrom != null) sb.append("od=").append(createdFrom).append(", ");
+        if (createdTo != null) sb.append("do=").append(createdTo).append(", ");
+        if (technicians != null) sb.append("technicy=").append(technicians).append(", ");
+        if (unassignedOnly) sb.append("nieprzypisane, ");
+        sb.append("sortowanie=").append(sort);
+        if (limit != Integer.MAX_VALUE) sb.append(", limit=").append(limit);
+        return sb.append('}').toString();
+    }
+
+    public static final class Builder {
+        private Set<Ticket.Status> statuses;
+        private Ticket.Priority minPriority;
+        private Ticket.Priority maxPriority;
+        private LocalDateTime createdFrom;
+        private LocalDateTime createdTo;
+        private Set<String> technicians;
+        private boolean unassignedOnly;
+        private TicketSort sort = TicketSort.CREATED_AT;
+        private int limit = Integer.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        public Builder status(Ticket.Status first, Ticket.Status... others) {
+            if (first == null) {
+                throw new IllegalArgumentException("Status nie może być null");
+            }
+            this.statuses = EnumSet.of(first, others);
+            return this;
+        }
+
+        public Builder minPriority(Ticket.Priority priority) {
+            this.minPriority = priority;
+            return this;
+        }
+
+        public Builder maxPriority(Ticket.Priority priority) {
+            this.maxPriority = priority;
+            return this;
+        }
+
+        /**
+         * @param from początek przedziału (włącznie) lub null
+         * @param to   koniec przedziału (wyłącznie) lub null
+         */
+        public Builder createdBetween(LocalDateTime from, LocalDateTime to) {
+            this.createdFrom = from;
+            this.createdTo = to;
+            return this;
+        }
+
+        public Builder technicians(String... technicianNames) {
+            return technicians(Arrays.asList(technicianNames));
+        }
+
+        public Builder technicians(Collection<String> technicianNames) {
+            if (technicianNames == null || technicianNames.isEmpty() || technicianNames.contains(null)) {
+                throw new IllegalArgumentException("Lista techników nie może być pusta ani zawierać null");
+            }
+            this.technicians = new LinkedHashSet<>(technicianNames);
+            return this;
+        }
+
+        public Builder unassigned() {
+            this.unassignedOnly = true;
+            return this;
+        }
+
+        public Builder sortBy(TicketSort sort) {
+            if (sort == null) {
+                throw new IllegalArgumentException("Porządek nie może być null");
+            }
+            this.sort = sort;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Limit wyników musi być dodatni");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public TicketQuery build() {
+            if (minPriority != null && maxPriority != null && minPriority.compareTo(maxPriority) > 0) {
+                throw new IllegalArgumentException("Minimalny priorytet nie może być wyższy od maksymalnego");
+            }
+            if (createdFrom != null && createdTo != null && createdFrom.isAfter(createdTo)) {
+                throw new IllegalArgumentException("Początek przedziału dat nie może być po jego końcu");
+            }
+            if (unassignedOnly && technicians != null) {
+                throw new IllegalArgumentException("Zapytanie nie może jednocześnie wymagać technika i braku przypisania");
+            }
+            return new TicketQuery(this);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Wykonuje zapytania {@link TicketQuery}, wybierając najtańszą ścieżkę dostępu.
+ * <p>
+ * Kandydaci to: indeksy techników, statusów i nieprzypisanych ({@link TicketIndex}),
+ * wycinek według daty utworzenia, kubełki priorytetów oraz pełny przegląd widoku
+ * w żądanym porządku ({@link TicketListing}). Liczność indeksów jest znana dokładnie,
+ * liczność przedziału dat szacowana z zakresu dat. Ścieżka, która zwraca zgłoszenia
+ * już w żądanym porządku, kończy się po zebraniu limitu wyników; pozostałe zbierają
+ * najlepsze wyniki w kopcu ograniczonym do limitu, bez sortowania wszystkich kandydatów.
+ */
+public class TicketQueryEngine {
+    /** Ścieżka wymagająca sortowania jest nieco droższa przy tej samej liczbie kandydatów. */
+    private static final double UNORDERED_PENALTY = 1.2;
+
+    private final TicketIndex index;
+    private final TicketListing listing;
+
+    public TicketQueryEngine(TicketIndex index, TicketListing listing) {
+        if (index == null || listing == null) {
+            throw new IllegalArgumentException("Indeksy nie mogą być null");
+        }
+        this.index = index;
+        this.listing = listing;
+    }
+
+    /**
+     * Ścieżka dostępu do kandydatów.
+     *
+     * @param description opis do planu zapytania
+     * @param estimate    szacowana liczba kandydatów
+     * @param ordered     czy kandydaci przychodzą w porządku zapytania
+     * @param source      dostarcza kandydatów
+     */
+    private record AccessPath(String description, long estimate, boolean ordered, Supplier<Iterable<Ticket>> source) {
+    }
+
+    public QueryResult execute(TicketQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Zapytanie nie może być null");
+        }
+        int total = Math.max(1, listing.size());
+        double selectivity = 1.0;
+        List<AccessPath> paths = new ArrayList<>();
+
+        if (query.getTechnicians() != null) {
+            // Gdy zapytanie dotyczy tylko aktywnych statusów, wystarczy mniejszy indeks aktywnych zgłoszeń technika
+            boolean activeOnly = query.getStatuses() != null && !query.getStatuses().contains(Ticket.Status.ZAMKNIETE);
+            Function<String, Collection<Ticket>> byTechnician = activeOnly
+                    ? index::getActiveByTechnician : index::getByTechnician;
+            long estimate = 0;
+            for (String technician : query.getTechnicians()) {
+                estimate += byTechnician.apply(technician).size();
+            }
+            paths.add(new AccessPath((activeOnly ? "indeks aktywnych zgłoszeń techników " : "indeks techników ")
+                    + query.getTechnicians(), estimate, false,
+                    () -> concat(query.getTechnicians().stream().map(byTechnician).toList())));
+            selectivity *= (double) estimate / total;
+        }
+        if (query.getStatuses() != null) {
+            long estimate = 0;
+            for (Ticket.Status status : query.getStatuses()) {
+                estimate += index.getByStatus(status).size();
+            }
+            paths.add(new AccessPath("indeks statusów " + query.getStatuses(), estimate, false,
+                    () -> concat(query.getStatuses().stream().map(index::getByStatus).toList())));
+            selectivity *= (double) estimate / total;
+        }
+        if (query.isUnassignedOnly()) {
+            long estimate = index.getUnassigned().size();
+            paths.add(new AccessPath("indeks nieprzypisanych", estimate, false, index::getUnassigned));
+            selectivity *= (double) estimate / total;
+        }
+        double dateFraction = query.hasDateRange()
+                ? listing.estimateCreatedFraction(query.getCreatedFrom(), query.getCreatedTo()) : 1.0;
+        if (query.hasDateRange()) {
+            long estimate = Math.round(dateFraction * total);
+            paths.add(new AccessPath("przedział dat utworzenia [" + query.getCreatedFrom() + ", "
+                    + query.getCreatedTo() + ")", estimate, query.getSort() == TicketSort.CREATED_AT,
+                    () -> listing.createdBetween(query.getCreatedFrom(), query.getCreatedTo())));
+            selectivity *= dateFraction;
+        }
+        if (query.hasPriorityRange()) {
+            long inBuckets = 0;
+            for (Ticket.Priority priority : Ticket.Priority.values()) {
+                if ((query.getMinPriority() == null || priority.compareTo(query.getMinPriority()) >= 0)
+                        && (query.getMaxPriority() == null || priority.compareTo(query.getMaxPriority()) <= 0)) {
+                    inBuckets += listing.countByPriority(priority);
+                }
+            }
+            selectivity *= (double) inBuckets / total;
+            String description = "kubełki priorytetów [" + query.getMinPriority() + ", " + query.getMaxPriority() + "]"
+                    + (query.hasDateRange() ? " zawężone do przedziału dat" : "");
+            paths.add(new AccessPath(description, Math.round(inBuckets * dateFraction),
+                    query.getSort() == TicketSort.PRIORITY,
+                    () -> listing.byPriority(query.getMinPriority(), query.getMaxPriority(),
+                            query.getCreatedFrom(), query.getCreatedTo())));
+        }
+        paths.add(new AccessPath("pełny przegląd w porządku " + query.getSort(), total, true,
+                () -> listing.stream(query.getSort())::iterator));
+
+        AccessPath chosen = null;
+        double chosenCost = Double.MAX_VALUE;
+        for (AccessPath path : paths) {
+            double cost = cost(path, query.getLimit(), selectivity, total);
+            if (cost < chosenCost) {
+                chosen = path;
+                chosenCost = cost;
+            }
+        }
+        return run(query, chosen, chosenCost);
+    }
+
+    /**
+     * Szacowana liczba sprawdzonych zgłoszeń. Ścieżka uporządkowana kończy się po znalezieniu
+     * limitu wyników, co przy selektywności s wymaga przejrzenia około limit / s kandydatów.
+     */
+    private static double cost(AccessPath path, int limit, double selectivity, int total) {
+        if (!path.ordered()) {
+            return path.estimate() * UNORDERED_PENALTY;
+        }
+        if (limit == Integer.MAX_VALUE) {
+            return path.estimate();
+        }
+        double expectedScan = limit / Math.max(selectivity, 1.0 / total);
+        return Math.min(path.estimate(), expectedScan);
+    }
+
+    private QueryResult run(TicketQuery query, AccessPath path, double cost) {
+        int limit = query.getLimit();
+        int examined = 0;
+        StringBuilder plan = new StringBuilder(path.description())
+                .append(" (szac. ").append(path.estimate()).append(" kandydatów, koszt ").append(Math.round(cost))
+                .append(") -> filtr");
+
+        if (path.ordered()) {
+            List<Ticket> result = new ArrayList<>(Math.min(limit, 1024));
+            for (Ticket ticket : path.source().get()) {
+                examined++;
+                if (query.matches(ticket)) {
+                    result.add(ticket);
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            plan.append(" -> bez sortowania (porządek ścieżki)");
+            if (limit != Integer.MAX_VALUE) {
+                plan.append(", stop po ").append(limit);
+            }
+            return new QueryResult(result, plan.toString(), examined);
+        }
+
+        Comparator<Ticket> order = TicketListing.comparator(query.getSort());
+        List<Ticket> result;
+        if (limit == Integer.MAX_VALUE) {
+            result = new ArrayList<>();
+            for (Ticket ticket : path.source().get()) {
+                examined++;
+                if (query.matches(ticket)) {
+                    result.add(ticket);
+                }
+            }
+            result.sort(order);
+            plan.append(" -> sortowanie wg ").append(query.getSort());
+        } else {
+            // Kopiec z najgorszym z dotychczasowych wyników na szczycie
+            PriorityQueue<Ticket> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed());
+            for (Ticket ticket : path.source().get()) {
+                examined++;
+                if (query.matches(ticket)) {
+                    best.add(ticket);
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            result = new ArrayList<>(best);
+            result.sort(order);
+            plan.append(" -> top-").append(limit).append(" kopcem wg ").append(query.getSort());
+        }
+        return new QueryResult(result, plan.toString(), examined);
+    }
+
+    /**
+     * Łączy kilka zbiorów indeksu. Zgłoszenie zmieniające w tym czasie status może
+     * pojawić się w dwóch z nich, dlatego przy kilku zbiorach usuwane są powtórzenia.
+     */
+    private static Iterable<Ticket> concat(List<Collection<Ticket>> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        return () -> parts.stream().flatMap(Collection::stream).distinct().iterator();
+    }
+}
@@ -1,94 +1,432 @@
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
 /**
  * Klasa usługowa zapewniająca interfejs do operacji na systemie zgłoszeń IT.
+ * <p>
+ * Każda operacja jest mierzona w rejestrze {@link Metrics} pod nazwą {@code service.<metoda>}:
+ * czas wykonania i liczba wywołań zakończonych wyjątkiem.
+ * <p>
+ * Alerty o zgłoszeniach o wysokim priorytecie wysyła asynchronicznie {@link HighPriorityAlertNotifier},
+ * a terminów obsługi pilnuje {@link SlaMonitor} z domyślną polityką SLA - oba tylko poza repliką
+ * ({@link TicketSystem#openReplica(java.io.File)}), która zmian nie wprowadza. Usługa jest ich
+ * właścicielem: {@link #close()} odłącza alerty i zatrzymuje nadzór SLA, więc kolejna usługa na tym
+ * samym systemie nie dubluje subskrypcji.
  */
-public class TicketService {
-    private final TicketSystem ticketSystem;
+public class TicketService implements AutoCloseable {
+    private static final int SEARCH_RESULT_LIMIT = 20;
 
-    public TicketService(TicketSystem ticketSystem) {
+    private static final Metrics.Operation ADD_TICKET = Metrics.operation("service.addTicket");
+    private static final Metrics.Operation INGEST_TICKETS = Metrics.operation("service.ingestTickets");
+    private static final Metrics.Operation NEXT_TICKET_ID = Metrics.operation("service.nextTicketId");
+    private static final Metrics.Operation ADD_TECHNICIAN = Metrics.operation("service.addTechnician");
+    private static final Metrics.Operation GET_ALL_TICKETS = Metrics.operation("service.getAllTickets");
+    private static final Metrics.Operation GET_ACTIVE_TICKETS = Metrics.operation("service.getActiveTickets");
+    private static final Metrics.Operation SEARCH_TICKETS = Metrics.operation("service.searchTickets");
+    private static final Metrics.Operation LIST_TICKETS = Metrics.operation("service.listTickets");
+    private static final Metrics.Operation LIST_ACTIVE_TICKETS = Metrics.operation("service.listActiveTickets");
+    private static final Metrics.Operation FIND_TICKETS = Metrics.operation("service.findTickets");
+    private static final Metrics.Operation STREAM_TICKETS = Metrics.operation("service.streamTickets");
+    private static final Metrics.Operation GET_ALL_TECHNICIANS = Metrics.operation("service.getAllTechnicians");
+    private static final Metrics.Operation FIND_TICKET_BY_ID = Metrics.operation("service.findTicketById");
+    private static final Metrics.Operation ASSIGN_TICKET = Metrics.operation("service.assignTicket");
+    private static final Metrics.Operation ASSIGN_TICKET_WITH_CONFIRMATION =
+            Metrics.operation("service.assignTicketWithConfirmation");
+    private static final Metrics.Operation TRY_ASSIGN_TICKET = Metrics.operation("service.tryAssignTicket");
+    private static final Metrics.Operation CLOSE_TICKET_IF_ASSIGNED = Metrics.operation("service.closeTicketIfAssignedTo");
+    private static final Metrics.Operation GET_UNASSIGNED_TICKETS = Metrics.operation("service.getUnassignedTickets");
+    private static final Metrics.Operation CLAIM_NEXT_TICKET = Metrics.operation("service.claimNextTicket");
+    private static final Metrics.Operation CONFIRM_CLAIM = Metrics.operation("service.confirmClaim");
+    private static final Metrics.Operation RELEASE_CLAIM = Metrics.operation("service.releaseClaim");
+    private static final Metrics.Operation CLOSE_TICKET = Metrics.operation("service.closeTicket");
+    private static final Metrics.Operation GET_TICKETS_ASSIGNED_TO = Metrics.operation("service.getTicketsAssignedTo");
+    private static final Metrics.Operation GET_ACTIVE_TICKETS_ASSIGNED_TO =
+            Metrics.operation("service.getActiveTicketsAssignedTo");
+    private static final Metrics.Operation GET_ACTIVE_TICKET_COUNT_FOR = Metrics.operation("service.getActiveTicketCountFor");
+    private static final Metrics.Operation GET_TICKETS_BY_STATUS = Metrics.operation("service.getTicketsByStatus");
+    private static final Metrics.Operation REMOVE_TECHNICIAN = Metrics.operation("service.removeTechnician");
+    private static final Metrics.Operation GET_TOTAL_TICKET_COUNT = Metrics.operation("service.getTotalTicketCount");
+    private static final Metrics.Operation GET_ARCHIVED_TICKET_COUNT = Metrics.operation("service.getArchivedTicketCount");
+    private static final Metrics.Operation ARCHIVE_CLOSED_TICKETS = Metrics.operation("service.archiveClosedTickets");
+    private static final Metrics.Operation GET_ACTIVE_TICKET_COUNT = Metrics.operation("service.getActiveTicketCount");
+    private static final Metrics.Operation GET_TECHNICIAN_COUNT = Metrics.operation("service.getTechnicianCount");
+    private static final Metrics.Operation SYNC = Metrics.operation("service.sync");
+    private static final Metrics.Operation GET_CHANGES = Metrics.operation("service.getChanges");
+    private static final Metrics.Operation GET_CHANGE_FEED_STATE = Metrics.operation("service.getChangeFeedState");
+    private static final Metrics.Operation GET_STARTUP_PROGRESS = Metrics.operation("service.getStartupProgress");
+
+    private final TicketStore ticketSystem;
+    private final List<TicketEventBus.Subscription> alerts = new ArrayList<>();
+    private final List<SlaMonitor> monitors = new ArrayList<>();
+
+    /**
+     * @param ticketSystem pojedynczy system lub system podzielony na partycje
+     */
+    public TicketService(TicketStore ticketSystem) {
         if (ticketSystem == null) {
             throw new IllegalArgumentException("System zgłoszeń nie może być null");
         }
         this.ticketSystem = ticketSystem;
+        List<TicketSystem> shards = ticketSystem.getShards();
+
+        Metrics.gauge("startup.ready", () -> ticketSystem.isReady() ? 1 : 0);
+        Metrics.gauge("startup.progressPercent", () -> ticketSystem.getStartupProgress().percent());
+        // Liczniki stanu są zerowe do końca wczytywania, żeby raport metryk na nie nie czekał
+        Metrics.gauge("tickets.total", () -> ticketSystem.isReady() ? ticketSystem.getTotalTicketCount() : 0);
+        Metrics.gauge("tickets.active", () -> ticketSystem.isReady() ? ticketSystem.getActiveTicketCount() : 0);
+        Metrics.gauge("tickets.archived", () -> ticketSystem.isReady() ? ticketSystem.getArchivedTicketCount() : 0);
+        Metrics.gauge("technicians", () -> ticketSystem.isReady() ? ticketSystem.getTechnicianCount() : 0);
+        Metrics.gauge("shards", shards::size);
+        // Kolejki, zdarzenia i strumienie zmian działają w każdej partycji osobno - wskaźniki są sumami
+        Metrics.gauge("dispatcher.queued", () -> sum(shards, shard -> shard.getDispatcher().getQueuedCount()));
+        Metrics.gauge("dispatcher.leased", () -> sum(shards, shard -> shard.getDispatcher().getLeasedCount()));
+        Metrics.gauge("events.queued", () -> sum(shards, shard -> shard.getEventBus().getQueuedCount()));
+        Metrics.gauge("changes.nextOffset", () -> sum(shards, shard -> shard.getChangeFeed().getNextOffset()));
+        Metrics.gauge("changes.unpersisted", () -> sum(shards, shard -> shard.getChangeFeed().getUnpersistedCount()));
+
+        for (TicketSystem shard : shards) {
+            // Replika nie dostaje zdarzeń - alerty i terminy SLA obsługuje instancja główna
+            if (!shard.isReplica()) {
+                alerts.add(HighPriorityAlertNotifier.attach(shard));
+                monitors.add(SlaMonitor.start(shard, SlaPolicy.defaults()));
+            }
+        }
+        // Jedyne miejsce rejestracji wskaźników SLA - sumy po nadzorach wszystkich partycji
+        Metrics.gauge("sla.tracked", () -> monitors.stream().mapToLong(SlaMonitor::getTrackedCount).sum());
+        Metrics.gauge("sla.pending", () -> monitors.stream().mapToLong(SlaMonitor::getPendingCount).sum());
     }
 
-    public void addTicket(Ticket ticket) {
-        ticketSystem.addTicket(ticket);
+    /**
+     * Odłącza alerty i zatrzymuje nadzór SLA uruchomione przez tę usługę. Systemu zgłoszeń nie zamyka -
+     * jego właścicielem jest wywołujący.
+     */
+    @Override
+    public void close() {
+        alerts.forEach(TicketEventBus.Subscription::close);
+        monitors.forEach(SlaMonitor::close);
     }
 
-    public void addTechnician(String technicianName) {
-        ticketSystem.addTechnician(technicianName);
+    private static long sum(List<TicketSystem> shards, ToLongFunction<TicketSystem> value) {
+        long sum = 0;
+        for (TicketSystem shard : shards) {
+            sum += value.applyAsLong(shard);
+        }
+        return sum;
+    }
+
+    /**
+     * @return przyszłość trwałego zapisu zmiany - dla wywołujących, którzy potrzebują potwierdzenia
+     */
+    public CompletableFuture<Void> addTicket(Ticket ticket) {
+        return ADD_TICKET.call(() -> ticketSystem.addTicket(ticket));
+    }
+
+    /**
+     * Import zbiorczy zgłoszeń z jednym zapisem na całą paczkę.
+     *
+     * @return wyniki dla każdej pozycji, w kolejności danych wejściowych
+     */
+    public List<IngestResult> ingestTickets(Iterable<TicketDraft> drafts) {
+        return INGEST_TICKETS.call(() -> ticketSystem.ingestTickets(drafts));
+    }
+
+    public List<IngestResult> ingestTickets(Stream<TicketDraft> drafts) {
+        return INGEST_TICKETS.call(() -> ticketSystem.ingestTickets(drafts));
+    }
+
+    public String nextTicketId() {
+        return NEXT_TICKET_ID.call(ticketSystem::nextTicketId);
+    }
+
+    public CompletableFuture<Void> addTechnician(String technicianName) {
+        return ADD_TECHNICIAN.call(() -> ticketSystem.addTechnician(technicianName));
     }
 
     public List<Ticket> getAllTickets() {
-        return ticketSystem.getAllTickets();
+        return GET_ALL_TICKETS.call(ticketSystem::getAllTickets);
     }
 
     public List<Ticket> getActiveTickets() {
-        return ticketSystem.getActiveTickets();
+        return GET_ACTIVE_TICKETS.call(ticketSystem::getActiveTickets);
+    }
+
+
+    /**
+     * Wyszukuje zgłoszenia po słowach z tytułu, opisu lub nazwiska zgłaszającego.
+     */
+    public List<Ticket> searchTickets(String query) {
+        return SEARCH_TICKETS.call(() -> ticketSystem.searchTickets(query, SEARCH_RESULT_LIMIT));
+    }
+
+    /**
+     * Stronicowane listowanie zgłoszeń.
+     *
+     * @param cursor kursor z poprzedniej strony ({@link TicketPage#nextCursor()}) lub null
+     */
+    public TicketPage listTickets(TicketSort sort, String cursor, int pageSize) {
+        return LIST_TICKETS.call(() -> ticketSystem.getTicketPage(sort, false, cursor, pageSize));
+    }
+
+    public TicketPage listActiveTickets(TicketSort sort, String cursor, int pageSize) {
+        return LIST_ACTIVE_TICKETS.call(() -> ticketSystem.getTicketPage(sort, true, cursor, pageSize));
     }
 
+    /**
+     * Wyszukuje zgłoszenia spełniające wszystkie warunki zapytania.
+     *
+     * @return wyniki z opisem, jak zapytanie zostało wykonane
+     */
+    public QueryResult findTickets(TicketQuery query) {
+        return FIND_TICKETS.call(() -> ticketSystem.query(query));
+    }
+
+    /**
+     * Strumień jest leniwy - mierzone jest tylko jego utworzenie.
+     */
+    public Stream<Ticket> streamTickets(TicketSort sort) {
+        return STREAM_TICKETS.call(() -> ticketSystem.streamTickets(sort));
+    }
 
     public List<String> getAllTechnicians() {
-        return ticketSystem.getAllTechnicians();
+        return GET_ALL_TECHNICIANS.call(ticketSystem::getAllTechnicians);
     }
 
     public Ticket findTicketById(String ticketId) {
-        Optional<Ticket> ticketOpt = ticketSystem.findTicketById(ticketId);
-        if (ticketOpt.isEmpty()) {
-            throw new IllegalArgumentException("Zgłoszenie o ID " + ticketId + " nie zostało znalezione");
+        return FIND_TICKET_BY_ID.call(() -> {
+            Optional<Ticket> ticketOpt = ticketSystem.findTicketById(ticketId);
+            if (ticketOpt.isEmpty()) {
+                throw new IllegalArgumentException("Zgłoszenie o ID " + ticketId + " nie zostało znalezione");
+            }
+            return ticketOpt.get();
+        });
+    }
+
+    /**
+     * Przypisuje zgłoszenie technikowi i czeka na trwały zapis zmiany.
+     *
+     * @return przypisane zgłoszenie
+     * @throws IllegalArgumentException jeśli zgłoszenie lub technik nie istnieje
+     * @throws IllegalStateException    jeśli zgłoszenie jest zamknięte
+     * @throws WriteNotDurableException jeśli zmiany nie udało się trwale zapisać
+     */
+    public Ticket assignTicket(String ticketId, String technicianName) {
+        return ASSIGN_TICKET.call(() -> {
+            awaitDurable(ticketSystem.assignTicket(ticketId, technicianName));
+            return findAssigned(ticketId);
+        });
+    }
+
+    /**
+     * Czeka na przyszłość zapisu zmiany, zgłaszając jej błąd bez opakowania w {@link CompletionException}.
+     */
+    private static void awaitDurable(CompletableFuture<Void> written) {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
         }
-        return ticketOpt.get();
+    }
+
+    /**
+     * Czeka na zapis zmiany warunkowej, jeśli do niej doszło.
+     *
+     * @return true, jeśli zmiana została wprowadzona
+     */
+    private static boolean awaitIfChanged(Optional<CompletableFuture<Void>> written) {
+        written.ifPresent(TicketService::awaitDurable);
+        return written.isPresent();
+    }
+
+    /**
+     * Zgłoszenie po przypisaniu; przypisane zgłoszenie jest aktywne, więc nie mogło trafić do archiwum.
+     */
+    private Ticket findAssigned(String ticketId) {
+        return ticketSystem.findTicketById(ticketId).orElseThrow(() ->
+                new IllegalArgumentException("Zgłoszenie o ID " + ticketId + " nie istnieje w systemie"));
     }
 
     public String assignTicketWithConfirmation(String ticketId, String technicianName) {
+        long start = System.nanoTime();
         try {
-            Ticket ticket = ticketSystem.assignTicket(ticketId, technicianName);
+            awaitDurable(ticketSystem.assignTicket(ticketId, technicianName));
+            Ticket ticket = findAssigned(ticketId);
             return "Przypisano zgłoszenie '" + ticket.getTitle() + "' do technika: " + technicianName;
         } catch (Exception e) {
+            ASSIGN_TICKET_WITH_CONFIRMATION.failed();
             return "Błąd podczas przypisywania: " + e.getMessage();
+        } finally {
+            ASSIGN_TICKET_WITH_CONFIRMATION.record(start);
         }
     }
 
+    /**
+     * Przypisuje zgłoszenie tylko, jeśli nikt go jeszcze nie przejął, i czeka na trwały zapis zmiany.
+     *
+     * @return true, jeśli przypisanie się powiodło
+     */
+    public boolean tryAssignTicket(String ticketId, String technicianName) {
+        return TRY_ASSIGN_TICKET.call(() -> awaitIfChanged(ticketSystem.assignTicketIfNew(ticketId, technicianName)));
+    }
+
+    /**
+     * Zamyka zgłoszenie tylko, jeśli jest przypisane do podanego technika, i czeka na trwały zapis zmiany.
+     *
+     * @return true, jeśli zamknięcie się powiodło
+     */
+    public boolean closeTicketIfAssignedTo(String ticketId, String technicianName) {
+        return CLOSE_TICKET_IF_ASSIGNED.call(() ->
+                awaitIfChanged(ticketSystem.closeTicketIfAssignedTo(ticketId, technicianName)));
+    }
+
     public List<Ticket> getUnassignedTickets() {
-        return ticketSystem.getUnassignedTickets();
+        return GET_UNASSIGNED_TICKETS.call(ticketSystem::getUnassignedTickets);
     }
 
+    /**
+     * Pobiera dla technika najpilniejsze oczekujące zgłoszenie na czas dzierżawy.
+     *
+     * @return dzierżawa lub pusty wynik, jeśli nie ma oczekujących zgłoszeń
+     */
+    public Optional<TicketDispatcher.Lease> claimNextTicket(String technicianName) {
+        return CLAIM_NEXT_TICKET.call(() -> ticketSystem.claimNextTicket(technicianName));
+    }
+
+    public Ticket confirmClaim(TicketDispatcher.Lease lease) {
+        return CONFIRM_CLAIM.call(() -> ticketSystem.confirmClaim(lease));
+    }
 
-    public void closeTicket(String ticketId) {
-        ticketSystem.closeTicket(ticketId);
+    public void releaseClaim(TicketDispatcher.Lease lease) {
+        RELEASE_CLAIM.run(() -> ticketSystem.releaseClaim(lease));
+    }
+
+
+    public CompletableFuture<Void> closeTicket(String ticketId) {
+        return CLOSE_TICKET.call(() -> ticketSystem.closeTicket(ticketId));
     }
 
     public List<Ticket> getTicketsAssignedTo(String technicianName) {
-        return ticketSystem.getTicketsAssignedTo(technicianName);
+        return GET_TICKETS_ASSIGNED_TO.call(() -> ticketSystem.getTicketsAssignedTo(technicianName));
     }
 
+    public List<Ticket> getActiveTicketsAssignedTo(String technicianName) {
+        return GET_ACTIVE_TICKETS_ASSIGNED_TO.call(() -> ticketSystem.getActiveTicketsAssignedTo(technicianName));
+    }
 
-    public void notifyAboutHighPriorityTicket(String ticketId) {
-        ticketSystem.findTicketById(ticketId).ifPresent(ticket -> {
-            if (!ticket.isAssigned() &&
-                    (ticket.getPriority() == Ticket.Priority.WYSOKI || ticket.getPriority() == Ticket.Priority.KRYTYCZNY)) {
-                System.out.println("ALERT: Nieprzypisane zgłoszenie o wysokim priorytecie - '"
-                        + ticket.getTitle() + "' (ID: " + ticketId + ")");
-            }
-        });
+    public int getActiveTicketCountFor(String technicianName) {
+        return GET_ACTIVE_TICKET_COUNT_FOR.call(() -> ticketSystem.getActiveTicketCountFor(technicianName));
     }
 
-    public void removeTechnician(String technicianName) {
-        ticketSystem.removeTechnician(technicianName);
+    public List<Ticket> getTicketsByStatus(Ticket.Status status) {
+        return GET_TICKETS_BY_STATUS.call(() -> ticketSystem.getTicketsByStatus(status));
+    }
+
+    public CompletableFuture<Void> removeTechnician(String technicianName) {
+        return REMOVE_TECHNICIAN.call(() -> ticketSystem.removeTechnician(technicianName));
     }
 
     public int getTotalTicketCount() {
-        return ticketSystem.getTotalTicketCount();
+        return GET_TOTAL_TICKET_COUNT.call(ticketSystem::getTotalTicketCount);
+    }
+
+    public int getArchivedTicketCount() {
+        return GET_ARCHIVED_TICKET_COUNT.call(ticketSystem::getArchivedTicketCount);
+    }
+
+    /**
+     * Przenosi stare zamknięte zgłoszenia do archiwum.
+     *
+     * @return liczba zarchiwizowanych zgłoszeń
+     */
+    public int archiveClosedTickets() {
+        return ARCHIVE_CLOSED_TICKETS.call(ticketSystem::archiveClosedTickets);
     }
 
     public int getActiveTicketCount() {
-        return ticketSystem.getActiveTicketCount();
+        return GET_ACTIVE_TICKET_COUNT.call(ticketSystem::getActiveTicketCount);
     }
 
     public int getTechnicianCount() {
-        return ticketSystem.getTechnicianCount();
+        return GET_TECHNICIAN_COUNT.call(ticketSystem::getTechnicianCount);
+    }
+
+    /**
+     * Potwierdzenie trwałego zapisu wszystkich dotychczasowych zmian.
+     */
+    public CompletableFuture<Void> sync() {
+        return SYNC.call(ticketSystem::sync);
+    }
+
+    /**
+     * Kolejne zmiany stanu od podanego offsetu.
+     *
+     * @param epoch      epoka strumienia, w której odbiorca otrzymał offset
+     * @param waitMillis jak długo czekać na nowe zmiany, jeśli offset jest bieżący
+     * @throws IllegalStateException         jeśli strumień jest w innej epoce - odbiorca musi pobrać pełny stan
+     * @throws UnsupportedOperationException w systemie podzielonym na partycje
+     */
+    public List<ChangeFeed.Change> getChanges(long epoch, long fromOffset, int limit, long waitMillis) {
+        return GET_CHANGES.call(() -> changeFeedSource().getChangeFeed().read(epoch, fromOffset, limit, waitMillis));
+    }
+
+    /**
+     * Bieżąca epoka strumienia zmian.
+     *
+     * @throws UnsupportedOperationException w systemie podzielonym na partycje
+     */
+    public long getChangeFeedEpoch() {
+        return changeFeedSource().getChangeFeed().getEpoch();
+    }
+
+    /**
+     * Pełny stan, epoka i offset, od którego odbiorca strumienia zmian powinien czytać dalej.
+     *
+     * @throws UnsupportedOperationException w systemie podzielonym na partycje
+     */
+    public ChangeFeed.InitialState getChangeFeedState() {
+        return GET_CHANGE_FEED_STATE.call(() -> changeFeedSource().getStateForChangeFeed());
+    }
+
+    /**
+     * Subskrypcja zmian od podanego offsetu, dostarczanych paczkami w osobnym wątku.
+     *
+     * @throws UnsupportedOperationException w systemie podzielonym na partycje
+     */
+    public ChangeFeed.Subscription subscribeToChanges(long epoch, long fromOffset, int maxBatch,
+                                                      Consumer<List<ChangeFeed.Change>> handler) {
+        return changeFeedSource().getChangeFeed().subscribe(epoch, fromOffset, maxBatch, handler);
+    }
+
+    /**
+     * System prowadzący jeden strumień zmian. Partycje mają osobne strumienie o niezależnych offsetach,
+     * których nie da się złożyć w jeden ciąg bez wektora offsetów po stronie odbiorcy.
+     *
+     * @throws UnsupportedOperationException w systemie podzielonym na partycje
+     */
+    private TicketSystem changeFeedSource() {
+        if (ticketSystem instanceof TicketSystem system) {
+            return system;
+        }
+        throw new UnsupportedOperationException(
+                "Strumień zmian nie jest dostępny w systemie podzielonym na partycje - każda partycja prowadzi własny");
+    }
+
+    /**
+     * Postęp wczytywania stanu przy starcie; do końca wczytywania większość operacji czeka na gotowość.
+     */
+    public TicketSystem.StartupProgress getStartupProgress() {
+        return GET_STARTUP_PROGRESS.call(ticketSystem::getStartupProgress);
+    }
+
+    /**
+     * Raport metryk programu w postaci tekstu.
+     */
+    public String getMetricsReport() {
+        return Metrics.report();
     }
 }
@@ -0,0 +1,23 @@
+/**
+ * Porządek listowania zgłoszeń. Każdy porządek jest całkowity - przy równych
+ * wartościach rozstrzyga numer zgłoszenia - więc kolejne strony są stabilne.
+ */
+public enum TicketSort {
+    /** Od najstarszych. */
+    CREATED_AT("data utworzenia"),
+    /** Od krytycznych, w obrębie priorytetu od najstarszych. */
+    PRIORITY("priorytet"),
+    /** Rosnąco według numeru zgłoszenia. */
+    ID("ID");
+
+    private final String displayName;
+
+    TicketSort(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
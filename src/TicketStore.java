@@ -0,0 +1,103 @@
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Magazyn zgłoszeń, na którym działa {@link TicketService}: pojedynczy {@link TicketSystem}
+ * albo {@link ShardedTicketSystem} rozkładający zgłoszenia na niezależne partycje.
+ * <p>
+ * Operacje zmieniające stan zwracają przyszłość zapisu zmiany - opis w {@link TicketSystem}.
+ * <p>
+ * Szyna zdarzeń, kolejka przydziału i strumień zmian należą do poszczególnych partycji,
+ * dostępnych przez {@link #getShards()}.
+ */
+public interface TicketStore {
+
+    CompletableFuture<Void> addTicket(Ticket ticket);
+
+    /**
+     * Import zbiorczy; duplikaty i błędy walidacji są zwracane w wynikach.
+     *
+     * @return wyniki w kolejności danych wejściowych
+     */
+    List<IngestResult> ingestTickets(Iterable<TicketDraft> drafts);
+
+    List<IngestResult> ingestTickets(Stream<TicketDraft> drafts);
+
+    String nextTicketId();
+
+    CompletableFuture<Void> addTechnician(String technicianName);
+
+    CompletableFuture<Void> removeTechnician(String technicianName);
+
+    Optional<Ticket> findTicketById(String ticketId);
+
+    CompletableFuture<Void> assignTicket(String ticketId, String technicianName);
+
+    Optional<CompletableFuture<Void>> assignTicketIfNew(String ticketId, String technicianName);
+
+    Optional<CompletableFuture<Void>> closeTicketIfAssignedTo(String ticketId, String technicianName);
+
+    CompletableFuture<Void> closeTicket(String ticketId);
+
+    List<Ticket> getAllTickets();
+
+    List<Ticket> getActiveTickets();
+
+    List<Ticket> getUnassignedTickets();
+
+    List<Ticket> getTicketsAssignedTo(String technicianName);
+
+    List<Ticket> getActiveTicketsAssignedTo(String technicianName);
+
+    List<Ticket> getTicketsByStatus(Ticket.Status status);
+
+    int getActiveTicketCountFor(String technicianName);
+
+    /**
+     * Jedna strona zgłoszeń w stabilnym porządku; kursor pochodzi z poprzedniej strony.
+     */
+    TicketPage getTicketPage(TicketSort sort, boolean activeOnly, String cursor, int pageSize);
+
+    QueryResult query(TicketQuery query);
+
+    Stream<Ticket> streamTickets(TicketSort sort);
+
+    List<Ticket> searchTickets(String query, int limit);
+
+    List<String> getAllTechnicians();
+
+    boolean hasTechnician(String technicianName);
+
+    int getTotalTicketCount();
+
+    int getArchivedTicketCount();
+
+    int getActiveTicketCount();
+
+    int getTechnicianCount();
+
+    int archiveClosedTickets();
+
+    Optional<TicketDispatcher.Lease> claimNextTicket(String technicianName);
+
+    Ticket confirmClaim(TicketDispatcher.Lease lease);
+
+    void releaseClaim(TicketDispatcher.Lease lease);
+
+    CompletableFuture<Void> sync();
+
+    void saveDataToFiles();
+
+    void close();
+
+    boolean isReady();
+
+    TicketSystem.StartupProgress getStartupProgress();
+
+    /**
+     * Systemy przechowujące zgłoszenia; dla pojedynczego systemu - on sam.
+     */
+    List<TicketSystem> getShards();
+}
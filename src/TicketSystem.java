@@ -1,35 +1,369 @@
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Klasa zarządzająca kolekcją zgłoszeń serwisowych.
+ * <p>
+ * Klasa jest bezpieczna wielowątkowo. Odczyty nie blokują. Operacje na zgłoszeniu
+ * wykonywane są pod blokadą jednego z pasów (lock striping) wybranego po ID zgłoszenia
+ * i współdzieloną blokadą stanu. Operacje obejmujące cały stan - usuwanie technika,
+ * kompaktowanie i zapis - biorą blokadę stanu na wyłączność.
+ * <p>
+ * Operacje zmieniające stan zwracają przyszłość zapisu zmiany, kończącą się zgodnie z poziomem
+ * trwałości dziennika; w trybie SYNC jest już zakończona. Zmiana jest widoczna w pamięci, zanim trafi na dysk.
+ * Jeśli jej zapis w dzienniku się nie powiedzie, system utrwala ją zapisem pełnego stanu; dopiero gdy i to
+ * się nie uda, przyszłość kończy się wyjątkiem {@link WriteNotDurableException} (w trybie SYNC zgłaszanym
+ * przez samą operację), a zmiana
+ * pozostaje w pamięci i trafi na dysk z najbliższym udanym zapisem stanu.
+ * <p>
+ * Każda zmiana publikuje zdarzenie w {@link #getEventBus() szynie zdarzeń} jeszcze pod blokadą,
+ * pod którą została wprowadzona, razem z wpisem do strumienia zmian. Zdarzenia jednego zgłoszenia
+ * docierają więc do subskrybentów w kolejności zmian (publikacja tylko wstawia do kolejek i nigdy
+ * nie czeka). Zmiany odtwarzane przy starcie nie są publikowane.
+ * <p>
+ * System utworzony przez {@link #openLazily()} jest dostępny od razu, a stan wczytuje w tle.
+ * Do końca wczytywania zgłoszenie po ID odczytywane jest wprost ze snapshotu przez jego indeks
+ * ({@link BinarySnapshot#openIndex()}); pozostałe operacje czekają na gotowość.
+ * Postęp podaje {@link #getStartupProgress()}.
+ * <p>
+ * Replika ({@link #openReplica(File)}) odtwarza stan innej instancji ze strumienia zmian
+ * i odrzuca wszystkie operacje zmieniające stan.
  */
-public class TicketSystem {
+public final class TicketSystem implements TicketStore {
+    /** Liczba rekordów dziennika, po której stan jest zapisywany w całości, a dziennik czyszczony. */
+    private static final int COMPACTION_THRESHOLD = 10_000;
+    private static final int LOCK_STRIPES = 64;
+    /** Liczba pozycji importu walidowanych naraz. */
+    private static final int INGEST_CHUNK = 8192;
+    /** Domyślny wiek, po którym zamknięte zgłoszenie trafia do archiwum. */
+    private static final Duration DEFAULT_ARCHIVE_AGE = Duration.ofDays(30);
+    private static final long CHANGE_FEED_STATE_TIMEOUT_MILLIS = 10_000;
+
+    private static final Metrics.Operation STARTUP_LOAD = Metrics.operation("startup.load");
+
+    /**
+     * Postęp wczytywania stanu przy starcie.
+     *
+     * @param loadedTickets   zgłoszenia umieszczone już w pamięci i indeksach
+     * @param expectedTickets zgłoszenia do wczytania (0, dopóki nie są znane)
+     */
+    public record StartupProgress(boolean ready, int loadedTickets, int expectedTickets) {
+
+        /**
+         * Postęp w procentach; 100 dopiero po odtworzeniu dziennika.
+         */
+        public int percent() {
+            if (ready) {
+                return 100;
+            }
+            return expectedTickets == 0 ? 0 : (int) Math.min(99, 100L * loadedTickets / expectedTickets);
+        }
+    }
+
     private final Map<String, Ticket> tickets;
     private final Set<String> technicians;
+    private final TicketIndex index;
+    private final SearchIndex searchIndex;
+    private final TicketListing listing;
+    private final TicketQueryEngine queryEngine;
+    private final TicketDispatcher dispatcher;
+    private final TicketIdAllocator idAllocator;
     private final Json dataManager;
+    private final BinarySnapshot snapshot;
+    private final TicketArchive archive;
+    private final Journal journal;
+    private final TicketEventBus eventBus;
+    private final ChangeFeed changeFeed;
+    private final ReadWriteLock stateLock;
+    private final Object[] ticketLocks;
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    // Używane tylko do końca wczytywania w tle
+    private volatile BinarySnapshot.Index startupIndex;
+    private volatile Set<String> startupJournalTicketIds;
+    private volatile int loadedTicketCount;
+    private volatile int expectedTicketCount;
+    private final boolean sampleData;
+    private final boolean replica;
 
     public TicketSystem() {
-        this.tickets = new HashMap<>();
-        this.technicians = new HashSet<>();
-        this.dataManager = new Json();
+        this(new Journal(), false);
+    }
+
+    /**
+     * Tworzy system, który jest dostępny od razu, a pełny stan wczytuje w tle.
+     */
+    public static TicketSystem openLazily() {
+        return new TicketSystem(new Journal(), true);
+    }
+
+    /**
+     * Tworzy system zapisujący zmiany z podanym poziomem trwałości.
+     *
+     * @param durability          poziom trwałości zapisu dziennika
+     * @param flushIntervalMillis maksymalny czas między kolejnymi fsync w trybie PERIODIC
+     * @param flushEveryOps       liczba operacji wymuszająca fsync w trybie PERIODIC
+     */
+    public TicketSystem(Journal.Durability durability, long flushIntervalMillis, int flushEveryOps) {
+        this(new Journal(durability, flushIntervalMillis, flushEveryOps), false);
+    }
+
+    private TicketSystem(Journal journal, boolean lazy) {
+        this(null, journal, new TicketIdAllocator(), lazy, true, false);
+    }
+
+    /**
+     * Tworzy partycję systemu: stan trzymany jest w osobnym katalogu, identyfikatory przydziela
+     * wspólny dla wszystkich partycji alokator, a pusta partycja nie dostaje przykładowych danych.
+     *
+     * @param directory istniejący katalog partycji
+     */
+    static TicketSystem openShard(File directory, Journal.Durability durability, long flushIntervalMillis,
+                                  int flushEveryOps, TicketIdAllocator idAllocator, boolean lazy) {
+        return new TicketSystem(directory, new Journal(directory, durability, flushIntervalMillis, flushEveryOps),
+                idAllocator, lazy, false, false);
+    }
+
+    /**
+     * Tworzy samodzielny system w podanym katalogu, bez przykładowych danych - np. w testach.
+     *
+     * @param directory istniejący katalog stanu
+     */
+    static TicketSystem open(File directory, Journal.Durability durability) {
+        return new TicketSystem(directory, new Journal(directory, durability, Journal.DEFAULT_FLUSH_INTERVAL_MS,
+                Journal.DEFAULT_FLUSH_EVERY_OPS), new TicketIdAllocator(new File(directory,
+                TicketIdAllocator.SEQUENCE_FILE)), false, false, false);
+    }
+
+    /**
+     * Tworzy pustą replikę tylko do odczytu, której stan ustawia {@link ReplicationFollower}.
+     * Replika nie wczytuje ani nie zapisuje plików; katalog oddziela ją od plików innej instancji.
+     * Wszystkie operacje zmieniające stan zgłaszają {@link IllegalStateException}.
+     */
+    public static TicketSystem openReplica(File directory) {
+        return new TicketSystem(directory, new Journal(directory, Journal.Durability.PERIODIC,
+                Journal.DEFAULT_FLUSH_INTERVAL_MS, Journal.DEFAULT_FLUSH_EVERY_OPS),
+                new TicketIdAllocator(new File(directory, TicketIdAllocator.SEQUENCE_FILE)), false, false, true);
+    }
+
+    private TicketSystem(File directory, Journal journal, TicketIdAllocator idAllocator, boolean lazy,
+                         boolean sampleData, boolean replica) {
+        this.tickets = new ConcurrentHashMap<>();
+        this.technicians = ConcurrentHashMap.newKeySet();
+        this.index = new TicketIndex();
+        this.searchIndex = new SearchIndex();
+        this.listing = new TicketListing();
+        this.queryEngine = new TicketQueryEngine(index, listing);
+        this.dispatcher = new TicketDispatcher(this);
+        this.idAllocator = idAllocator;
+        this.dataManager = new Json(directory);
+        this.snapshot = new BinarySnapshot(directory);
+        this.archive = new TicketArchive(new File(directory, TicketArchive.ARCHIVE_DIRECTORY));
+        this.journal = journal;
+        this.eventBus = new TicketEventBus();
+        this.changeFeed = new ChangeFeed(new File(directory, ChangeFeed.FEED_DIRECTORY), this::changesDurable);
+        this.sampleData = sampleData;
+        this.replica = replica;
+        this.stateLock = new ReentrantReadWriteLock();
+        this.ticketLocks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            ticketLocks[i] = new Object();
+        }
+
+        // Wczytaj dane ze snapshotu lub plików JSON
+        if (replica) {
+            // Stan ustawia replikacja
+        } else if (lazy) {
+            loadInBackground();
+        } else {
+            loadDataFromFiles();
+            ready.complete(null);
+        }
+    }
+
+    /**
+     * Otwiera indeks snapshotu do odczytów po ID i uruchamia wczytywanie stanu w osobnym wątku.
+     * Zgłoszenia zmienione w dzienniku nie są odczytywane z indeksu, bo snapshot ich nie odzwierciedla.
+     */
+    private void loadInBackground() {
+        BinarySnapshot.Index index = snapshot.openIndex();
+        if (index != null) {
+            Set<String> changedTicketIds = new HashSet<>();
+            journal.scan(record -> {
+                if (!record[0].equals(Journal.TECHNICIAN_ADDED) && !record[0].equals(Journal.TECHNICIAN_REMOVED)) {
+                    changedTicketIds.add(record[1]);
+                }
+            });
+            startupJournalTicketIds = changedTicketIds;
+            expectedTicketCount = index.getTicketCount();
+            startupIndex = index;
+        }
+        Thread.ofPlatform().daemon().name("wczytywanie-danych").start(() -> {
+            try {
+                STARTUP_LOAD.run(this::loadDataFromFiles);
+                ready.complete(null);
+            } catch (RuntimeException e) {
+                System.err.println("Błąd podczas wczytywania danych: " + e.getMessage());
+                ready.completeExceptionally(e);
+            } finally {
+                startupIndex = null;
+                startupJournalTicketIds = null;
+            }
+        });
+    }
+
+    /**
+     * @throws IllegalStateException w replice - zmiany wprowadza się w instancji głównej
+     */
+    private void checkWritable() {
+        if (replica) {
+            throw new IllegalStateException("Replika jest tylko do odczytu - zmiany wprowadza się w instancji głównej");
+        }
+    }
+
+    public boolean isReplica() {
+        return replica;
+    }
+
+    /**
+     * Zastępuje cały stan repliki stanem pobranym z instancji głównej. Replika jest gotowa
+     * dopiero po pobraniu pierwszego pełnego stanu.
+     */
+    void replaceReplicaState(List<Ticket> newTickets, List<String> newTechnicians) {
+        stateLock.writeLock().lock();
+        try {
+            new ArrayList<>(tickets.values()).forEach(this::removeTicket);
+            newTickets.forEach(this::putTicket);
+            technicians.clear();
+            technicians.addAll(newTechnicians);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        ready.complete(null);
+    }
+
+    /**
+     * Stosuje w replice zmianę ze strumienia zmian instancji głównej - tak jak przy odtwarzaniu dziennika,
+     * bez zapisu i bez publikacji zdarzeń.
+     */
+    void applyReplicatedChange(String[] record) {
+        withExclusiveLock(() -> {
+            applyJournalRecord(record);
+            return null;
+        });
+    }
+
+    /**
+     * Czeka na zakończenie wczytywania stanu.
+     *
+     * @throws IllegalStateException jeśli wczytywanie się nie powiodło
+     */
+    private void awaitReady() {
+        try {
+            ready.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Wczytywanie danych nie powiodło się: " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
 
-        // Wczytaj dane z plików JSON
-        loadDataFromFiles();
+    /**
+     * Czy stan został w pełni wczytany.
+     */
+    public boolean isReady() {
+        return ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    /**
+     * Przyszłość kończąca się po wczytaniu stanu - np. do odtworzenia danych pochodnych.
+     */
+    public CompletableFuture<Void> whenReady() {
+        return ready.copy();
+    }
 
+    public StartupProgress getStartupProgress() {
+        return new StartupProgress(isReady(), loadedTicketCount, expectedTicketCount);
     }
 
     private void loadDataFromFiles() {
-        // Wczytaj techników
-        List<String> loadedTechnicians = dataManager.loadTechnicians();
-        technicians.addAll(loadedTechnicians);
+        // Snapshot binarny ma pierwszeństwo - jest zapisywany przy każdym kompaktowaniu dziennika
+        BinarySnapshot.Snapshot loaded = snapshot.load();
+        boolean fromPrevious = false;
+        if (loaded == null && snapshot.exists()) {
+            // Pliki JSON są starsze niż dziennik, więc nie mogą zastąpić snapshotu
+            loaded = snapshot.loadPrevious();
+            if (loaded == null) {
+                throw new IllegalStateException("Snapshot i jego poprzednia wersja są uszkodzone lub niedostępne"
+                        + " - uruchomienie przerwane, aby nie utracić zmian zapisanych od ostatniego zamknięcia");
+            }
+            System.err.println("Snapshot jest uszkodzony - wczytywanie poprzedniej wersji i obu pokoleń dziennika.");
+            fromPrevious = true;
+        }
+        List<String> loadedTechnicians;
+        List<Ticket> loadedTickets;
+        if (loaded != null) {
+            loadedTechnicians = loaded.technicians();
+            loadedTickets = loaded.tickets();
+        } else {
+            // Wczytaj techników
+            loadedTechnicians = dataManager.loadTechnicians();
+            // Wczytaj zgłoszenia
+            loadedTickets = dataManager.loadTickets();
+        }
 
-        // Wczytaj zgłoszenia
-        List<Ticket> loadedTickets = dataManager.loadTickets();
+        technicians.addAll(loadedTechnicians);
+        expectedTicketCount = loadedTickets.size();
+        int count = 0;
         for (Ticket ticket : loadedTickets) {
-            tickets.put(ticket.getTicketId(), ticket);
+            putTicket(ticket);
+            loadedTicketCount = ++count;
+        }
+
+        // Odtwórz zmiany zapisane w dzienniku od ostatniego pełnego zapisu
+        SortedMap<Long, String[]> replayedChanges = new TreeMap<>();
+        ObjLongConsumer<String[]> replay = (record, changeOffset) -> {
+            applyJournalRecord(record);
+            if (changeOffset >= 0) {
+                replayedChanges.put(changeOffset, record);
+            }
+        };
+        int replayed = fromPrevious ? journal.replayPrevious(replay) : 0;
+        replayed += journal.replay(replay);
+        if (replayed > 0) {
+            System.out.println("Odtworzono " + replayed + " zmian z dziennika.");
+        }
+        long snapshotChangeOffset = fromPrevious ? journal.getPreviousFirstChangeOffset() : -1;
+        if (snapshotChangeOffset < 0) {
+            snapshotChangeOffset = journal.getFirstChangeOffset();
+        }
+        recoverChangeFeed(Math.max(0, snapshotChangeOffset), replayedChanges);
+        // Zgłoszenia zapisane już w archiwum, których usunięcie nie zdążyło trafić do dziennika
+        if (archive.size() > 0) {
+            for (Ticket ticket : tickets.values()) {
+                if (archive.contains(ticket.getTicketId())) {
+                    removeTicket(ticket);
+                    changeFeed.appendRecovered(new String[]{Journal.TICKET_ARCHIVED, ticket.getTicketId()});
+                }
+            }
+            idAllocator.observe(TicketIdAllocator.formatId(archive.getMaxTicketNumber()));
         }
-        if (tickets.isEmpty()) {
+        if (fromPrevious && compact()) {
+            System.out.println("Zapisano nowy snapshot odtworzonego stanu.");
+        }
+        if (sampleData && tickets.isEmpty() && archive.size() == 0) {
             System.out.println("Brak zgłoszeń w systemie. Dodawanie przykładowych danych...");
 
             try {
@@ -42,11 +376,11 @@ public class TicketSystem {
                         "Serwer poczty elektronicznej zwraca błędy 500",
                         "Piotr Nowak", "piotr.nowak@firma.pl", Ticket.Priority.WYSOKI);
 
-                tickets.put(ticket1.getTicketId(), ticket1);
-                tickets.put(ticket2.getTicketId(), ticket2);
+                putTicket(ticket1);
+                putTicket(ticket2);
 
                 // Zapisz przykładowe dane do plików
-                saveDataToFiles();
+                saveState();
 
                 System.out.println("Dodano przykładowe zgłoszenia do systemu.");
 
@@ -57,124 +391,903 @@ public class TicketSystem {
     }
 
     /**
-     * Zapisuje wszystkie dane do plików JSON.
+     * Zapisuje wszystkie dane do snapshotu binarnego i plików JSON, a następnie zaczyna nowy dziennik zmian;
+     * rekordy dotychczasowego są już zawarte w zapisanym stanie.
      */
     public void saveDataToFiles() {
-        dataManager.saveTickets(new ArrayList<>(tickets.values()));
-        dataManager.saveTechnicians(new ArrayList<>(technicians));
+        checkWritable();
+        awaitReady();
+        saveState();
+    }
+
+    private void saveState() {
+        stateLock.writeLock().lock();
+        try {
+            List<Ticket> ticketList = new ArrayList<>(tickets.values());
+            List<String> technicianList = new ArrayList<>(technicians);
+            boolean snapshotSaved = snapshot.save(ticketList, technicianList);
+            dataManager.saveTickets(ticketList);
+            dataManager.saveTechnicians(technicianList);
+            // Przy starcie snapshot ma pierwszeństwo, więc tylko on decyduje o rozpoczęciu nowego dziennika
+            if (snapshotSaved) {
+                journal.rotate(changeFeed.getNextOffset());
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Kompaktowanie dziennika: zapisuje tylko snapshot binarny. Pliki JSON są
+     * odświeżane w {@link #saveDataToFiles()}, m.in. przy zamykaniu systemu.
+     *
+     * @return true, jeśli snapshot został zapisany, a dziennik zaczęty od nowa
+     */
+    private boolean compact() {
+        if (snapshot.save(new ArrayList<>(tickets.values()), new ArrayList<>(technicians))) {
+            journal.rotate(changeFeed.getNextOffset());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Uzgadnia strumień zmian z odtworzonym stanem, zanim system przyjmie nowe zmiany. Stan to snapshot
+     * ze zmianami przed {@code snapshotChangeOffset} i zmiany z dziennika, a strumień ma w plikach zmiany
+     * przed swoim następnym offsetem. Gdy każda zmiana między tymi offsetami jest w dzienniku, zmiany
+     * z dziennika, których strumień nie zdążył zapisać, są do niego dopisywane ponownie. W przeciwnym razie
+     * strumień i stan się rozjechały (np. uszkodzony dziennik) i strumień zaczyna nową epokę.
+     *
+     * @param replayedChanges zmiany odtworzone z dziennika według ich offsetu w strumieniu
+     */
+    private void recoverChangeFeed(long snapshotChangeOffset, SortedMap<Long, String[]> replayedChanges) {
+        if (changeFeed.isEmpty()) {
+            // Nikt jeszcze nie czytał strumienia - odbiorcy zaczną od pełnego stanu
+            changeFeed.startNewEpoch();
+            return;
+        }
+        long feedOffset = changeFeed.getNextOffset();
+        long from = Math.min(snapshotChangeOffset, feedOffset);
+        long to = Math.max(snapshotChangeOffset, feedOffset);
+        if (replayedChanges.subMap(from, to).size() != to - from) {
+            System.err.println("Strumień zmian (do offsetu " + feedOffset + ") nie zgadza się z odtworzonym stanem"
+                    + " - strumień zaczyna nową epokę, odbiorcy muszą pobrać pełny stan.");
+            changeFeed.startNewEpoch();
+            return;
+        }
+        SortedMap<Long, String[]> missing = replayedChanges.tailMap(feedOffset);
+        missing.values().forEach(changeFeed::appendRecovered);
+        if (!missing.isEmpty()) {
+            System.out.println("Przekazano do strumienia zmian " + missing.size() + " zmian z dziennika.");
+        }
+    }
+
+    /**
+     * Zwraca przyszłość kończącą się, gdy wszystkie dotychczasowe zmiany są trwale zapisane na dysku.
+     */
+    public CompletableFuture<Void> sync() {
+        awaitReady();
+        return journal.sync();
+    }
+
+    /**
+     * Zapisuje pełny stan (snapshot i pliki JSON) i zamyka dziennik. Wywoływane przy zakończeniu pracy programu.
+     */
+    public void close() {
+        // Replika może zostać zamknięta przed pobraniem stanu i nie ma czego zapisywać
+        if (!replica) {
+            awaitReady();
+        }
+        eventBus.close();
+        if (!replica) {
+            archiveClosedTickets();
+            saveDataToFiles();
+        }
+        // Strumień przed dziennikiem - ostatnia paczka czeka na trwały zapis stanu
+        changeFeed.close();
+        journal.close();
+        archive.close();
+    }
+
+    /**
+     * Przenosi do archiwum zamknięte zgłoszenia starsze niż 30 dni.
+     *
+     * @return liczba zarchiwizowanych zgłoszeń
+     */
+    public int archiveClosedTickets() {
+        return archiveClosedTickets(DEFAULT_ARCHIVE_AGE);
+    }
+
+    /**
+     * Przenosi do archiwum zamknięte zgłoszenia utworzone wcześniej niż podany czas temu.
+     * Zarchiwizowane zgłoszenia znikają z pamięci, indeksów i plików stanu, ale nadal
+     * można je znaleźć po ID ({@link #findTicketById}).
+     *
+     * @param olderThan minimalny wiek zgłoszenia liczony od daty utworzenia
+     * @return liczba zarchiwizowanych zgłoszeń
+     */
+    public int archiveClosedTickets(Duration olderThan) {
+        checkWritable();
+        if (olderThan == null || olderThan.isNegative()) {
+            throw new IllegalArgumentException("Wiek archiwizowanych zgłoszeń musi być nieujemny");
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(olderThan);
+        List<Ticket> archived = withExclusiveLock(() -> {
+            List<Ticket> candidates = new ArrayList<>();
+            for (Ticket ticket : index.getByStatus(Ticket.Status.ZAMKNIETE)) {
+                if (ticket.getCreatedAt().isBefore(cutoff)) {
+                    candidates.add(ticket);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return candidates;
+            }
+            // Zgłoszenia znikają z pamięci dopiero po trwałym zapisaniu ich segmentu
+            List<Ticket> written = archive.archive(candidates);
+            written.forEach(this::removeTicket);
+            long[] changeOffsets = new long[written.size()];
+            for (int i = 0; i < changeOffsets.length; i++) {
+                changeOffsets[i] = changeFeed.ticketArchived(written.get(i).getTicketId());
+            }
+            // Duża paczka trafia od razu do snapshotu, tak jak przy imporcie zbiorczym
+            if (journal.getRecordCount() + written.size() < COMPACTION_THRESHOLD || !compact()) {
+                for (int i = 0; i < changeOffsets.length; i++) {
+                    journal.logTicketArchived(changeOffsets[i], written.get(i).getTicketId());
+                }
+            }
+            return written;
+        });
+        if (!archived.isEmpty()) {
+            afterJournalWrite(journal.sync());
+        }
+        return archived.size();
+    }
+
+    /**
+     * Po zapisaniu rekordu w dzienniku sprawdza, czy nie należy go skompaktować.
+     * Wywoływane bez trzymanych blokad; w trybie SYNC czeka też na zapis rekordu.
+     *
+     * @return przyszłość trwałego zapisu zmiany
+     */
+    private CompletableFuture<Void> afterJournalWrite(CompletableFuture<Void> written) {
+        CompletableFuture<Void> durable = written.exceptionallyComposeAsync(this::saveStateAfterFailedWrite);
+        if (journal.getDurability() == Journal.Durability.SYNC) {
+            try {
+                durable.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        if (journal.getRecordCount() >= COMPACTION_THRESHOLD) {
+            stateLock.writeLock().lock();
+            try {
+                // Inny wątek mógł skompaktować dziennik w międzyczasie
+                if (journal.getRecordCount() >= COMPACTION_THRESHOLD) {
+                    compact();
+                }
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+        }
+        return durable;
+    }
+
+    /**
+     * Zapis rekordu w dzienniku się nie powiódł, a zmiana jest już w pamięci - utrwala ją zapis pełnego stanu.
+     */
+    private CompletableFuture<Void> saveStateAfterFailedWrite(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        stateLock.writeLock().lock();
+        try {
+            if (compact()) {
+                System.err.println("Zapis dziennika nie powiódł się (" + cause.getMessage()
+                        + ") - zmiany utrwalono zapisem pełnego stanu.");
+                return CompletableFuture.completedFuture(null);
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        return CompletableFuture.failedFuture(new WriteNotDurableException(
+                "Zmiana została wprowadzona, ale nie udało się jej trwale zapisać: " + cause.getMessage(), cause));
+    }
+
+    /**
+     * Wykonuje operację pod współdzieloną blokadą stanu i blokadą pasa danego zgłoszenia.
+     */
+    private <T> T withTicketLock(String ticketId, Supplier<T> action) {
+        awaitReady();
+        Lock shared = stateLock.readLock();
+        shared.lock();
+        try {
+            int stripe = (ticketId.hashCode() & 0x7fffffff) % LOCK_STRIPES;
+            synchronized (ticketLocks[stripe]) {
+                return action.get();
+            }
+        } finally {
+            shared.unlock();
+        }
+    }
+
+    private <T> T withSharedLock(Supplier<T> action) {
+        awaitReady();
+        stateLock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    private <T> T withExclusiveLock(Supplier<T> action) {
+        awaitReady();
+        stateLock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Nakłada na stan pojedynczy rekord odczytany z dziennika zmian.
+     * Rekordy już zawarte w snapshocie (np. po przerwanym kompaktowaniu) są nakładane ponownie bez szkody.
+     */
+    private void applyJournalRecord(String[] record) {
+        switch (record[0]) {
+            case Journal.TICKET_ADDED -> putTicket(Journal.ticketFromRecord(record));
+            case Journal.TICKET_ASSIGNED -> {
+                Ticket ticket = tickets.get(record[1]);
+                if (ticket != null && ticket.isActive()) {
+                    changeTicket(ticket, t -> t.assignToTechnician(record[2]));
+                }
+            }
+            case Journal.TICKET_CLOSED -> {
+                Ticket ticket = tickets.get(record[1]);
+                if (ticket != null) {
+                    changeTicket(ticket, Ticket::close);
+                }
+            }
+            case Journal.TICKET_ARCHIVED -> {
+                Ticket ticket = tickets.get(record[1]);
+                if (ticket != null) {
+                    removeTicket(ticket);
+                }
+            }
+            case Journal.TECHNICIAN_ADDED -> technicians.add(record[1]);
+            case Journal.TECHNICIAN_REMOVED -> technicians.remove(record[1]);
+            default -> throw new IllegalArgumentException("nieznany typ rekordu " + record[0]);
+        }
     }
 
+    /**
+     * Umieszcza zgłoszenie w mapie głównej i indeksach, zastępując ewentualną poprzednią wersję.
+     */
+    private void putTicket(Ticket ticket) {
+        Ticket previous = tickets.put(ticket.getTicketId(), ticket);
+        if (previous != null) {
+            index.remove(previous);
+            listing.remove(previous);
+        }
+        index.add(ticket);
+        searchIndex.add(ticket);
+        listing.add(ticket);
+        dispatcher.update(ticket);
+        idAllocator.observe(ticket.getTicketId());
+    }
 
-    public void addTicket(Ticket ticket) {
+    /**
+     * Usuwa zgłoszenie z pamięci i wszystkich indeksów (po przeniesieniu do archiwum).
+     */
+    private void removeTicket(Ticket ticket) {
+        if (tickets.remove(ticket.getTicketId(), ticket)) {
+            index.remove(ticket);
+            searchIndex.remove(ticket.getTicketId());
+            listing.remove(ticket);
+            dispatcher.update(ticket);
+        }
+    }
+
+    /**
+     * Zmienia stan zgłoszenia, utrzymując spójność indeksów i kolejki przydziału.
+     */
+    private void changeTicket(Ticket ticket, Consumer<Ticket> change) {
+        index.remove(ticket);
+        try {
+            change.accept(ticket);
+        } finally {
+            index.add(ticket);
+            dispatcher.update(ticket);
+        }
+    }
+
+
+    /**
+     * @return przyszłość zapisu zmiany zgodnie z poziomem trwałości dziennika
+     */
+    public CompletableFuture<Void> addTicket(Ticket ticket) {
+        checkWritable();
         if (ticket == null) {
             throw new IllegalArgumentException("Zgłoszenie nie może być null");
         }
-        if (tickets.containsKey(ticket.getTicketId())) {
-            throw new IllegalArgumentException("Zgłoszenie o ID " +
-                    ticket.getTicketId() + " już istnieje w systemie");
+        CompletableFuture<Void> written = withTicketLock(ticket.getTicketId(), () -> {
+            if (tickets.containsKey(ticket.getTicketId()) || archive.contains(ticket.getTicketId())) {
+                throw new IllegalArgumentException("Zgłoszenie o ID " +
+                        ticket.getTicketId() + " już istnieje w systemie");
+            }
+            putTicket(ticket);
+            long changeOffset = changeFeed.ticketAdded(ticket);
+            eventBus.publish(new TicketEvent.TicketCreated(ticket));
+            return journal.logTicketAdded(changeOffset, ticket);
+        });
+        return afterJournalWrite(written);
+    }
+
+    /**
+     * Import zbiorczy: waliduje zgłoszenia równolegle, dodaje poprawne i zapisuje całą paczkę
+     * jednym zatwierdzeniem - dla dużych paczek od razu jako snapshot zamiast rekordów dziennika.
+     * Duplikaty i błędy walidacji są zwracane w wynikach, a nie zgłaszane wyjątkiem.
+     * Dane wejściowe są czytane porcjami po {@value #INGEST_CHUNK} pozycji i nie są kopiowane w całości.
+     *
+     * @param drafts dane zgłoszeń; pozycje bez ID otrzymują kolejne wolne identyfikatory
+     * @return wyniki w kolejności danych wejściowych
+     */
+    public List<IngestResult> ingestTickets(Iterable<TicketDraft> drafts) {
+        if (drafts == null) {
+            throw new IllegalArgumentException("Dane importu nie mogą być null");
+        }
+        return ingest(drafts.iterator());
+    }
+
+    public List<IngestResult> ingestTickets(Stream<TicketDraft> drafts) {
+        if (drafts == null) {
+            throw new IllegalArgumentException("Dane importu nie mogą być null");
+        }
+        return ingest(drafts.iterator());
+    }
+
+    private List<IngestResult> ingest(Iterator<TicketDraft> input) {
+        checkWritable();
+        awaitReady();
+        IngestBatch batch = new IngestBatch();
+        List<TicketDraft> chunk = new ArrayList<>(INGEST_CHUNK);
+        while (input.hasNext()) {
+            chunk.add(input.next());
+            if (chunk.size() == INGEST_CHUNK || !input.hasNext()) {
+                validateChunk(chunk, batch);
+                chunk.clear();
+            }
+        }
+        int size = batch.results.size();
+        if (size == 0) {
+            return new ArrayList<>();
+        }
+
+        // Zastosowanie całej paczki na wyłączność i jedno zatwierdzenie zapisu
+        Ticket[] accepted = new Ticket[size];
+        List<Ticket> added = new ArrayList<>();
+        CompletableFuture<Void> written = withExclusiveLock(() -> {
+            // Najpierw pozycje z własnym ID, w kolejności wejścia - o duplikacie decyduje ich kolejność
+            for (int i = 0; i < size; i++) {
+                Ticket ticket = batch.validated.get(i);
+                if (ticket == null || batch.generatedIds.get(i)) {
+                    continue;
+                }
+                if (tickets.containsKey(ticket.getTicketId()) || archive.contains(ticket.getTicketId())) {
+                    batch.results.set(i, new IngestResult(i, ticket.getTicketId(), IngestResult.Outcome.DUPLICATE,
+                            "Zgłoszenie o ID " + ticket.getTicketId() + " już istnieje w systemie"));
+                    continue;
+                }
+                putTicket(ticket);
+                accepted[i] = ticket;
+            }
+            // Przydzielony identyfikator zajęty przez pozycję z wcześniejszej porcji dostaje następny wolny
+            for (int i = batch.generatedIds.nextSetBit(0); i >= 0; i = batch.generatedIds.nextSetBit(i + 1)) {
+                Ticket ticket = batch.validated.get(i);
+                if (ticket == null) {
+                    continue;
+                }
+                while (tickets.containsKey(ticket.getTicketId()) || archive.contains(ticket.getTicketId())) {
+                    ticket = withTicketId(ticket, idAllocator.nextTicketId());
+                }
+                putTicket(ticket);
+                accepted[i] = ticket;
+            }
+            for (int i = 0; i < size; i++) {
+                if (accepted[i] != null) {
+                    added.add(accepted[i]);
+                    batch.results.set(i, new IngestResult(i, accepted[i].getTicketId(),
+                            IngestResult.Outcome.ADDED, null));
+                }
+            }
+            if (added.isEmpty()) {
+                return null;
+            }
+            long[] changeOffsets = new long[added.size()];
+            for (int i = 0; i < changeOffsets.length; i++) {
+                changeOffsets[i] = changeFeed.ticketAdded(added.get(i));
+            }
+            if (eventBus.hasSubscribers()) {
+                added.forEach(ticket -> eventBus.publish(new TicketEvent.TicketCreated(ticket)));
+            }
+            // Duża paczka trafia od razu do snapshotu; gdy jego zapis się nie uda, do dziennika
+            if (journal.getRecordCount() + added.size() >= COMPACTION_THRESHOLD && compact()) {
+                return journal.sync();
+            }
+            for (int i = 0; i < changeOffsets.length; i++) {
+                journal.logTicketAdded(changeOffsets[i], added.get(i));
+            }
+            return journal.sync();
+        });
+        if (written != null) {
+            afterJournalWrite(written);
+        }
+        return batch.results;
+    }
+
+    /**
+     * Stan importu po walidacji kolejnych porcji: zgłoszenia i wyniki pod indeksem pozycji wejściowej.
+     */
+    private static final class IngestBatch {
+        final List<Ticket> validated = new ArrayList<>();
+        final List<IngestResult> results = new ArrayList<>();
+        /** Pozycje, którym identyfikator przydzielił system. */
+        final BitSet generatedIds = new BitSet();
+    }
+
+    /**
+     * Przydziela identyfikatory i waliduje jedną porcję importu. Jawne identyfikatory porcji są
+     * zgłaszane do alokatora przed rezerwacją bloku, więc przydzielone numery ich nie powtórzą.
+     */
+    private void validateChunk(List<TicketDraft> chunk, IngestBatch batch) {
+        int offset = batch.results.size();
+        int size = chunk.size();
+        int missingIds = 0;
+        for (TicketDraft draft : chunk) {
+            if (draft != null && draft.ticketId() == null) {
+                missingIds++;
+            } else if (draft != null) {
+                idAllocator.observe(draft.ticketId());
+            }
+        }
+        TicketIdAllocator.IdBlock ids = missingIds > 0 ? idAllocator.reserveBlock(missingIds) : null;
+        String[] ticketIds = new String[size];
+        int nextFromBlock = 0;
+        for (int i = 0; i < size; i++) {
+            TicketDraft draft = chunk.get(i);
+            if (draft != null && draft.ticketId() == null) {
+                ticketIds[i] = ids.idAt(nextFromBlock++);
+                batch.generatedIds.set(offset + i);
+            } else if (draft != null) {
+                ticketIds[i] = draft.ticketId();
+            }
         }
-        tickets.put(ticket.getTicketId(), ticket);
-        saveDataToFiles(); // Auto-save po dodaniu
+
+        // Walidacja równoległa - konstruktor Ticket sprawdza wszystkie pola
+        Ticket[] validated = new Ticket[size];
+        IngestResult[] results = new IngestResult[size];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            TicketDraft draft = chunk.get(i);
+            if (draft == null) {
+                results[i] = new IngestResult(offset + i, null, IngestResult.Outcome.INVALID,
+                        "Zgłoszenie nie może być null");
+                return;
+            }
+            try {
+                validated[i] = new Ticket(ticketIds[i], draft.title(), draft.description(),
+                        draft.reporterName(), draft.reporterEmail(), draft.priority());
+            } catch (IllegalArgumentException e) {
+                results[i] = new IngestResult(offset + i, ticketIds[i], IngestResult.Outcome.INVALID, e.getMessage());
+            }
+        });
+        batch.validated.addAll(Arrays.asList(validated));
+        batch.results.addAll(Arrays.asList(results));
     }
 
-    public void addTechnician(String technicianName) {
+    private static Ticket withTicketId(Ticket ticket, String ticketId) {
+        return new Ticket(ticketId, ticket.getTitle(), ticket.getDescription(), ticket.getReporterName(),
+                ticket.getReporterEmail(), ticket.getPriority(), ticket.getStatus(),
+                ticket.getAssignedTechnicianName(), ticket.getCreatedAt());
+    }
+
+    public CompletableFuture<Void> addTechnician(String technicianName) {
+        checkWritable();
         if (technicianName == null || technicianName.trim().isEmpty()) {
             throw new IllegalArgumentException("Nazwa technika nie może być pusta");
         }
-        if (technicians.contains(technicianName)) {
-            throw new IllegalArgumentException("Technik " + technicianName + " już istnieje w systemie");
-        }
-        technicians.add(technicianName);
-        saveDataToFiles(); // Auto-save po dodaniu
+        CompletableFuture<Void> written = withSharedLock(() -> {
+            if (!technicians.add(technicianName)) {
+                throw new IllegalArgumentException("Technik " + technicianName + " już istnieje w systemie");
+            }
+            return journal.logTechnicianAdded(changeFeed.technicianAdded(technicianName), technicianName);
+        });
+        return afterJournalWrite(written);
     }
 
-    public Optional<Ticket> findTicketById(String ticketId) {
-        return Optional.ofNullable(tickets.get(ticketId));
+    /**
+     * Przydziela nowy, niepowtarzalny identyfikator zgłoszenia.
+     */
+    public String nextTicketId() {
+        checkWritable();
+        awaitReady();
+        return idAllocator.nextTicketId();
     }
 
-    public Ticket assignTicket(String ticketId, String technicianName) {
+    /**
+     * Rezerwuje blok kolejnych identyfikatorów, np. na potrzeby importu.
+     */
+    public TicketIdAllocator.IdBlock reserveTicketIds(int count) {
+        checkWritable();
+        awaitReady();
+        return idAllocator.reserveBlock(count);
+    }
+
+    /**
+     * Wyszukuje zgłoszenie po ID - najpierw wśród bieżących, a potem w archiwum.
+     * W trakcie wczytywania w tle zgłoszenie niezmienione w dzienniku odczytywane jest z indeksu snapshotu;
+     * zwracany obiekt jest wtedy kopią, której późniejsze zmiany nie dotyczą.
+     */
+    public Optional<Ticket> findTicketById(String ticketId) {
+        // Mapy współbieżne nie przyjmują null - zgłoszenia o takim ID po prostu nie ma
+        if (ticketId == null) {
+            return Optional.empty();
+        }
+        if (!ready.isDone()) {
+            Optional<Ticket> early = findDuringStartup(ticketId);
+            if (early != null) {
+                return early;
+            }
+            awaitReady();
+        }
         Ticket ticket = tickets.get(ticketId);
-        if (ticket == null) {
-            throw new IllegalArgumentException("Zgłoszenie o ID " + ticketId + " nie istnieje w systemie");
+        return ticket != null ? Optional.of(ticket) : archive.find(ticketId);
+    }
+
+    /**
+     * Odczyt po ID przed końcem wczytywania.
+     *
+     * @return wynik lub null, jeśli trzeba poczekać na pełny stan
+     */
+    private Optional<Ticket> findDuringStartup(String ticketId) {
+        BinarySnapshot.Index index = startupIndex;
+        Set<String> changedTicketIds = startupJournalTicketIds;
+        if (index == null || changedTicketIds == null || ticketId == null || changedTicketIds.contains(ticketId)) {
+            return null;
+        }
+        if (archive.contains(ticketId)) {
+            return archive.find(ticketId);
+        }
+        Ticket loaded = tickets.get(ticketId);
+        if (loaded != null) {
+            return Optional.of(loaded);
         }
-        if (!technicians.contains(technicianName)) {
-            throw new IllegalArgumentException("Technik " + technicianName + " nie istnieje w systemie");
+        try {
+            return index.find(ticketId);
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            return null;
         }
-        ticket.assignToTechnician(technicianName);
-        saveDataToFiles(); // Auto-save po zmianie
-        return ticket;
     }
 
+    /**
+     * Przypisuje zgłoszenie technikowi. Sprawdzenie istnienia technika i przypisanie są atomowe
+     * względem {@link #removeTechnician(String)}.
+     *
+     * @return przyszłość zapisu zmiany zgodnie z poziomem trwałości dziennika
+     */
+    public CompletableFuture<Void> assignTicket(String ticketId, String technicianName) {
+        checkWritable();
+        if (ticketId == null) {
+            throw new IllegalArgumentException("Zgłoszenie o ID null nie istnieje w systemie");
+        }
+        CompletableFuture<Void> written = withTicketLock(ticketId, () -> {
+            Ticket ticket = tickets.get(ticketId);
+            if (ticket == null) {
+                throw new IllegalArgumentException("Zgłoszenie o ID " + ticketId + " nie istnieje w systemie");
+            }
+            if (technicianName == null || !technicians.contains(technicianName)) {
+                throw new IllegalArgumentException("Technik " + technicianName + " nie istnieje w systemie");
+            }
+            changeTicket(ticket, t -> t.assignToTechnician(technicianName));
+            long changeOffset = changeFeed.ticketAssigned(ticketId, technicianName);
+            eventBus.publish(new TicketEvent.TicketAssigned(ticketId, technicianName));
+            return journal.logTicketAssigned(changeOffset, ticketId, technicianName);
+        });
+        return afterJournalWrite(written);
+    }
 
-    public void closeTicket(String ticketId) {
-        Ticket ticket = tickets.get(ticketId);
-        if (ticket == null) {
-            throw new IllegalArgumentException("Zgłoszenie o ID " + ticketId + " nie istnieje w systemie");
+
+    /**
+     * Przypisuje zgłoszenie tylko wtedy, gdy jest nowe i nieprzypisane.
+     *
+     * @return przyszłość zapisu zmiany, jeśli przypisanie się powiodło; pusty wynik, jeśli zgłoszenie
+     * zostało już obsłużone
+     */
+    public Optional<CompletableFuture<Void>> assignTicketIfNew(String ticketId, String technicianName) {
+        return conditionalChange(ticketId, technicianName, ticket -> ticket.assignIfNew(technicianName),
+                () -> journal.logTicketAssigned(changeFeed.ticketAssigned(ticketId, technicianName), ticketId,
+                        technicianName),
+                () -> new TicketEvent.TicketAssigned(ticketId, technicianName));
+    }
+
+    /**
+     * Zamyka zgłoszenie tylko wtedy, gdy jest aktywne i przypisane do podanego technika.
+     *
+     * @return przyszłość zapisu zmiany, jeśli zamknięcie się powiodło; pusty wynik w przeciwnym razie
+     */
+    public Optional<CompletableFuture<Void>> closeTicketIfAssignedTo(String ticketId, String technicianName) {
+        return conditionalChange(ticketId, null, ticket -> ticket.closeIfAssignedTo(technicianName),
+                () -> journal.logTicketClosed(changeFeed.ticketClosed(ticketId), ticketId),
+                () -> new TicketEvent.TicketClosed(ticketId));
+    }
+
+    /**
+     * Wspólna część przejść warunkowych: zmiana stanu zgłoszenia przez compare-and-set
+     * oraz zapis zmiany i publikacja zdarzenia tylko wtedy, gdy przejście się powiodło.
+     *
+     * @return przyszłość zapisu zmiany lub pusty wynik, jeśli przejście się nie powiodło
+     */
+    private Optional<CompletableFuture<Void>> conditionalChange(String ticketId, String requiredTechnician,
+                                      Predicate<Ticket> transition,
+                                      Supplier<CompletableFuture<Void>> log,
+                                      Supplier<TicketEvent> event) {
+        checkWritable();
+        if (ticketId == null) {
+            throw new IllegalArgumentException("Zgłoszenie o ID null nie istnieje w systemie");
         }
-        ticket.close();
-        saveDataToFiles(); // Auto-save po zmianie
+        boolean[] changed = new boolean[1];
+        CompletableFuture<Void> written = withTicketLock(ticketId, () -> {
+            Ticket ticket = tickets.get(ticketId);
+            if (ticket == null) {
+                throw new IllegalArgumentException("Zgłoszenie o ID " + ticketId + " nie istnieje w systemie");
+            }
+            if (requiredTechnician != null && !technicians.contains(requiredTechnician)) {
+                throw new IllegalArgumentException("Technik " + requiredTechnician + " nie istnieje w systemie");
+            }
+            changeTicket(ticket, t -> changed[0] = transition.test(t));
+            if (!changed[0]) {
+                return null;
+            }
+            eventBus.publish(event.get());
+            return log.get();
+        });
+        return written == null ? Optional.empty() : Optional.of(afterJournalWrite(written));
+    }
+
+    /**
+     * @return przyszłość zapisu zmiany zgodnie z poziomem trwałości dziennika
+     */
+    public CompletableFuture<Void> closeTicket(String ticketId) {
+        checkWritable();
+        if (ticketId == null) {
+            throw new IllegalArgumentException("Zgłoszenie o ID null nie istnieje w systemie");
+        }
+        CompletableFuture<Void> written = withTicketLock(ticketId, () -> {
+            Ticket ticket = tickets.get(ticketId);
+            if (ticket == null) {
+                throw new IllegalArgumentException("Zgłoszenie o ID " + ticketId + " nie istnieje w systemie");
+            }
+            changeTicket(ticket, Ticket::close);
+            long changeOffset = changeFeed.ticketClosed(ticketId);
+            eventBus.publish(new TicketEvent.TicketClosed(ticketId));
+            return journal.logTicketClosed(changeOffset, ticketId);
+        });
+        return afterJournalWrite(written);
     }
 
     public List<Ticket> getAllTickets() {
+        awaitReady();
         return new ArrayList<>(tickets.values());
     }
 
     public List<Ticket> getActiveTickets() {
-        return tickets.values().stream()
-                .filter(Ticket::isActive)
-                .collect(Collectors.toList());
+        awaitReady();
+        List<Ticket> active = new ArrayList<>(index.getActiveCount());
+        active.addAll(index.getByStatus(Ticket.Status.NOWE));
+        active.addAll(index.getByStatus(Ticket.Status.W_TRAKCIE));
+        return active;
+    }
+
+    /**
+     * Zwraca jedną stronę zgłoszeń w stabilnym porządku.
+     *
+     * @param sort       porządek zgłoszeń
+     * @param activeOnly czy pomijać zamknięte zgłoszenia
+     * @param cursor     kursor z poprzedniej strony lub null dla pierwszej strony
+     * @param pageSize   liczba zgłoszeń na stronie
+     */
+    public TicketPage getTicketPage(TicketSort sort, boolean activeOnly, String cursor, int pageSize) {
+        awaitReady();
+        return listing.page(sort, activeOnly ? Ticket::isActive : ticket -> true, cursor, pageSize);
+    }
+
+    /**
+     * Wykonuje złożone zapytanie, korzystając z najbardziej selektywnego indeksu.
+     *
+     * @return wyniki wraz z opisem planu wykonania
+     */
+    public QueryResult query(TicketQuery query) {
+        awaitReady();
+        return queryEngine.execute(query);
+    }
+
+    /**
+     * Leniwy strumień wszystkich zgłoszeń w danym porządku, bez kopiowania kolekcji.
+     */
+    public Stream<Ticket> streamTickets(TicketSort sort) {
+        awaitReady();
+        return listing.stream(sort);
     }
 
     public List<String> getAllTechnicians() {
+        awaitReady();
         return new ArrayList<>(technicians);
     }
 
+    public boolean hasTechnician(String technicianName) {
+        awaitReady();
+        return technicianName != null && technicians.contains(technicianName);
+    }
+
+    /**
+     * Szyna zdarzeń o zmianach w systemie, np. do powiadomień.
+     */
+    public TicketEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Uporządkowany strumień zmian z offsetami, do replikacji stanu u odbiorców.
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * Pełny stan, epoka strumienia i offset pierwszej zmiany, której ten stan nie zawiera - punkt startowy
+     * odbiorcy strumienia zmian. Pobierany na wyłączność, więc żadna zmiana nie jest w trakcie, i zwracany
+     * dopiero po zapisaniu w strumieniu wszystkich zmian, które zawiera: po awarii żadna z nich nie zniknie.
+     *
+     * @throws IllegalStateException jeśli zmiany nie zostały zapisane w strumieniu w rozsądnym czasie
+     */
+    public ChangeFeed.InitialState getStateForChangeFeed() {
+        ChangeFeed.InitialState state = withExclusiveLock(() -> new ChangeFeed.InitialState(getAllTickets(),
+                getAllTechnicians(), changeFeed.getEpoch(), changeFeed.getNextOffset()));
+        if (!changeFeed.awaitPersisted(state.nextOffset(), CHANGE_FEED_STATE_TIMEOUT_MILLIS)) {
+            throw new IllegalStateException("Strumień zmian nie nadąża z zapisem - stan nie może być jeszcze wydany");
+        }
+        return state;
+    }
+
+    /**
+     * Bariera wątku zapisu strumienia zmian: gdy zwrócona przyszłość się zakończy, wszystkie zmiany
+     * dopisane wcześniej do strumienia są trwale zapisane w dzienniku albo w snapshocie. Blokada na
+     * wyłączność czeka na zakończenie zmian w trakcie, które dopisały się już do strumienia, ale jeszcze
+     * nie do dziennika.
+     */
+    private CompletableFuture<Void> changesDurable() {
+        CompletableFuture<Void> synced;
+        stateLock.writeLock().lock();
+        try {
+            synced = journal.sync();
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        return synced.exceptionallyComposeAsync(this::saveStateAfterFailedWrite);
+    }
+
+    /**
+     * Kolejka przydziału nieprzypisanych zgłoszeń według priorytetu.
+     */
+    public TicketDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public Optional<TicketDispatcher.Lease> claimNextTicket(String technicianName) {
+        checkWritable();
+        return dispatcher.claimNext(technicianName);
+    }
+
+    public Ticket confirmClaim(TicketDispatcher.Lease lease) {
+        return dispatcher.confirm(lease);
+    }
+
+    public void releaseClaim(TicketDispatcher.Lease lease) {
+        dispatcher.release(lease);
+    }
+
+    public List<TicketSystem> getShards() {
+        return List.of(this);
+    }
+
     public List<Ticket> getTicketsAssignedTo(String technicianName) {
-        return tickets.values().stream()
-                .filter(ticket -> technicianName.equals(ticket.getAssignedTechnicianName()))
-                .collect(Collectors.toList());
+        awaitReady();
+        return new ArrayList<>(index.getByTechnician(technicianName));
+    }
+
+    public List<Ticket> getActiveTicketsAssignedTo(String technicianName) {
+        awaitReady();
+        return new ArrayList<>(index.getActiveByTechnician(technicianName));
+    }
+
+    public int getActiveTicketCountFor(String technicianName) {
+        awaitReady();
+        return index.getActiveByTechnician(technicianName).size();
+    }
+
+    public List<Ticket> getTicketsByStatus(Ticket.Status status) {
+        awaitReady();
+        return new ArrayList<>(index.getByStatus(status));
     }
 
     public List<Ticket> getUnassignedTickets() {
-        return tickets.values().stream()
-                .filter(ticket -> !ticket.isAssigned())
-                .collect(Collectors.toList());
+        awaitReady();
+        return new ArrayList<>(index.getUnassigned());
     }
 
     /**
-     * Usuwa technika z systemu.
+     * Wyszukiwanie pełnotekstowe po tytule, opisie i zgłaszającym.
+     *
+     * @param query słowa, które muszą wystąpić w zgłoszeniu; słowo zakończone '*' jest przedrostkiem
+     * @param limit maksymalna liczba wyników
+     * @return zgłoszenia uszeregowane od najlepiej dopasowanego
+     */
+    public List<Ticket> searchTickets(String query, int limit) {
+        awaitReady();
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Usuwa technika z systemu. Sprawdzenie i usunięcie wykonywane są na wyłączność,
+     * więc w międzyczasie nie może zostać przypisane mu żadne zgłoszenie.
      *
      * @param technicianName nazwa technika do usunięcia
+     * @return przyszłość zapisu zmiany zgodnie z poziomem trwałości dziennika
      * @throws IllegalArgumentException jeśli technik nie istnieje lub ma przypisane zgłoszenia
      */
-    public void removeTechnician(String technicianName) {
-        if (!technicians.contains(technicianName)) {
-            throw new IllegalArgumentException("Technik " + technicianName + " nie istnieje w systemie");
-        }
+    public CompletableFuture<Void> removeTechnician(String technicianName) {
+        checkWritable();
+        CompletableFuture<Void> written = withExclusiveLock(() -> {
+            if (technicianName == null || !technicians.contains(technicianName)) {
+                throw new IllegalArgumentException("Technik " + technicianName + " nie istnieje w systemie");
+            }
 
-        // Sprawdź czy technik ma przypisane aktywne zgłoszenia
-        List<Ticket> assignedTickets = getTicketsAssignedTo(technicianName).stream()
-                .filter(Ticket::isActive)
-                .toList();
+            // Sprawdź czy technik ma przypisane aktywne zgłoszenia
+            int activeTickets = getActiveTicketCountFor(technicianName);
 
-        if (!assignedTickets.isEmpty()) {
-            throw new IllegalArgumentException("Nie można usunąć technika " + technicianName +
-                    " - ma przypisane " + assignedTickets.size() + " aktywnych zgłoszeń");
-        }
+            if (activeTickets > 0) {
+                throw new IllegalArgumentException("Nie można usunąć technika " + technicianName +
+                        " - ma przypisane " + activeTickets + " aktywnych zgłoszeń");
+            }
 
-        technicians.remove(technicianName);
-        saveDataToFiles(); // Auto-save po usunięciu
+            technicians.remove(technicianName);
+            long changeOffset = changeFeed.technicianRemoved(technicianName);
+            eventBus.publish(new TicketEvent.TechnicianRemoved(technicianName));
+            return journal.logTechnicianRemoved(changeOffset, technicianName);
+        });
+        return afterJournalWrite(written);
     }
 
+    /**
+     * Liczba wszystkich zgłoszeń, łącznie z zarchiwizowanymi.
+     */
     public int getTotalTicketCount() {
-        return tickets.size();
+        awaitReady();
+        return tickets.size() + archive.size();
+    }
+
+    public int getArchivedTicketCount() {
+        awaitReady();
+        return archive.size();
     }
 
     public int getActiveTicketCount() {
-        return getActiveTickets().size();
+        awaitReady();
+        return index.getActiveCount();
     }
 
     public int getTechnicianCount() {
+        awaitReady();
         return technicians.size();
     }
-}
\ No newline at end of file
+}
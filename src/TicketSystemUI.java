@@ -1,16 +1,17 @@
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Random;
 import java.util.Scanner;
+import java.util.function.Function;
 
 /**
  * Klasa obsługująca interfejs użytkownika dla systemu obsługi zgłoszeń IT.
  */
 public class TicketSystemUI {
+    private static final int PAGE_SIZE = 10;
+
     private final TicketService ticketService;
     private final Scanner scanner;
     private final DateTimeFormatter dateFormatter;
-    private final Random random;
 
     public TicketSystemUI(TicketService ticketService) {
         if (ticketService == null) {
@@ -19,7 +20,6 @@ public class TicketSystemUI {
         this.ticketService = ticketService;
         this.scanner = new Scanner(System.in);
         this.dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
-        this.random = new Random();
     }
 
     public void start() {
@@ -71,7 +71,17 @@ public class TicketSystemUI {
                     waitForKeyPress();
                 }
 
-                case 11 ->
+                case 11 -> {
+                    searchTickets();
+                    waitForKeyPress();
+                }
+
+                case 12 -> {
+                    showMetrics();
+                    waitForKeyPress();
+                }
+
+                case 13 ->
                     exit = true;
                 
 
@@ -93,6 +103,11 @@ public class TicketSystemUI {
 
     private void displayMainMenu() {
         System.out.println("\n===== SYSTEM OBSŁUGI ZGŁOSZEŃ IT =====");
+        TicketSystem.StartupProgress progress = ticketService.getStartupProgress();
+        if (!progress.ready()) {
+            System.out.println("(wczytywanie danych: " + progress.percent() + "% - do końca dostępne jest tylko"
+                    + " wyszukiwanie po ID)");
+        }
         System.out.println("1. Wyświetl wszystkie zgłoszenia");
         System.out.println("2. Wyszukaj zgłoszenie po ID");
         System.out.println("3. Utwórz nowe zgłoszenie");
@@ -103,36 +118,76 @@ public class TicketSystemUI {
         System.out.println("8. Dodaj nowego technika");
         System.out.println("9. Usuń technika");
         System.out.println("10.Pokaż nieprzypisane zgłoszenia");
-        System.out.println("11.Wyjście");
-        System.out.print("Wybierz opcję wpisując (1-11): ");
+        System.out.println("11.Wyszukaj zgłoszenia po treści");
+        System.out.println("12.Pokaż metryki działania systemu");
+        System.out.println("13.Wyjście");
+        System.out.print("Wybierz opcję wpisując (1-13): ");
     }
 
     private void displayAllTickets() {
         System.out.println("\n===== WSZYSTKIE ZGŁOSZENIA =====");
-        List<Ticket> tickets = ticketService.getAllTickets();
-        if (tickets.isEmpty()) {
+        if (ticketService.getTotalTicketCount() == 0) {
             System.out.println("Brak zgłoszeń w systemie.");
 
             return;
         }
-        for (Ticket ticket : tickets) {
-            displayTicketDetails(ticket);
+        TicketSort sort = readSortChoice();
+        int shown = displayPages(cursor -> ticketService.listTickets(sort, cursor, PAGE_SIZE));
+        int archived = ticketService.getArchivedTicketCount();
+        System.out.println("\nWyświetlono " + shown + " z " + (ticketService.getTotalTicketCount() - archived) + " zgłoszeń.");
+        if (archived > 0) {
+            System.out.println("Zgłoszenia w archiwum (dostępne przez wyszukiwanie po ID): " + archived);
         }
-        System.out.println("\nŁączna liczba zgłoszeń: " + ticketService.getTotalTicketCount());
     }
 
 
     private void showActiveTickets() {
         System.out.println("\n===== AKTYWNE ZGŁOSZENIA =====");
-        List<Ticket> tickets = ticketService.getActiveTickets();
-        if (tickets.isEmpty()) {
+        if (ticketService.getActiveTicketCount() == 0) {
             System.out.println("Brak aktywnych zgłoszeń w systemie.");
             return;
         }
-        for (Ticket ticket : tickets) {
-            displayTicketDetails(ticket);
+        TicketSort sort = readSortChoice();
+        int shown = displayPages(cursor -> ticketService.listActiveTickets(sort, cursor, PAGE_SIZE));
+        System.out.println("\nWyświetlono " + shown + " z " + ticketService.getActiveTicketCount() + " aktywnych zgłoszeń.");
+    }
+
+    /**
+     * Wyświetla kolejne strony, dopóki użytkownik nie przerwie lub strony się nie skończą.
+     *
+     * @return liczba wyświetlonych zgłoszeń
+     */
+    private int displayPages(Function<String, TicketPage> pageLoader) {
+        int shown = 0;
+        String cursor = null;
+        while (true) {
+            TicketPage page = pageLoader.apply(cursor);
+            for (Ticket ticket : page.tickets()) {
+                displayTicketDetails(ticket);
+            }
+            shown += page.tickets().size();
+            if (!page.hasNext()) {
+                return shown;
+            }
+            System.out.print("Enter - następna strona, q - zakończ: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                return shown;
+            }
+            cursor = page.nextCursor();
         }
-        System.out.println("\nLiczba aktywnych zgłoszeń: " + ticketService.getActiveTicketCount());
+    }
+
+    private TicketSort readSortChoice() {
+        System.out.println("Sortuj według:");
+        System.out.println("1. Daty utworzenia");
+        System.out.println("2. Priorytetu");
+        System.out.println("3. ID");
+        System.out.print("Wybór: ");
+        return switch (readIntChoice()) {
+            case 2 -> TicketSort.PRIORITY;
+            case 3 -> TicketSort.ID;
+            default -> TicketSort.CREATED_AT;
+        };
     }
 
 //    private void showUnassignedTickets() {
@@ -175,6 +230,30 @@ public class TicketSystemUI {
         }
     }
 
+    private void searchTickets() {
+        System.out.println("\n===== WYSZUKIWANIE PO TREŚCI =====");
+        System.out.print("Podaj szukane słowa (np. drukarka, druk*): ");
+        String query = scanner.nextLine().trim();
+        try {
+            List<Ticket> tickets = ticketService.searchTickets(query);
+            if (tickets.isEmpty()) {
+                System.out.println("Nie znaleziono pasujących zgłoszeń.");
+                return;
+            }
+            for (Ticket ticket : tickets) {
+                displayTicketDetails(ticket);
+            }
+            System.out.println("\nLiczba wyświetlonych wyników: " + tickets.size());
+        } catch (Exception e) {
+            System.out.println("Błąd: " + e.getMessage());
+        }
+    }
+
+    private void showMetrics() {
+        System.out.println("\n===== METRYKI =====");
+        System.out.print(ticketService.getMetricsReport());
+    }
+
     private void createNewTicket() {
         System.out.println("\n===== TWORZENIE NOWEGO ZGŁOSZENIA =====");
         System.out.print("Tytuł zgłoszenia: ");
@@ -207,10 +286,6 @@ public class TicketSystemUI {
             Ticket ticket = new Ticket(ticketId, title, description, reporterName, reporterEmail, priority);
             ticketService.addTicket(ticket);
             System.out.println("Zgłoszenie zostało utworzone z ID: " + ticketId);
-
-            if (priority == Ticket.Priority.WYSOKI || priority == Ticket.Priority.KRYTYCZNY) {
-                ticketService.notifyAboutHighPriorityTicket(ticketId);
-            }
         } catch (Exception e) {
             System.out.println("Błąd: " + e.getMessage());
         }
@@ -267,10 +342,7 @@ public class TicketSystemUI {
         }
 
         for (String technician : technicians) {
-            List<Ticket> assignedTickets = ticketService.getTicketsAssignedTo(technician);
-            int activeTickets = (int) assignedTickets.stream()
-                    .filter(Ticket::isActive)
-                    .count();
+            int activeTickets = ticketService.getActiveTicketCountFor(technician);
             System.out.println("• " + technician + " - przypisanych zgłoszeń: " + activeTickets);
         }
         System.out.println("\nŁączna liczba techników: " + ticketService.getTechnicianCount());
@@ -302,10 +374,7 @@ public class TicketSystemUI {
         System.out.println("Dostępni technicy:");
         for (int i = 0; i < technicians.size(); i++) {
             String technicianName = technicians.get(i);
-            int activeTickets = ticketService.getTicketsAssignedTo(technicianName)
-                    .stream()
-                    .mapToInt(ticket -> ticket.isActive() ? 1 : 0)
-                    .sum();
+            int activeTickets = ticketService.getActiveTicketCountFor(technicianName);
             System.out.println((i + 1) + ". " + technicianName +
                     " (aktywnych zgłoszeń: " + activeTickets + ")");
         }
@@ -346,8 +415,7 @@ public class TicketSystemUI {
 
 
     private String generateTicketId() {
-        int number = 10000 + random.nextInt(90000);
-        return "TKT-" + number; //ticket
+        return ticketService.nextTicketId(); //ticket
     }
 
     private int readIntChoice() {
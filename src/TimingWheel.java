@@ -0,0 +1,303 @@
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hierarchiczne koło czasowe (hierarchical timing wheel) dla dużej liczby liczników czasu o dokładności
+ * jednego taktu.
+ * <p>
+ * Koło ma {@value #LEVELS} poziomów po {@value #SLOTS} przegródek; przegródka poziomu {@code L} obejmuje
+ * {@code 64^L} taktów, więc przy takcie 1 s zakres sięga tysięcy lat. Licznik trafia do przegródki
+ * na najniższym poziomie, na którym jego termin dzieli z bieżącym taktem wszystkie wyższe cyfry. Gdy
+ * bieżący takt dochodzi do granicy poziomu, zawartość przegródki tego poziomu jest przenoszona niżej,
+ * a liczniki z przegródki poziomu 0 odpalają. Przegródki są listami dwukierunkowymi, więc dodanie,
+ * anulowanie i odpalenie licznika kosztują O(1), a takt bez terminów - kilka operacji.
+ * <p>
+ * Przegródki zmienia tylko wątek wywołujący {@link #advance(long)} (zwykle zegar z {@link #start(String)}).
+ * Inne wątki dodają i anulują liczniki przez kolejki bez blokad, przetwarzane na początku każdego
+ * przesunięcia zegara; obsługa odpalonych liczników wykonuje się w wątku zegara i powinna być krótka.
+ */
+public class TimingWheel<T> implements AutoCloseable {
+    private static final int WHEEL_BITS = 6;
+    private static final int SLOTS = 1 << WHEEL_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    /**
+     * Licznik czasu zarejestrowany w kole.
+     */
+    public static final class Timer<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Pola listy przegródki - używane tylko przez wątek zegara
+        private Timer<T> prev;
+        private Timer<T> next;
+        private Bucket<T> bucket;
+
+        private Timer(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public boolean isPending() {
+            return state.get() == PENDING;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private Timer<T> head;
+        private Timer<T> tail;
+
+        void add(Timer<T> timer) {
+            timer.bucket = this;
+            timer.prev = tail;
+            timer.next = null;
+            if (tail == null) {
+                head = timer;
+            } else {
+                tail.next = timer;
+            }
+            tail = timer;
+        }
+
+        void remove(Timer<T> timer) {
+            if (timer.prev == null) {
+                head = timer.next;
+            } else {
+                timer.prev.next = timer.next;
+            }
+            if (timer.next == null) {
+                tail = timer.prev;
+            } else {
+                timer.next.prev = timer.prev;
+            }
+            timer.prev = null;
+            timer.next = null;
+            timer.bucket = null;
+        }
+
+        /**
+         * Odłącza całą listę i zwraca jej początek.
+         */
+        Timer<T> takeAll() {
+            Timer<T> first = head;
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+
+    private final long tickMillis;
+    private final long originMillis;
+    private final LongSupplier clock;
+    private final Consumer<? super T> onExpire;
+    private final Bucket<T>[][] wheels;
+    private final Queue<Timer<T>> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timer<T>> cancelled = new ConcurrentLinkedQueue<>();
+    private final LongAdder pending = new LongAdder();
+    private long currentTick;
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param tickMillis długość taktu w milisekundach
+     * @param clock      źródło bieżącego czasu w milisekundach, np. {@link System#currentTimeMillis()}
+     * @param onExpire   obsługa odpalonego licznika, wywoływana w wątku zegara
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, LongSupplier clock, Consumer<? super T> onExpire) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Długość taktu musi być dodatnia");
+        }
+        if (clock == null || onExpire == null) {
+            throw new IllegalArgumentException("Zegar i obsługa liczników nie mogą być null");
+        }
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.onExpire = onExpire;
+        this.originMillis = clock.getAsLong();
+        this.wheels = new Bucket[LEVELS][SLOTS];
+        for (Bucket<T>[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[slot] = new Bucket<>();
+            }
+        }
+    }
+
+    /**
+     * Rejestruje licznik odpalany w pierwszym takcie nie wcześniejszym niż termin. Termin z przeszłości
+     * odpala przy najbliższym przesunięciu zegara.
+     *
+     * @param deadlineMillis termin w milisekundach według zegara koła
+     */
+    public Timer<T> schedule(T payload, long deadlineMillis) {
+        long ticks = Math.max(0, Math.ceilDiv(deadlineMillis - originMillis, tickMillis));
+        Timer<T> timer = new Timer<>(payload, ticks);
+        pending.increment();
+        added.add(timer);
+        return timer;
+    }
+
+    /**
+     * Anuluje licznik. Licznik odpalony lub anulowany wcześniej nie jest zmieniany.
+     *
+     * @return true, jeśli licznik został anulowany przed odpaleniem
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || !timer.state.compareAndSet(PENDING, CANCELLED)) {
+            return false;
+        }
+        pending.decrement();
+        cancelled.add(timer);
+        return true;
+    }
+
+    /**
+     * Liczba liczników oczekujących na odpalenie.
+     */
+    public long getPendingCount() {
+        return pending.sum();
+    }
+
+    /**
+     * Uruchamia wątek zegara przesuwający koło co takt.
+     */
+    public synchronized void start(String threadName) {
+        if (thread != null) {
+            throw new IllegalStateException("Zegar koła czasowego już działa");
+        }
+        running = true;
+        thread = Thread.ofPlatform().daemon().name(threadName).start(this::run);
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long now = clock.getAsLong();
+            advance(now);
+            long nextTickMillis = originMillis + (currentTick + 1) * tickMillis;
+            try {
+                Thread.sleep(Math.max(1, nextTickMillis - now));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Przetwarza dodane i anulowane liczniki, a następnie przesuwa koło do podanego czasu, odpalając
+     * liczniki, których termin minął. Wywoływana tylko przez jeden wątek naraz.
+     */
+    public void advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - originMillis, tickMillis);
+        Timer<T> timer;
+        while ((timer = cancelled.poll()) != null) {
+            if (timer.bucket != null) {
+                timer.bucket.remove(timer);
+            }
+        }
+        while ((timer = added.poll()) != null) {
+            if (timer.state.get() == PENDING) {
+                insert(timer);
+            }
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            expire(wheels[0][(int) (currentTick & MASK)].takeAll());
+        }
+    }
+
+    /**
+     * Umieszcza licznik na najniższym poziomie, na którym termin i bieżący takt mają te same wyższe cyfry.
+     * Termin, który już minął, odpala od razu.
+     */
+    private void insert(Timer<T> timer) {
+        long deadline = timer.deadlineTick;
+        if (deadline <= currentTick) {
+            fire(timer);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1
+                && (deadline >>> (WHEEL_BITS * (level + 1))) != (currentTick >>> (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        wheels[level][(int) ((deadline >>> (WHEEL_BITS * level)) & MASK)].add(timer);
+    }
+
+    /**
+     * Na granicy poziomu przenosi liczniki z bieżącej przegródki tego poziomu na niższe poziomy,
+     * zaczynając od najwyższego poziomu, którego granica została osiągnięta.
+     */
+    private void cascade() {
+        int aligned = 0;
+        while (aligned < LEVELS - 1 && (currentTick & ((1L << (WHEEL_BITS * (aligned + 1))) - 1)) == 0) {
+            aligned++;
+        }
+        for (int level = aligned; level >= 1; level--) {
+            Timer<T> timer = wheels[level][(int) ((currentTick >>> (WHEEL_BITS * level)) & MASK)].takeAll();
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                timer.prev = null;
+                timer.next = null;
+                timer.bucket = null;
+                insert(timer);
+                timer = next;
+            }
+        }
+    }
+
+    private void expire(Timer<T> timer) {
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            timer.bucket = null;
+            if (timer.deadlineTick > currentTick) {
+                // Termin poza zakresem najwyższego poziomu - jeszcze jedno okrążenie
+                insert(timer);
+            } else {
+                fire(timer);
+            }
+            timer = next;
+        }
+    }
+
+    private void fire(Timer<T> timer) {
+        if (!timer.state.compareAndSet(PENDING, EXPIRED)) {
+            return;
+        }
+        pending.decrement();
+        try {
+            onExpire.accept(timer.payload);
+        } catch (RuntimeException e) {
+            System.err.println("Błąd podczas obsługi licznika czasu: " + e.getMessage());
+        }
+    }
+}
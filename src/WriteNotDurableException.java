@@ -0,0 +1,14 @@
+/**
+ * Zmiana została wprowadzona w pamięci, ale ani zapis dziennika, ani zapis pełnego stanu się nie powiódł -
+ * po ponownym uruchomieniu zmiany może nie być.
+ * <p>
+ * Dziedziczy po {@link IllegalStateException}, jak dotychczasowy wyjątek nieudanego zapisu, ale pozwala
+ * odróżnić awarię zapisu od odrzuconej zmiany (np. zamkniętego zgłoszenia).
+ */
+public class WriteNotDurableException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public WriteNotDurableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
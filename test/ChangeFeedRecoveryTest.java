@@ -0,0 +1,141 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Strumień zmian po awarii: zmiany z dziennika, których strumień nie zdążył zapisać, trafiają do niego
+ * ponownie, a gdy strumień wyprzedził odtworzony stan, zaczyna on nową epokę. Do tego subskrypcja
+ * zamykana z własnej obsługi paczki.
+ */
+class ChangeFeedRecoveryTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void changesMissingFromFeedAreResentFromJournal() throws IOException {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.SYNC);
+        system.addTechnician("Jan");
+        system.addTicket(ticket("TKT-80000"));
+        ChangeFeed feed = system.getChangeFeed();
+        long epoch = feed.getEpoch();
+        long lostFrom = feed.getNextOffset();
+        system.addTicket(ticket("TKT-80001"));
+        system.assignTicket("TKT-80000", "Jan");
+        assertTrue(feed.awaitPersisted(feed.getNextOffset(), 5000));
+        // Awaria przed zapisem dwóch ostatnich zmian w strumieniu - w dzienniku już są
+        feed.close();
+        system.getEventBus().close();
+        truncateFeedAt(lostFrom);
+
+        TicketSystem reopened = TicketSystem.open(directory, Journal.Durability.SYNC);
+        ChangeFeed recovered = reopened.getChangeFeed();
+        assertEquals(epoch, recovered.getEpoch());
+        assertEquals(lostFrom + 2, recovered.getNextOffset());
+        assertTrue(recovered.awaitPersisted(lostFrom + 2, 5000));
+        List<ChangeFeed.Change> changes = recovered.read(epoch, lostFrom, 10, 0);
+        assertEquals(List.of(Journal.TICKET_ADDED, Journal.TICKET_ASSIGNED),
+                changes.stream().map(ChangeFeed.Change::type).toList());
+        assertEquals("TKT-80001", changes.get(0).ticketId());
+        assertEquals("Jan", changes.get(1).technicianName());
+
+        // Nowe zmiany dostają kolejne offsety tej samej epoki
+        reopened.closeTicket("TKT-80001");
+        assertTrue(recovered.awaitPersisted(lostFrom + 3, 5000));
+        assertEquals(Journal.TICKET_CLOSED, recovered.read(epoch, lostFrom + 2, 10, 0).get(0).type());
+        reopened.close();
+    }
+
+    @Test
+    void feedAheadOfRecoveredStateStartsNewEpoch() throws IOException {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.SYNC);
+        system.addTicket(ticket("TKT-80010"));
+        system.addTicket(ticket("TKT-80011"));
+        ChangeFeed feed = system.getChangeFeed();
+        long epoch = feed.getEpoch();
+        assertTrue(feed.awaitPersisted(feed.getNextOffset(), 5000));
+        feed.close();
+        system.getEventBus().close();
+        // Utracony dziennik - odbiorcy strumienia widzieli zmiany, których odtworzony stan nie ma
+        Files.delete(new File(directory, "tickets.journal").toPath());
+
+        TicketSystem reopened = TicketSystem.open(directory, Journal.Durability.SYNC);
+        ChangeFeed recovered = reopened.getChangeFeed();
+        assertNotEquals(epoch, recovered.getEpoch());
+        assertThrows(IllegalStateException.class, () -> recovered.read(epoch, 0, 10, 0));
+
+        ChangeFeed.InitialState state = reopened.getStateForChangeFeed();
+        assertEquals(recovered.getEpoch(), state.epoch());
+        assertTrue(state.tickets().isEmpty());
+        reopened.addTicket(ticket("TKT-80012"));
+        assertTrue(recovered.awaitPersisted(state.nextOffset() + 1, 5000));
+        assertEquals("TKT-80012",
+                recovered.read(state.epoch(), state.nextOffset(), 10, 0).get(0).ticketId());
+        reopened.close();
+    }
+
+    @Test
+    void subscriptionCanBeClosedFromItsHandler() throws Exception {
+        try (ChangeFeed feed = new ChangeFeed(new File(directory, ChangeFeed.FEED_DIRECTORY))) {
+            feed.technicianAdded("Jan");
+            feed.technicianAdded("Ewa");
+            CompletableFuture<List<ChangeFeed.Change>> delivered = new CompletableFuture<>();
+            ChangeFeed.Subscription[] subscription = new ChangeFeed.Subscription[1];
+            CountDownLatch subscribed = new CountDownLatch(1);
+            subscription[0] = feed.subscribe(feed.getEpoch(), 0, 10, batch -> {
+                try {
+                    subscribed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                subscription[0].close();
+                delivered.complete(batch);
+            });
+            subscribed.countDown();
+
+            assertEquals(2, delivered.get(5, TimeUnit.SECONDS).size());
+            assertTrue(subscription[0].isClosed());
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                while (subscription[0].getOffset() != 2) {
+                    Thread.sleep(1);
+                }
+            });
+        }
+    }
+
+    /**
+     * Obcina jedyny segment strumienia tuż przed zmianą o podanym offsecie.
+     */
+    private void truncateFeedAt(long offset) throws IOException {
+        File[] segments = new File(directory, ChangeFeed.FEED_DIRECTORY).listFiles();
+        assertNotNull(segments);
+        assertEquals(1, segments.length);
+        List<String> lines = Files.readAllLines(segments[0].toPath(), StandardCharsets.UTF_8);
+        long length = 0;
+        for (String line : lines) {
+            if (line.startsWith(offset + "\t")) {
+                break;
+            }
+            length += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(segments[0], "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private static Ticket ticket(String ticketId) {
+        return new Ticket(ticketId, "Brak sieci", "Brak połączenia z siecią", "Ewa Zielińska",
+                "ewa.zielinska@firma.pl", Ticket.Priority.NISKI);
+    }
+}
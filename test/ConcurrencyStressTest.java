@@ -0,0 +1,138 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Współbieżne przypisania, zamknięcia i usuwanie techników z wielu wątków jednocześnie,
+ * sprawdzane względem niezmienników indeksów i stanu odtworzonego z dziennika, oraz wyniki dla argumentów
+ * null, których kolekcje współbieżne nie przyjmują.
+ */
+class ConcurrencyStressTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 3000;
+    private static final int INITIAL_TICKETS = 200;
+    private static final List<String> TECHNICIANS = List.of("Jan", "Ewa", "Piotr", "Anna", "Marek");
+
+    @TempDir
+    File directory;
+
+    @Test
+    void concurrentChangesKeepIndexesAndJournalConsistent() throws Exception {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        TECHNICIANS.forEach(system::addTechnician);
+        List<String> ticketIds = new ArrayList<>();
+        for (int i = 0; i < INITIAL_TICKETS; i++) {
+            String ticketId = system.nextTicketId();
+            system.addTicket(ticket(ticketId, i));
+            ticketIds.add(ticketId);
+        }
+
+        Map<String, AtomicInteger> conditionalWinners = new ConcurrentHashMap<>();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    String ticketId = ticketIds.get(random.nextInt(ticketIds.size()));
+                    String technician = TECHNICIANS.get(random.nextInt(TECHNICIANS.size()));
+                    try {
+                        switch (random.nextInt(10)) {
+                            case 0 -> system.addTicket(ticket(system.nextTicketId(), i));
+                            case 1, 2 -> system.assignTicket(ticketId, technician);
+                            case 3, 4 -> {
+                                if (system.assignTicketIfNew(ticketId, technician).isPresent()) {
+                                    conditionalWinners.computeIfAbsent(ticketId, id -> new AtomicInteger())
+                                            .incrementAndGet();
+                                }
+                            }
+                            case 5 -> system.closeTicketIfAssignedTo(ticketId, technician);
+                            case 6 -> system.closeTicket(ticketId);
+                            case 7 -> system.removeTechnician(technician);
+                            case 8 -> system.addTechnician(technician);
+                            default -> system.findTicketById(ticketId).orElseThrow();
+                        }
+                    } catch (IllegalArgumentException | IllegalStateException expected) {
+                        // Technik usunięty, ma aktywne zgłoszenia, już istnieje lub zgłoszenie zamknięte
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        conditionalWinners.forEach((ticketId, winners) ->
+                assertEquals(1, winners.get(), "warunkowe przypisanie " + ticketId + " wygrało więcej niż raz"));
+        List<String> problems = IndexConsistency.verify(system);
+        assertTrue(problems.isEmpty(), () -> String.join("\n", problems));
+        for (Ticket ticket : system.getActiveTickets()) {
+            if (ticket.isAssigned()) {
+                assertTrue(system.hasTechnician(ticket.getAssignedTechnicianName()),
+                        "aktywne zgłoszenie " + ticket.getTicketId() + " przypisane do usuniętego technika");
+            }
+        }
+
+        system.sync().join();
+        // Kolejność wpisów w dzienniku musi odtworzyć ten sam stan, który widziały wątki
+        TicketSystem replayed = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        try {
+            assertEquals(system.getAllTickets().size(), replayed.getAllTickets().size());
+            assertEquals(system.getAllTechnicians().stream().sorted().toList(),
+                    replayed.getAllTechnicians().stream().sorted().toList());
+            for (Ticket ticket : system.getAllTickets()) {
+                Ticket copy = replayed.findTicketById(ticket.getTicketId()).orElseThrow();
+                assertEquals(ticket.getStatus(), copy.getStatus(), ticket.getTicketId());
+                assertEquals(ticket.getAssignedTechnicianName(), copy.getAssignedTechnicianName(), ticket.getTicketId());
+            }
+            List<String> replayProblems = IndexConsistency.verify(replayed);
+            assertTrue(replayProblems.isEmpty(), () -> String.join("\n", replayProblems));
+        } finally {
+            replayed.getEventBus().close();
+            system.close();
+        }
+    }
+
+    @Test
+    void nullArgumentsKeepSequentialResults() {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        system.addTechnician("Jan");
+        system.addTicket(ticket("TKT-60000", 0));
+        try {
+            // Kolekcje współbieżne nie przyjmują null - wyniki muszą być takie jak przed ich wprowadzeniem
+            assertEquals(Optional.empty(), system.findTicketById(null));
+            assertFalse(system.hasTechnician(null));
+            IllegalArgumentException assign = assertThrows(IllegalArgumentException.class,
+                    () -> system.assignTicket("TKT-60000", null));
+            assertEquals("Technik null nie istnieje w systemie", assign.getMessage());
+            assertThrows(IllegalArgumentException.class, () -> system.removeTechnician(null));
+            assertFalse(system.findTicketById("TKT-60000").orElseThrow().isAssigned());
+        } finally {
+            system.close();
+        }
+    }
+
+    private static Ticket ticket(String ticketId, int i) {
+        return new Ticket(ticketId, "Zgłoszenie " + i, "Opis zgłoszenia " + i, "Zgłaszający " + i % 7,
+                "z" + i % 7 + "@firma.pl", Ticket.Priority.values()[i % Ticket.Priority.values().length]);
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Sprawdzenie spójności indeksów pomocniczych systemu ({@link TicketIndex}, {@link TicketListing})
+ * z mapą główną zgłoszeń, dostępną przez {@link TicketStore#getAllTickets()}.
+ * Wywoływane w testach, gdy system nie jest w tym czasie zmieniany.
+ */
+final class IndexConsistency {
+
+    private IndexConsistency() {
+    }
+
+    /**
+     * @return lista wykrytych niezgodności; pusta, jeśli indeksy są spójne
+     */
+    static List<String> verify(TicketStore system) {
+        List<Ticket> all = system.getAllTickets();
+        List<String> problems = new ArrayList<>();
+
+        for (Ticket.Status status : Ticket.Status.values()) {
+            compare("status " + status, select(all, ticket -> ticket.getStatus() == status),
+                    system.getTicketsByStatus(status), problems);
+        }
+        compare("nieprzypisane", select(all, ticket -> !ticket.isAssigned()), system.getUnassignedTickets(), problems);
+
+        Set<String> technicians = new HashSet<>(system.getAllTechnicians());
+        all.stream().map(Ticket::getAssignedTechnicianName).filter(Objects::nonNull).forEach(technicians::add);
+        for (String technician : technicians) {
+            Set<String> expected = select(all, ticket -> technician.equals(ticket.getAssignedTechnicianName()));
+            Set<String> expectedActive = select(all, ticket -> ticket.isActive()
+                    && technician.equals(ticket.getAssignedTechnicianName()));
+            compare("technik " + technician, expected, system.getTicketsAssignedTo(technician), problems);
+            compare("aktywne technika " + technician, expectedActive,
+                    system.getActiveTicketsAssignedTo(technician), problems);
+            if (system.getActiveTicketCountFor(technician) != expectedActive.size()) {
+                problems.add("Licznik aktywnych zgłoszeń technika " + technician + ": "
+                        + system.getActiveTicketCountFor(technician) + " zamiast " + expectedActive.size());
+            }
+        }
+
+        long active = all.stream().filter(Ticket::isActive).count();
+        if (system.getActiveTicketCount() != active) {
+            problems.add("Licznik aktywnych zgłoszeń: " + system.getActiveTicketCount() + " zamiast " + active);
+        }
+        Set<String> allIds = select(all, ticket -> true);
+        for (TicketSort sort : TicketSort.values()) {
+            List<Ticket> listed = system.streamTickets(sort).toList();
+            if (listed.size() != all.size()) {
+                problems.add("Listowanie '" + sort + "' zwraca " + listed.size() + " zgłoszeń zamiast " + all.size());
+            }
+            compare("listowanie " + sort, allIds, listed, problems);
+        }
+        return problems;
+    }
+
+    private static Set<String> select(List<Ticket> tickets, Predicate<Ticket> filter) {
+        return tickets.stream().filter(filter).map(Ticket::getTicketId).collect(Collectors.toSet());
+    }
+
+    private static void compare(String name, Set<String> expected, Collection<Ticket> actual, List<String> problems) {
+        Set<String> actualIds = actual.stream().map(Ticket::getTicketId).collect(Collectors.toSet());
+        for (String ticketId : expected) {
+            if (!actualIds.contains(ticketId)) {
+                problems.add("Indeks '" + name + "' nie zawiera zgłoszenia " + ticketId);
+            }
+        }
+        for (String ticketId : actualIds) {
+            if (!expected.contains(ticketId)) {
+                problems.add("Indeks '" + name + "' zawiera nadmiarowe zgłoszenie " + ticketId);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Zapis {@link Json} i odczyt {@link JsonReader}: znaki specjalne wracają bez zmian, także gdy
+ * sekwencja ucieczki jest rozdzielona między kolejne odczyty; akceptowane są pliki starszych wersji.
+ */
+class JsonReaderTest {
+    @TempDir
+    File directory;
+
+    private static final List<String> VALUES = List.of(
+            "Zażółć gęślą jaźń",
+            "C:\\Users\\jan\\raport.txt",
+            "pierwsza linia\ndruga linia\r\n\tz tabulatorem",
+            "cudzysłów \" i ukośnik /",
+            "sterujące \u0000\u0001\u001f\b\f koniec",
+            "emoji \uD83D\uDDA8 drukarka",
+            "");
+
+    @Test
+    void specialCharactersSurviveRoundTrip() throws IOException {
+        Json json = new Json(directory);
+        assertTrue(json.saveTechnicians(VALUES));
+        assertEquals(VALUES, json.loadTechnicians());
+        // Po jednym znaku na odczyt - każda sekwencja ucieczki przechodzi przez granicę bufora
+        String written = Files.readString(new File(directory, "technicians.json").toPath(), StandardCharsets.UTF_8);
+        assertEquals(VALUES, readStrings(new OneCharReader(new StringReader(written))));
+    }
+
+    @Test
+    void unicodeEscapesAreDecoded() throws IOException {
+        JsonReader reader = new JsonReader(new OneCharReader(new StringReader(
+                "\"\\u017c\\u00F3\\u0142w \\uD83D\\uDDA8 \\u0009\\u000a\\/\"")));
+        assertEquals("żółw \uD83D\uDDA8 \t\n/", reader.nextString());
+        assertEquals(JsonReader.Token.END_DOCUMENT, reader.peek());
+
+        JsonReader invalid = new JsonReader(new StringReader("\"\\u12g4\""));
+        IOException error = assertThrows(IOException.class, invalid::nextString);
+        assertTrue(error.getMessage().contains("\\u"), error.getMessage());
+    }
+
+    @Test
+    void legacyFilesWithTrailingCommasAndUnknownEscapesAreAccepted() throws IOException {
+        // Starsze wersje zapisywały przecinek po ostatnim polu i ukośniki ścieżek bez ucieczki
+        String legacy = "[\n  {\"opis\": \"C:\\Dane\\Zgłoszenia\", \"priorytet\": \"WYSOKI\",},\n"
+                + "  {\"opis\": \"koniec\\q\",},\n]";
+        JsonReader reader = new JsonReader(new StringReader(legacy));
+        List<String> fields = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                fields.add(reader.nextName() + "=" + reader.nextString());
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+        assertEquals(List.of("opis=C:\\Dane\\Zgłoszenia", "priorytet=WYSOKI", "opis=koniec\\q"), fields);
+        assertEquals(JsonReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    void unterminatedStringIsReported() {
+        JsonReader reader = new JsonReader(new StringReader("{\"opis\": \"bez końca"));
+        IOException error = assertThrows(IOException.class, () -> {
+            reader.beginObject();
+            reader.nextName();
+            reader.nextString();
+        });
+        assertTrue(error.getMessage().contains("niezakończony tekst"), error.getMessage());
+    }
+
+    private static List<String> readStrings(Reader in) throws IOException {
+        List<String> values = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                values.add(reader.nextString());
+            }
+            reader.endArray();
+        }
+        return values;
+    }
+
+    /**
+     * Źródło oddające najwyżej jeden znak na wywołanie.
+     */
+    private static final class OneCharReader extends FilterReader {
+        OneCharReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return super.read(buffer, offset, Math.min(length, 1));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pomiar operacji {@link TicketService} w rejestrze {@link Metrics}: po wywołaniu rośnie liczba wywołań
+ * i pojawia się czas wykonania, wyjątek zwiększa liczbę błędów, a JMX pokazuje te same wartości.
+ * Rejestr jest wspólny dla całej JVM, więc sprawdzane są przyrosty, nie wartości bezwzględne.
+ */
+class MetricsTest {
+    @TempDir
+    File directory;
+
+    private TicketSystem system;
+    private TicketService service;
+
+    @BeforeEach
+    void open() {
+        system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        service = new TicketService(system);
+    }
+
+    @AfterEach
+    void close() {
+        service.close();
+        system.close();
+    }
+
+    @Test
+    void serviceCallUpdatesCountAndLatency() {
+        Metrics.Operation operation = Metrics.operation("service.addTechnician");
+        long count = operation.snapshot().count();
+        long errors = operation.getErrorCount();
+
+        service.addTechnician("Jan").join();
+        service.addTechnician("Ewa").join();
+
+        LatencyHistogram.Snapshot snapshot = operation.snapshot();
+        assertEquals(count + 2, snapshot.count());
+        assertTrue(snapshot.maxNanos() > 0);
+        assertTrue(Metrics.values().get("service.addTechnician.maxMicros").doubleValue() > 0);
+        assertEquals(errors, operation.getErrorCount());
+
+        // Odrzucone wywołanie jest mierzone i zliczane jako błąd
+        assertThrows(IllegalArgumentException.class, () -> service.addTechnician("Jan"));
+        assertEquals(count + 3, operation.snapshot().count());
+        assertEquals(errors + 1, operation.getErrorCount());
+        assertTrue(Metrics.report().contains("service.addTechnician"));
+    }
+
+    @Test
+    void mbeanShowsRegistryValues() throws Exception {
+        Metrics.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.MBEAN_NAME);
+
+        long before = ((Number) server.getAttribute(name, "service.getTechnicianCount.count")).longValue();
+        service.getTechnicianCount();
+        service.getTechnicianCount();
+        assertEquals(before + 2, ((Number) server.getAttribute(name, "service.getTechnicianCount.count")).longValue());
+        // Wskaźniki odczytywane są w chwili odczytu atrybutu
+        service.addTechnician("Zofia").join();
+        assertEquals((long) system.getTechnicianCount(), ((Number) server.getAttribute(name, "technicians")).longValue());
+    }
+}
@@ -0,0 +1,107 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Równoległy odczyt dużego pliku zgłoszeń daje ten sam wynik co odczyt sekwencyjny, także gdy granice
+ * fragmentów wypadają wewnątrz tekstów z nawiasami klamrowymi, cudzysłowami i ukośnikami; błąd odczytu
+ * pliku danych przerywa wczytywanie zamiast zwracać część listy.
+ */
+class ParallelTicketLoaderTest {
+    /** Teksty wyglądające jak początek lub koniec obiektu JSON, z cudzysłowami i ukośnikami. */
+    private static final String[] TRICKY = {
+            "}\n{\"title\": \"fałszywy obiekt\"}",
+            "ścieżka C:\\dane\\{zgłoszenia}\\",
+            "cytat \"{\" i \\\"}\\\" na końcu\\",
+            "{",
+            "}",
+    };
+
+    @TempDir
+    File directory;
+
+    @Test
+    void parallelLoadMatchesSequentialLoad() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Różne wypełnienie przesuwa punkty podziału względem treści zgłoszeń
+            for (int padding = 0; padding < 3; padding++) {
+                File file = writeTickets(new File(directory, "zgloszenia-" + padding), 9000, padding * 7 + 1);
+                assertTrue(file.length() > 3L * (1 << 20), "plik musi dzielić się na kilka fragmentów");
+
+                List<Ticket> parallel = new ParallelTicketLoader(new Json(), pool).load(file);
+                List<Ticket> sequential = new ArrayList<>();
+                try (JsonReader reader = new JsonReader(new InputStreamReader(new FileInputStream(file),
+                        StandardCharsets.UTF_8))) {
+                    new Json().readTickets(reader, sequential);
+                }
+                assertEquals(9000, sequential.size());
+                assertEquals(describe(sequential), describe(parallel));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void truncatedTicketsFileIsReported() throws IOException {
+        File file = writeTickets(directory, 30000, 1);
+        assertTrue(file.length() >= 8L * (1 << 20), "plik musi być wczytywany równolegle");
+        try (RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+            truncated.setLength(file.length() / 2);
+        }
+        assertThrows(IllegalStateException.class, () -> new Json(directory).loadTickets());
+    }
+
+    @Test
+    void technicianFileErrorIsReportedInsteadOfPartialList() throws IOException {
+        Json json = new Json(directory);
+        assertTrue(json.saveTechnicians(List.of("Jan Kowalski", "Anna Nowak")));
+        assertEquals(List.of("Jan Kowalski", "Anna Nowak"), json.loadTechnicians());
+
+        // Poprawne nazwy przed miejscem błędu nie mogą zostać zwrócone jako pełna lista
+        Files.writeString(new File(directory, "technicians.json").toPath(),
+                "[\n  \"Jan Kowalski\",\n  \"Anna Nowak\",\n  {\"uszkodzony\"\n", StandardCharsets.UTF_8);
+        IllegalStateException error = assertThrows(IllegalStateException.class, json::loadTechnicians);
+        assertTrue(error.getMessage().contains("technicians.json"), error.getMessage());
+    }
+
+    /**
+     * Zapisuje plik zgłoszeń przez {@link Json}, tak jak robi to system.
+     */
+    private static File writeTickets(File directory, int count, int padding) {
+        assertTrue(directory.isDirectory() || directory.mkdirs());
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 2, 12, 0);
+        List<Ticket> tickets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String tricky = TRICKY[i % TRICKY.length];
+            Ticket.Status status = i % 3 == 0 ? Ticket.Status.W_TRAKCIE : Ticket.Status.NOWE;
+            tickets.add(new Ticket(TicketIdAllocator.formatId(10000 + i), "Zgłoszenie " + tricky,
+                    tricky + " " + "x".repeat(padding * (i % 50)) + " " + tricky, "Jan \"Kowal\" Kowalski",
+                    "jan.kowalski@firma.pl", Ticket.Priority.values()[i % Ticket.Priority.values().length],
+                    status, status == Ticket.Status.NOWE ? null : "Anna {Nowak}", createdAt.plusSeconds(i)));
+        }
+        assertTrue(new Json(directory).saveTickets(tickets));
+        return new File(directory, "tickets.json");
+    }
+
+    private static List<String> describe(List<Ticket> tickets) {
+        return tickets.stream().map(ticket -> String.join("|", ticket.getTicketId(), ticket.getTitle(),
+                ticket.getDescription(), ticket.getReporterName(), ticket.getReporterEmail(),
+                ticket.getPriority().name(), ticket.getStatus().name(),
+                String.valueOf(ticket.getAssignedTechnicianName()), ticket.getCreatedAt().toString())).toList();
+    }
+}
@@ -0,0 +1,176 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replikacja między procesami: źródło uruchamiane przez {@code Main --replicate PORT --http 0} w osobnej JVM,
+ * replika w procesie testu. Źródło jest zabijane bez zamykania i uruchamiane ponownie po utracie dziennika,
+ * więc jego strumień zmian zaczyna nową epokę przy tych samych offsetach - replika musi pobrać pełny stan.
+ */
+class ReplicationProcessTest {
+    private static final Pattern HTTP_PORT = Pattern.compile("Serwer API zgłoszeń nasłuchuje na porcie (\\d+)");
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    @TempDir
+    File directory;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Process leader;
+    private ReplicationFollower follower;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (follower != null) {
+            follower.close();
+        }
+        if (leader != null) {
+            leader.destroyForcibly().waitFor();
+        }
+    }
+
+    @Test
+    void followerReloadsStateWhenLeaderStartsNewEpoch() throws Exception {
+        File leaderDirectory = new File(directory, "zrodlo");
+        assertTrue(leaderDirectory.mkdirs());
+        int replicationPort = freePort();
+
+        int httpPort = startLeader(leaderDirectory, replicationPort);
+        assertEquals(201, createTicket(httpPort, "Pierwsze").statusCode());
+        assertEquals(201, createTicket(httpPort, "Drugie").statusCode());
+
+        TicketSystem replica = TicketSystem.openReplica(new File(directory, "replika"));
+        follower = ReplicationFollower.start(replica, "localhost", replicationPort);
+        awaitTitles(replica, List.of("Pierwsze", "Drugie"), List.of());
+        long offsetBeforeCrash = follower.getStatus().appliedOffset();
+
+        // Awaria źródła i utrata jego stanu - zostaje tylko strumień zmian
+        leader.destroyForcibly().waitFor();
+        deleteAllExcept(leaderDirectory, ChangeFeed.FEED_DIRECTORY);
+
+        httpPort = startLeader(leaderDirectory, replicationPort);
+        assertEquals(201, createTicket(httpPort, "Trzecie").statusCode());
+
+        // Bez porównania epok replika wznowiłaby od swojego offsetu i zachowała zgłoszenia, których źródło już nie ma
+        awaitTitles(replica, List.of("Trzecie"), List.of("Pierwsze", "Drugie"));
+        assertTrue(follower.getStatus().appliedOffset() > offsetBeforeCrash);
+    }
+
+    /**
+     * Uruchamia źródło w osobnej JVM z katalogiem roboczym {@code workingDirectory}.
+     *
+     * @return port API HTTP źródła
+     */
+    private int startLeader(File workingDirectory, int replicationPort) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        leader = new ProcessBuilder(java, "--enable-preview", "-Dstdout.encoding=UTF-8",
+                "-cp", System.getProperty("java.class.path"),
+                "Main", "--replicate", Integer.toString(replicationPort), "--http", "0")
+                .directory(workingDirectory)
+                .redirectErrorStream(true)
+                .start();
+        CompletableFuture<Integer> port = new CompletableFuture<>();
+        Process process = leader;
+        Thread output = new Thread(() -> {
+            StringBuilder log = new StringBuilder();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    log.append(line).append('\n');
+                    Matcher matcher = HTTP_PORT.matcher(line);
+                    if (matcher.find()) {
+                        port.complete(Integer.parseInt(matcher.group(1)));
+                    }
+                }
+            } catch (IOException e) {
+                // Proces źródła został zakończony
+            }
+            port.completeExceptionally(new IllegalStateException("Źródło zakończyło działanie:\n" + log));
+        });
+        output.setDaemon(true);
+        output.start();
+        return port.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private HttpResponse<String> createTicket(int httpPort, String title) throws Exception {
+        String body = "{\"title\": \"" + title + "\", \"description\": \"Nie działa\", \"reporterName\": \"Anna Kowalska\","
+                + " \"reporterEmail\": \"anna.kowalska@firma.pl\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + httpPort + "/tickets"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Czeka, aż replika nadąży za źródłem, mając zgłoszenia o tytułach {@code present} i nie mając {@code absent}.
+     * Źródło z pustym stanem dodaje przy starcie przykładowe zgłoszenia, więc pozostałe tytuły nie są sprawdzane.
+     */
+    private void awaitTitles(TicketSystem replica, List<String> present, List<String> absent)
+            throws InterruptedException {
+        await(() -> {
+            List<String> titles = titles(replica);
+            return titles.containsAll(present) && absent.stream().noneMatch(titles::contains)
+                    && follower.getStatus().lagChanges() == 0;
+        }, () -> "replika: " + titles(replica) + ", " + follower.getStatus());
+    }
+
+    private static List<String> titles(TicketSystem replica) {
+        return replica.getAllTickets().stream().map(Ticket::getTitle).toList();
+    }
+
+    private static void await(BooleanSupplier condition, Supplier<String> state)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Przekroczono czas oczekiwania - " + state.get());
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static void deleteAllExcept(File directory, String kept) throws IOException {
+        File[] files = directory.listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            if (file.getName().equals(kept)) {
+                continue;
+            }
+            try (Stream<Path> paths = Files.walk(file.toPath())) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
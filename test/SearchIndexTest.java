@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Wyszukiwanie pełnotekstowe {@link SearchIndex}: wielkość liter i znaki diakrytyczne nie mają znaczenia,
+ * słowo z gwiazdką pasuje jako przedrostek, a zastąpione i usunięte zgłoszenia nie wracają w wynikach.
+ */
+class SearchIndexTest {
+    private SearchIndex index;
+
+    @BeforeEach
+    void fill() {
+        index = new SearchIndex();
+        index.add(ticket("TKT-10000", "Drukarka nie drukuje", "Zacięty papier w podajniku", "Łukasz Żółtowski"));
+        index.add(ticket("TKT-10001", "Awaria sieci Wi-Fi", "Brak zasięgu w księgowości", "Anna Nowak"));
+        index.add(ticket("TKT-10002", "Nowy monitor", "Prośba o drukarkę sieciową dla działu", "Jan Kowalski"));
+        index.add(ticket("TKT-10003", "Błąd w aplikacji Café", "Zgłoszenie z kawiarni", "Zoë Müller"));
+    }
+
+    @Test
+    void diacriticsAndCaseAreFolded() {
+        assertEquals(List.of("TKT-10000"), ids(index.search("DRUKARKA", 10)));
+        assertEquals(List.of("TKT-10001"), ids(index.search("ksiegowosci", 10)));
+        assertEquals(List.of("TKT-10001"), ids(index.search("KSIĘGOWOŚCI", 10)));
+        // Zgłaszający i znaki spoza polskiego alfabetu
+        assertEquals(List.of("TKT-10000"), ids(index.search("lukasz zoltowski", 10)));
+        assertEquals(List.of("TKT-10003"), ids(index.search("cafe zoe muller", 10)));
+        // Wszystkie słowa muszą wystąpić
+        assertEquals(List.of(), ids(index.search("drukarka monitor", 10)));
+    }
+
+    @Test
+    void prefixQueriesMatchWordBeginnings() {
+        // Trafienie w tytule jest wyżej niż trafienie w opisie
+        assertEquals(List.of("TKT-10000", "TKT-10002"), ids(index.search("druk*", 10)));
+        assertEquals(List.of("TKT-10000", "TKT-10002"), ids(index.search("DRUKAR*", 10)));
+        assertEquals(List.of("TKT-10000"), ids(index.search("druk*", 1)));
+        // Gwiazdka dotyczy ostatniej części słowa złożonego
+        assertEquals(List.of("TKT-10001"), ids(index.search("wi-fi*", 10)));
+        assertEquals(List.of("TKT-10001", "TKT-10002"), ids(index.search("siec*", 10)));
+        // Słowo bez gwiazdki musi pasować w całości
+        assertEquals(List.of(), ids(index.search("druk", 10)));
+
+        assertThrows(IllegalArgumentException.class, () -> index.search("d*", 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("  ", 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("druk*", 0));
+    }
+
+    @Test
+    void replacedAndRemovedTicketsAreNotFound() {
+        index.add(ticket("TKT-10000", "Skaner nie skanuje", "Zacięty papier w podajniku", "Łukasz Żółtowski"));
+        assertEquals(List.of("TKT-10002"), ids(index.search("drukark*", 10)));
+        assertEquals(List.of("TKT-10000"), ids(index.search("skaner", 10)));
+
+        index.remove("TKT-10002");
+        assertEquals(List.of(), ids(index.search("drukark*", 10)));
+        assertEquals(3, index.size());
+    }
+
+    private static Ticket ticket(String ticketId, String title, String description, String reporterName) {
+        return new Ticket(ticketId, title, description, reporterName, "zglaszajacy@firma.pl", Ticket.Priority.SREDNI);
+    }
+
+    private static List<String> ids(List<Ticket> tickets) {
+        return tickets.stream().map(Ticket::getTicketId).toList();
+    }
+}
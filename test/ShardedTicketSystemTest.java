@@ -0,0 +1,91 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Technicy w systemie podzielonym na partycje: zmiana, która nie powiodła się w jednej partycji,
+ * jest wycofywana w pozostałych, a odczyty widzą tylko techników obecnych we wszystkich partycjach.
+ */
+class ShardedTicketSystemTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void failedAdditionIsRolledBackInOtherShards() {
+        // Katalogi w miejscu dziennika i snapshotu drugiej partycji - jej zapis w trybie SYNC zawodzi
+        assertTrue(new File(directory, "shard-0").mkdirs());
+        File failing = new File(directory, "shard-1");
+        assertTrue(new File(failing, "tickets.journal").mkdirs());
+        assertTrue(new File(failing, "tickets.bin.tmp").mkdir());
+        ShardedTicketSystem system = new ShardedTicketSystem(directory, 2, Journal.Durability.SYNC,
+                Journal.DEFAULT_FLUSH_INTERVAL_MS, Journal.DEFAULT_FLUSH_EVERY_OPS);
+        List<TicketSystem> shards = system.getShards();
+        // Nowy system ma domyślnych techników
+        int initialCount = system.getTechnicianCount();
+        try {
+            assertThrows(WriteNotDurableException.class, () -> system.addTechnician("Jan"));
+
+            // Pierwsza partycja wycofała zmianę; druga ma technika tylko w pamięci
+            assertFalse(shards.get(0).hasTechnician("Jan"));
+            assertTrue(shards.get(1).hasTechnician("Jan"));
+            assertFalse(system.hasTechnician("Jan"));
+            assertFalse(system.getAllTechnicians().contains("Jan"));
+            assertEquals(initialCount, system.getTechnicianCount());
+            assertThrows(IllegalArgumentException.class, () -> system.claimNextTicket("Jan"));
+
+            // Technika pozostałego w części partycji można usunąć - wycofanie nie zostawia go w pierwszej partycji
+            assertThrows(WriteNotDurableException.class, () -> system.removeTechnician("Jan"));
+            assertFalse(shards.get(0).hasTechnician("Jan"));
+        } finally {
+            shards.get(0).close();
+            shards.get(1).getChangeFeed().close();
+            shards.get(1).getEventBus().close();
+        }
+    }
+
+    @Test
+    void technicianIsVisibleOnlyWhenPresentInAllShards() {
+        ShardedTicketSystem system = new ShardedTicketSystem(directory, 2);
+        List<String> initial = system.getAllTechnicians();
+        try {
+            system.addTechnician("Jan").join();
+            system.addTechnician("Ewa").join();
+            assertEquals(technicians(initial, "Jan", "Ewa"), Set.copyOf(system.getAllTechnicians()));
+            assertThrows(IllegalArgumentException.class, () -> system.addTechnician("Jan"));
+
+            // Zgłoszenie przypisane w drugiej partycji blokuje usunięcie technika ze wszystkich partycji
+            TicketSystem second = system.getShards().get(1);
+            second.addTicket(new Ticket(system.nextTicketId(), "Brak sieci", "Nie działa gniazdko", "Anna Kowalska",
+                    "anna.kowalska@firma.pl", Ticket.Priority.SREDNI));
+            second.assignTicket(second.getAllTickets().get(0).getTicketId(), "Jan");
+
+            assertThrows(IllegalArgumentException.class, () -> system.removeTechnician("Jan"));
+            assertTrue(system.hasTechnician("Jan"));
+            assertEquals(initial.size() + 2, system.getTechnicianCount());
+
+            // Technik brakujący w jednej partycji nie jest widoczny, a ponowne dodanie uzupełnia tylko brak
+            second.removeTechnician("Ewa").join();
+            assertFalse(system.hasTechnician("Ewa"));
+            assertEquals(technicians(initial, "Jan"), Set.copyOf(system.getAllTechnicians()));
+            system.addTechnician("Ewa").join();
+            assertEquals(technicians(initial, "Jan", "Ewa"), Set.copyOf(system.getAllTechnicians()));
+
+            system.removeTechnician("Ewa").join();
+            assertEquals(technicians(initial, "Jan"), Set.copyOf(system.getAllTechnicians()));
+        } finally {
+            system.close();
+        }
+    }
+
+    private static Set<String> technicians(List<String> initial, String... added) {
+        Set<String> expected = new HashSet<>(initial);
+        expected.addAll(List.of(added));
+        return expected;
+    }
+}
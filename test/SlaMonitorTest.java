@@ -0,0 +1,126 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Terminy SLA po restarcie: terminy, które minęły przed uruchomieniem nadzoru, nie są eskalowane ponownie.
+ * Nadzór uruchomiony przez {@link TicketService} kończy się razem z usługą.
+ */
+class SlaMonitorTest {
+    @TempDir
+    File directory;
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 3, 2, 12, 0);
+    private final long nowMillis = now.toInstant(ZoneOffset.UTC).toEpochMilli();
+    private TicketSystem system;
+    private final List<TicketEvent.SlaBreached> breaches = new ArrayList<>();
+    private TicketEventBus.Subscription subscription;
+
+    @BeforeEach
+    void open() {
+        system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        system.addTechnician("Jan");
+        subscription = system.getEventBus().subscribe("test", event -> event instanceof TicketEvent.SlaBreached,
+                64, Duration.ZERO, batch -> {
+                    synchronized (breaches) {
+                        batch.forEach(event -> breaches.add((TicketEvent.SlaBreached) event));
+                    }
+                });
+    }
+
+    @AfterEach
+    void close() {
+        system.close();
+    }
+
+    @Test
+    void deadlinesPassedBeforeStartAreNotEscalatedAgain() {
+        // Oba terminy (4 h na przypisanie, 3 dni na zamknięcie) minęły przed startem
+        system.addTicket(ticket("TKT-70000", now.minusDays(10)));
+        // Termin przypisania minął, termin zamknięcia jeszcze nie
+        system.addTicket(ticket("TKT-70001", now.minusHours(5)));
+        // Przypisane, termin zamknięcia jeszcze nie minął
+        system.addTicket(ticket("TKT-70002", now.minusHours(1)));
+        system.assignTicket("TKT-70002", "Jan");
+
+        long[] clock = {nowMillis};
+        SlaMonitor monitor = new SlaMonitor(system, SlaPolicy.defaults(), () -> clock[0]);
+        clock[0] += 1000;
+        monitor.advance(clock[0]);
+        assertEquals(2, monitor.getOverdueAtStartCount());
+        assertEquals(2, monitor.getTrackedCount());
+
+        // Termin zamknięcia TKT-70001 mija już po starcie - ten jest eskalowany, TKT-70002 jeszcze nie
+        clock[0] = nowMillis + Duration.ofDays(2).plusHours(21).toMillis();
+        monitor.advance(clock[0]);
+        monitor.close();
+        subscription.close();
+        assertEquals(List.of("TKT-70001"), breaches.stream().map(TicketEvent.SlaBreached::ticketId).toList());
+        assertEquals(SlaPolicy.Kind.ZAMKNIECIE, breaches.get(0).kind());
+    }
+
+    @Test
+    void ticketCreatedAfterStartIsEscalated() {
+        long[] clock = {nowMillis};
+        SlaMonitor monitor = new SlaMonitor(system, SlaPolicy.defaults(), () -> clock[0]);
+        system.addTicket(ticket("TKT-70010", now));
+        waitUntilTracked(monitor, 1);
+
+        clock[0] = nowMillis + Duration.ofHours(5).toMillis();
+        monitor.advance(clock[0]);
+        monitor.close();
+        subscription.close();
+        assertEquals(1, breaches.size());
+        assertEquals(SlaPolicy.Kind.PRZYPISANIE, breaches.get(0).kind());
+        assertEquals(0, monitor.getOverdueAtStartCount());
+    }
+
+    @Test
+    void closedServiceDetachesItsMonitors() {
+        subscription.close();
+        // Usługa nadzoruje według zegara systemowego - termin zgłoszenia nie może minąć przed startem
+        system.addTicket(ticket("TKT-70020", LocalDateTime.now()));
+        try (TicketService first = new TicketService(system)) {
+            assertTrue(system.getEventBus().hasSubscribers());
+            awaitGauge("sla.tracked", 1);
+        }
+        assertFalse(system.getEventBus().hasSubscribers());
+
+        // Kolejna usługa na tym samym systemie nie dubluje subskrypcji ani wskaźników
+        try (TicketService second = new TicketService(system)) {
+            awaitGauge("sla.tracked", 1);
+        }
+        assertFalse(system.getEventBus().hasSubscribers());
+    }
+
+    private static void awaitGauge(String name, long value) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (Metrics.values().get(name).longValue() != value) {
+            assertTrue(System.nanoTime() < deadline, "wskaźnik " + name + " = " + Metrics.values().get(name));
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void waitUntilTracked(SlaMonitor monitor, int count) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (monitor.getTrackedCount() < count) {
+            assertTrue(System.nanoTime() < deadline, "zdarzenie utworzenia nie dotarło do nadzoru");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static Ticket ticket(String ticketId, LocalDateTime createdAt) {
+        return new Ticket(ticketId, "Awaria", "Opis", "Zgłaszający", "z@firma.pl", Ticket.Priority.SREDNI,
+                Ticket.Status.NOWE, null, createdAt);
+    }
+}
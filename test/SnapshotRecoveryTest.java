@@ -0,0 +1,79 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Odtwarzanie stanu, gdy bieżący snapshot jest uszkodzony: poprzedni snapshot i oba pokolenia dziennika.
+ */
+class SnapshotRecoveryTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void corruptSnapshotIsRecoveredFromPreviousGeneration() throws IOException {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.SYNC);
+        system.addTechnician("Jan");
+        system.addTicket(ticket("TKT-40000"));
+        system.saveDataToFiles();
+        // Zmiany tylko w poprzednim pokoleniu dziennika
+        system.addTicket(ticket("TKT-40001"));
+        system.assignTicket("TKT-40000", "Jan");
+        system.saveDataToFiles();
+        // Zmiany tylko w bieżącym dzienniku
+        system.addTicket(ticket("TKT-40002"));
+        system.closeTicket("TKT-40000");
+        system.sync().join();
+
+        assertTrue(new File(directory, "tickets.bin.prev").exists());
+        corrupt(new File(directory, "tickets.bin"));
+
+        TicketSystem recovered = TicketSystem.open(directory, Journal.Durability.SYNC);
+        assertEquals(3, recovered.getAllTickets().size());
+        Ticket closed = recovered.findTicketById("TKT-40000").orElseThrow();
+        assertEquals(Ticket.Status.ZAMKNIETE, closed.getStatus());
+        assertEquals("Jan", closed.getAssignedTechnicianName());
+        assertTrue(recovered.hasTechnician("Jan"));
+        recovered.close();
+
+        // Odtworzony stan został zapisany w nowym snapshocie
+        TicketSystem reopened = TicketSystem.open(directory, Journal.Durability.SYNC);
+        assertEquals(3, reopened.getAllTickets().size());
+        reopened.close();
+    }
+
+    @Test
+    void startupIsRefusedWhenNoSnapshotGenerationIsReadable() throws IOException {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.SYNC);
+        system.addTicket(ticket("TKT-40010"));
+        system.saveDataToFiles();
+        system.addTicket(ticket("TKT-40011"));
+        system.saveDataToFiles();
+        system.sync().join();
+
+        corrupt(new File(directory, "tickets.bin"));
+        corrupt(new File(directory, "tickets.bin.prev"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> TicketSystem.open(directory, Journal.Durability.SYNC));
+        assertTrue(e.getMessage().contains("uruchomienie przerwane"), e.getMessage());
+    }
+
+    private static void corrupt(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() / 2);
+            int value = raf.read();
+            raf.seek(raf.length() / 2);
+            raf.write(value ^ 0xFF);
+        }
+    }
+
+    private static Ticket ticket(String ticketId) {
+        return new Ticket(ticketId, "Błąd serwera email", "Serwer zwraca błędy 500", "Piotr Nowak",
+                "piotr.nowak@firma.pl", Ticket.Priority.WYSOKI);
+    }
+}
@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Wspólny słownik tekstów nie może przytrzymywać wartości, których nie używa już żadne zgłoszenie.
+ */
+class StringDictionaryTest {
+
+    @Test
+    void equalValuesShareOneInstance() {
+        String first = StringDictionary.intern(new String("Anna Kowalska"));
+        String second = StringDictionary.intern(new String("Anna Kowalska"));
+        assertSame(first, second);
+        assertNull(StringDictionary.intern(null));
+    }
+
+    @Test
+    void unusedValuesAreReclaimed() throws InterruptedException {
+        WeakReference<String> probe = internUniqueValue();
+        for (int i = 0; i < 100 && probe.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(probe.get(), "słownik przytrzymuje nieużywany tekst");
+    }
+
+    private static WeakReference<String> internUniqueValue() {
+        String value = StringDictionary.intern(new String("zgłaszający-" + System.nanoTime()));
+        return new WeakReference<>(value);
+    }
+}
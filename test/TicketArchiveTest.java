@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Wyszukiwanie w archiwum po pełnym identyfikatorze, a nie tylko po numerze zgłoszenia.
+ */
+class TicketArchiveTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void idsWithSameNumberAreDistinct() {
+        TicketArchive archive = new TicketArchive(directory);
+        archive.archive(List.of(ticket("TKT-00123", "Krótkie ID"), ticket("TKT-000123", "Długie ID"),
+                ticket("TKT-00124", "Następne")));
+        archive.close();
+
+        TicketArchive reopened = new TicketArchive(directory);
+        assertEquals(3, reopened.size());
+        assertEquals("Krótkie ID", reopened.find("TKT-00123").orElseThrow().getTitle());
+        assertEquals("Długie ID", reopened.find("TKT-000123").orElseThrow().getTitle());
+        assertTrue(reopened.contains("TKT-000123"));
+        assertFalse(reopened.contains("TKT-0000123"));
+        assertTrue(reopened.find("TKT-0000124").isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    void archivedIdDoesNotBlockIdWithSameNumber() {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.SYNC);
+        Ticket old = ticket("TKT-00123", "Stare zgłoszenie");
+        system.addTicket(old);
+        system.closeTicket(old.getTicketId());
+        assertEquals(1, system.archiveClosedTickets(Duration.ofDays(30)));
+
+        system.addTicket(ticket("TKT-000123", "Nowe zgłoszenie"));
+        assertEquals("Stare zgłoszenie", system.findTicketById("TKT-00123").orElseThrow().getTitle());
+        assertEquals("Nowe zgłoszenie", system.findTicketById("TKT-000123").orElseThrow().getTitle());
+        assertThrows(IllegalArgumentException.class, () -> system.addTicket(ticket("TKT-00123", "Duplikat")));
+        system.close();
+    }
+
+    private static Ticket ticket(String ticketId, String title) {
+        return new Ticket(ticketId, title, "Opis", "Zgłaszający", "z@firma.pl", Ticket.Priority.NISKI,
+                Ticket.Status.NOWE, null,
+                LocalDateTime.now().minusDays(60));
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dzierżawy kolejki przydziału: zgłoszenie nie może wypaść z kolejki, gdy zatwierdzenie się nie powiedzie.
+ */
+class TicketDispatcherTest {
+    @TempDir
+    File directory;
+
+    private TicketSystem system;
+    private TicketDispatcher dispatcher;
+
+    @BeforeEach
+    void open() {
+        system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        system.addTechnician("Jan");
+        system.addTechnician("Ewa");
+        system.addTicket(new Ticket("TKT-50000", "Brak dostępu do VPN", "Klient VPN odrzuca hasło",
+                "Anna Kowalska", "anna.kowalska@firma.pl", Ticket.Priority.WYSOKI));
+        dispatcher = system.getDispatcher();
+    }
+
+    @AfterEach
+    void close() {
+        system.close();
+    }
+
+    @Test
+    void confirmedLeaseAssignsTicket() {
+        TicketDispatcher.Lease lease = dispatcher.claimNext("Jan").orElseThrow();
+        assertEquals(0, dispatcher.getQueuedCount());
+
+        Ticket ticket = dispatcher.confirm(lease);
+        assertEquals("Jan", ticket.getAssignedTechnicianName());
+        assertEquals(0, dispatcher.getLeasedCount());
+        assertEquals(0, dispatcher.getQueuedCount());
+        assertThrows(IllegalStateException.class, () -> dispatcher.confirm(lease));
+    }
+
+    @Test
+    void failedConfirmationReturnsTicketToQueue() {
+        TicketDispatcher.Lease lease = dispatcher.claimNext("Jan").orElseThrow();
+        // Technik bez aktywnych zgłoszeń może zostać usunięty w trakcie dzierżawy
+        system.removeTechnician("Jan");
+
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.confirm(lease));
+        assertEquals(0, dispatcher.getLeasedCount());
+        assertEquals(1, dispatcher.getQueuedCount());
+
+        TicketDispatcher.Lease next = dispatcher.claimNext("Ewa").orElseThrow();
+        assertEquals("TKT-50000", next.getTicketId());
+        assertEquals("Ewa", dispatcher.confirm(next).getAssignedTechnicianName());
+    }
+
+    @Test
+    void ticketHandledElsewhereInvalidatesLease() {
+        TicketDispatcher.Lease lease = dispatcher.claimNext("Jan").orElseThrow();
+        system.assignTicket("TKT-50000", "Ewa");
+
+        assertThrows(IllegalStateException.class, () -> dispatcher.confirm(lease));
+        assertEquals("Ewa", system.findTicketById("TKT-50000").orElseThrow().getAssignedTechnicianName());
+        assertEquals(0, dispatcher.getQueuedCount());
+    }
+
+    @Test
+    void releasedLeaseReturnsTicketToQueue() {
+        TicketDispatcher.Lease lease = dispatcher.claimNext("Jan").orElseThrow();
+        dispatcher.release(lease);
+        assertEquals(1, dispatcher.getQueuedCount());
+        assertThrows(IllegalStateException.class, () -> dispatcher.confirm(lease));
+        assertEquals(1, dispatcher.getQueuedCount());
+    }
+}
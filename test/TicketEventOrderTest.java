@@ -0,0 +1,125 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Zdarzenia jednego zgłoszenia docierają w kolejności zmian, a zdarzenie utworzenia niesie stan z chwili dodania.
+ */
+class TicketEventOrderTest {
+    private static final int TICKETS = 20;
+    private static final int THREADS = 4;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void eventsOfOneTicketFollowOrderOfChanges() throws Exception {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        List<String> technicians = List.of("Jan", "Ewa", "Piotr");
+        technicians.forEach(system::addTechnician);
+        List<TicketEvent> received = new ArrayList<>();
+        TicketEventBus.Subscription subscription = system.getEventBus().subscribe("test", event -> true,
+                1 << 16, Duration.ZERO, batch -> {
+                    synchronized (received) {
+                        received.addAll(batch);
+                    }
+                });
+
+        List<String> ticketIds = new ArrayList<>();
+        for (int i = 0; i < TICKETS; i++) {
+            String ticketId = system.nextTicketId();
+            system.addTicket(new Ticket(ticketId, "Zgłoszenie " + i, "Opis", "Zgłaszający", "z@firma.pl",
+                    Ticket.Priority.SREDNI));
+            ticketIds.add(ticketId);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                for (int round = 0; round < 200; round++) {
+                    for (String ticketId : ticketIds) {
+                        try {
+                            if ((round + thread) % 50 == 49) {
+                                system.closeTicket(ticketId);
+                            } else {
+                                system.assignTicket(ticketId, technicians.get((round + thread) % technicians.size()));
+                            }
+                        } catch (IllegalStateException closed) {
+                            // Zgłoszenie zamknięte przez inny wątek
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        subscription.close();
+
+        // Odtworzenie stanu z samych zdarzeń musi dać stan systemu
+        Map<String, Ticket.State> replayed = new HashMap<>();
+        for (TicketEvent event : received) {
+            switch (event) {
+                case TicketEvent.TicketCreated created -> replayed.put(created.ticketId(), created.state());
+                case TicketEvent.TicketAssigned assigned -> {
+                    Ticket.State previous = replayed.get(assigned.ticketId());
+                    assertTrue(previous.isActive(), "przypisanie " + assigned.ticketId() + " po zamknięciu");
+                    replayed.put(assigned.ticketId(), new Ticket.State(Ticket.Status.W_TRAKCIE, assigned.technicianName()));
+                }
+                case TicketEvent.TicketClosed closed -> {
+                    Ticket.State previous = replayed.get(closed.ticketId());
+                    replayed.put(closed.ticketId(),
+                            new Ticket.State(Ticket.Status.ZAMKNIETE, previous.assignedTechnicianName()));
+                }
+                default -> {
+                }
+            }
+        }
+        for (String ticketId : ticketIds) {
+            assertEquals(system.findTicketById(ticketId).orElseThrow().getState(), replayed.get(ticketId), ticketId);
+        }
+        system.close();
+    }
+
+    @Test
+    void createdEventCarriesStateAtCreation() throws Exception {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        system.addTechnician("Jan");
+        List<TicketEvent.TicketCreated> created = new ArrayList<>();
+        TicketEventBus.Subscription subscription = system.getEventBus().subscribe("test",
+                event -> event instanceof TicketEvent.TicketCreated, 16, Duration.ZERO, batch -> {
+                    synchronized (created) {
+                        batch.forEach(event -> created.add((TicketEvent.TicketCreated) event));
+                    }
+                });
+        Ticket ticket = new Ticket("TKT-60000", "Serwer", "Opis", "Anna Kowalska", "anna@firma.pl",
+                Ticket.Priority.KRYTYCZNY);
+        system.addTicket(ticket);
+        system.assignTicket(ticket.getTicketId(), "Jan");
+        system.closeTicket(ticket.getTicketId());
+        subscription.close();
+
+        assertEquals(1, created.size());
+        TicketEvent.TicketCreated event = created.get(0);
+        assertEquals(new Ticket.State(Ticket.Status.NOWE, null), event.state());
+        assertEquals("Anna Kowalska", event.reporterName());
+        assertEquals(ticket.getCreatedAt(), event.createdAt());
+        assertTrue(event.isHighPriority());
+        system.close();
+    }
+}
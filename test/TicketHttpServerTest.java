@@ -0,0 +1,131 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * API HTTP: walidacja treści przed przydziałem ID, dekodowanie segmentów ścieżki, odpowiedź dopiero
+ * po trwałym zapisie zmiany i strumień zmian niedostępny w systemie podzielonym na partycje.
+ */
+class TicketHttpServerTest {
+    @TempDir
+    File directory;
+
+    private TicketSystem system;
+    private TicketService service;
+    private TicketHttpServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws IOException {
+        system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        service = new TicketService(system);
+        server = new TicketHttpServer(service, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+        service.close();
+        system.close();
+    }
+
+    @Test
+    void rejectedTicketDoesNotConsumeId() throws Exception {
+        HttpResponse<String> first = send("POST", "/tickets", ticketBody("Drukarka"));
+        assertEquals(201, first.statusCode(), first.body());
+        long firstNumber = TicketIdAllocator.numberOf(ticketId(first));
+
+        HttpResponse<String> invalid = send("POST", "/tickets", "{\"title\": \"Bez opisu\"}");
+        assertEquals(400, invalid.statusCode(), invalid.body());
+        HttpResponse<String> invalidPriority = send("POST", "/tickets",
+                ticketBody("Zły priorytet").replace("}", ", \"priority\": \"PILNY\"}"));
+        assertEquals(400, invalidPriority.statusCode(), invalidPriority.body());
+
+        HttpResponse<String> second = send("POST", "/tickets", ticketBody("Monitor"));
+        assertEquals(201, second.statusCode(), second.body());
+        assertEquals(firstNumber + 1, TicketIdAllocator.numberOf(ticketId(second)));
+    }
+
+    @Test
+    void plusInPathSegmentIsLiteral() throws Exception {
+        system.addTechnician("C++");
+        system.addTechnician("Zespół sieci");
+
+        assertEquals(204, send("DELETE", "/technicians/C++", null).statusCode());
+        assertFalse(system.hasTechnician("C++"));
+        assertEquals(204, send("DELETE", "/technicians/Zesp%C3%B3%C5%82%20sieci", null).statusCode());
+        assertFalse(system.hasTechnician("Zespół sieci"));
+    }
+
+    @Test
+    void failedWriteIsNotReportedAsSuccess() throws Exception {
+        // Katalogi w miejscu dziennika i snapshotu - zmiany nie da się trwale zapisać
+        File failing = new File(directory, "awaria");
+        assertTrue(new File(failing, "tickets.journal").mkdirs());
+        assertTrue(new File(failing, "tickets.bin.tmp").mkdir());
+        TicketSystem failingSystem = TicketSystem.open(failing, Journal.Durability.PERIODIC);
+        TicketService failingService = new TicketService(failingSystem);
+        TicketHttpServer failingServer = new TicketHttpServer(failingService, 0);
+        failingServer.start();
+        try {
+            HttpResponse<String> response = send(failingServer, "POST", "/tickets", ticketBody("Drukarka"));
+            assertEquals(503, response.statusCode(), response.body());
+            assertEquals(503, send(failingServer, "POST", "/technicians", "{\"name\": \"Jan\"}").statusCode());
+        } finally {
+            failingServer.close();
+            failingService.close();
+            failingSystem.getChangeFeed().close();
+            failingSystem.getEventBus().close();
+        }
+    }
+
+    @Test
+    void changeFeedIsNotImplementedForShardedSystem() throws Exception {
+        ShardedTicketSystem sharded = new ShardedTicketSystem(new File(directory, "partycje"), 2);
+        TicketService shardedService = new TicketService(sharded);
+        TicketHttpServer shardedServer = new TicketHttpServer(shardedService, 0);
+        shardedServer.start();
+        try {
+            assertEquals(501, send(shardedServer, "GET", "/changes?from=0", null).statusCode());
+            assertEquals(501, send(shardedServer, "GET", "/changes/state", null).statusCode());
+            assertEquals(200, send(shardedServer, "GET", "/technicians", null).statusCode());
+        } finally {
+            shardedServer.close();
+            shardedService.close();
+            sharded.close();
+        }
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        return send(server, method, path, body);
+    }
+
+    private HttpResponse<String> send(TicketHttpServer server, String method, String path, String body)
+            throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String ticketBody(String title) {
+        return "{\"title\": \"" + title + "\", \"description\": \"Nie działa\", \"reporterName\": \"Anna Kowalska\","
+                + " \"reporterEmail\": \"anna.kowalska@firma.pl\"}";
+    }
+
+    private static String ticketId(HttpResponse<String> response) {
+        String location = response.headers().firstValue("Location").orElseThrow();
+        return location.substring(location.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Przydział numerów zgłoszeń: unikalność przy współbieżnym wydawaniu, podnoszenie numeracji przez
+ * istniejące zgłoszenia, restart po rezerwacji bloku i identyfikatory dłuższe niż 5 cyfr.
+ */
+class TicketIdAllocatorTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void concurrentIdsAreUniqueAndSurviveRestart() throws Exception {
+        File file = new File(directory, TicketIdAllocator.SEQUENCE_FILE);
+        // Mały blok - wątki często trafiają na rezerwację kolejnego bloku
+        TicketIdAllocator allocator = new TicketIdAllocator(file, 10);
+        List<Future<List<String>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    List<String> ids = new ArrayList<>();
+                    for (int i = 0; i < 2000; i++) {
+                        ids.add(i % 100 == 0 ? allocator.reserveBlock(3).idAt(2) : allocator.nextTicketId());
+                    }
+                    return ids;
+                }));
+            }
+        }
+        Set<String> ids = new HashSet<>();
+        long highest = 0;
+        for (Future<List<String>> result : results) {
+            for (String id : result.get()) {
+                assertTrue(ids.add(id), () -> "powtórzony identyfikator " + id);
+                highest = Math.max(highest, TicketIdAllocator.numberOf(id));
+            }
+        }
+        assertEquals(16000, ids.size());
+
+        // Po restarcie numeracja zaczyna się powyżej wszystkich wydanych numerów
+        assertTrue(TicketIdAllocator.numberOf(new TicketIdAllocator(file, 10).nextTicketId()) > highest);
+    }
+
+    @Test
+    void observeRaisesHighWaterMark() {
+        File file = new File(directory, TicketIdAllocator.SEQUENCE_FILE);
+        TicketIdAllocator allocator = new TicketIdAllocator(file);
+        allocator.observe("TKT-50000");
+        // Niższe numery i obce formaty nie cofają numeracji
+        allocator.observe("TKT-10001");
+        allocator.observe("ZGL-90000");
+        allocator.observe(null);
+        assertEquals("TKT-50001", allocator.nextTicketId());
+
+        // Wydany numer został zarezerwowany w pliku przed wydaniem
+        assertTrue(TicketIdAllocator.numberOf(new TicketIdAllocator(file).nextTicketId()) > 50001);
+    }
+
+    @Test
+    void restartAfterReservedBlockDoesNotReuseIt() {
+        File file = new File(directory, TicketIdAllocator.SEQUENCE_FILE);
+        TicketIdAllocator allocator = new TicketIdAllocator(file, 100);
+        // Blok większy niż rezerwacja - granica w pliku musi objąć cały blok
+        TicketIdAllocator.IdBlock block = allocator.reserveBlock(250);
+        assertEquals(250, block.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> block.idAt(250));
+
+        // Awaria bez wykorzystania bloku - po restarcie żaden numer z bloku nie jest wydawany ponownie
+        TicketIdAllocator restarted = new TicketIdAllocator(file, 100);
+        assertTrue(TicketIdAllocator.numberOf(restarted.nextTicketId()) >= block.end());
+        assertTrue(restarted.reserveBlock(5).start() >= block.end());
+    }
+
+    @Test
+    void idsWiderThanFiveDigitsAreSupported() {
+        assertEquals("TKT-00007", TicketIdAllocator.formatId(7));
+        assertEquals("TKT-1234567", TicketIdAllocator.formatId(1_234_567));
+        assertEquals(1_234_567, TicketIdAllocator.numberOf("TKT-1234567"));
+        assertEquals(-1, TicketIdAllocator.numberOf("TKT-99999999999999999999"));
+
+        TicketIdAllocator allocator = new TicketIdAllocator(new File(directory, TicketIdAllocator.SEQUENCE_FILE));
+        allocator.observe("TKT-123456789012");
+        String id = allocator.nextTicketId();
+        assertEquals("TKT-123456789013", id);
+        new Ticket(id, "Drukarka", "Nie drukuje", "Jan Kowalski", "jan.kowalski@firma.pl", Ticket.Priority.NISKI);
+
+        // Ostatni numer mieszczący się w 18 cyfrach, potem przydział się kończy zamiast tworzyć błędne ID
+        allocator.observe(TicketIdAllocator.formatId(TicketIdAllocator.MAX_NUMBER - 1));
+        String last = allocator.nextTicketId();
+        assertEquals(22, last.length());
+        new Ticket(last, "Drukarka", "Nie drukuje", "Jan Kowalski", "jan.kowalski@firma.pl", Ticket.Priority.NISKI);
+        assertThrows(IllegalStateException.class, allocator::nextTicketId);
+    }
+}
@@ -0,0 +1,140 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Spójność indeksów pomocniczych {@link TicketSystem} po każdym rodzaju zmiany stanu.
+ */
+class TicketIndexTest {
+    @TempDir
+    File directory;
+
+    private TicketSystem system;
+
+    @BeforeEach
+    void open() {
+        system = TicketSystem.open(directory, Journal.Durability.SYNC);
+        system.addTechnician("Jan");
+        system.addTechnician("Ewa");
+    }
+
+    @AfterEach
+    void close() {
+        system.close();
+    }
+
+    @Test
+    void indexesFollowAddAssignAndClose() {
+        for (int i = 0; i < 20; i++) {
+            system.addTicket(ticket(i));
+        }
+        assertConsistent(system);
+        assertEquals(20, system.getUnassignedTickets().size());
+
+        system.assignTicket(id(0), "Jan");
+        system.assignTicket(id(1), "Jan");
+        system.assignTicket(id(2), "Ewa");
+        // Ponowne przypisanie przenosi zgłoszenie między technikami
+        system.assignTicket(id(1), "Ewa");
+        assertConsistent(system);
+        assertEquals(1, system.getActiveTicketCountFor("Jan"));
+        assertEquals(2, system.getActiveTicketCountFor("Ewa"));
+
+        system.closeTicket(id(2));
+        system.closeTicket(id(3));
+        assertConsistent(system);
+        assertEquals(1, system.getActiveTicketCountFor("Ewa"));
+        assertEquals(2, system.getTicketsAssignedTo("Ewa").size());
+        assertEquals(18, system.getActiveTicketCount());
+    }
+
+    @Test
+    void indexesFollowConditionalTransitionsAndIngest() {
+        system.addTicket(ticket(0));
+        assertTrue(system.assignTicketIfNew(id(0), "Jan").isPresent());
+        assertFalse(system.assignTicketIfNew(id(0), "Ewa").isPresent());
+        assertFalse(system.closeTicketIfAssignedTo(id(0), "Ewa").isPresent());
+        assertTrue(system.closeTicketIfAssignedTo(id(0), "Jan").isPresent());
+        assertConsistent(system);
+
+        List<TicketDraft> drafts = List.of(
+                new TicketDraft(id(1), "Tytuł", "Opis", "Zgłaszający", "z@firma.pl", Ticket.Priority.NISKI),
+                new TicketDraft(id(0), "Duplikat", "Opis", "Zgłaszający", "z@firma.pl", Ticket.Priority.NISKI),
+                new TicketDraft(null, "Bez ID", "Opis", "Zgłaszający", "z@firma.pl", Ticket.Priority.KRYTYCZNY));
+        List<IngestResult> results = system.ingestTickets(drafts);
+        assertEquals(IngestResult.Outcome.DUPLICATE, results.get(1).outcome());
+        assertConsistent(system);
+        assertEquals(2, system.getUnassignedTickets().size());
+    }
+
+    @Test
+    void indexesFollowRemovalAndArchiving() {
+        LocalDateTime old = LocalDateTime.now().minusDays(60);
+        for (int i = 0; i < 5; i++) {
+            system.addTicket(new Ticket(id(i), "Stare zgłoszenie", "Opis", "Zgłaszający", "z@firma.pl",
+                    Ticket.Priority.SREDNI, Ticket.Status.NOWE, null, old));
+        }
+        system.assignTicket(id(0), "Jan");
+        system.assignTicket(id(1), "Jan");
+        system.closeTicket(id(0));
+        system.closeTicket(id(1));
+        system.closeTicket(id(2));
+
+        assertEquals(3, system.archiveClosedTickets(Duration.ofDays(30)));
+        assertConsistent(system);
+        assertTrue(system.getTicketsAssignedTo("Jan").isEmpty());
+        assertTrue(system.findTicketById(id(0)).isPresent(), "zarchiwizowane zgłoszenie nadal jest dostępne po ID");
+
+        system.removeTechnician("Jan");
+        assertConsistent(system);
+        assertThrows(IllegalArgumentException.class, () -> system.assignTicket(id(3), "Jan"));
+        assertConsistent(system);
+    }
+
+    @Test
+    void indexesAreRebuiltFromJournalReplay() {
+        for (int i = 0; i < 10; i++) {
+            system.addTicket(ticket(i));
+        }
+        system.assignTicket(id(0), "Jan");
+        system.assignTicket(id(1), "Ewa");
+        system.closeTicket(id(1));
+        system.closeTicketIfAssignedTo(id(0), "Jan");
+        system.assignTicket(id(2), "Ewa");
+        system.sync().join();
+
+        // Nowa instancja bez zamykania poprzedniej - tak jak po awarii: stan odtwarzany wyłącznie z dziennika
+        TicketSystem replayed = TicketSystem.open(directory, Journal.Durability.SYNC);
+        try {
+            assertEquals(10, replayed.getAllTickets().size());
+            assertConsistent(replayed);
+            assertEquals(Ticket.Status.ZAMKNIETE, replayed.findTicketById(id(0)).orElseThrow().getStatus());
+            assertEquals(1, replayed.getActiveTicketCountFor("Ewa"));
+            assertEquals(2, replayed.getTicketsAssignedTo("Ewa").size());
+        } finally {
+            replayed.getEventBus().close();
+        }
+    }
+
+    private static void assertConsistent(TicketStore system) {
+        List<String> problems = IndexConsistency.verify(system);
+        assertTrue(problems.isEmpty(), () -> String.join("\n", problems));
+    }
+
+    private static String id(int i) {
+        return String.format("TKT-%05d", 20000 + i);
+    }
+
+    private static Ticket ticket(int i) {
+        return new Ticket(id(i), "Zgłoszenie " + i, "Opis zgłoszenia " + i, "Zgłaszający " + i % 3,
+                "z" + i % 3 + "@firma.pl", Ticket.Priority.values()[i % Ticket.Priority.values().length]);
+    }
+}
@@ -0,0 +1,81 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Import zbiorczy: identyfikatory przydzielane przez system nie mogą powtórzyć jawnych ID z tej samej paczki.
+ */
+class TicketIngestTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void generatedIdDoesNotCollideWithExplicitIdInSameBatch() {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        long next = TicketIdAllocator.numberOf(system.nextTicketId()) + 1;
+        String explicit = TicketIdAllocator.formatId(next);
+
+        List<IngestResult> results = system.ingestTickets(List.of(draft(null), draft(explicit), draft(null)));
+        assertAllAdded(results, 3);
+        assertEquals(explicit, results.get(1).ticketId());
+        // Kolejny pojedynczy identyfikator również omija jawne ID z paczki
+        system.addTicket(new Ticket(system.nextTicketId(), "Tytuł", "Opis", "Zgłaszający", "z@firma.pl",
+                Ticket.Priority.NISKI)).join();
+        assertEquals(4, system.getAllTickets().size());
+        system.close();
+    }
+
+    @Test
+    void generatedIdTakenByLaterChunkIsReplaced() {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        long next = TicketIdAllocator.numberOf(system.nextTicketId()) + 1;
+        // Jawne ID na końcu strumienia trafia w numer przydzielony już pierwszej porcji
+        Stream<TicketDraft> drafts = Stream.concat(
+                IntStream.range(0, 10_000).mapToObj(i -> draft(null)),
+                Stream.of(draft(TicketIdAllocator.formatId(next + 5))));
+
+        List<IngestResult> results = system.ingestTickets(drafts);
+        assertAllAdded(results, 10_001);
+        assertEquals(TicketIdAllocator.formatId(next + 5), results.get(10_000).ticketId());
+        assertEquals(10_001, system.getAllTickets().size());
+        system.close();
+    }
+
+    @Test
+    void shardedIngestDoesNotReuseExplicitIds() {
+        ShardedTicketSystem system = new ShardedTicketSystem(directory, 4);
+        long next = TicketIdAllocator.numberOf(system.nextTicketId()) + 1;
+        List<TicketDraft> drafts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            drafts.add(draft(null));
+        }
+        drafts.add(draft(TicketIdAllocator.formatId(next + 3)));
+
+        assertAllAdded(system.ingestTickets(drafts.stream()), 21);
+        assertEquals(21, system.getAllTickets().size());
+        system.close();
+    }
+
+    private static void assertAllAdded(List<IngestResult> results, int expected) {
+        assertEquals(expected, results.size());
+        for (IngestResult result : results) {
+            assertTrue(result.isAdded(), () -> result.index() + ": " + result.outcome() + " " + result.message());
+        }
+        Set<String> ids = results.stream().map(IngestResult::ticketId).collect(Collectors.toSet());
+        assertEquals(expected, ids.size());
+    }
+
+    private static TicketDraft draft(String ticketId) {
+        return new TicketDraft(ticketId, "Alert monitoringu", "Przekroczony próg CPU", "Monitoring",
+                "monitoring@firma.pl", Ticket.Priority.WYSOKI);
+    }
+}
@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stronicowanie kursorami {@link TicketListing}: strony pozostają stabilne, gdy między ich pobraniem
+ * zgłoszenia są dodawane, zamykane i usuwane, a nieprawidłowy kursor jest odrzucany.
+ */
+class TicketListingTest {
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 2, 8, 0);
+
+    private TicketListing listing;
+    private final Map<String, Ticket> tickets = new HashMap<>();
+
+    @BeforeEach
+    void fill() {
+        listing = new TicketListing();
+        for (int i = 0; i < 30; i++) {
+            add(10000 + i, i, Ticket.Priority.values()[i % 4]);
+        }
+    }
+
+    @Test
+    void pagesStayStableWhileTicketsChange() {
+        TicketPage first = listing.page(TicketSort.CREATED_AT, Ticket::isActive, null, 10);
+        assertEquals(ids(10000, 10010), ids(first.tickets()));
+        assertTrue(first.hasNext());
+
+        // Zmiany przed kursorem nie przesuwają kolejnych stron - także usunięcie zgłoszenia, na które wskazuje kursor
+        add(20000, -5, Ticket.Priority.KRYTYCZNY);
+        close("TKT-10003");
+        listing.remove(tickets.get("TKT-10009"));
+        // Zmiany za kursorem są widoczne na kolejnych stronach
+        close("TKT-10012");
+        listing.remove(tickets.get("TKT-10015"));
+        add(20001, 100, Ticket.Priority.NISKI);
+
+        List<String> rest = new ArrayList<>();
+        String cursor = first.nextCursor();
+        while (cursor != null) {
+            TicketPage page = listing.page(TicketSort.CREATED_AT, Ticket::isActive, cursor, 10);
+            rest.addAll(ids(page.tickets()));
+            cursor = page.nextCursor();
+        }
+        List<String> expected = new ArrayList<>(ids(10010, 10030));
+        expected.removeAll(List.of("TKT-10012", "TKT-10015"));
+        expected.add("TKT-20001");
+        assertEquals(expected, rest);
+    }
+
+    @Test
+    void pagesCoverEveryTicketOnceInEachOrder() {
+        for (TicketSort sort : TicketSort.values()) {
+            Set<String> seen = new LinkedHashSet<>();
+            String cursor = null;
+            do {
+                TicketPage page = listing.page(sort, ticket -> true, cursor, 7);
+                for (Ticket ticket : page.tickets()) {
+                    assertTrue(seen.add(ticket.getTicketId()), () -> sort + ": powtórzone " + ticket.getTicketId());
+                }
+                cursor = page.nextCursor();
+            } while (cursor != null);
+            assertEquals(listing.stream(sort).map(Ticket::getTicketId).toList(), List.copyOf(seen), sort.name());
+        }
+        // Porządek priorytetów: od krytycznych, w obrębie priorytetu od najstarszych
+        assertEquals("TKT-10003", listing.stream(TicketSort.PRIORITY).findFirst().orElseThrow().getTicketId());
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        String cursor = listing.page(TicketSort.CREATED_AT, ticket -> true, null, 5).nextCursor();
+        // Kursor innego porządku
+        assertThrows(IllegalArgumentException.class, () -> listing.page(TicketSort.ID, ticket -> true, cursor, 5));
+        // Nie Base64
+        assertThrows(IllegalArgumentException.class,
+                () -> listing.page(TicketSort.CREATED_AT, ticket -> true, "nie*kursor!", 5));
+        // Poprawne Base64, błędna treść
+        for (String raw : List.of("CREATED_AT|0|abc|TKT-10000", "CREATED_AT|0", "")) {
+            String forged = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                    () -> listing.page(TicketSort.CREATED_AT, ticket -> true, forged, 5));
+            assertTrue(error.getMessage().startsWith("Nieprawidłowy kursor"), error.getMessage());
+        }
+        assertThrows(IllegalArgumentException.class, () -> listing.page(TicketSort.CREATED_AT, ticket -> true, null, 0));
+    }
+
+    private void add(int number, int hours, Ticket.Priority priority) {
+        String ticketId = TicketIdAllocator.formatId(number);
+        Ticket ticket = new Ticket(ticketId, "Zgłoszenie " + number, "Opis", "Jan Kowalski", "jan.kowalski@firma.pl",
+                priority, Ticket.Status.NOWE, null, START.plusHours(hours));
+        tickets.put(ticketId, ticket);
+        listing.add(ticket);
+    }
+
+    private void close(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        assertTrue(ticket.assignIfNew("Ewa"));
+        assertTrue(ticket.closeIfAssignedTo("Ewa"));
+    }
+
+    private static List<String> ids(int from, int to) {
+        List<String> ids = new ArrayList<>();
+        for (int number = from; number < to; number++) {
+            ids.add(TicketIdAllocator.formatId(number));
+        }
+        return ids;
+    }
+
+    private static List<String> ids(List<Ticket> tickets) {
+        return tickets.stream().map(Ticket::getTicketId).toList();
+    }
+}
@@ -0,0 +1,120 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Wybór planu {@link TicketQueryEngine}: najbardziej selektywny indeks, uporządkowana ścieżka kończąca się
+ * po limicie i pełny przegląd, gdy nic nie zawęża zapytania. Wyniki każdego planu są równe wynikom
+ * przeglądu wszystkich zgłoszeń.
+ */
+class TicketQueryEngineTest {
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final int TICKETS = 1000;
+
+    @TempDir
+    File directory;
+
+    private TicketSystem system;
+
+    @BeforeEach
+    void fill() {
+        system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        system.addTechnician("Jan");
+        system.addTechnician("Ewa");
+        for (int i = 0; i < TICKETS; i++) {
+            String ticketId = TicketIdAllocator.formatId(10000 + i);
+            system.addTicket(new Ticket(ticketId, "Zgłoszenie " + i, "Opis", "Anna Kowalska",
+                    "anna.kowalska@firma.pl", Ticket.Priority.values()[i % 4], Ticket.Status.NOWE, null,
+                    START.plusHours(i)));
+            // Kilka zgłoszeń Ewy, co trzecie z nich zamknięte; Jan ma większość przypisanych
+            if (i % 100 == 0) {
+                system.assignTicket(ticketId, "Ewa");
+                if (i % 300 == 0) {
+                    system.closeTicket(ticketId);
+                }
+            } else if (i % 2 == 0) {
+                system.assignTicket(ticketId, "Jan");
+            }
+        }
+    }
+
+    @AfterEach
+    void close() {
+        system.close();
+    }
+
+    @Test
+    void selectiveIndexIsChosenOverFullScan() {
+        QueryResult byTechnician = run(TicketQuery.builder().technicians("Ewa").sortBy(TicketSort.PRIORITY).build());
+        assertTrue(byTechnician.plan().startsWith("indeks techników [Ewa]"), byTechnician.plan());
+        assertEquals(10, byTechnician.tickets().size());
+        assertEquals(10, byTechnician.examined());
+
+        // Tylko aktywne statusy - mniejszy indeks aktywnych zgłoszeń technika
+        QueryResult active = run(TicketQuery.builder().technicians("Ewa")
+                .status(Ticket.Status.NOWE, Ticket.Status.W_TRAKCIE).build());
+        assertTrue(active.plan().startsWith("indeks aktywnych zgłoszeń techników [Ewa]"), active.plan());
+        assertEquals(6, active.tickets().size());
+
+        QueryResult closed = run(TicketQuery.builder().status(Ticket.Status.ZAMKNIETE).build());
+        assertTrue(closed.plan().startsWith("indeks statusów"), closed.plan());
+        assertEquals(4, closed.examined());
+    }
+
+    @Test
+    void orderedPathStopsAtLimit() {
+        // Wąski przedział dat w porządku dat - wycinek widoku, bez sortowania
+        QueryResult range = run(TicketQuery.builder().createdBetween(START.plusHours(500), START.plusHours(520))
+                .sortBy(TicketSort.CREATED_AT).limit(5).build());
+        assertTrue(range.plan().startsWith("przedział dat utworzenia"), range.plan());
+        assertTrue(range.plan().contains("bez sortowania"), range.plan());
+        assertEquals(5, range.examined());
+
+        // Bez warunków - pełny przegląd w żądanym porządku kończy się po limicie
+        QueryResult all = run(TicketQuery.builder().sortBy(TicketSort.PRIORITY).limit(10).build());
+        assertTrue(all.plan().startsWith("pełny przegląd"), all.plan());
+        assertEquals(10, all.examined());
+        assertTrue(all.tickets().stream().allMatch(ticket -> ticket.getPriority() == Ticket.Priority.KRYTYCZNY));
+
+        // Nieprzypisane w porządku ID: połowa zgłoszeń pasuje, uporządkowany przegląd jest tańszy niż indeks
+        QueryResult unassigned = run(TicketQuery.builder().unassigned().sortBy(TicketSort.ID).limit(3).build());
+        assertTrue(unassigned.plan().startsWith("pełny przegląd"), unassigned.plan());
+        assertTrue(unassigned.examined() <= 6, unassigned.plan());
+    }
+
+    @Test
+    void unorderedPathKeepsOnlyTopResults() {
+        QueryResult top = run(TicketQuery.builder().technicians("Ewa").sortBy(TicketSort.PRIORITY).limit(3).build());
+        assertTrue(top.plan().startsWith("indeks techników [Ewa]"), top.plan());
+        assertTrue(top.plan().contains("top-3 kopcem"), top.plan());
+        assertEquals(10, top.examined());
+
+        // Kilka selektywnych warunków naraz: uporządkowany przegląd szybko znajdzie limit, więc wygrywa z indeksami
+        QueryResult combined = run(TicketQuery.builder().unassigned().minPriority(Ticket.Priority.KRYTYCZNY)
+                .sortBy(TicketSort.CREATED_AT).limit(7).build());
+        assertTrue(combined.plan().startsWith("pełny przegląd"), combined.plan());
+        assertTrue(combined.examined() < 100, combined.plan());
+    }
+
+    /**
+     * Wykonuje zapytanie i porównuje wynik z przeglądem wszystkich zgłoszeń.
+     */
+    private QueryResult run(TicketQuery query) {
+        QueryResult result = system.query(query);
+        List<String> expected = system.getAllTickets().stream()
+                .filter(query::matches)
+                .sorted(TicketListing.comparator(query.getSort()))
+                .limit(query.getLimit())
+                .map(Ticket::getTicketId)
+                .toList();
+        assertEquals(expected, result.tickets().stream().map(Ticket::getTicketId).toList(), result.plan());
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Warunkowe przejścia stanu zgłoszenia: odrzucenie technika null i przyszłość zapisu udanego przejścia.
+ */
+class TicketStateTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void closeIfAssignedToRejectsNullTechnician() {
+        Ticket ticket = ticket("TKT-90000");
+        assertThrows(IllegalArgumentException.class, () -> ticket.closeIfAssignedTo(null));
+        assertEquals(Ticket.Status.NOWE, ticket.getStatus());
+
+        assertTrue(ticket.assignIfNew("Jan"));
+        assertFalse(ticket.closeIfAssignedTo("Ewa"));
+        assertTrue(ticket.closeIfAssignedTo("Jan"));
+        assertEquals(Ticket.Status.ZAMKNIETE, ticket.getStatus());
+    }
+
+    @Test
+    void conditionalChangesReturnWriteFuture() throws Exception {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        system.addTechnician("Jan");
+        system.addTicket(ticket("TKT-90001"));
+
+        Optional<CompletableFuture<Void>> assigned = system.assignTicketIfNew("TKT-90001", "Jan");
+        assertTrue(assigned.isPresent());
+        assigned.get().get(5, TimeUnit.SECONDS);
+        assertTrue(system.assignTicketIfNew("TKT-90001", "Jan").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> system.closeTicketIfAssignedTo("TKT-90001", null));
+
+        Optional<CompletableFuture<Void>> closed = system.closeTicketIfAssignedTo("TKT-90001", "Jan");
+        assertTrue(closed.isPresent());
+        closed.get().get(5, TimeUnit.SECONDS);
+
+        // Po zakończeniu przyszłości zmiana przetrwa awarię
+        TicketSystem reopened = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        try {
+            Ticket ticket = reopened.findTicketById("TKT-90001").orElseThrow();
+            assertEquals(Ticket.Status.ZAMKNIETE, ticket.getStatus());
+            assertEquals("Jan", ticket.getAssignedTechnicianName());
+        } finally {
+            reopened.getChangeFeed().close();
+            reopened.getEventBus().close();
+            system.close();
+        }
+    }
+
+    private static Ticket ticket(String ticketId) {
+        return new Ticket(ticketId, "Brak dostępu do dysku", "Dysk sieciowy odrzuca logowanie", "Jan Wiśniewski",
+                "jan.wisniewski@firma.pl", Ticket.Priority.SREDNI);
+    }
+}
@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Przyszłości zapisu zwracane przez operacje {@link TicketSystem} i obsługa nieudanego zapisu dziennika.
+ */
+class TicketSystemDurabilityTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void completedWriteSurvivesCrash() throws Exception {
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        system.addTechnician("Jan").get(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> added = system.addTicket(ticket("TKT-30000"));
+        CompletableFuture<Void> assigned = system.assignTicket("TKT-30000", "Jan");
+        CompletableFuture<Void> closed = system.closeTicket("TKT-30000");
+        CompletableFuture.allOf(added, assigned, closed).get(5, TimeUnit.SECONDS);
+
+        // Bez zamykania - tak jak po awarii procesu
+        TicketSystem reopened = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+        Ticket ticket = reopened.findTicketById("TKT-30000").orElseThrow();
+        assertEquals(Ticket.Status.ZAMKNIETE, ticket.getStatus());
+        assertEquals("Jan", ticket.getAssignedTechnicianName());
+        reopened.close();
+    }
+
+    @Test
+    void failedJournalWriteIsPersistedBySnapshot() {
+        // Katalog w miejscu pliku dziennika - każdy zapis dziennika kończy się błędem
+        assertTrue(new File(directory, "tickets.journal").mkdir());
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.SYNC);
+        system.addTicket(ticket("TKT-30001")).join();
+
+        TicketSystem reopened = TicketSystem.open(directory, Journal.Durability.SYNC);
+        assertTrue(reopened.findTicketById("TKT-30001").isPresent());
+        stopBackgroundWork(system);
+        stopBackgroundWork(reopened);
+    }
+
+    @Test
+    void syncWriteReportsChangeThatCouldNotBePersisted() {
+        assertTrue(new File(directory, "tickets.journal").mkdir());
+        assertTrue(new File(directory, "tickets.bin.tmp").mkdir());
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.SYNC);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> system.addTicket(ticket("TKT-30002")));
+        assertTrue(e.getMessage().contains("nie udało się jej trwale zapisać"), e.getMessage());
+        // Zmiana pozostaje w pamięci
+        assertTrue(system.findTicketById("TKT-30002").isPresent());
+        stopBackgroundWork(system);
+    }
+
+    @Test
+    void periodicWriteFailureCompletesFutureExceptionally() {
+        assertTrue(new File(directory, "tickets.journal").mkdir());
+        assertTrue(new File(directory, "tickets.bin.tmp").mkdir());
+        TicketSystem system = TicketSystem.open(directory, Journal.Durability.PERIODIC);
+
+        CompletableFuture<Void> added = system.addTicket(ticket("TKT-30003"));
+        CompletionException e = assertThrows(CompletionException.class, added::join);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        stopBackgroundWork(system);
+    }
+
+    /**
+     * Zatrzymuje wątki systemu bez zapisu stanu. Strumień zmian ponawia zapis, dopóki dziennik nie jest trwały,
+     * więc bez zamknięcia tworzyłby pliki w katalogu usuwanym po teście.
+     */
+    private static void stopBackgroundWork(TicketSystem system) {
+        system.getChangeFeed().close();
+        system.getEventBus().close();
+    }
+
+    private static Ticket ticket(String ticketId) {
+        return new Ticket(ticketId, "Nie działa drukarka", "Drukarka nie drukuje", "Anna Kowalska",
+                "anna.kowalska@firma.pl", Ticket.Priority.SREDNI);
+    }
+}